@@ -0,0 +1,66 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.AbstractWagon;
+import org.apache.maven.wagon.resource.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Opens up the transfer loop of {@link AbstractWagon}, the rest of the wagon is never called.
+ */
+final class BenchmarkWagon
+    extends AbstractWagon
+{
+    public void transfer( Resource resource, InputStream input, OutputStream output, int requestType )
+        throws IOException
+    {
+        super.transfer( resource, input, output, requestType );
+    }
+
+    protected void openConnectionInternal()
+    {
+    }
+
+    protected void closeConnection()
+    {
+    }
+
+    public void get( String resourceName, File destination )
+    {
+        throw new UnsupportedOperationException( "The benchmarks only call transfer(), not get " + resourceName );
+    }
+
+    public boolean getIfNewer( String resourceName, File destination, long timestamp )
+    {
+        throw new UnsupportedOperationException(
+            "The benchmarks only call transfer(), not getIfNewer " + resourceName );
+    }
+
+    public void put( File source, String destination )
+    {
+        throw new UnsupportedOperationException( "The benchmarks only call transfer(), not put " + destination );
+    }
+}
@@ -0,0 +1,100 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.ChecksumObserver;
+import org.apache.maven.wagon.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the checksum of a 1 MB transfer, fed by chunks of the default buffer size, for each algorithm the
+ * repositories publish, inline and pipelined.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class ChecksumObserverBenchmark
+{
+    private static final int SIZE = 1024 * 1024;
+
+    private static final int CHUNK = 4096;
+
+    @Param( { "MD5", "SHA-1", "SHA-256", "SHA-512" } )
+    private String algorithm;
+
+    @Param( { "false", "true" } )
+    private boolean pipelined;
+
+    private ChecksumObserver observer;
+
+    private TransferEvent event;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp()
+        throws NoSuchAlgorithmException
+    {
+        observer = new ChecksumObserver( algorithm );
+        observer.setPipelined( pipelined );
+
+        content = new byte[SIZE];
+        new Random( 0 ).nextBytes( content );
+
+        Resource resource = new Resource( "benchmark.jar" );
+        resource.setContentLength( SIZE );
+        event = new TransferEvent( new BenchmarkWagon(), resource, TransferEvent.TRANSFER_PROGRESS,
+                                   TransferEvent.REQUEST_GET );
+    }
+
+    @Benchmark
+    public String checksum()
+    {
+        observer.transferStarted( event );
+        byte[] chunk = new byte[CHUNK];
+        for ( int offset = 0; offset < SIZE; offset += CHUNK )
+        {
+            // the wagons reuse their buffer, the observer must not keep it
+            System.arraycopy( content, offset, chunk, 0, CHUNK );
+            observer.transferProgress( event, chunk, CHUNK );
+        }
+        observer.transferCompleted( event );
+        return observer.getActualChecksum();
+    }
+}
@@ -0,0 +1,85 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.shared.http4.HtmlFileListParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of directory index pages, like the ones of a large group on a repository manager, by
+ * {@link HtmlFileListParser#parseFileList(String, java.io.InputStream)}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class HtmlFileListParserBenchmark
+{
+    private static final String BASE_URL = "http://repo.example.com/maven2/org/example/";
+
+    @Param( { "100", "10000" } )
+    private int entries;
+
+    private byte[] page;
+
+    @Setup
+    public void setUp()
+        throws UnsupportedEncodingException
+    {
+        StringBuilder html = new StringBuilder( entries * 120 );
+        html.append( "<html>\n<head><title>Index of /maven2/org/example</title></head>\n<body>\n" );
+        html.append( "<h1>Index of /maven2/org/example</h1>\n<pre><a href=\"../\">Parent Directory</a>\n" );
+        for ( int i = 0; i < entries; i++ )
+        {
+            String name = i % 4 == 0 ? "module-" + i + "/" : "artifact-" + i + ".jar";
+            html.append( "<a href=\"" ).append( name ).append( "\">" ).append( name ).append( "</a>" );
+            html.append( "                 2012-06-21 10:25   " ).append( i * 31 ).append( '\n' );
+        }
+        html.append( "</pre>\n<hr/>\n</body>\n</html>\n" );
+
+        page = html.toString().getBytes( "UTF-8" );
+    }
+
+    @Benchmark
+    public List<String> parseFileList()
+        throws TransferFailedException
+    {
+        return HtmlFileListParser.parseFileList( BASE_URL, new ByteArrayInputStream( page ) );
+    }
+}
@@ -0,0 +1,86 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.providers.ssh.LSParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of the <code>ls -FlA</code> output of large remote directories by
+ * {@link LSParser#parseFiles(String)}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class LSParserBenchmark
+{
+    @Param( { "100", "10000" } )
+    private int entries;
+
+    private final LSParser parser = new LSParser();
+
+    private String output;
+
+    @Setup
+    public void setUp()
+    {
+        StringBuilder ls = new StringBuilder( entries * 70 );
+        ls.append( "total " ).append( entries * 8 ).append( '\n' );
+        for ( int i = 0; i < entries; i++ )
+        {
+            if ( i % 4 == 0 )
+            {
+                ls.append( "drwxr-xr-x   2 deploy deploy     4096 2012-06-21 10:25 module-" ).append( i );
+                ls.append( "/\n" );
+            }
+            else
+            {
+                ls.append( "-rw-r--r--   1 deploy deploy " ).append( 1000 + i * 31 );
+                ls.append( " 2012-06-21 10:25 artifact-" ).append( i ).append( ".jar\n" );
+            }
+        }
+        output = ls.toString();
+    }
+
+    @Benchmark
+    public List<String> parseFiles()
+        throws TransferFailedException
+    {
+        return parser.parseFiles( output );
+    }
+}
@@ -0,0 +1,130 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the copy loop of the wagons, <code>AbstractWagon.transfer</code>, with the progress events it fires to the
+ * listeners.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class TransferBenchmark
+{
+    @Param( { "0", "1", "5" } )
+    private int listeners;
+
+    @Param( { "1024", "1048576" } )
+    private int size;
+
+    private BenchmarkWagon wagon;
+
+    private Resource resource;
+
+    private ByteArrayInputStream input;
+
+    private CountingListener counter;
+
+    @Setup
+    public void setUp()
+    {
+        wagon = new BenchmarkWagon();
+
+        counter = new CountingListener();
+        for ( int i = 0; i < listeners; i++ )
+        {
+            wagon.addTransferListener( i == 0 ? counter : new CountingListener() );
+        }
+
+        byte[] content = new byte[size];
+        new Random( 0 ).nextBytes( content );
+        input = new ByteArrayInputStream( content );
+
+        resource = new Resource( "benchmark.jar" );
+        resource.setContentLength( size );
+    }
+
+    @Benchmark
+    public long transfer()
+        throws IOException
+    {
+        input.reset();
+        wagon.transfer( resource, input, NullOutputStream.INSTANCE, TransferEvent.REQUEST_GET );
+        return counter.bytes;
+    }
+
+    /**
+     * A listener as cheap as can be, reading the content like a checksum observer does.
+     */
+    static final class CountingListener
+        implements TransferListener
+    {
+        private long bytes;
+
+        public void transferInitiated( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferStarted( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+            bytes += length + buffer[0];
+        }
+
+        public void transferCompleted( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferError( TransferEvent transferEvent )
+        {
+        }
+
+        public void debug( String message )
+        {
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.events.ProgressAwareTransferListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferEventSupport;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of progress events by a {@link TransferEventSupport} shared by several threads, the way
+ * a wagon shared by parallel transfers does, alone and while listeners are added and removed.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class TransferEventSupportBenchmark
+{
+    private static final int CHUNK = 4096;
+
+    @Param( { "1", "5" } )
+    private int rawListeners;
+
+    @Param( { "0", "1" } )
+    private int progressAwareListeners;
+
+    private TransferEventSupport support;
+
+    private BenchmarkWagon wagon;
+
+    private final byte[] buffer = new byte[CHUNK];
+
+    private final TransferListener churned = new NoOpListener();
+
+    @Setup
+    public void setUp()
+    {
+        wagon = new BenchmarkWagon();
+
+        support = new TransferEventSupport();
+        for ( int i = 0; i < rawListeners; i++ )
+        {
+            support.addTransferListener( new NoOpListener() );
+        }
+        for ( int i = 0; i < progressAwareListeners; i++ )
+        {
+            support.addTransferListener( new IntervalListener() );
+        }
+    }
+
+    /**
+     * The transfer of each thread.
+     */
+    @State( Scope.Thread )
+    public static class Transfer
+    {
+        private TransferEvent event;
+
+        @Setup
+        public void setUp( TransferEventSupportBenchmark benchmark )
+        {
+            Resource resource = new Resource( "benchmark.jar" );
+            resource.setContentLength( Long.MAX_VALUE );
+            event = new TransferEvent( benchmark.wagon, resource, TransferEvent.TRANSFER_PROGRESS,
+                                       TransferEvent.REQUEST_GET );
+        }
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public void dispatch( Transfer transfer )
+    {
+        support.fireTransferProgress( transfer.event, buffer, CHUNK );
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 3 )
+    public void dispatchWhileRegistering( Transfer transfer )
+    {
+        support.fireTransferProgress( transfer.event, buffer, CHUNK );
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 1 )
+    public void register()
+    {
+        support.addTransferListener( churned );
+        support.removeTransferListener( churned );
+    }
+
+    /**
+     * A listener which keeps no state, so that the threads only contend in the dispatch itself.
+     */
+    static class NoOpListener
+        implements TransferListener
+    {
+        public void transferInitiated( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferStarted( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+        }
+
+        public void transferCompleted( TransferEvent transferEvent )
+        {
+        }
+
+        public void transferError( TransferEvent transferEvent )
+        {
+        }
+
+        public void debug( String message )
+        {
+        }
+    }
+
+    /**
+     * A progress aware listener told about every 64 kB, like a progress bar.
+     */
+    static final class IntervalListener
+        extends NoOpListener
+        implements ProgressAwareTransferListener
+    {
+        public long getProgressByteInterval()
+        {
+            return 64 * 1024;
+        }
+
+        public long getProgressTimeInterval()
+        {
+            return 0;
+        }
+
+        public void transferProgress( TransferEvent transferEvent, long transferred )
+        {
+        }
+    }
+}
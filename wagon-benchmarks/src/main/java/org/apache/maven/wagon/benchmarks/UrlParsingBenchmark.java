@@ -0,0 +1,84 @@
+package org.apache.maven.wagon.benchmarks;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.PathUtils;
+import org.apache.maven.wagon.repository.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of repository URLs by {@link PathUtils}, which the wagons do again and again, and by
+ * {@link Repository#setUrl(String)}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class UrlParsingBenchmark
+{
+    @Param( { "http://repo.maven.apache.org/maven2", "https://user:secret@[::1]:8443/nexus/content/groups/public",
+        "scp://deploy@host.example.com:2222/var/www/repository", "file:///home/user/.m2/repository" } )
+    private String url;
+
+    @Benchmark
+    public void pathUtils( Blackhole blackhole )
+    {
+        blackhole.consume( PathUtils.protocol( url ) );
+        blackhole.consume( PathUtils.host( url ) );
+        blackhole.consume( PathUtils.port( url ) );
+        blackhole.consume( PathUtils.basedir( url ) );
+        blackhole.consume( PathUtils.user( url ) );
+        blackhole.consume( PathUtils.password( url ) );
+    }
+
+    private final Repository repository = new Repository();
+
+    @Benchmark
+    public Repository setUrl()
+    {
+        repository.setUrl( url );
+        return repository;
+    }
+
+    @Benchmark
+    public String repositoryGetters( Blackhole blackhole )
+    {
+        Repository repository = new Repository( "benchmark", url );
+        blackhole.consume( repository.getProtocol() );
+        blackhole.consume( repository.getHost() );
+        blackhole.consume( repository.getPort() );
+        return repository.getBasedir();
+    }
+}
@@ -0,0 +1,208 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * The results of a run of the {@link ProviderBenchmark}, written as JSON so that the runs of two releases can be
+ * compared, and as a table for the console.
+ */
+class BenchmarkReport
+{
+    private final String version;
+
+    private final Date date = new Date();
+
+    private final Map<String, String> settings = new LinkedHashMap<String, String>();
+
+    private final List<Result> results = new ArrayList<Result>();
+
+    private final Map<String, String> failures = new LinkedHashMap<String, String>();
+
+    BenchmarkReport( String version )
+    {
+        this.version = version;
+    }
+
+    void addSetting( String name, Object value )
+    {
+        settings.put( name, String.valueOf( value ) );
+    }
+
+    /**
+     * @param samples the measure of each iteration, in the given unit
+     */
+    void addResult( String provider, String operation, int concurrency, String unit, double[] samples )
+    {
+        results.add( new Result( provider, operation, concurrency, unit, samples ) );
+    }
+
+    /**
+     * Records a provider which could not be benchmarked, like scpexe where no scp client is installed.
+     */
+    void addFailure( String provider, Exception e )
+    {
+        failures.put( provider, e.getClass().getName() + ": " + e.getMessage() );
+    }
+
+    void write( File file )
+        throws IOException
+    {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+
+        PrintWriter out = new PrintWriter( new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" ) );
+        try
+        {
+            SimpleDateFormat format = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss'Z'" );
+            format.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+
+            out.println( "{" );
+            out.println( "  \"version\": " + quote( version ) + "," );
+            out.println( "  \"date\": " + quote( format.format( date ) ) + "," );
+            out.println( "  \"java\": " + quote( System.getProperty( "java.version" ) ) + "," );
+            out.println( "  \"os\": " + quote( System.getProperty( "os.name" ) + " " + System.getProperty( "os.arch" ) )
+                             + "," );
+            out.println( "  \"processors\": " + Runtime.getRuntime().availableProcessors() + "," );
+
+            out.println( "  \"settings\": {" );
+            int i = 0;
+            for ( Map.Entry<String, String> setting : settings.entrySet() )
+            {
+                out.println( "    " + quote( setting.getKey() ) + ": " + quote( setting.getValue() )
+                                 + ( ++i < settings.size() ? "," : "" ) );
+            }
+            out.println( "  }," );
+
+            out.println( "  \"results\": [" );
+            for ( i = 0; i < results.size(); i++ )
+            {
+                Result result = results.get( i );
+                out.print( "    { \"provider\": " + quote( result.provider ) + ", \"operation\": "
+                               + quote( result.operation ) + ", \"concurrency\": " + result.concurrency
+                               + ", \"unit\": " + quote( result.unit ) + ", \"median\": " + result.getMedian()
+                               + ", \"samples\": " + Arrays.toString( result.samples ) + " }" );
+                out.println( i + 1 < results.size() ? "," : "" );
+            }
+            out.println( "  ]," );
+
+            out.println( "  \"failures\": {" );
+            i = 0;
+            for ( Map.Entry<String, String> failure : failures.entrySet() )
+            {
+                out.println( "    " + quote( failure.getKey() ) + ": " + quote( failure.getValue() )
+                                 + ( ++i < failures.size() ? "," : "" ) );
+            }
+            out.println( "  }" );
+            out.println( "}" );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    void print( PrintStream out )
+    {
+        out.println();
+        out.println( "Wagon " + version + " providers" );
+        out.println();
+        out.println( String.format( "%-18s %-14s %11s %14s  %s", "provider", "operation", "concurrency", "median",
+                                    "unit" ) );
+        for ( Result result : results )
+        {
+            out.println( String.format( "%-18s %-14s %11d %14.1f  %s", result.provider, result.operation,
+                                        result.concurrency, result.getMedian(), result.unit ) );
+        }
+        for ( Map.Entry<String, String> failure : failures.entrySet() )
+        {
+            out.println( String.format( "%-18s failed: %s", failure.getKey(), failure.getValue() ) );
+        }
+    }
+
+    private static String quote( String value )
+    {
+        StringBuilder quoted = new StringBuilder( value.length() + 2 );
+        quoted.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                quoted.append( '\\' ).append( c );
+            }
+            else if ( c < ' ' )
+            {
+                quoted.append( String.format( "\\u%04x", (int) c ) );
+            }
+            else
+            {
+                quoted.append( c );
+            }
+        }
+        return quoted.append( '"' ).toString();
+    }
+
+    private static final class Result
+    {
+        private final String provider;
+
+        private final String operation;
+
+        private final int concurrency;
+
+        private final String unit;
+
+        private final double[] samples;
+
+        private Result( String provider, String operation, int concurrency, String unit, double[] samples )
+        {
+            this.provider = provider;
+            this.operation = operation;
+            this.concurrency = concurrency;
+            this.unit = unit;
+            this.samples = samples;
+        }
+
+        private double getMedian()
+        {
+            double[] sorted = samples.clone();
+            Arrays.sort( sorted );
+            int middle = sorted.length / 2;
+            return sorted.length % 2 == 1 ? sorted[middle] : ( sorted[middle - 1] + sorted[middle] ) / 2;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.providers.file.FileWagon;
+import org.apache.maven.wagon.repository.Repository;
+
+import java.io.File;
+
+/**
+ * The file provider, as the baseline of the network providers.
+ */
+class FileFixture
+    extends ProviderFixture
+{
+    private Repository repository;
+
+    FileFixture( String name )
+    {
+        super( name );
+    }
+
+    void start( File repositoryDirectory )
+    {
+        repository = new Repository( getName(), "file://" + repositoryDirectory.getAbsolutePath() );
+    }
+
+    void stop()
+    {
+    }
+
+    Repository getRepository()
+    {
+        return repository;
+    }
+
+    Wagon createWagon()
+    {
+        return new FileWagon();
+    }
+}
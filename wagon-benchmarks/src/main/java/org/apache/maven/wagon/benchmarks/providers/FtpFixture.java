@@ -0,0 +1,136 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.ConcurrentLoginPermission;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.providers.ftp.FtpWagon;
+import org.apache.maven.wagon.repository.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FTP provider against the FTP server of its tests.
+ */
+class FtpFixture
+    extends ProviderFixture
+{
+    private static final String USER = "admin";
+
+    private static final int MAX_LOGINS = 256;
+
+    private FtpServer server;
+
+    private int port;
+
+    FtpFixture( String name )
+    {
+        super( name );
+    }
+
+    void start( File repositoryDirectory )
+        throws Exception
+    {
+        port = getFreePort();
+
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setPort( port );
+
+        BaseUser user = new BaseUser();
+        user.setName( USER );
+        user.setPassword( USER );
+        user.setHomeDirectory( repositoryDirectory.getAbsolutePath() );
+
+        List<Authority> authorities = new ArrayList<Authority>();
+        authorities.add( new WritePermission() );
+        // one login for each concurrent wagon
+        authorities.add( new ConcurrentLoginPermission( 0, 0 ) );
+        user.setAuthorities( authorities );
+
+        UserManager userManager = new PropertiesUserManagerFactory().createUserManager();
+        userManager.save( user );
+
+        ConnectionConfigFactory connectionConfigFactory = new ConnectionConfigFactory();
+        connectionConfigFactory.setMaxLogins( MAX_LOGINS );
+
+        FtpServerFactory serverFactory = new FtpServerFactory();
+        serverFactory.setConnectionConfig( connectionConfigFactory.createConnectionConfig() );
+        serverFactory.addListener( "default", listenerFactory.createListener() );
+        serverFactory.setUserManager( userManager );
+
+        server = serverFactory.createServer();
+        server.start();
+    }
+
+    void stop()
+    {
+        if ( server != null )
+        {
+            server.stop();
+        }
+    }
+
+    Repository getRepository()
+    {
+        return new Repository( getName(), "ftp://localhost:" + port );
+    }
+
+    AuthenticationInfo getAuthenticationInfo()
+    {
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName( USER );
+        authenticationInfo.setPassword( USER );
+        return authenticationInfo;
+    }
+
+    Wagon createWagon()
+    {
+        return new FtpWagon();
+    }
+
+    private static int getFreePort()
+        throws IOException
+    {
+        ServerSocket socket = new ServerSocket( 0 );
+        try
+        {
+            return socket.getLocalPort();
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+}
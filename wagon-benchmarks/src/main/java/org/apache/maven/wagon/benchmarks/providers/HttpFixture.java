@@ -0,0 +1,100 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import it.could.webdav.DAVServlet;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.providers.http.HttpWagon;
+import org.apache.maven.wagon.providers.http.LightweightHttpWagon;
+import org.apache.maven.wagon.providers.http.LightweightHttpWagonAuthenticator;
+import org.apache.maven.wagon.providers.webdav.WebDavWagon;
+import org.apache.maven.wagon.repository.Repository;
+import org.apache.maven.wagon.tck.http.fixture.ServerFixture;
+import org.mortbay.jetty.servlet.ServletHolder;
+
+import java.io.File;
+
+/**
+ * The HTTP providers against the Jetty server of the HTTP TCK: the WebDAV provider against a WebDAV servlet, the
+ * others against a servlet storing what they put, as repository managers do.
+ */
+class HttpFixture
+    extends ProviderFixture
+{
+    private ServerFixture server;
+
+    HttpFixture( String name )
+    {
+        super( name );
+    }
+
+    void start( File repositoryDirectory )
+        throws Exception
+    {
+        server = new ServerFixture( false );
+
+        ServletHolder holder;
+        if ( "webdav".equals( getName() ) )
+        {
+            holder = new ServletHolder( new DAVServlet() );
+            holder.setInitParameter( "rootPath", repositoryDirectory.getAbsolutePath() );
+            holder.setInitParameter( "xmlOnly", "false" );
+        }
+        else
+        {
+            holder = new ServletHolder( new RepositoryServlet( repositoryDirectory ) );
+        }
+        server.getWebappContext().getServletHandler().addServletWithMapping( holder, "/*" );
+
+        server.start();
+    }
+
+    void stop()
+        throws Exception
+    {
+        if ( server != null )
+        {
+            server.stop();
+        }
+    }
+
+    Repository getRepository()
+    {
+        String protocol = "webdav".equals( getName() ) ? "dav" : "http";
+        return new Repository( getName(),
+                               protocol + "://" + ServerFixture.SERVER_HOST + ":" + server.getHttpPort() + "/" );
+    }
+
+    Wagon createWagon()
+    {
+        if ( "webdav".equals( getName() ) )
+        {
+            return new WebDavWagon();
+        }
+        if ( "http-lightweight".equals( getName() ) )
+        {
+            LightweightHttpWagon wagon = new LightweightHttpWagon();
+            wagon.setAuthenticator( new LightweightHttpWagonAuthenticator() );
+            return wagon;
+        }
+        return new HttpWagon();
+    }
+}
@@ -0,0 +1,472 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every provider against the local servers of their tests and reports, for each of them:
+ * <ul>
+ * <li>the throughput of the download and of the upload of a large file;</li>
+ * <li>the downloads and uploads of small files per second, at each concurrency;</li>
+ * <li>the files per second of uploading a tree of small files, with <code>putDirectory</code> where the provider
+ * supports it, at each concurrency.</li>
+ * </ul>
+ * At a concurrency of <i>n</i>, <i>n</i> threads share the work, each with its own connected wagon. The report is
+ * written to <code>target/provider-benchmark-<i>version</i>.json</code>, to be compared with the one of the previous
+ * release. The benchmark is configured with system properties:
+ * <pre>
+ * java -Dwagon.benchmark.providers=http,sftp -cp target/benchmarks.jar \
+ *     org.apache.maven.wagon.benchmarks.providers.ProviderBenchmark
+ * </pre>
+ * <ul>
+ * <li><code>wagon.benchmark.providers</code>: the providers to run, all of them by default;</li>
+ * <li><code>wagon.benchmark.concurrency</code>: the concurrencies to run at, <code>1,4,16</code> by default;</li>
+ * <li><code>wagon.benchmark.iterations</code>: how many times each measure is taken, <code>3</code> by default;</li>
+ * <li><code>wagon.benchmark.largeFileSize</code>: the size of the large file in MB, <code>64</code> by default;</li>
+ * <li><code>wagon.benchmark.smallFiles</code>: the number of small files, <code>1000</code> by default;</li>
+ * <li><code>wagon.benchmark.smallFileSize</code>: the size of the small files in bytes, <code>1024</code> by
+ * default;</li>
+ * <li><code>wagon.benchmark.treeFiles</code>: the number of files of the tree, <code>10000</code> by default;</li>
+ * <li><code>wagon.benchmark.directory</code>: where the files are, <code>target/provider-benchmark</code> by
+ * default;</li>
+ * <li><code>wagon.benchmark.report</code>: where to write the report.</li>
+ * </ul>
+ */
+public class ProviderBenchmark
+{
+    private static final String PREFIX = "wagon.benchmark.";
+
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private final String[] providers;
+
+    private final int[] concurrencies;
+
+    private final int iterations;
+
+    private final long largeFileSize;
+
+    private final int smallFiles;
+
+    private final int smallFileSize;
+
+    private final int treeFiles;
+
+    private final File directory;
+
+    private final File reportFile;
+
+    private final BenchmarkReport report;
+
+    private File largeFile;
+
+    private File[] smallSources;
+
+    private File[] treeDirectories;
+
+    public ProviderBenchmark( String version )
+    {
+        providers = getProperty( "providers", join( ProviderFixture.PROVIDERS ) ).split( "," );
+        concurrencies = toInts( getProperty( "concurrency", "1,4,16" ).split( "," ) );
+        iterations = Integer.parseInt( getProperty( "iterations", "3" ) );
+        largeFileSize = Long.parseLong( getProperty( "largeFileSize", "64" ) ) * 1024 * 1024;
+        smallFiles = Integer.parseInt( getProperty( "smallFiles", "1000" ) );
+        smallFileSize = Integer.parseInt( getProperty( "smallFileSize", "1024" ) );
+        treeFiles = Integer.parseInt( getProperty( "treeFiles", "10000" ) );
+        directory = new File( getProperty( "directory", "target/provider-benchmark" ) ).getAbsoluteFile();
+        reportFile = new File( getProperty( "report", "target/provider-benchmark-" + version + ".json" ) );
+
+        report = new BenchmarkReport( version );
+        report.addSetting( "providers", join( providers ) );
+        report.addSetting( "concurrency", getProperty( "concurrency", "1,4,16" ) );
+        report.addSetting( "iterations", iterations );
+        report.addSetting( "largeFileSize", largeFileSize );
+        report.addSetting( "smallFiles", smallFiles );
+        report.addSetting( "smallFileSize", smallFileSize );
+        report.addSetting( "treeFiles", treeFiles );
+    }
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        ProviderBenchmark benchmark = new ProviderBenchmark( getVersion() );
+        benchmark.run();
+    }
+
+    public void run()
+        throws IOException
+    {
+        FileUtils.deleteDirectory( directory );
+        createSources();
+
+        for ( String provider : providers )
+        {
+            ProviderFixture fixture = ProviderFixture.create( provider.trim() );
+            File repositoryDirectory = new File( directory, "repository-" + fixture.getName() );
+            repositoryDirectory.mkdirs();
+
+            System.out.println( "Benchmarking " + fixture.getName() );
+            try
+            {
+                fixture.start( repositoryDirectory );
+
+                benchmark( fixture );
+            }
+            catch ( Exception e )
+            {
+                System.out.println( fixture.getName() + " failed: " + e );
+                report.addFailure( fixture.getName(), e );
+            }
+            finally
+            {
+                try
+                {
+                    fixture.stop();
+                }
+                catch ( Exception e )
+                {
+                    // the next provider has its own server
+                }
+                FileUtils.deleteDirectory( repositoryDirectory );
+            }
+        }
+
+        report.write( reportFile );
+        report.print( System.out );
+        System.out.println();
+        System.out.println( "Report written to " + reportFile.getAbsolutePath() );
+    }
+
+    private void benchmark( final ProviderFixture fixture )
+        throws Exception
+    {
+        final File downloads = new File( directory, "downloads" );
+
+        // large file
+        double[] samples = new double[iterations];
+        for ( int i = 0; i < iterations; i++ )
+        {
+            long nanos = run( fixture, 1, 1, new Transfer()
+            {
+                public void run( Wagon wagon, int index )
+                    throws Exception
+                {
+                    wagon.put( largeFile, "large/" + largeFile.getName() );
+                }
+            } );
+            samples[i] = largeFileSize / BYTES_PER_MB / ( nanos / NANOS_PER_SECOND );
+        }
+        report.addResult( fixture.getName(), "put", 1, "MB/s", samples );
+
+        samples = new double[iterations];
+        for ( int i = 0; i < iterations; i++ )
+        {
+            long nanos = run( fixture, 1, 1, new Transfer()
+            {
+                public void run( Wagon wagon, int index )
+                    throws Exception
+                {
+                    wagon.get( "large/" + largeFile.getName(), new File( downloads, largeFile.getName() ) );
+                }
+            } );
+            samples[i] = largeFileSize / BYTES_PER_MB / ( nanos / NANOS_PER_SECOND );
+        }
+        report.addResult( fixture.getName(), "get", 1, "MB/s", samples );
+
+        // small files
+        for ( int concurrency : concurrencies )
+        {
+            samples = new double[iterations];
+            for ( int i = 0; i < iterations; i++ )
+            {
+                long nanos = run( fixture, concurrency, smallFiles, new Transfer()
+                {
+                    public void run( Wagon wagon, int index )
+                        throws Exception
+                    {
+                        File source = smallSources[index];
+                        wagon.put( source, "small/" + source.getName() );
+                    }
+                } );
+                samples[i] = smallFiles / ( nanos / NANOS_PER_SECOND );
+            }
+            report.addResult( fixture.getName(), "small-put", concurrency, "ops/s", samples );
+
+            samples = new double[iterations];
+            for ( int i = 0; i < iterations; i++ )
+            {
+                long nanos = run( fixture, concurrency, smallFiles, new Transfer()
+                {
+                    public void run( Wagon wagon, int index )
+                        throws Exception
+                    {
+                        String name = smallSources[index].getName();
+                        wagon.get( "small/" + name, new File( downloads, name ) );
+                    }
+                } );
+                samples[i] = smallFiles / ( nanos / NANOS_PER_SECOND );
+            }
+            report.addResult( fixture.getName(), "small-get", concurrency, "ops/s", samples );
+        }
+
+        // tree, each thread uploading whole directories of it
+        Wagon probe = fixture.createWagon();
+        final boolean directoryCopy = probe.supportsDirectoryCopy();
+        for ( final int concurrency : concurrencies )
+        {
+            samples = new double[iterations];
+            for ( int i = 0; i < iterations; i++ )
+            {
+                final String destination = "tree/" + concurrency + "-" + i + "/";
+                long nanos = run( fixture, concurrency, treeDirectories.length, new Transfer()
+                {
+                    public void run( Wagon wagon, int index )
+                        throws Exception
+                    {
+                        putDirectory( wagon, treeDirectories[index], destination + treeDirectories[index].getName(),
+                                      directoryCopy );
+                    }
+                } );
+                samples[i] = treeFiles / ( nanos / NANOS_PER_SECOND );
+            }
+            report.addResult( fixture.getName(), directoryCopy ? "put-directory" : "put-files", concurrency,
+                              "files/s", samples );
+        }
+    }
+
+    private static void putDirectory( Wagon wagon, File source, String destination, boolean directoryCopy )
+        throws Exception
+    {
+        if ( directoryCopy )
+        {
+            wagon.putDirectory( source, destination );
+        }
+        else
+        {
+            for ( File file : source.listFiles() )
+            {
+                wagon.put( file, destination + "/" + file.getName() );
+            }
+        }
+    }
+
+    /**
+     * Runs the given number of transfers with the given number of threads, each with its own wagon.
+     *
+     * @return how long the transfers took, in nanoseconds, not counting the connections
+     */
+    private long run( ProviderFixture fixture, int concurrency, int transfers, final Transfer transfer )
+        throws Exception
+    {
+        final List<Wagon> wagons = new ArrayList<Wagon>();
+        ExecutorService executor = Executors.newFixedThreadPool( concurrency );
+        try
+        {
+            for ( int i = 0; i < concurrency; i++ )
+            {
+                wagons.add( fixture.connectWagon() );
+            }
+
+            final AtomicInteger next = new AtomicInteger( transfers );
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+            long start = System.nanoTime();
+            for ( final Wagon wagon : wagons )
+            {
+                futures.add( executor.submit( new Callable<Void>()
+                {
+                    public Void call()
+                        throws Exception
+                    {
+                        for ( int index = next.decrementAndGet(); index >= 0; index = next.decrementAndGet() )
+                        {
+                            transfer.run( wagon, index );
+                        }
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    if ( e.getCause() instanceof Error )
+                    {
+                        throw (Error) e.getCause();
+                    }
+                    throw (Exception) e.getCause();
+                }
+            }
+            return System.nanoTime() - start;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            for ( Wagon wagon : wagons )
+            {
+                wagon.disconnect();
+            }
+        }
+    }
+
+    private void createSources()
+        throws IOException
+    {
+        Random random = new Random( 0 );
+
+        File sources = new File( directory, "sources" );
+        sources.mkdirs();
+
+        largeFile = new File( sources, "large.bin" );
+        byte[] buffer = new byte[1024 * 1024];
+        OutputStream out = new FileOutputStream( largeFile );
+        try
+        {
+            for ( long written = 0; written < largeFileSize; written += buffer.length )
+            {
+                random.nextBytes( buffer );
+                out.write( buffer, 0, (int) Math.min( buffer.length, largeFileSize - written ) );
+            }
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+
+        File small = new File( sources, "small" );
+        small.mkdirs();
+        smallSources = new File[smallFiles];
+        for ( int i = 0; i < smallFiles; i++ )
+        {
+            smallSources[i] = new File( small, "file-" + i + ".bin" );
+            write( smallSources[i], random );
+        }
+
+        File tree = new File( sources, "tree" );
+        treeDirectories = new File[( treeFiles + FILES_PER_DIRECTORY - 1 ) / FILES_PER_DIRECTORY];
+        for ( int i = 0; i < treeFiles; i++ )
+        {
+            int d = i / FILES_PER_DIRECTORY;
+            if ( treeDirectories[d] == null )
+            {
+                treeDirectories[d] = new File( tree, "directory-" + d );
+                treeDirectories[d].mkdirs();
+            }
+            write( new File( treeDirectories[d], "file-" + i + ".bin" ), random );
+        }
+    }
+
+    private void write( File file, Random random )
+        throws IOException
+    {
+        byte[] content = new byte[smallFileSize];
+        random.nextBytes( content );
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( content );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private static String getVersion()
+        throws IOException
+    {
+        Properties properties = new Properties();
+        InputStream in = ProviderBenchmark.class.getResourceAsStream( "benchmark.properties" );
+        try
+        {
+            if ( in != null )
+            {
+                properties.load( in );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+        return System.getProperty( PREFIX + "version", properties.getProperty( "version", "unknown" ) );
+    }
+
+    private static String getProperty( String name, String defaultValue )
+    {
+        return System.getProperty( PREFIX + name, defaultValue );
+    }
+
+    private static int[] toInts( String[] values )
+    {
+        int[] ints = new int[values.length];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            ints[i] = Integer.parseInt( values[i].trim() );
+        }
+        return ints;
+    }
+
+    private static String join( String[] values )
+    {
+        StringBuilder joined = new StringBuilder();
+        for ( String value : values )
+        {
+            joined.append( joined.length() > 0 ? "," : "" ).append( value.trim() );
+        }
+        return joined.toString();
+    }
+
+    /**
+     * A transfer of the benchmark, run by the thread owning the wagon.
+     */
+    private interface Transfer
+    {
+        void run( Wagon wagon, int index )
+            throws Exception;
+    }
+}
@@ -0,0 +1,117 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+import java.io.File;
+
+/**
+ * A provider and the local server it is benchmarked against, the same servers as the tests of the providers.
+ */
+abstract class ProviderFixture
+{
+    /**
+     * The names of the providers, in the order they are benchmarked.
+     */
+    static final String[] PROVIDERS = { "file", "http", "http-lightweight", "webdav", "scp", "sftp", "scpexe", "ftp" };
+
+    private final String name;
+
+    protected ProviderFixture( String name )
+    {
+        this.name = name;
+    }
+
+    /**
+     * @param name one of {@link #PROVIDERS}
+     * @return the fixture of the provider
+     * @throws IllegalArgumentException if the provider is not known
+     */
+    static ProviderFixture create( String name )
+    {
+        if ( "file".equals( name ) )
+        {
+            return new FileFixture( name );
+        }
+        if ( "http".equals( name ) || "http-lightweight".equals( name ) || "webdav".equals( name ) )
+        {
+            return new HttpFixture( name );
+        }
+        if ( "scp".equals( name ) || "sftp".equals( name ) || "scpexe".equals( name ) )
+        {
+            return new SshFixture( name );
+        }
+        if ( "ftp".equals( name ) )
+        {
+            return new FtpFixture( name );
+        }
+        throw new IllegalArgumentException( "Unknown provider: " + name );
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Starts the server, serving the given directory.
+     *
+     * @param repositoryDirectory the directory the repository is stored in
+     */
+    abstract void start( File repositoryDirectory )
+        throws Exception;
+
+    abstract void stop()
+        throws Exception;
+
+    /**
+     * @return the repository to connect the wagons to, once started
+     */
+    abstract Repository getRepository();
+
+    /**
+     * @return the authentication to connect with, <code>null</code> if none
+     */
+    AuthenticationInfo getAuthenticationInfo()
+    {
+        return null;
+    }
+
+    /**
+     * @return a new wagon of the provider, configured to run without a user
+     */
+    abstract Wagon createWagon()
+        throws Exception;
+
+    /**
+     * @return a new wagon of the provider, connected to the repository
+     */
+    Wagon connectWagon()
+        throws Exception
+    {
+        Wagon wagon = createWagon();
+        wagon.connect( getRepository(), getAuthenticationInfo() );
+        return wagon;
+    }
+}
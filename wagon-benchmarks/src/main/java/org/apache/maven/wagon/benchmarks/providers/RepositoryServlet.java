@@ -0,0 +1,99 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+
+/**
+ * Serves the files of a directory and stores the files put to it, creating their parent directories.
+ */
+class RepositoryServlet
+    extends HttpServlet
+{
+    private final File directory;
+
+    RepositoryServlet( File directory )
+    {
+        this.directory = directory;
+    }
+
+    protected void doGet( HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        File file = getFile( request );
+        if ( !file.isFile() )
+        {
+            response.sendError( HttpServletResponse.SC_NOT_FOUND );
+            return;
+        }
+
+        response.setContentType( "application/octet-stream" );
+        response.setContentLength( (int) file.length() );
+        response.setDateHeader( "Last-Modified", file.lastModified() );
+
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            IOUtil.copy( in, response.getOutputStream() );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    protected void doPut( HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        File file = getFile( request );
+        file.getParentFile().mkdirs();
+
+        OutputStream out = new FileOutputStream( file );
+        try
+        {
+            IOUtil.copy( request.getInputStream(), out );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+
+        response.setStatus( HttpServletResponse.SC_CREATED );
+    }
+
+    private File getFile( HttpServletRequest request )
+        throws IOException
+    {
+        String path = request.getPathInfo() != null ? request.getPathInfo() : "/";
+        return new File( directory, URLDecoder.decode( path, "UTF-8" ) );
+    }
+}
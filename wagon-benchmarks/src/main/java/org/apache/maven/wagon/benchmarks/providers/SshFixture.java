@@ -0,0 +1,169 @@
+package org.apache.maven.wagon.benchmarks.providers;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.providers.ssh.SshServerEmbedded;
+import org.apache.maven.wagon.providers.ssh.TestData;
+import org.apache.maven.wagon.providers.ssh.external.ScpExternalWagon;
+import org.apache.maven.wagon.providers.ssh.jsch.AbstractJschWagon;
+import org.apache.maven.wagon.providers.ssh.jsch.ScpWagon;
+import org.apache.maven.wagon.providers.ssh.jsch.SftpWagon;
+import org.apache.maven.wagon.providers.ssh.knownhost.KnownHostsProvider;
+import org.apache.maven.wagon.providers.ssh.knownhost.NullKnownHostProvider;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+
+/**
+ * The SSH providers against the embedded SSH server of their tests. The external scp provider cannot type a
+ * password, it authenticates with the key of the tests instead.
+ */
+class SshFixture
+    extends ProviderFixture
+{
+    private static final String KEY_RESOURCE = "ssh-keys/id_rsa";
+
+    private SshServerEmbedded server;
+
+    private File repositoryDirectory;
+
+    private File privateKey;
+
+    private File knownHosts;
+
+    SshFixture( String name )
+    {
+        super( name );
+    }
+
+    private boolean isExternal()
+    {
+        return "scpexe".equals( getName() );
+    }
+
+    void start( File repositoryDirectory )
+        throws Exception
+    {
+        this.repositoryDirectory = repositoryDirectory;
+
+        server = new SshServerEmbedded( getName(), Collections.singletonList( KEY_RESOURCE ), isExternal() );
+        server.start();
+
+        if ( isExternal() )
+        {
+            privateKey = copyPrivateKey();
+
+            knownHosts = File.createTempFile( "wagon-benchmarks", ".known_hosts" );
+            knownHosts.deleteOnExit();
+        }
+    }
+
+    void stop()
+        throws Exception
+    {
+        if ( server != null )
+        {
+            server.stop();
+        }
+    }
+
+    Repository getRepository()
+    {
+        return new Repository( getName(), getName() + "://" + TestData.getHostname() + ":" + server.getPort()
+            + repositoryDirectory.getAbsolutePath() );
+    }
+
+    AuthenticationInfo getAuthenticationInfo()
+    {
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName( TestData.getUserName() );
+        if ( isExternal() )
+        {
+            authenticationInfo.setPrivateKey( privateKey.getAbsolutePath() );
+        }
+        else
+        {
+            authenticationInfo.setPassword( TestData.getUserPassword() );
+        }
+        return authenticationInfo;
+    }
+
+    Wagon createWagon()
+    {
+        if ( isExternal() )
+        {
+            ScpExternalWagon wagon = new ScpExternalWagon();
+            wagon.setInteractive( false );
+            String args = "-o StrictHostKeyChecking=no -o UserKnownHostsFile=" + knownHosts.getAbsolutePath();
+            wagon.setScpArgs( args );
+            wagon.setSshArgs( args );
+            return wagon;
+        }
+
+        AbstractJschWagon wagon = "sftp".equals( getName() ) ? new SftpWagon() : new ScpWagon();
+        wagon.setInteractive( false );
+
+        KnownHostsProvider knownHostsProvider = new NullKnownHostProvider();
+        knownHostsProvider.setHostKeyChecking( "no" );
+        wagon.setKnownHostsProvider( knownHostsProvider );
+        return wagon;
+    }
+
+    /**
+     * The ssh client refuses keys others can read, the key is copied out of the classpath with restricted rights.
+     */
+    private static File copyPrivateKey()
+        throws IOException
+    {
+        File key = File.createTempFile( "wagon-benchmarks", ".id_rsa" );
+        key.deleteOnExit();
+
+        InputStream in = SshFixture.class.getClassLoader().getResourceAsStream( KEY_RESOURCE );
+        if ( in == null )
+        {
+            throw new IOException( "Cannot find the key " + KEY_RESOURCE + " in the classpath" );
+        }
+        OutputStream out = new FileOutputStream( key );
+        try
+        {
+            IOUtil.copy( in, out );
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+
+        key.setReadable( false, false );
+        key.setWritable( false, false );
+        key.setReadable( true, true );
+        key.setWritable( true, true );
+        return key;
+    }
+}
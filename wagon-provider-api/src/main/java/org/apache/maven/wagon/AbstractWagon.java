@@ -22,6 +22,7 @@ package org.apache.maven.wagon;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.cache.NegativeLookupCache;
 import org.apache.maven.wagon.events.SessionEvent;
 import org.apache.maven.wagon.events.SessionEventSupport;
 import org.apache.maven.wagon.events.SessionListener;
@@ -42,6 +43,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -55,6 +57,30 @@ public abstract class AbstractWagon
 {
     protected static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
 
+    /**
+     * Largest buffer a transfer will use, however large the resource.
+     *
+     * @since 2.3
+     */
+    protected static final int MAXIMUM_BUFFER_SIZE = DefaultBufferPool.MAXIMUM_BUFFER_SIZE;
+
+    /**
+     * Number of progress chunks a transfer of known length should at least be split into.
+     */
+    private static final int MINIMUM_AMOUNT_OF_TRANSFER_CHUNKS = 100;
+
+    /**
+     * Number of consecutive full reads after which the throughput of a transfer is looked at.
+     */
+    private static final int BUFFER_GROWTH_WINDOW = 16;
+
+    /**
+     * A window of full reads faster than this on average (in nanoseconds per read) doubles the buffer.
+     */
+    private static final long BUFFER_GROWTH_READ_NANOS = 1000L * 1000L;
+
+    private static final BufferPool DEFAULT_BUFFER_POOL = new DefaultBufferPool();
+
     protected Repository repository;
 
     protected SessionEventSupport sessionEventSupport = new SessionEventSupport();
@@ -85,6 +111,12 @@ public abstract class AbstractWagon
 
     private RepositoryPermissions permissionsOverride;
 
+    private BufferPool bufferPool = DEFAULT_BUFFER_POOL;
+
+    private NegativeLookupCache negativeLookupCache = NegativeLookupCache.getDefault();
+
+    private int putDirectoryParallelism = Integer.getInteger( "maven.wagon.putDirectory.parallelism", 1 );
+
     // ----------------------------------------------------------------------
     // Accessors
     // ----------------------------------------------------------------------
@@ -284,18 +316,50 @@ public abstract class AbstractWagon
     protected void getTransfer( Resource resource, File destination, InputStream input )
         throws TransferFailedException
     {
-        getTransfer( resource, destination, input, true, Integer.MAX_VALUE );
+        getTransfer( resource, destination, input, true, Long.MAX_VALUE );
     }
 
     protected void getTransfer( Resource resource, OutputStream output, InputStream input )
         throws TransferFailedException
     {
-        getTransfer( resource, output, input, true, Integer.MAX_VALUE );
+        getTransfer( resource, output, input, true, Long.MAX_VALUE );
     }
 
+    /**
+     * @param maxSize the maximum number of bytes to read from the input, {@link Integer#MAX_VALUE} for no limit
+     * @deprecated use {@link #getTransfer(Resource, File, InputStream, boolean, long)}
+     */
     protected void getTransfer( Resource resource, File destination, InputStream input, boolean closeInput,
                                 int maxSize )
         throws TransferFailedException
+    {
+        getTransferToFile( resource, destination, input, closeInput, toLongMaxSize( maxSize ) );
+    }
+
+    /**
+     * Calls {@link #getTransfer(Resource, File, InputStream, boolean, int)} when the maximum size fits, so that
+     * providers overriding it keep working, {@link Long#MAX_VALUE} being passed as {@link Integer#MAX_VALUE}.
+     *
+     * @param maxSize the maximum number of bytes to read from the input
+     * @since 2.3
+     */
+    protected void getTransfer( Resource resource, File destination, InputStream input, boolean closeInput,
+                                long maxSize )
+        throws TransferFailedException
+    {
+        if ( isIntMaxSize( maxSize ) )
+        {
+            getTransfer( resource, destination, input, closeInput, toIntMaxSize( maxSize ) );
+        }
+        else
+        {
+            getTransferToFile( resource, destination, input, closeInput, maxSize );
+        }
+    }
+
+    private void getTransferToFile( Resource resource, File destination, InputStream input, boolean closeInput,
+                                    long maxSize )
+        throws TransferFailedException
     {
         // ensure that the destination is created only when we are ready to transfer
         fireTransferDebug( "attempting to create parent directories for destination: " + destination.getName() );
@@ -330,9 +394,41 @@ public abstract class AbstractWagon
         fireGetCompleted( resource, destination );
     }
 
+    /**
+     * @param maxSize the maximum number of bytes to read from the input, {@link Integer#MAX_VALUE} for no limit
+     * @deprecated use {@link #getTransfer(Resource, OutputStream, InputStream, boolean, long)}
+     */
     protected void getTransfer( Resource resource, OutputStream output, InputStream input, boolean closeInput,
                                 int maxSize )
         throws TransferFailedException
+    {
+        getTransferToStream( resource, output, input, closeInput, toLongMaxSize( maxSize ) );
+    }
+
+    /**
+     * Calls {@link #getTransfer(Resource, OutputStream, InputStream, boolean, int)} when the maximum size fits, so
+     * that providers overriding it keep working, {@link Long#MAX_VALUE} being passed as {@link Integer#MAX_VALUE}.
+     *
+     * @param maxSize the maximum number of bytes to read from the input
+     * @since 2.3
+     */
+    protected void getTransfer( Resource resource, OutputStream output, InputStream input, boolean closeInput,
+                                long maxSize )
+        throws TransferFailedException
+    {
+        if ( isIntMaxSize( maxSize ) )
+        {
+            getTransfer( resource, output, input, closeInput, toIntMaxSize( maxSize ) );
+        }
+        else
+        {
+            getTransferToStream( resource, output, input, closeInput, maxSize );
+        }
+    }
+
+    private void getTransferToStream( Resource resource, OutputStream output, InputStream input, boolean closeInput,
+                                      long maxSize )
+        throws TransferFailedException
     {
         try
         {
@@ -452,8 +548,8 @@ public abstract class AbstractWagon
 
     /**
      * Write from {@link InputStream} to {@link OutputStream}.
-     * Equivalent to {@link #transfer(Resource, InputStream, OutputStream, int, int)} with a maxSize equals to
-     * {@link Integer#MAX_VALUE}
+     * Equivalent to {@link #transfer(Resource, InputStream, OutputStream, int, long)} with a maxSize equals to
+     * {@link Long#MAX_VALUE}
      *
      * @param resource    resource to transfer
      * @param input       input stream
@@ -464,46 +560,145 @@ public abstract class AbstractWagon
     protected void transfer( Resource resource, InputStream input, OutputStream output, int requestType )
         throws IOException
     {
-        transfer( resource, input, output, requestType, Integer.MAX_VALUE );
+        transfer( resource, input, output, requestType, Long.MAX_VALUE );
     }
 
     /**
-     * Write from {@link InputStream} to {@link OutputStream}.
-     * Equivalent to {@link #transfer(Resource, InputStream, OutputStream, int, int)} with a maxSize equals to
-     * {@link Integer#MAX_VALUE}
+     * @param maxSize the maximum number of bytes to transfer, {@link Integer#MAX_VALUE} for no limit
+     * @deprecated use {@link #transfer(Resource, InputStream, OutputStream, int, long)}
+     */
+    protected void transfer( Resource resource, InputStream input, OutputStream output, int requestType, int maxSize )
+        throws IOException
+    {
+        transferStream( resource, input, output, requestType, toLongMaxSize( maxSize ) );
+    }
+
+    /**
+     * Write from {@link InputStream} to {@link OutputStream}, until the end of the input or until maxSize bytes
+     * were written.
+     * <p/>
+     * Calls {@link #transfer(Resource, InputStream, OutputStream, int, int)} when the maximum size fits, so that
+     * providers overriding it keep working, {@link Long#MAX_VALUE} being passed as {@link Integer#MAX_VALUE}.
      *
      * @param resource    resource to transfer
      * @param input       input stream
      * @param output      output stream
      * @param requestType one of {@link TransferEvent#REQUEST_GET} or {@link TransferEvent#REQUEST_PUT}
-     * @param maxSize     size of the buffer
+     * @param maxSize     the maximum number of bytes to transfer
      * @throws IOException
+     * @since 2.3
      */
-    protected void transfer( Resource resource, InputStream input, OutputStream output, int requestType, int maxSize )
+    protected void transfer( Resource resource, InputStream input, OutputStream output, int requestType,
+                             long maxSize )
         throws IOException
     {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        if ( isIntMaxSize( maxSize ) )
+        {
+            transfer( resource, input, output, requestType, toIntMaxSize( maxSize ) );
+        }
+        else
+        {
+            transferStream( resource, input, output, requestType, maxSize );
+        }
+    }
 
-        TransferEvent transferEvent = new TransferEvent( this, resource, TransferEvent.TRANSFER_PROGRESS, requestType );
-        transferEvent.setTimestamp( System.currentTimeMillis() );
+    /**
+     * Before the <code>long</code> variants of the transfer methods, {@link Integer#MAX_VALUE} was the maximum size
+     * meaning no limit: unlimited transfers still go through the <code>int</code> variants, which read it as such.
+     */
+    private static boolean isIntMaxSize( long maxSize )
+    {
+        return maxSize < Integer.MAX_VALUE || maxSize == Long.MAX_VALUE;
+    }
+
+    private static int toIntMaxSize( long maxSize )
+    {
+        return maxSize == Long.MAX_VALUE ? Integer.MAX_VALUE : (int) maxSize;
+    }
+
+    private static long toLongMaxSize( int maxSize )
+    {
+        return maxSize == Integer.MAX_VALUE ? Long.MAX_VALUE : maxSize;
+    }
+
+    private void transferStream( Resource resource, InputStream input, OutputStream output, int requestType,
+                                 long maxSize )
+        throws IOException
+    {
+        byte[] buffer = bufferPool.acquire( getBufferCapacityForTransfer( resource.getContentLength() ) );
 
-        int remaining = maxSize;
-        while ( remaining > 0 )
+        try
         {
-            int n = input.read( buffer, 0, Math.min( buffer.length, remaining ) );
+            TransferEvent transferEvent = getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, requestType );
 
-            if ( n == -1 )
+            int fullReads = 0;
+            long windowStart = System.nanoTime();
+
+            long remaining = maxSize;
+            while ( remaining > 0 )
             {
-                break;
+                int n = input.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+
+                if ( n == -1 )
+                {
+                    break;
+                }
+
+                fireTransferProgress( transferEvent, buffer, n );
+
+                output.write( buffer, 0, n );
+
+                remaining -= n;
+
+                // grow the buffer while the source keeps filling it quickly
+                if ( n < buffer.length || buffer.length >= MAXIMUM_BUFFER_SIZE )
+                {
+                    fullReads = 0;
+                }
+                else if ( ++fullReads == BUFFER_GROWTH_WINDOW )
+                {
+                    long now = System.nanoTime();
+                    if ( now - windowStart < BUFFER_GROWTH_WINDOW * BUFFER_GROWTH_READ_NANOS )
+                    {
+                        byte[] larger = bufferPool.acquire( buffer.length * 2 );
+                        bufferPool.release( buffer );
+                        buffer = larger;
+                    }
+                    fullReads = 0;
+                    windowStart = now;
+                }
             }
+            output.flush();
 
-            fireTransferProgress( transferEvent, buffer, n );
+            flushTransferProgress( transferEvent );
+        }
+        finally
+        {
+            bufferPool.release( buffer );
+        }
+    }
 
-            output.write( buffer, 0, n );
+    /**
+     * Returns the size of the buffer to start a transfer of the given number of bytes with: large enough to keep the
+     * number of reads and progress events reasonable, small enough not to waste memory on small resources.
+     *
+     * @param numberOfBytes the length of the resource, or {@link WagonConstants#UNKNOWN_LENGTH} if not known
+     * @return the buffer capacity, between {@link #DEFAULT_BUFFER_SIZE} and {@link #MAXIMUM_BUFFER_SIZE}
+     * @since 2.3
+     */
+    protected int getBufferCapacityForTransfer( long numberOfBytes )
+    {
+        if ( numberOfBytes <= 0 )
+        {
+            return DEFAULT_BUFFER_SIZE;
+        }
 
-            remaining -= n;
+        long capacity = numberOfBytes / MINIMUM_AMOUNT_OF_TRANSFER_CHUNKS;
+        if ( capacity >= MAXIMUM_BUFFER_SIZE )
+        {
+            return MAXIMUM_BUFFER_SIZE;
         }
-        output.flush();
+        return Math.max( DEFAULT_BUFFER_SIZE, (int) capacity );
     }
 
     // ----------------------------------------------------------------------
@@ -515,14 +710,57 @@ public abstract class AbstractWagon
         transferEventSupport.fireTransferProgress( transferEvent, buffer, n );
     }
 
+    /**
+     * Reports progress without the transferred content, to be used when no listener needs it.
+     *
+     * @see TransferEventSupport#hasRawProgressListeners()
+     * @since 2.3
+     */
+    protected void fireTransferProgress( TransferEvent transferEvent, int n )
+    {
+        transferEventSupport.fireTransferProgress( transferEvent, n );
+    }
+
+    /**
+     * To be called when the transfer loop using the given progress event ends.
+     *
+     * @see TransferEventSupport#flushTransferProgress(TransferEvent)
+     * @since 2.3
+     */
+    protected void flushTransferProgress( TransferEvent transferEvent )
+    {
+        transferEventSupport.flushTransferProgress( transferEvent );
+    }
+
+    /**
+     * Returns a new event to notify the given phase of the transfer of a resource with. The progress of a transfer
+     * is notified with one event, which carries the number of bytes reported so far.
+     *
+     * @param resource    the transferred resource
+     * @param eventType   one of the <code>TransferEvent.TRANSFER_*</code> constants
+     * @param requestType one of {@link TransferEvent#REQUEST_GET} or {@link TransferEvent#REQUEST_PUT}
+     * @return the event, with its type and time set
+     * @since 2.3
+     */
+    protected TransferEvent getTransferEvent( Resource resource, int eventType, int requestType )
+    {
+        TransferEvent transferEvent = new TransferEvent( this, resource, eventType, requestType );
+
+        transferEvent.setTimestamp( System.currentTimeMillis() );
+        transferEvent.setNanoTime( System.nanoTime() );
+
+        return transferEvent;
+    }
+
     protected void fireGetCompleted( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
         TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_GET );
-
-        transferEvent.setTimestamp( timestamp );
+            getTransferEvent( resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_GET );
 
         transferEvent.setLocalFile( localFile );
 
@@ -531,12 +769,13 @@ public abstract class AbstractWagon
 
     protected void fireGetStarted( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
         TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_GET );
-
-        transferEvent.setTimestamp( timestamp );
+            getTransferEvent( resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_GET );
 
         transferEvent.setLocalFile( localFile );
 
@@ -545,12 +784,13 @@ public abstract class AbstractWagon
 
     protected void fireGetInitiated( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
         TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_INITIATED, TransferEvent.REQUEST_GET );
-
-        transferEvent.setTimestamp( timestamp );
+            getTransferEvent( resource, TransferEvent.TRANSFER_INITIATED, TransferEvent.REQUEST_GET );
 
         transferEvent.setLocalFile( localFile );
 
@@ -559,12 +799,13 @@ public abstract class AbstractWagon
 
     protected void firePutInitiated( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
         TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_INITIATED, TransferEvent.REQUEST_PUT );
-
-        transferEvent.setTimestamp( timestamp );
+            getTransferEvent( resource, TransferEvent.TRANSFER_INITIATED, TransferEvent.REQUEST_PUT );
 
         transferEvent.setLocalFile( localFile );
 
@@ -573,12 +814,15 @@ public abstract class AbstractWagon
 
     protected void firePutCompleted( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        forgetMissing( resource.getName() );
 
-        TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_PUT );
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
-        transferEvent.setTimestamp( timestamp );
+        TransferEvent transferEvent =
+            getTransferEvent( resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_PUT );
 
         transferEvent.setLocalFile( localFile );
 
@@ -587,12 +831,13 @@ public abstract class AbstractWagon
 
     protected void firePutStarted( Resource resource, File localFile )
     {
-        long timestamp = System.currentTimeMillis();
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
 
         TransferEvent transferEvent =
-            new TransferEvent( this, resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_PUT );
-
-        transferEvent.setTimestamp( timestamp );
+            getTransferEvent( resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_PUT );
 
         transferEvent.setLocalFile( localFile );
 
@@ -601,6 +846,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionDisconnected()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_DISCONNECTED );
@@ -612,6 +862,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionDisconnecting()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_DISCONNECTING );
@@ -623,6 +878,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionLoggedIn()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_LOGGED_IN );
@@ -634,6 +894,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionLoggedOff()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_LOGGED_OFF );
@@ -645,6 +910,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionOpened()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_OPENED );
@@ -656,6 +926,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionOpening()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_OPENING );
@@ -667,6 +942,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionConnectionRefused()
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, SessionEvent.SESSION_CONNECTION_REFUSED );
@@ -678,6 +958,11 @@ public abstract class AbstractWagon
 
     protected void fireSessionError( Exception exception )
     {
+        if ( !sessionEventSupport.hasListeners() )
+        {
+            return;
+        }
+
         long timestamp = System.currentTimeMillis();
 
         SessionEvent sessionEvent = new SessionEvent( this, exception );
@@ -730,7 +1015,13 @@ public abstract class AbstractWagon
 
     protected void fireTransferError( Resource resource, Exception e, int requestType )
     {
-        TransferEvent transferEvent = new TransferEvent( this, resource, e, requestType );
+        if ( !transferEventSupport.hasListeners() )
+        {
+            return;
+        }
+
+        TransferEvent transferEvent = getTransferEvent( resource, TransferEvent.TRANSFER_ERROR, requestType );
+        transferEvent.setException( e );
         transferEventSupport.fireTransferError( transferEvent );
     }
 
@@ -762,10 +1053,9 @@ public abstract class AbstractWagon
     protected void postProcessListeners( Resource resource, File source, int requestType )
         throws TransferFailedException
     {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        byte[] buffer = bufferPool.acquire( getBufferCapacityForTransfer( source.length() ) );
 
-        TransferEvent transferEvent = new TransferEvent( this, resource, TransferEvent.TRANSFER_PROGRESS, requestType );
-        transferEvent.setTimestamp( System.currentTimeMillis() );
+        TransferEvent transferEvent = getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, requestType );
         transferEvent.setLocalFile( source );
 
         InputStream input = null;
@@ -784,6 +1074,8 @@ public abstract class AbstractWagon
 
                 fireTransferProgress( transferEvent, buffer, n );
             }
+
+            flushTransferProgress( transferEvent );
         }
         catch ( IOException e )
         {
@@ -794,6 +1086,8 @@ public abstract class AbstractWagon
         finally
         {
             IOUtil.close( input );
+
+            bufferPool.release( buffer );
         }
     }
 
@@ -808,6 +1102,80 @@ public abstract class AbstractWagon
         return false;
     }
 
+    /**
+     * Uploads a directory with this wagon and, up to {@link #getPutDirectoryParallelism()} connections in all, with
+     * wagons created by {@link #createSiblingWagon()} and connected to the repository like this one. The events of
+     * their transfers go to the transfer listeners of this wagon. If a connection cannot be opened, the directory is
+     * uploaded with the ones already open.
+     *
+     * @param upload the directory to upload
+     * @since 2.3
+     */
+    protected void uploadDirectory( DirectoryUpload upload )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        List<AbstractWagon> siblings = new ArrayList<AbstractWagon>();
+        try
+        {
+            for ( int i = 1; i < Math.min( putDirectoryParallelism, upload.getFileCount() ); i++ )
+            {
+                AbstractWagon sibling = createSiblingWagon();
+                if ( sibling == null )
+                {
+                    break;
+                }
+
+                sibling.connectionTimeout = connectionTimeout;
+                sibling.readTimeout = readTimeout;
+                sibling.interactive = interactive;
+                sibling.permissionsOverride = permissionsOverride;
+                sibling.bufferPool = bufferPool;
+                sibling.negativeLookupCache = negativeLookupCache;
+                sibling.setTransferEventSupport( transferEventSupport );
+
+                try
+                {
+                    sibling.connect( repository, authenticationInfo, proxyInfoProvider );
+                }
+                catch ( WagonException e )
+                {
+                    fireTransferDebug( "Uploading with " + i + " connections only: " + e.getMessage() );
+                    break;
+                }
+                siblings.add( sibling );
+            }
+
+            upload.upload( this, siblings );
+        }
+        finally
+        {
+            for ( AbstractWagon sibling : siblings )
+            {
+                try
+                {
+                    sibling.disconnect();
+                }
+                catch ( ConnectionException e )
+                {
+                    // the directory is uploaded all the same
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a wagon of the same kind as this one, with the same configuration but not connected, to upload the
+     * files of a directory in parallel. This implementation returns <code>null</code>, directories being uploaded
+     * with this wagon only.
+     *
+     * @return a new wagon, or <code>null</code> if this wagon does not support it
+     * @since 2.3
+     */
+    protected AbstractWagon createSiblingWagon()
+    {
+        return null;
+    }
+
     protected static String getPath( String basedir, String dir )
     {
         String path;
@@ -865,6 +1233,98 @@ public abstract class AbstractWagon
         this.permissionsOverride = permissionsOverride;
     }
 
+    /**
+     * @return the pool the transfer buffers are taken from
+     * @since 2.3
+     */
+    public BufferPool getBufferPool()
+    {
+        return bufferPool;
+    }
+
+    /**
+     * @param bufferPool the pool the transfer buffers are taken from
+     * @since 2.3
+     */
+    public void setBufferPool( BufferPool bufferPool )
+    {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * @return the cache of the resources known to be missing from the repository
+     * @since 2.3
+     */
+    public NegativeLookupCache getNegativeLookupCache()
+    {
+        return negativeLookupCache;
+    }
+
+    /**
+     * @param negativeLookupCache the cache of the resources known to be missing from the repository
+     * @since 2.3
+     */
+    public void setNegativeLookupCache( NegativeLookupCache negativeLookupCache )
+    {
+        this.negativeLookupCache = negativeLookupCache;
+    }
+
+    /**
+     * To be checked before looking for a resource in the repository.
+     *
+     * @return whether the resource was recently found missing from the repository
+     * @since 2.3
+     */
+    protected boolean isKnownMissing( String resourceName )
+    {
+        return repository != null && negativeLookupCache.isMissing( repository.getUrl(), resourceName );
+    }
+
+    /**
+     * To be called when the repository says a resource does not exist.
+     *
+     * @since 2.3
+     */
+    protected void recordMissing( String resourceName )
+    {
+        if ( repository != null )
+        {
+            negativeLookupCache.recordMissing( repository.getUrl(), resourceName );
+        }
+    }
+
+    /**
+     * To be called when a resource is created in the repository; done for the uploads firing their completion.
+     *
+     * @since 2.3
+     */
+    protected void forgetMissing( String resourceName )
+    {
+        if ( repository != null )
+        {
+            negativeLookupCache.forget( repository.getUrl(), resourceName );
+        }
+    }
+
+    /**
+     * @return the number of connections a directory is uploaded with at most, by the wagons which support it
+     * @since 2.3
+     */
+    public int getPutDirectoryParallelism()
+    {
+        return putDirectoryParallelism;
+    }
+
+    /**
+     * @param putDirectoryParallelism the number of connections a directory is uploaded with at most, by the wagons
+     *                                which support it, <code>1</code> by default
+     * @since 2.3
+     */
+    public void setPutDirectoryParallelism( int putDirectoryParallelism )
+    {
+        this.putDirectoryParallelism = putDirectoryParallelism;
+    }
+
     public void setReadTimeout( int readTimeout )
     {
         this.readTimeout = readTimeout;
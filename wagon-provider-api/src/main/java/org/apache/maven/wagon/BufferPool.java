@@ -0,0 +1,47 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Source of the byte buffers used by the transfer loops of the wagons.
+ * <p/>
+ * A buffer obtained with {@link #acquire(int)} is owned by the caller until it is handed back with
+ * {@link #release(byte[])}; it must not be used afterwards.
+ *
+ * @since 2.3
+ */
+public interface BufferPool
+{
+    /**
+     * Returns a buffer of at least the given capacity. The content of the buffer is undefined.
+     *
+     * @param minimumCapacity the minimum number of bytes the buffer must hold
+     * @return the buffer, never <code>null</code>
+     */
+    byte[] acquire( int minimumCapacity );
+
+    /**
+     * Gives a buffer obtained from {@link #acquire(int)} back to the pool.
+     * If buffer is <code>null</code>, no exception is thrown and no action is performed.
+     *
+     * @param buffer the buffer to release
+     */
+    void release( byte[] buffer );
+}
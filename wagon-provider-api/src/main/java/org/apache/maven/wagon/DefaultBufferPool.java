@@ -0,0 +1,186 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BufferPool} keeping buffers in power of two size classes, from {@link #MINIMUM_BUFFER_SIZE} up to
+ * {@link #MAXIMUM_BUFFER_SIZE}.
+ * <p/>
+ * Every thread keeps one buffer per size class for itself, so a thread doing transfers one after the other never
+ * touches shared state. Buffers released while that slot is taken go to a shared pool, bounded per size class.
+ * Requests above the largest size class are always allocated and never pooled.
+ *
+ * @since 2.3
+ */
+public class DefaultBufferPool
+    implements BufferPool
+{
+    public static final int MINIMUM_BUFFER_SIZE = 1024 * 4;
+
+    public static final int MAXIMUM_BUFFER_SIZE = 1024 * 512;
+
+    /**
+     * Default number of buffers kept in the shared pool for each size class.
+     */
+    public static final int DEFAULT_MAX_SHARED_BUFFERS = 8;
+
+    private static final int SIZE_CLASSES =
+        Integer.numberOfTrailingZeros( MAXIMUM_BUFFER_SIZE ) - Integer.numberOfTrailingZeros( MINIMUM_BUFFER_SIZE ) + 1;
+
+    private final ThreadLocal<byte[][]> localBuffers = new ThreadLocal<byte[][]>()
+    {
+        protected byte[][] initialValue()
+        {
+            return new byte[SIZE_CLASSES][];
+        }
+    };
+
+    private final Queue<byte[]>[] sharedBuffers;
+
+    private final AtomicInteger[] sharedCounts;
+
+    private final int maxSharedBuffers;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public DefaultBufferPool()
+    {
+        this( DEFAULT_MAX_SHARED_BUFFERS );
+    }
+
+    /**
+     * @param maxSharedBuffers maximum number of buffers kept in the shared pool for each size class
+     */
+    @SuppressWarnings( "unchecked" )
+    public DefaultBufferPool( int maxSharedBuffers )
+    {
+        this.maxSharedBuffers = maxSharedBuffers;
+
+        sharedBuffers = new Queue[SIZE_CLASSES];
+        sharedCounts = new AtomicInteger[SIZE_CLASSES];
+        for ( int i = 0; i < SIZE_CLASSES; i++ )
+        {
+            sharedBuffers[i] = new ConcurrentLinkedQueue<byte[]>();
+            sharedCounts[i] = new AtomicInteger();
+        }
+    }
+
+    public byte[] acquire( int minimumCapacity )
+    {
+        if ( minimumCapacity > MAXIMUM_BUFFER_SIZE )
+        {
+            misses.incrementAndGet();
+
+            return new byte[minimumCapacity];
+        }
+
+        int sizeClass = sizeClassOf( minimumCapacity );
+
+        byte[][] local = localBuffers.get();
+        byte[] buffer = local[sizeClass];
+        if ( buffer != null )
+        {
+            local[sizeClass] = null;
+
+            hits.incrementAndGet();
+
+            return buffer;
+        }
+
+        buffer = sharedBuffers[sizeClass].poll();
+        if ( buffer != null )
+        {
+            sharedCounts[sizeClass].decrementAndGet();
+
+            hits.incrementAndGet();
+
+            return buffer;
+        }
+
+        misses.incrementAndGet();
+
+        return new byte[MINIMUM_BUFFER_SIZE << sizeClass];
+    }
+
+    public void release( byte[] buffer )
+    {
+        if ( buffer == null || buffer.length > MAXIMUM_BUFFER_SIZE || buffer.length < MINIMUM_BUFFER_SIZE
+            || Integer.bitCount( buffer.length ) != 1 )
+        {
+            return;
+        }
+
+        int sizeClass = sizeClassOf( buffer.length );
+
+        byte[][] local = localBuffers.get();
+        if ( local[sizeClass] == null )
+        {
+            local[sizeClass] = buffer;
+
+            return;
+        }
+
+        if ( sharedCounts[sizeClass].incrementAndGet() <= maxSharedBuffers )
+        {
+            sharedBuffers[sizeClass].offer( buffer );
+        }
+        else
+        {
+            sharedCounts[sizeClass].decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of buffers handed out from the pool
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of buffers that had to be allocated
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    public String toString()
+    {
+        return "DefaultBufferPool[hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+    private static int sizeClassOf( int capacity )
+    {
+        if ( capacity <= MINIMUM_BUFFER_SIZE )
+        {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros( capacity - 1 ) - Integer.numberOfTrailingZeros( MINIMUM_BUFFER_SIZE );
+    }
+}
@@ -0,0 +1,373 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.authorization.AuthorizationException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads a local directory tree, walked once, with one or several connected wagons.
+ * <p/>
+ * The remote directories are created first, parents before their children and each once: by
+ * {@link #createDirectory(Wagon, String)} when the wagon can, or else by uploading the first file of each directory,
+ * the wagon creating the parent directories of what it puts. The other files are then uploaded by all the wagons at
+ * once, each taking the next file not uploaded yet, so that no two wagons race to create the same directory. The
+ * first failure stops the upload.
+ *
+ * @since 2.3
+ */
+public class DirectoryUpload
+{
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory()
+    {
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "wagon-put-directory" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
+    /**
+     * The remote directories, parents first.
+     */
+    private final List<String> directories = new ArrayList<String>();
+
+    private final List<FileUpload> files = new ArrayList<FileUpload>();
+
+    /**
+     * The first file of each remote directory with files.
+     */
+    private final Map<String, FileUpload> firstFiles = new HashMap<String, FileUpload>();
+
+    private final List<DirectoryUploadListener> listeners = new ArrayList<DirectoryUploadListener>();
+
+    private final AtomicInteger uploadedCount = new AtomicInteger();
+
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    /**
+     * @param sourceDirectory      the local directory to upload
+     * @param destinationDirectory the remote directory to upload it as, relative to the repository, <code>""</code>
+     *                             or <code>"."</code> for the repository itself
+     */
+    public DirectoryUpload( File sourceDirectory, String destinationDirectory )
+    {
+        LinkedList<File> queue = new LinkedList<File>();
+        LinkedList<String> paths = new LinkedList<String>();
+
+        queue.add( sourceDirectory );
+        paths.add( normalize( destinationDirectory ) );
+
+        // breadth first, so that a directory is always before its subdirectories
+        while ( !queue.isEmpty() )
+        {
+            File directory = queue.removeFirst();
+            String path = paths.removeFirst();
+
+            if ( path.length() > 0 )
+            {
+                directories.add( path );
+            }
+
+            File[] children = directory.listFiles();
+            if ( children == null )
+            {
+                continue;
+            }
+
+            for ( int i = 0; i < children.length; i++ )
+            {
+                File child = children[i];
+                String resourceName = path.length() > 0 ? path + "/" + child.getName() : child.getName();
+
+                if ( child.isDirectory() )
+                {
+                    queue.add( child );
+                    paths.add( resourceName );
+                }
+                else
+                {
+                    FileUpload file = new FileUpload( child, resourceName );
+                    files.add( file );
+                    if ( !firstFiles.containsKey( path ) )
+                    {
+                        firstFiles.put( path, file );
+                    }
+                }
+            }
+        }
+    }
+
+    private static String normalize( String destinationDirectory )
+    {
+        String path = destinationDirectory != null ? destinationDirectory : "";
+        while ( path.endsWith( "/" ) )
+        {
+            path = path.substring( 0, path.length() - 1 );
+        }
+        return ".".equals( path ) ? "" : path;
+    }
+
+    /**
+     * @return the remote directories to create, relative to the repository, parents first
+     */
+    public List<String> getDirectories()
+    {
+        return directories;
+    }
+
+    /**
+     * @return the number of files to upload
+     */
+    public int getFileCount()
+    {
+        return files.size();
+    }
+
+    public void addListener( DirectoryUploadListener listener )
+    {
+        listeners.add( listener );
+    }
+
+    public void removeListener( DirectoryUploadListener listener )
+    {
+        listeners.remove( listener );
+    }
+
+    /**
+     * Uploads the directory with a single wagon, one file after the other.
+     *
+     * @param wagon a connected wagon
+     */
+    public void upload( Wagon wagon )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        upload( wagon, new ArrayList<Wagon>() );
+    }
+
+    /**
+     * Uploads the directory with several wagons connected to the same repository: the calling thread creates the
+     * directories with the first wagon, and then uploads files with it while a thread for each additional wagon does
+     * the same.
+     *
+     * @param wagon            a connected wagon
+     * @param additionalWagons other wagons connected to the same repository, possibly none
+     */
+    public void upload( Wagon wagon, List<? extends Wagon> additionalWagons )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        uploadedCount.set( 0 );
+        uploadedBytes.set( 0 );
+
+        Set<FileUpload> uploaded = new HashSet<FileUpload>();
+        for ( String directory : directories )
+        {
+            if ( !createDirectory( wagon, directory ) )
+            {
+                FileUpload file = firstFiles.get( directory );
+                if ( file != null )
+                {
+                    put( wagon, file );
+                    uploaded.add( file );
+                }
+            }
+        }
+
+        List<FileUpload> remaining = new ArrayList<FileUpload>();
+        for ( FileUpload file : files )
+        {
+            if ( !uploaded.contains( file ) )
+            {
+                remaining.add( file );
+            }
+        }
+
+        final Uploader uploader = new Uploader( remaining );
+
+        int threads = Math.min( additionalWagons.size(), remaining.size() - 1 );
+        if ( threads < 1 )
+        {
+            uploader.run( wagon );
+            uploader.rethrow();
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads, THREAD_FACTORY );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for ( int i = 0; i < threads; i++ )
+            {
+                final Wagon additionalWagon = additionalWagons.get( i );
+                futures.add( executor.submit( new Runnable()
+                {
+                    public void run()
+                    {
+                        uploader.run( additionalWagon );
+                    }
+                } ) );
+            }
+
+            uploader.run( wagon );
+
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            uploader.fail( new TransferFailedException( "Interrupted while uploading a directory" ) );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        uploader.rethrow();
+    }
+
+    /**
+     * Creates a remote directory, whose parent directory exists already, if the wagon can do so without uploading a
+     * file. This implementation cannot.
+     *
+     * @param wagon     the wagon to create the directory with
+     * @param directory the directory, relative to the repository
+     * @return <code>true</code> if the directory exists now, <code>false</code> to have it created by the upload of
+     *         its first file
+     */
+    protected boolean createDirectory( Wagon wagon, String directory )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        return false;
+    }
+
+    private void put( Wagon wagon, FileUpload file )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        wagon.put( file.file, file.resourceName );
+
+        int count = uploadedCount.incrementAndGet();
+        long bytes = uploadedBytes.addAndGet( file.file.length() );
+        for ( DirectoryUploadListener listener : listeners )
+        {
+            listener.fileUploaded( file.resourceName, count, files.size(), bytes );
+        }
+    }
+
+    private static final class FileUpload
+    {
+        private final File file;
+
+        private final String resourceName;
+
+        private FileUpload( File file, String resourceName )
+        {
+            this.file = file;
+            this.resourceName = resourceName;
+        }
+    }
+
+    /**
+     * The files uploaded by all the wagons at once, each wagon taking the next one until none is left or one failed.
+     */
+    private final class Uploader
+    {
+        private final List<FileUpload> files;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private WagonException failure;
+
+        private Uploader( List<FileUpload> files )
+        {
+            this.files = files;
+        }
+
+        void run( Wagon wagon )
+        {
+            for ( int i = next.getAndIncrement(); i < files.size(); i = next.getAndIncrement() )
+            {
+                try
+                {
+                    put( wagon, files.get( i ) );
+                }
+                catch ( WagonException e )
+                {
+                    fail( e );
+                }
+            }
+        }
+
+        synchronized void fail( WagonException e )
+        {
+            next.set( files.size() );
+
+            if ( failure == null )
+            {
+                failure = e;
+            }
+        }
+
+        synchronized void rethrow()
+            throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+        {
+            if ( failure instanceof ResourceDoesNotExistException )
+            {
+                throw (ResourceDoesNotExistException) failure;
+            }
+            if ( failure instanceof AuthorizationException )
+            {
+                throw (AuthorizationException) failure;
+            }
+            if ( failure != null )
+            {
+                throw (TransferFailedException) failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Follows the progress of a whole {@link DirectoryUpload}, while the transfer listeners of its wagons follow each
+ * file. It is called from the threads of the upload, concurrently.
+ *
+ * @since 2.3
+ */
+public interface DirectoryUploadListener
+{
+    /**
+     * @param resourceName  the name of the file just uploaded in the repository
+     * @param uploadedCount the number of files of the directory uploaded so far, this one included
+     * @param fileCount     the number of files of the directory
+     * @param uploadedBytes the number of bytes of the files uploaded so far
+     */
+    void fileUploaded( String resourceName, int uploadedCount, int fileCount, long uploadedBytes );
+}
@@ -33,6 +33,20 @@ public class InputData
 
     private Resource resource;
 
+    private long resumeOffset;
+
+    private String resumeValidator;
+
+    private long offset;
+
+    private String validator;
+
+    private String conditionalEntityTag;
+
+    private String entityTag;
+
+    private boolean notModified;
+
     public InputStream getInputStream()
     {
         return inputStream;
@@ -53,4 +67,145 @@ public class InputData
         this.resource = resource;
     }
 
+    /**
+     * @return the number of bytes of the resource the wagon already has, which the stream may skip; <code>0</code>
+     *         to get the whole resource
+     * @since 2.3
+     */
+    public long getResumeOffset()
+    {
+        return resumeOffset;
+    }
+
+    /**
+     * @param resumeOffset the number of bytes of the resource the wagon already has
+     * @since 2.3
+     */
+    public void setResumeOffset( long resumeOffset )
+    {
+        this.resumeOffset = resumeOffset;
+    }
+
+    /**
+     * @return the validator of the resource when the bytes before the resume offset were fetched
+     * @see #getValidator()
+     * @since 2.3
+     */
+    public String getResumeValidator()
+    {
+        return resumeValidator;
+    }
+
+    /**
+     * @param resumeValidator the validator of the resource when the bytes before the resume offset were fetched
+     * @since 2.3
+     */
+    public void setResumeValidator( String resumeValidator )
+    {
+        this.resumeValidator = resumeValidator;
+    }
+
+    /**
+     * Returns the position in the resource of the first byte of the input stream. Providers only set it when they
+     * honour the resume offset, for a resource which still has the resume validator; by default the stream starts
+     * with the first byte of the resource.
+     *
+     * @return the offset of the input stream in the resource
+     * @since 2.3
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * @param offset the position in the resource of the first byte of the input stream
+     * @since 2.3
+     */
+    public void setOffset( long offset )
+    {
+        this.offset = offset;
+    }
+
+    /**
+     * Returns what identifies the current content of the resource, like an HTTP entity tag or a last modification
+     * date and size. A download can only be resumed later when the provider sets it.
+     *
+     * @return the validator of the resource, or <code>null</code> if the provider has none
+     * @since 2.3
+     */
+    public String getValidator()
+    {
+        return validator;
+    }
+
+    /**
+     * @param validator the validator of the resource
+     * @since 2.3
+     */
+    public void setValidator( String validator )
+    {
+        this.validator = validator;
+    }
+
+    /**
+     * Returns the entity tag the wagon last saw for the resource. Providers supporting conditional requests ask for
+     * the resource only if its entity tag changed since, like the last modification date of the resource when it is
+     * set, and then {@link #setNotModified(boolean) tell} whether it did not.
+     *
+     * @return the entity tag of the copy of the resource the wagon has, or <code>null</code> if unknown
+     * @since 2.3
+     */
+    public String getConditionalEntityTag()
+    {
+        return conditionalEntityTag;
+    }
+
+    /**
+     * @param conditionalEntityTag the entity tag of the copy of the resource the wagon has
+     * @since 2.3
+     */
+    public void setConditionalEntityTag( String conditionalEntityTag )
+    {
+        this.conditionalEntityTag = conditionalEntityTag;
+    }
+
+    /**
+     * @return the entity tag of the resource, weak or strong, as sent by the repository, or <code>null</code> if the
+     *         provider has none
+     * @since 2.3
+     */
+    public String getEntityTag()
+    {
+        return entityTag;
+    }
+
+    /**
+     * @param entityTag the entity tag of the resource
+     * @since 2.3
+     */
+    public void setEntityTag( String entityTag )
+    {
+        this.entityTag = entityTag;
+    }
+
+    /**
+     * @return whether the repository told that the resource did not change since the copy the wagon has, in which
+     *         case there is no input stream
+     * @since 2.3
+     */
+    public boolean isNotModified()
+    {
+        return notModified;
+    }
+
+    /**
+     * @param notModified whether the repository told that the resource did not change
+     * @since 2.3
+     */
+    public void setNotModified( boolean notModified )
+    {
+        this.notModified = notModified;
+    }
+
 }
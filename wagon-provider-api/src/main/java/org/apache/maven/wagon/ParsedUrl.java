@@ -0,0 +1,205 @@
+package org.apache.maven.wagon;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The parts of a repository URL, as {@link PathUtils} derives them, parsed once for each distinct URL and shared by
+ * all its callers.
+ *
+ * @since 2.3
+ */
+public final class ParsedUrl
+{
+    /**
+     * A build uses a few repositories, the cache is only bounded against callers parsing unbounded numbers of URLs.
+     */
+    private static final int MAXIMUM_CACHED_URLS = 1024;
+
+    private static final ConcurrentMap<String, ParsedUrl> CACHE = new ConcurrentHashMap<String, ParsedUrl>();
+
+    private final String url;
+
+    private final String protocol;
+
+    private final String host;
+
+    private final int port;
+
+    private final String basedir;
+
+    private final String username;
+
+    private final String password;
+
+    private final String urlWithoutCredentials;
+
+    private final String baseUrl;
+
+    private ParsedUrl( String url )
+    {
+        this.url = url;
+
+        protocol = PathUtils.protocol( url );
+
+        String authorization = PathUtils.authorization( url, protocol );
+
+        host = PathUtils.hostOf( authorization );
+
+        port = PathUtils.port( url, protocol, authorization );
+
+        basedir = PathUtils.basedir( url, protocol, authorization, port );
+
+        username = PathUtils.userOf( authorization );
+
+        password = PathUtils.passwordOf( authorization );
+
+        if ( username != null )
+        {
+            String userInfo = username;
+            if ( password != null )
+            {
+                userInfo += ":" + password;
+            }
+            userInfo += "@";
+
+            int index = url.indexOf( userInfo );
+            urlWithoutCredentials =
+                index >= 0 ? url.substring( 0, index ) + url.substring( index + userInfo.length() ) : url;
+        }
+        else
+        {
+            urlWithoutCredentials = url;
+        }
+
+        baseUrl = urlWithoutCredentials.endsWith( "/" ) ? urlWithoutCredentials : urlWithoutCredentials + "/";
+    }
+
+    /**
+     * Returns the parsed URL, parsing it if no caller did yet. URLs with credentials are parsed on each call, they are
+     * not kept for the life of the JVM.
+     *
+     * @param url the URL to parse
+     * @return the parsed URL
+     * @throws NullPointerException if the URL is <code>null</code>
+     * @throws RuntimeException     as thrown by {@link PathUtils} if the URL is malformed
+     */
+    public static ParsedUrl parse( String url )
+    {
+        ParsedUrl parsedUrl = CACHE.get( url );
+        if ( parsedUrl == null )
+        {
+            parsedUrl = new ParsedUrl( url );
+
+            if ( parsedUrl.username != null )
+            {
+                return parsedUrl;
+            }
+
+            if ( CACHE.size() >= MAXIMUM_CACHED_URLS )
+            {
+                CACHE.clear();
+            }
+            CACHE.put( url, parsedUrl );
+        }
+        return parsedUrl;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    /**
+     * @see PathUtils#protocol(String)
+     */
+    public String getProtocol()
+    {
+        return protocol;
+    }
+
+    /**
+     * @see PathUtils#host(String)
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     * @return the port, or {@link WagonConstants#UNKNOWN_PORT} if none
+     * @see PathUtils#port(String)
+     */
+    public int getPort()
+    {
+        return port;
+    }
+
+    /**
+     * @see PathUtils#basedir(String)
+     */
+    public String getBasedir()
+    {
+        return basedir;
+    }
+
+    /**
+     * @return the user name given in the URL, <code>null</code> if none
+     */
+    public String getUsername()
+    {
+        return username;
+    }
+
+    /**
+     * @return the password given in the URL, <code>null</code> if none
+     */
+    public String getPassword()
+    {
+        return password;
+    }
+
+    /**
+     * @return the URL without the user name and password it may contain
+     */
+    public String getUrlWithoutCredentials()
+    {
+        return urlWithoutCredentials;
+    }
+
+    /**
+     * Returns the URL of a resource of the repository at this URL.
+     *
+     * @param path the path of the resource, relative to the repository
+     * @return the URL, without credentials, with a <code>/</code> between the repository and the path
+     */
+    public String resolve( String path )
+    {
+        return baseUrl.concat( path );
+    }
+
+    public String toString()
+    {
+        return url;
+    }
+}
@@ -0,0 +1,249 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Properties;
+
+/**
+ * The content of a download kept in a <code>.part</code> file next to its destination, with a
+ * <code>.part.properties</code> sidecar recording the validator of the resource and how many bytes the part file
+ * holds, so that a later attempt can continue from there.
+ *
+ * @since 2.3
+ */
+final class PartialDownload
+{
+    static final String PART_EXTENSION = ".part";
+
+    private static final String SIDECAR_EXTENSION = ".part.properties";
+
+    private static final String VALIDATOR = "validator";
+
+    private static final String OFFSET = "offset";
+
+    private final File destination;
+
+    private final File partFile;
+
+    private final File sidecarFile;
+
+    private String validator;
+
+    private long offset;
+
+    PartialDownload( File destination )
+    {
+        this.destination = destination;
+        this.partFile = new File( destination.getPath() + PART_EXTENSION );
+        this.sidecarFile = new File( destination.getPath() + SIDECAR_EXTENSION );
+
+        load();
+    }
+
+    File getPartFile()
+    {
+        return partFile;
+    }
+
+    /**
+     * @return the validator of the resource the part file was downloaded from, <code>null</code> if there is no usable
+     *         part file
+     */
+    String getValidator()
+    {
+        return validator;
+    }
+
+    /**
+     * @return the number of bytes of the resource held by the part file
+     */
+    long getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Opens the part file to write the content of the resource from the given offset on, dropping anything after it.
+     *
+     * @param offset the number of bytes of the part file to keep, <code>0</code> to start over
+     * @param validator the validator of the resource being downloaded, <code>null</code> if the download cannot be
+     *                  resumed
+     */
+    OutputStream open( long offset, String validator )
+        throws IOException
+    {
+        FileUtils.forceMkdir( partFile.getAbsoluteFile().getParentFile() );
+
+        if ( offset > 0 )
+        {
+            RandomAccessFile file = new RandomAccessFile( partFile, "rw" );
+            try
+            {
+                file.setLength( offset );
+            }
+            finally
+            {
+                file.close();
+            }
+        }
+
+        OutputStream output = new FileOutputStream( partFile, offset > 0 );
+
+        this.offset = offset;
+        this.validator = validator;
+
+        // recorded right away, so even a killed build leaves a part file the next attempt can use
+        store( false );
+
+        return output;
+    }
+
+    /**
+     * Records how far the download went, once its part file is closed after a failure, or deletes the part file if
+     * the resource has no validator to resume the download with.
+     */
+    void suspend()
+    {
+        if ( validator == null )
+        {
+            discard();
+        }
+        else
+        {
+            store( true );
+        }
+    }
+
+    /**
+     * Moves the complete part file to the destination.
+     */
+    void complete()
+        throws IOException
+    {
+        sidecarFile.delete();
+
+        if ( destination.exists() && !destination.delete() )
+        {
+            throw new IOException( "Unable to replace " + destination + " with " + partFile );
+        }
+
+        if ( !partFile.renameTo( destination ) )
+        {
+            FileUtils.copyFile( partFile, destination );
+            partFile.delete();
+        }
+    }
+
+    /**
+     * Deletes the part file and its sidecar.
+     */
+    void discard()
+    {
+        partFile.delete();
+        sidecarFile.delete();
+
+        validator = null;
+        offset = 0;
+    }
+
+    private void load()
+    {
+        if ( !partFile.isFile() || !sidecarFile.isFile() )
+        {
+            discard();
+            return;
+        }
+
+        Properties properties = new Properties();
+        InputStream input = null;
+        try
+        {
+            input = new FileInputStream( sidecarFile );
+            properties.load( input );
+
+            validator = properties.getProperty( VALIDATOR );
+
+            // without a recorded offset, the part file holds what the download wrote before it was interrupted
+            String recordedOffset = properties.getProperty( OFFSET );
+            offset = recordedOffset != null
+                ? Math.min( Long.parseLong( recordedOffset ), partFile.length() )
+                : partFile.length();
+        }
+        catch ( IOException e )
+        {
+            validator = null;
+        }
+        catch ( NumberFormatException e )
+        {
+            validator = null;
+        }
+        finally
+        {
+            IOUtil.close( input );
+        }
+
+        if ( validator == null || offset <= 0 )
+        {
+            discard();
+        }
+    }
+
+    private void store( boolean withOffset )
+    {
+        if ( validator == null )
+        {
+            sidecarFile.delete();
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty( VALIDATOR, validator );
+        if ( withOffset )
+        {
+            properties.setProperty( OFFSET, Long.toString( partFile.length() ) );
+        }
+
+        OutputStream output = null;
+        try
+        {
+            output = new FileOutputStream( sidecarFile );
+            properties.store( output, "Partial download of " + destination.getName() );
+        }
+        catch ( IOException e )
+        {
+            // the download will simply start over next time
+            sidecarFile.delete();
+        }
+        finally
+        {
+            IOUtil.close( output );
+        }
+    }
+}
@@ -133,7 +133,12 @@ public final class PathUtils
      */
     public static String host( final String url )
     {
-        String authorization = authorization( url );
+        ParsedUrl parsedUrl = parse( url );
+        return parsedUrl != null ? parsedUrl.getHost() : hostOf( authorization( url ) );
+    }
+
+    static String hostOf( String authorization )
+    {
         int index = authorization.indexOf( '@' );
         if ( index >= 0 )
         {
@@ -155,8 +160,11 @@ public final class PathUtils
             return "localhost";
         }
 
-        final String protocol = PathUtils.protocol( url );
+        return authorization( url, PathUtils.protocol( url ) );
+    }
 
+    static String authorization( final String url, final String protocol )
+    {
         if ( protocol == null || protocol.equalsIgnoreCase( "file" ) )
         {
             return "localhost";
@@ -201,6 +209,29 @@ public final class PathUtils
         return host;
     }
 
+    /**
+     * Returns the parsed form of the URL, shared by all the callers parsing the same URL.
+     *
+     * @return the parsed URL, or <code>null</code> if the URL is <code>null</code> or malformed, in which case each
+     *         part is derived on its own, failing as it always did
+     */
+    private static ParsedUrl parse( String url )
+    {
+        if ( url == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return ParsedUrl.parse( url );
+        }
+        catch ( RuntimeException e )
+        {
+            return null;
+        }
+    }
+
     /**
      * /**
      * Return the protocol name.
@@ -228,16 +259,24 @@ public final class PathUtils
      */
     public static int port( String url )
     {
+        ParsedUrl parsedUrl = parse( url );
+        if ( parsedUrl != null )
+        {
+            return parsedUrl.getPort();
+        }
 
         final String protocol = PathUtils.protocol( url );
 
+        return port( url, protocol, PathUtils.authorization( url, protocol ) );
+    }
+
+    static int port( String url, final String protocol, final String authorization )
+    {
         if ( protocol == null || protocol.equalsIgnoreCase( "file" ) )
         {
             return WagonConstants.UNKNOWN_PORT;
         }
 
-        final String authorization = PathUtils.authorization( url );
-
         if ( authorization == null )
         {
             return WagonConstants.UNKNOWN_PORT;
@@ -296,8 +335,21 @@ public final class PathUtils
      */
     public static String basedir( String url )
     {
-        String protocol = PathUtils.protocol( url );
+        ParsedUrl parsedUrl = parse( url );
+        if ( parsedUrl != null )
+        {
+            return parsedUrl.getBasedir();
+        }
 
+        return basedir( url, PathUtils.protocol( url ), null, WagonConstants.UNKNOWN_PORT );
+    }
+
+    /**
+     * @param authorization the authorization of the URL, or <code>null</code> to derive it with the port
+     * @param port          the port of the URL, when its authorization is given
+     */
+    static String basedir( String url, String protocol, String authorization, int port )
+    {
         String retValue = null;
 
         if ( protocol.equalsIgnoreCase( "scm" ) )
@@ -307,6 +359,7 @@ public final class PathUtils
             {
                 url = url.substring( url.indexOf( ":", 4 ) + 1 );
                 protocol = PathUtils.protocol( url );
+                authorization = null;
             }
         }
 
@@ -354,9 +407,12 @@ public final class PathUtils
         }
         else
         {
-            final String authorization = PathUtils.authorization( url );
+            if ( authorization == null )
+            {
+                authorization = PathUtils.authorization( url, protocol );
 
-            final int port = PathUtils.port( url );
+                port = PathUtils.port( url, protocol, authorization );
+            }
 
             int pos = 0;
 
@@ -430,11 +486,16 @@ public final class PathUtils
 
     public static String user( String url )
     {
-        String host = authorization( url );
-        int index = host.indexOf( '@' );
+        ParsedUrl parsedUrl = parse( url );
+        return parsedUrl != null ? parsedUrl.getUsername() : userOf( authorization( url ) );
+    }
+
+    static String userOf( String authorization )
+    {
+        int index = authorization.indexOf( '@' );
         if ( index > 0 )
         {
-            String userInfo = host.substring( 0, index );
+            String userInfo = authorization.substring( 0, index );
             index = userInfo.indexOf( ':' );
             if ( index > 0 )
             {
@@ -450,11 +511,16 @@ public final class PathUtils
 
     public static String password( String url )
     {
-        String host = authorization( url );
-        int index = host.indexOf( '@' );
+        ParsedUrl parsedUrl = parse( url );
+        return parsedUrl != null ? parsedUrl.getPassword() : passwordOf( authorization( url ) );
+    }
+
+    static String passwordOf( String authorization )
+    {
+        int index = authorization.indexOf( '@' );
         if ( index > 0 )
         {
-            String userInfo = host.substring( 0, index );
+            String userInfo = authorization.substring( 0, index );
             index = userInfo.indexOf( ':' );
             if ( index >= 0 )
             {
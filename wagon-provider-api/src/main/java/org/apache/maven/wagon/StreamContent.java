@@ -0,0 +1,151 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * The content of an upload from a stream, which is sent without reading it all in memory first.
+ * <p/>
+ * Only the beginning of the stream is read in memory, up to a maximum length: if the stream ends there, the content
+ * is kept and can be read any number of times, like for a request sent again after an authentication challenge or a
+ * redirect. Otherwise the content is read once from that beginning followed by the rest of the stream, in constant
+ * memory, and cannot be read again: the upload should then ask the server whether it accepts the request before
+ * sending the content, with <code>Expect: 100-continue</code>.
+ *
+ * @since 2.3
+ */
+public class StreamContent
+{
+    /**
+     * Streams up to this length, like POMs, checksums or metadata, are kept in memory.
+     */
+    public static final int DEFAULT_MAXIMUM_BUFFERED_LENGTH = 64 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    private final byte[] head;
+
+    private final InputStream rest;
+
+    private final long length;
+
+    private boolean read;
+
+    /**
+     * @see #StreamContent(InputStream, long, int)
+     */
+    public StreamContent( InputStream stream, long length )
+        throws IOException
+    {
+        this( stream, length, DEFAULT_MAXIMUM_BUFFERED_LENGTH );
+    }
+
+    /**
+     * Reads the beginning of the stream.
+     *
+     * @param stream                the stream of the content
+     * @param length                the length of the content, <code>-1</code> if unknown
+     * @param maximumBufferedLength the length up to which the content is kept in memory
+     */
+    public StreamContent( InputStream stream, long length, int maximumBufferedLength )
+        throws IOException
+    {
+        // one byte more than the maximum, to tell a stream of the maximum length from a longer one
+        long limit = length >= 0 && length <= maximumBufferedLength ? length : maximumBufferedLength + 1L;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( (int) Math.min( limit, READ_BUFFER_SIZE ) );
+        byte[] bytes = new byte[READ_BUFFER_SIZE];
+        boolean ended = length >= 0 && length <= maximumBufferedLength;
+        while ( buffer.size() < limit )
+        {
+            int n = stream.read( bytes, 0, (int) Math.min( bytes.length, limit - buffer.size() ) );
+            if ( n == -1 )
+            {
+                ended = true;
+                break;
+            }
+            buffer.write( bytes, 0, n );
+        }
+        head = buffer.toByteArray();
+
+        if ( ended )
+        {
+            rest = null;
+            this.length = head.length;
+        }
+        else
+        {
+            rest = stream;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the whole content is in memory, and can be read any number of times
+     */
+    public boolean isBuffered()
+    {
+        return rest == null;
+    }
+
+    /**
+     * @return <code>true</code> if the content can be read, either because it is in memory or because it was not read
+     *         yet
+     */
+    public synchronized boolean isRepeatable()
+    {
+        return rest == null || !read;
+    }
+
+    /**
+     * @return the length of the content, <code>-1</code> if unknown until the end of the stream
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * @return the content, from its beginning
+     * @throws IOException if the content is not in memory and was read already
+     */
+    public synchronized InputStream openStream()
+        throws IOException
+    {
+        InputStream input = new ByteArrayInputStream( head );
+        if ( rest == null )
+        {
+            return input;
+        }
+
+        if ( read )
+        {
+            throw new IOException( "The content was read from its stream already and cannot be read again" );
+        }
+        read = true;
+
+        return new SequenceInputStream( input, rest );
+    }
+}
@@ -19,11 +19,16 @@ package org.apache.maven.wagon;
  * under the License.
  */
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.cache.ResourceValidator;
+import org.apache.maven.wagon.cache.ValidatorStore;
 import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.resource.Resource;
 import org.codehaus.plexus.util.IOUtil;
@@ -38,6 +43,21 @@ public abstract class StreamWagon
     extends AbstractWagon
     implements StreamingWagon
 {
+    /**
+     * Whether downloads to a file go through a <code>.part</code> file which is kept when the transfer fails, for the
+     * next attempt to continue from there.
+     *
+     * @since 2.3
+     */
+    private boolean resumableGet = Boolean.getBoolean( "maven.wagon.resumableGet" );
+
+    /**
+     * The validators of the resources downloaded with {@link #getIfChanged(String, File)}.
+     *
+     * @since 2.3
+     */
+    private ValidatorStore validatorStore = ValidatorStore.getDefault();
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
@@ -84,8 +104,20 @@ public abstract class StreamWagon
         fireGetInitiated( resource, destination );
 
         resource.setLastModified( timestamp );
-        
-        InputStream is = getInputStream( resource );
+
+        PartialDownload partialDownload = resumableGet ? new PartialDownload( destination ) : null;
+
+        InputData inputData = new InputData();
+
+        inputData.setResource( resource );
+
+        if ( partialDownload != null && partialDownload.getOffset() > 0 )
+        {
+            inputData.setResumeOffset( partialDownload.getOffset() );
+            inputData.setResumeValidator( partialDownload.getValidator() );
+        }
+
+        InputStream is = getInputStream( inputData );
 
         // always get if timestamp is 0 (ie, target doesn't exist), otherwise only if older than the remote file
         if ( timestamp == 0 || timestamp < resource.getLastModified() )
@@ -94,7 +126,14 @@ public abstract class StreamWagon
 
             checkInputStream( is, resource );
 
-            getTransfer( resource, destination, is );
+            if ( partialDownload != null )
+            {
+                getTransfer( resource, destination, inputData, partialDownload );
+            }
+            else
+            {
+                getTransfer( resource, destination, inputData );
+            }
         }
         else
         {
@@ -104,6 +143,397 @@ public abstract class StreamWagon
         return retValue;
     }
 
+    public boolean getIfChanged( String resourceName, File destination )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        ResourceValidator validator = destination.exists() ? getValidator( resourceName, destination ) : null;
+
+        // the file was changed since it was downloaded
+        if ( validator != null && validator.getLength() != destination.length() )
+        {
+            validator = null;
+        }
+
+        Resource resource = new Resource( resourceName );
+
+        fireGetInitiated( resource, destination );
+
+        InputData inputData = new InputData();
+
+        inputData.setResource( resource );
+
+        if ( validator != null )
+        {
+            resource.setLastModified( validator.getLastModified() );
+            inputData.setConditionalEntityTag( validator.getEntityTag() );
+        }
+
+        InputStream is = getInputStream( inputData );
+
+        if ( validator != null && isUnchanged( inputData, validator ) )
+        {
+            IOUtil.close( is );
+
+            fireTransferDebug( resourceName + " did not change since it was downloaded to " + destination );
+
+            return false;
+        }
+
+        // without a Last-Modified header the resource still has the date of the previous download, which would be
+        // recorded with content it does not belong to
+        if ( validator != null && resource.getLastModified() == validator.getLastModified() )
+        {
+            resource.setLastModified( 0 );
+        }
+
+        checkInputStream( is, resource );
+
+        try
+        {
+            getTransfer( resource, destination, inputData );
+        }
+        catch ( TransferFailedException e )
+        {
+            storeValidator( resourceName, destination, null );
+            throw e;
+        }
+
+        if ( inputData.getEntityTag() != null || resource.getLastModified() > 0 )
+        {
+            storeValidator( resourceName, destination, new ResourceValidator( inputData.getEntityTag(),
+                                                                              resource.getLastModified(),
+                                                                              destination.length() ) );
+        }
+        else
+        {
+            storeValidator( resourceName, destination, null );
+        }
+
+        return true;
+    }
+
+    /**
+     * Tells whether the provider found the resource unchanged since it had the given validator. Providers which do not
+     * support conditional requests still give the entity tag, or the last modification date and length, of the
+     * resource.
+     */
+    private static boolean isUnchanged( InputData inputData, ResourceValidator validator )
+    {
+        // like getIfNewer, no input stream means the conditions held
+        if ( inputData.isNotModified() || inputData.getInputStream() == null )
+        {
+            return true;
+        }
+
+        if ( inputData.getEntityTag() != null )
+        {
+            return inputData.getEntityTag().equals( validator.getEntityTag() );
+        }
+
+        Resource resource = inputData.getResource();
+        return validator.getLastModified() > 0 && resource.getLastModified() == validator.getLastModified()
+            && resource.getContentLength() == validator.getLength();
+    }
+
+    private ResourceValidator getValidator( String resourceName, File destination )
+    {
+        try
+        {
+            return validatorStore.get( getRepository().getUrl(), resourceName, destination );
+        }
+        catch ( IOException e )
+        {
+            fireTransferDebug( "Cannot read the validators of " + validatorStore.getFile() + ": " + e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     * Records the validator of the resource downloaded to the given file, or forgets it if <code>null</code>. A
+     * validator which cannot be recorded only costs a full download next time.
+     */
+    private void storeValidator( String resourceName, File destination, ResourceValidator validator )
+    {
+        try
+        {
+            if ( validator != null )
+            {
+                validatorStore.put( getRepository().getUrl(), resourceName, destination, validator );
+            }
+            else
+            {
+                validatorStore.remove( getRepository().getUrl(), resourceName, destination );
+            }
+        }
+        catch ( IOException e )
+        {
+            fireTransferDebug( "Cannot record the validator of " + resourceName + " in " + validatorStore.getFile()
+                + ": " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Downloads the resource whose input stream was just filled in by {@link #fillInputData(InputData)} to the given
+     * destination. Providers can override this to take advantage of what they learnt about the resource.
+     *
+     * @param resource    the resource being downloaded
+     * @param destination the file to download to
+     * @param inputData   the input data filled in by the provider
+     * @since 2.3
+     */
+    protected void getTransfer( Resource resource, File destination, InputData inputData )
+        throws TransferFailedException
+    {
+        getTransfer( resource, destination, inputData.getInputStream() );
+    }
+
+    /**
+     * Like {@link #getTransfer(Resource, File, InputStream)}, but the content is written to the part file of the
+     * download, which is kept when the transfer fails and moved to the destination once complete.
+     */
+    private void getTransfer( Resource resource, File destination, InputData inputData,
+                              PartialDownload partialDownload )
+        throws TransferFailedException
+    {
+        InputStream input = inputData.getInputStream();
+
+        long offset = inputData.getOffset();
+        if ( offset != 0 && offset != inputData.getResumeOffset() )
+        {
+            IOUtil.close( input );
+            cleanupGetTransfer( resource );
+
+            TransferFailedException e = new TransferFailedException(
+                "Resuming " + resource.getName() + " at byte " + inputData.getResumeOffset()
+                    + " returned content from byte " + offset );
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+            throw e;
+        }
+
+        OutputStream output;
+        try
+        {
+            output = partialDownload.open( offset, inputData.getValidator() );
+        }
+        catch ( IOException e )
+        {
+            IOUtil.close( input );
+            cleanupGetTransfer( resource );
+
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+            throw new TransferFailedException( "Cannot write to " + partialDownload.getPartFile(), e );
+        }
+
+        fireGetStarted( resource, destination );
+
+        if ( offset > 0 )
+        {
+            fireTransferDebug( "Resuming download of " + resource.getName() + " at byte " + offset );
+
+            try
+            {
+                fireResumedTransferProgress( resource, partialDownload.getPartFile(), offset );
+            }
+            catch ( TransferFailedException e )
+            {
+                cleanupGetTransfer( resource );
+                IOUtil.close( input );
+                IOUtil.close( output );
+
+                partialDownload.discard();
+
+                throw e;
+            }
+        }
+
+        try
+        {
+            getTransfer( resource, output, input, true, Long.MAX_VALUE );
+        }
+        catch ( TransferFailedException e )
+        {
+            IOUtil.close( output );
+
+            partialDownload.suspend();
+
+            throw e;
+        }
+        finally
+        {
+            IOUtil.close( output );
+        }
+
+        try
+        {
+            partialDownload.complete();
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+            throw new TransferFailedException( "Cannot move " + partialDownload.getPartFile() + " to " + destination,
+                                               e );
+        }
+
+        fireGetCompleted( resource, destination );
+    }
+
+    /**
+     * Reports the content already downloaded by a previous attempt as progress of this transfer, so that listeners
+     * like checksum observers see the whole resource.
+     */
+    private void fireResumedTransferProgress( Resource resource, File partFile, long offset )
+        throws TransferFailedException
+    {
+        TransferEvent transferEvent =
+            getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_GET );
+
+        if ( !transferEventSupport.hasRawProgressListeners() )
+        {
+            for ( long remaining = offset; remaining > 0; )
+            {
+                int n = (int) Math.min( remaining, Integer.MAX_VALUE );
+
+                fireTransferProgress( transferEvent, n );
+
+                remaining -= n;
+            }
+
+            flushTransferProgress( transferEvent );
+            return;
+        }
+
+        byte[] buffer = getBufferPool().acquire( getBufferCapacityForTransfer( offset ) );
+
+        InputStream input = null;
+        try
+        {
+            input = new FileInputStream( partFile );
+
+            for ( long remaining = offset; remaining > 0; )
+            {
+                int n = input.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+
+                if ( n == -1 )
+                {
+                    throw new EOFException( "Unexpected end of " + partFile );
+                }
+
+                fireTransferProgress( transferEvent, buffer, n );
+
+                remaining -= n;
+            }
+
+            flushTransferProgress( transferEvent );
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            throw new TransferFailedException( "Failed to read the partial download " + partFile, e );
+        }
+        finally
+        {
+            IOUtil.close( input );
+
+            getBufferPool().release( buffer );
+        }
+    }
+
+    /**
+     * To be called by providers whose response to a resumed request cannot be used, like a range not satisfiable or
+     * not starting at the resume offset: fills in the input data again with a request for the whole resource.
+     *
+     * @param inputData the input data of the resource, whose resume offset and validator are cleared
+     * @since 2.3
+     */
+    protected void fillInputDataWithoutResume( InputData inputData )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        fireTransferDebug( "cannot resume from byte " + inputData.getResumeOffset() + ", getting the whole resource" );
+
+        inputData.setResumeOffset( 0 );
+        inputData.setResumeValidator( null );
+
+        fillInputData( inputData );
+    }
+
+    /**
+     * Parses the value of an HTTP <code>Content-Range: bytes first-last/total</code> header.
+     *
+     * @param value the value of the header, <code>null</code> if there is none
+     * @return the first byte and the total length, the length being <code>-1</code> when unknown, or
+     *         <code>null</code> if there is no such header or it cannot be parsed
+     * @since 2.3
+     */
+    protected static long[] parseContentRange( String value )
+    {
+        if ( value == null || !value.trim().startsWith( "bytes " ) )
+        {
+            return null;
+        }
+
+        String range = value.trim();
+        int dash = range.indexOf( '-' );
+        int slash = range.indexOf( '/' );
+        if ( dash < 0 || slash < dash )
+        {
+            return null;
+        }
+
+        try
+        {
+            long first = Long.parseLong( range.substring( "bytes ".length(), dash ).trim() );
+            String total = range.substring( slash + 1 ).trim();
+            return new long[]{ first, "*".equals( total ) ? -1 : Long.parseLong( total ) };
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether downloads to a file can be resumed after a failure
+     * @since 2.3
+     */
+    public boolean isResumableGet()
+    {
+        return resumableGet;
+    }
+
+    /**
+     * Enables or disables resumable downloads. When enabled, a download to a file is written to a <code>.part</code>
+     * file next to its destination, along with a <code>.part.properties</code> file recording the validator of the
+     * resource. If the transfer fails, both are kept and the next download of the resource asks the provider to
+     * continue after the bytes already there, provided the resource did not change meanwhile.
+     *
+     * @param resumableGet whether downloads to a file can be resumed after a failure
+     * @since 2.3
+     */
+    public void setResumableGet( boolean resumableGet )
+    {
+        this.resumableGet = resumableGet;
+    }
+
+    /**
+     * @return the store of the validators of the resources downloaded with {@link #getIfChanged(String, File)}
+     * @since 2.3
+     */
+    public ValidatorStore getValidatorStore()
+    {
+        return validatorStore;
+    }
+
+    /**
+     * @param validatorStore the store of the validators of the resources downloaded with
+     *                       {@link #getIfChanged(String, File)}, by default {@link ValidatorStore#getDefault()}
+     * @since 2.3
+     */
+    public void setValidatorStore( ValidatorStore validatorStore )
+    {
+        this.validatorStore = validatorStore;
+    }
+
     protected InputStream getInputStream( Resource resource )
         throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
     {
@@ -111,6 +541,27 @@ public abstract class StreamWagon
 
         inputData.setResource( resource );
 
+        return getInputStream( inputData );
+    }
+
+    /**
+     * @param inputData the input data of the resource, with the resume offset and validator if any
+     * @return the input stream filled in by the provider
+     * @since 2.3
+     */
+    protected InputStream getInputStream( InputData inputData )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        Resource resource = inputData.getResource();
+
+        if ( isKnownMissing( resource.getName() ) )
+        {
+            ResourceDoesNotExistException e = new ResourceDoesNotExistException(
+                "Resource " + resource.getName() + " was recently found missing from " + getRepository().getUrl() );
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+            throw e;
+        }
+
         try
         {
             fillInputData( inputData );
@@ -123,6 +574,8 @@ public abstract class StreamWagon
         }
         catch ( ResourceDoesNotExistException e )
         {
+            recordMissing( resource.getName() );
+
             fireTransferError( resource, e, TransferEvent.REQUEST_GET );
             cleanupGetTransfer( resource );
             throw e;
@@ -224,7 +677,7 @@ public abstract class StreamWagon
 
             fireGetStarted( resource, null );
 
-            getTransfer( resource, stream, is, true, Integer.MAX_VALUE );
+            getTransfer( resource, stream, is, true, Long.MAX_VALUE );
 
             fireGetCompleted( resource, null );
         }
@@ -19,6 +19,7 @@ package org.apache.maven.wagon;
  * under the License.
  */
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 
@@ -57,6 +58,24 @@ public interface StreamingWagon
     boolean getIfNewerToStream( String resourceName, OutputStream stream, long timestamp )
         throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException;
 
+    /**
+     * Downloads specified resource from the repository to given file, unless the file already holds the resource as it
+     * is in the repository. The wagon remembers the entity tag and the last modification date of the resources it
+     * downloads this way, and asks the repository for the resource only if they changed since the last download to the
+     * same file.
+     * 
+     * @param resourceName
+     * @param destination
+     * @return <code>true</code> if the resource has been downloaded, <code>false</code> if the file was left as it
+     *         was since the resource did not change.
+     * @throws TransferFailedException
+     * @throws ResourceDoesNotExistException
+     * @throws AuthorizationException
+     * @since 2.3
+     */
+    boolean getIfChanged( String resourceName, File destination )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException;
+
     /**
      * @deprecated due to unknown contentLength various http(s) implementation will use a chuncked transfer encoding mode
      *             you must take care you http target server supports that (ngnix don't !).
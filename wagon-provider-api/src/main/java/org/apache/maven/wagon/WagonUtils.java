@@ -24,7 +24,6 @@ import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 
 /**
  * @author <a href="mailto:mmaczka@interia.pl">Michal Maczka</a>
@@ -70,53 +69,6 @@ public final class WagonUtils
     public static void putDirectory( File dir, Wagon wagon, boolean includeBasdir )
         throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
     {
-
-        LinkedList queue = new LinkedList();
-
-        if ( includeBasdir )
-        {
-            queue.add( dir.getName() );
-        }
-        else
-        {
-            queue.add( "" );
-        }
-
-        while ( !queue.isEmpty() )
-        {
-            String path = (String) queue.removeFirst();
-
-            File currentDir = new File( dir, path );
-
-            File[] files = currentDir.listFiles();
-
-            for ( int i = 0; i < files.length; i++ )
-            {
-                File file = files[i];
-
-                String resource;
-
-                if ( path.length() > 0 )
-                {
-                    resource = path + "/" + file.getName();
-                }
-                else
-                {
-                    resource = file.getName();
-                }
-
-                if ( file.isDirectory() )
-                {
-                    queue.add( resource );
-                }
-                else
-                {
-                    wagon.put( file, resource );
-                }
-
-            }
-
-        }
-
+        new DirectoryUpload( dir, includeBasdir ? dir.getName() : "" ).upload( wagon );
     }
 }
@@ -0,0 +1,92 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A resource kept in a {@link WagonCache}.
+ *
+ * @since 2.3
+ */
+public final class CacheEntry
+{
+    private final String key;
+
+    private final String repositoryUrl;
+
+    private final String resourceName;
+
+    private final String checksum;
+
+    private final long length;
+
+    private final long lastModified;
+
+    CacheEntry( String key, String repositoryUrl, String resourceName, String checksum, long length,
+                long lastModified )
+    {
+        this.key = key;
+        this.repositoryUrl = repositoryUrl;
+        this.resourceName = resourceName;
+        this.checksum = checksum;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    String getKey()
+    {
+        return key;
+    }
+
+    public String getRepositoryUrl()
+    {
+        return repositoryUrl;
+    }
+
+    public String getResourceName()
+    {
+        return resourceName;
+    }
+
+    /**
+     * @return the SHA-1 checksum of the content, which identifies it in the cache
+     */
+    public String getChecksum()
+    {
+        return checksum;
+    }
+
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * @return the last modification date of the resource in its repository, <code>0</code> if unknown
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    public String toString()
+    {
+        return repositoryUrl + " " + resourceName + " (" + checksum + ")";
+    }
+}
@@ -0,0 +1,650 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.BufferPool;
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.DefaultBufferPool;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamingWagon;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.ProgressAwareTransferListener;
+import org.apache.maven.wagon.events.SessionListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferEventSupport;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.proxy.ProxyInfoProvider;
+import org.apache.maven.wagon.repository.Repository;
+import org.apache.maven.wagon.resource.Resource;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * A wagon serving the resources it downloads from a {@link WagonCache} the next time they are asked for, through the
+ * same or another <code>CachingWagon</code>.
+ * <p/>
+ * A cached resource is only served once the wrapped wagon confirmed it did not change since it was cached, with
+ * {@link Wagon#getIfNewer(String, File, long)}; for HTTP repositories this is a conditional request which does not
+ * transfer the content. Resources whose last modification date is not known are always downloaded. Uploads make the
+ * cache forget the uploaded resources.
+ * <p/>
+ * The transfer and session listeners are those of the wrapped wagon. The transfer listeners added through the
+ * <code>CachingWagon</code> also get the events of a download for the resources served from the cache, with the
+ * cached content as progress.
+ *
+ * @since 2.3
+ */
+public class CachingWagon
+    implements StreamingWagon
+{
+    private static final BufferPool BUFFER_POOL = new DefaultBufferPool();
+
+    private static final int COPY_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Wagon wagon;
+
+    private final WagonCache cache;
+
+    private final LastModifiedListener lastModifiedListener = new LastModifiedListener();
+
+    private final TransferEventSupport transferEventSupport = new TransferEventSupport();
+
+    /**
+     * @param wagon the wagon to download the resources which are not in the cache with
+     * @param cache the cache, usually shared by all the caching wagons of a build
+     */
+    public CachingWagon( Wagon wagon, WagonCache cache )
+    {
+        this.wagon = wagon;
+        this.cache = cache;
+
+        wagon.addTransferListener( lastModifiedListener );
+    }
+
+    public Wagon getWagon()
+    {
+        return wagon;
+    }
+
+    public WagonCache getCache()
+    {
+        return cache;
+    }
+
+    // ----------------------------------------------------------------------
+    // Downloads, through the cache
+    // ----------------------------------------------------------------------
+
+    public void get( String resourceName, File destination )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        getIfNewer( resourceName, destination, 0 );
+    }
+
+    public boolean getIfNewer( String resourceName, File destination, long timestamp )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        CacheEntry entry = cache.get( getRepositoryUrl(), resourceName );
+
+        // a cached copy older than the one of the caller is no use
+        if ( entry != null && entry.getLastModified() > timestamp )
+        {
+            if ( download( resourceName, destination, entry.getLastModified() ) )
+            {
+                return true;
+            }
+
+            if ( serve( entry, destination ) )
+            {
+                cache.recordHit( entry );
+                return true;
+            }
+        }
+
+        return download( resourceName, destination, timestamp );
+    }
+
+    /**
+     * Lets the wrapped wagon tell whether the resource changed since it was downloaded to the file, if it supports it;
+     * otherwise the resource is downloaded as by {@link #get(String, File)}.
+     */
+    public boolean getIfChanged( String resourceName, File destination )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    {
+        if ( !( wagon instanceof StreamingWagon ) )
+        {
+            get( resourceName, destination );
+            return true;
+        }
+
+        lastModifiedListener.lastModified = 0;
+
+        if ( !( (StreamingWagon) wagon ).getIfChanged( resourceName, destination ) )
+        {
+            return false;
+        }
+
+        store( resourceName, destination );
+
+        return true;
+    }
+
+    public void getToStream( String resourceName, OutputStream stream )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    {
+        getIfNewerToStream( resourceName, stream, 0 );
+    }
+
+    public boolean getIfNewerToStream( String resourceName, OutputStream stream, long timestamp )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    {
+        File temp = createTempFile();
+        try
+        {
+            if ( !getIfNewer( resourceName, temp, timestamp ) )
+            {
+                return false;
+            }
+
+            InputStream input = null;
+            try
+            {
+                input = new FileInputStream( temp );
+                IOUtil.copy( input, stream );
+            }
+            catch ( IOException e )
+            {
+                throw new TransferFailedException( "Cannot write " + resourceName + " to the stream", e );
+            }
+            finally
+            {
+                IOUtil.close( input );
+            }
+            return true;
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Downloads the resource with the wrapped wagon, and caches it if it was downloaded.
+     */
+    private boolean download( String resourceName, File destination, long timestamp )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        lastModifiedListener.lastModified = 0;
+
+        if ( timestamp > 0 )
+        {
+            if ( !wagon.getIfNewer( resourceName, destination, timestamp ) )
+            {
+                return false;
+            }
+        }
+        else
+        {
+            wagon.get( resourceName, destination );
+        }
+
+        store( resourceName, destination );
+
+        return true;
+    }
+
+    /**
+     * Caches the resource just downloaded by the wrapped wagon.
+     */
+    private void store( String resourceName, File destination )
+    {
+        cache.recordMiss();
+
+        // without its last modification date, the cached copy could never be checked against the repository
+        if ( lastModifiedListener.lastModified <= 0 )
+        {
+            cache.remove( getRepositoryUrl(), resourceName );
+            return;
+        }
+
+        try
+        {
+            cache.put( getRepositoryUrl(), resourceName, destination, lastModifiedListener.lastModified );
+        }
+        catch ( IOException e )
+        {
+            // the resource is downloaded all the same, it will just be downloaded again next time
+            cache.remove( getRepositoryUrl(), resourceName );
+        }
+    }
+
+    /**
+     * Copies the cached content of a resource to the file, firing the events of a download.
+     *
+     * @return <code>false</code> if the content is no longer in the cache
+     */
+    private boolean serve( CacheEntry entry, File destination )
+        throws TransferFailedException
+    {
+        FileInputStream input;
+        try
+        {
+            input = cache.openContent( entry );
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Cannot read " + entry + " from the cache", e );
+        }
+        if ( input == null )
+        {
+            return false;
+        }
+
+        Resource resource = new Resource( entry.getResourceName() );
+        resource.setContentLength( entry.getLength() );
+        resource.setLastModified( entry.getLastModified() );
+
+        transferEventSupport.fireTransferInitiated( newTransferEvent( resource, TransferEvent.TRANSFER_INITIATED,
+                                                                      destination ) );
+
+        OutputStream output = null;
+        try
+        {
+            File parent = destination.getAbsoluteFile().getParentFile();
+            if ( parent != null )
+            {
+                parent.mkdirs();
+            }
+            output = new FileOutputStream( destination );
+
+            transferEventSupport.fireTransferStarted( newTransferEvent( resource, TransferEvent.TRANSFER_STARTED,
+                                                                        destination ) );
+
+            copy( input, output, newTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, destination ) );
+
+            output.close();
+        }
+        catch ( IOException e )
+        {
+            TransferEvent transferEvent = new TransferEvent( this, resource, e, TransferEvent.REQUEST_GET );
+            transferEvent.setLocalFile( destination );
+            transferEventSupport.fireTransferError( transferEvent );
+
+            destination.delete();
+
+            throw new TransferFailedException( "Cannot copy " + entry + " from the cache to " + destination, e );
+        }
+        finally
+        {
+            IOUtil.close( output );
+            IOUtil.close( input );
+        }
+
+        transferEventSupport.fireTransferCompleted( newTransferEvent( resource, TransferEvent.TRANSFER_COMPLETED,
+                                                                      destination ) );
+
+        return true;
+    }
+
+    /**
+     * Copies the content, through the heap only if a listener wants it.
+     */
+    private void copy( FileInputStream input, OutputStream output, TransferEvent transferEvent )
+        throws IOException
+    {
+        if ( !transferEventSupport.hasRawProgressListeners() )
+        {
+            FileChannel in = input.getChannel();
+            FileChannel out = ( (FileOutputStream) output ).getChannel();
+
+            long length = in.size();
+            long position = 0;
+            while ( position < length )
+            {
+                long n = in.transferTo( position, Math.min( COPY_CHUNK_SIZE, length - position ), out );
+                if ( n <= 0 )
+                {
+                    throw new IOException( "Unexpected end of the cached content at byte " + position );
+                }
+                position += n;
+
+                transferEventSupport.fireTransferProgress( transferEvent, (int) n );
+            }
+        }
+        else
+        {
+            byte[] buffer = BUFFER_POOL.acquire( BUFFER_SIZE );
+            try
+            {
+                int n;
+                while ( ( n = input.read( buffer ) ) != -1 )
+                {
+                    output.write( buffer, 0, n );
+
+                    transferEventSupport.fireTransferProgress( transferEvent, buffer, n );
+                }
+            }
+            finally
+            {
+                BUFFER_POOL.release( buffer );
+            }
+        }
+
+        transferEventSupport.flushTransferProgress( transferEvent );
+    }
+
+    private TransferEvent newTransferEvent( Resource resource, int eventType, File destination )
+    {
+        TransferEvent transferEvent = new TransferEvent( this, resource, eventType, TransferEvent.REQUEST_GET );
+        transferEvent.setTimestamp( System.currentTimeMillis() );
+        transferEvent.setNanoTime( System.nanoTime() );
+        transferEvent.setLocalFile( destination );
+        return transferEvent;
+    }
+
+    private String getRepositoryUrl()
+    {
+        return wagon.getRepository().getUrl();
+    }
+
+    private File createTempFile()
+        throws TransferFailedException
+    {
+        try
+        {
+            return File.createTempFile( "wagon", ".tmp" );
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Cannot create a temporary file", e );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Uploads, invalidating the cache
+    // ----------------------------------------------------------------------
+
+    public void put( File source, String destination )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        try
+        {
+            wagon.put( source, destination );
+        }
+        finally
+        {
+            cache.remove( getRepositoryUrl(), destination );
+        }
+    }
+
+    public void putDirectory( File sourceDirectory, String destinationDirectory )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        try
+        {
+            wagon.putDirectory( sourceDirectory, destinationDirectory );
+        }
+        finally
+        {
+            cache.removeDirectory( getRepositoryUrl(), destinationDirectory );
+        }
+    }
+
+    public void putFromStream( InputStream stream, String destination )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        putFromStream( stream, destination, -1, -1 );
+    }
+
+    /**
+     * Uploads the content of the stream, through a temporary file if the wrapped wagon does not support streams.
+     */
+    public void putFromStream( InputStream stream, String destination, long contentLength, long lastModified )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        try
+        {
+            if ( wagon instanceof StreamingWagon )
+            {
+                ( (StreamingWagon) wagon ).putFromStream( stream, destination, contentLength, lastModified );
+                return;
+            }
+
+            File temp = createTempFile();
+            try
+            {
+                OutputStream output = null;
+                try
+                {
+                    output = new FileOutputStream( temp );
+                    IOUtil.copy( stream, output );
+                }
+                catch ( IOException e )
+                {
+                    throw new TransferFailedException( "Cannot read the content of " + destination, e );
+                }
+                finally
+                {
+                    IOUtil.close( output );
+                }
+                if ( lastModified > 0 )
+                {
+                    temp.setLastModified( lastModified );
+                }
+
+                wagon.put( temp, destination );
+            }
+            finally
+            {
+                temp.delete();
+            }
+        }
+        finally
+        {
+            cache.remove( getRepositoryUrl(), destination );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Everything else goes to the wrapped wagon
+    // ----------------------------------------------------------------------
+
+    public boolean resourceExists( String resourceName )
+        throws TransferFailedException, AuthorizationException
+    {
+        return wagon.resourceExists( resourceName );
+    }
+
+    public List<String> getFileList( String destinationDirectory )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        return wagon.getFileList( destinationDirectory );
+    }
+
+    public boolean supportsDirectoryCopy()
+    {
+        return wagon.supportsDirectoryCopy();
+    }
+
+    public Repository getRepository()
+    {
+        return wagon.getRepository();
+    }
+
+    public void connect( Repository source )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source );
+    }
+
+    public void connect( Repository source, ProxyInfo proxyInfo )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source, proxyInfo );
+    }
+
+    public void connect( Repository source, ProxyInfoProvider proxyInfoProvider )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source, proxyInfoProvider );
+    }
+
+    public void connect( Repository source, AuthenticationInfo authenticationInfo )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source, authenticationInfo );
+    }
+
+    public void connect( Repository source, AuthenticationInfo authenticationInfo, ProxyInfo proxyInfo )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source, authenticationInfo, proxyInfo );
+    }
+
+    public void connect( Repository source, AuthenticationInfo authenticationInfo,
+                         ProxyInfoProvider proxyInfoProvider )
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.connect( source, authenticationInfo, proxyInfoProvider );
+    }
+
+    public void openConnection()
+        throws ConnectionException, AuthenticationException
+    {
+        wagon.openConnection();
+    }
+
+    public void disconnect()
+        throws ConnectionException
+    {
+        wagon.disconnect();
+    }
+
+    public void setTimeout( int timeoutValue )
+    {
+        wagon.setTimeout( timeoutValue );
+    }
+
+    public int getTimeout()
+    {
+        return wagon.getTimeout();
+    }
+
+    public void setReadTimeout( int timeoutValue )
+    {
+        wagon.setReadTimeout( timeoutValue );
+    }
+
+    public int getReadTimeout()
+    {
+        return wagon.getReadTimeout();
+    }
+
+    public void addSessionListener( SessionListener listener )
+    {
+        wagon.addSessionListener( listener );
+    }
+
+    public void removeSessionListener( SessionListener listener )
+    {
+        wagon.removeSessionListener( listener );
+    }
+
+    public boolean hasSessionListener( SessionListener listener )
+    {
+        return wagon.hasSessionListener( listener );
+    }
+
+    public void addTransferListener( TransferListener listener )
+    {
+        wagon.addTransferListener( listener );
+        transferEventSupport.addTransferListener( listener );
+    }
+
+    public void removeTransferListener( TransferListener listener )
+    {
+        wagon.removeTransferListener( listener );
+        transferEventSupport.removeTransferListener( listener );
+    }
+
+    public boolean hasTransferListener( TransferListener listener )
+    {
+        return wagon.hasTransferListener( listener );
+    }
+
+    public boolean isInteractive()
+    {
+        return wagon.isInteractive();
+    }
+
+    public void setInteractive( boolean interactive )
+    {
+        wagon.setInteractive( interactive );
+    }
+
+    /**
+     * Remembers the last modification date of the last downloaded resource, as told by the wrapped wagon. It does not
+     * want the transferred content, not to slow down the transfers of the wagon.
+     */
+    private static final class LastModifiedListener
+        extends AbstractTransferListener
+        implements ProgressAwareTransferListener
+    {
+        private long lastModified;
+
+        public long getProgressByteInterval()
+        {
+            return Long.MAX_VALUE;
+        }
+
+        public long getProgressTimeInterval()
+        {
+            return 0;
+        }
+
+        public void transferProgress( TransferEvent transferEvent, long transferred )
+        {
+        }
+
+        public void transferCompleted( TransferEvent transferEvent )
+        {
+            if ( transferEvent.getRequestType() == TransferEvent.REQUEST_GET )
+            {
+                lastModified = transferEvent.getResource().getLastModified();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers for a while the resources found missing in their repository, so that looking for them again does not
+ * cost a request. Wagons forget a resource as soon as they upload it.
+ * <p/>
+ * The wagons share {@link #getDefault() a default instance}, configured with the
+ * <code>maven.wagon.negativeCache.ttl</code> system property, in milliseconds, and
+ * <code>maven.wagon.negativeCache.maxEntries</code>. With a time to live of <code>0</code>, the default, nothing is
+ * remembered.
+ *
+ * @since 2.3
+ */
+public class NegativeLookupCache
+{
+    private static final int DEFAULT_MAXIMUM_ENTRIES = 10000;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final NegativeLookupCache DEFAULT =
+        new NegativeLookupCache( Long.getLong( "maven.wagon.negativeCache.ttl", 0 ),
+                                 Integer.getInteger( "maven.wagon.negativeCache.maxEntries",
+                                                     DEFAULT_MAXIMUM_ENTRIES ) );
+
+    private final long timeToLive;
+
+    private final int maximumEntries;
+
+    /**
+     * Expiry time of each missing resource, as given by {@link System#nanoTime()}, the first to expire first.
+     */
+    private final LinkedHashMap<String, Long> expiries = new LinkedHashMap<String, Long>()
+    {
+        protected boolean removeEldestEntry( Map.Entry<String, Long> eldest )
+        {
+            return size() > maximumEntries;
+        }
+    };
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * @param timeToLive     how long a resource is known to be missing, in milliseconds; <code>0</code> to never
+     *                       remember anything
+     * @param maximumEntries the number of missing resources to remember at most
+     */
+    public NegativeLookupCache( long timeToLive, int maximumEntries )
+    {
+        this.timeToLive = timeToLive;
+        this.maximumEntries = maximumEntries;
+    }
+
+    /**
+     * @return the instance shared by the wagons which were not given another one
+     */
+    public static NegativeLookupCache getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * @return whether the resource was found missing less than the time to live ago
+     */
+    public boolean isMissing( String repositoryUrl, String resourceName )
+    {
+        if ( timeToLive <= 0 )
+        {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        synchronized ( expiries )
+        {
+            purge( now );
+
+            if ( expiries.containsKey( getKey( repositoryUrl, resourceName ) ) )
+            {
+                hitCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Records that the resource was just found missing.
+     */
+    public void recordMissing( String repositoryUrl, String resourceName )
+    {
+        if ( timeToLive <= 0 )
+        {
+            return;
+        }
+
+        String key = getKey( repositoryUrl, resourceName );
+        long expiry = System.nanoTime() + timeToLive * NANOS_PER_MILLI;
+        synchronized ( expiries )
+        {
+            // put last, with the entries expiring last
+            expiries.remove( key );
+            expiries.put( key, expiry );
+        }
+    }
+
+    /**
+     * Forgets a resource, usually because it was just uploaded.
+     */
+    public void forget( String repositoryUrl, String resourceName )
+    {
+        if ( timeToLive <= 0 )
+        {
+            return;
+        }
+
+        synchronized ( expiries )
+        {
+            expiries.remove( getKey( repositoryUrl, resourceName ) );
+        }
+    }
+
+    /**
+     * Forgets all the resources.
+     */
+    public void clear()
+    {
+        synchronized ( expiries )
+        {
+            expiries.clear();
+        }
+    }
+
+    /**
+     * @return the number of resources currently known to be missing
+     */
+    public int size()
+    {
+        synchronized ( expiries )
+        {
+            purge( System.nanoTime() );
+
+            return expiries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups answered without asking the repository
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getTimeToLive()
+    {
+        return timeToLive;
+    }
+
+    public int getMaximumEntries()
+    {
+        return maximumEntries;
+    }
+
+    private void purge( long now )
+    {
+        for ( Iterator<Long> i = expiries.values().iterator(); i.hasNext(); )
+        {
+            if ( i.next() - now > 0 )
+            {
+                break;
+            }
+            i.remove();
+        }
+    }
+
+    private static String getKey( String repositoryUrl, String resourceName )
+    {
+        return repositoryUrl + '\n' + resourceName;
+    }
+}
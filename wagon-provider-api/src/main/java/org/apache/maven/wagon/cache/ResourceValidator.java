@@ -0,0 +1,76 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * What a repository told about a resource when it was downloaded to a file, kept in a {@link ValidatorStore} to ask
+ * it later whether the resource changed since.
+ *
+ * @since 2.3
+ */
+public final class ResourceValidator
+{
+    private final String entityTag;
+
+    private final long lastModified;
+
+    private final long length;
+
+    /**
+     * @param entityTag    the entity tag of the resource, <code>null</code> if unknown
+     * @param lastModified the last modification date of the resource, <code>0</code> if unknown
+     * @param length       the length of the file the resource was downloaded to
+     */
+    public ResourceValidator( String entityTag, long lastModified, long length )
+    {
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    /**
+     * @return the entity tag of the resource, as sent by the repository, or <code>null</code> if unknown
+     */
+    public String getEntityTag()
+    {
+        return entityTag;
+    }
+
+    /**
+     * @return the last modification date of the resource, <code>0</code> if unknown
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * @return the length of the file the resource was downloaded to
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    public String toString()
+    {
+        return "ETag " + entityTag + ", last modified " + lastModified + ", " + length + " bytes";
+    }
+}
@@ -0,0 +1,324 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The validators of the resources downloaded with {@link org.apache.maven.wagon.StreamingWagon#getIfChanged(String,
+ * File)}, which let the next call ask the repository whether the resource changed instead of downloading it again.
+ * <p/>
+ * A store may be kept in memory only, or in a file, one line per resource with the URL of its repository, its name,
+ * the file it was downloaded to and its validator, separated by tabs. Each change is appended to the file, which is
+ * rewritten with the current validators only once it holds too many stale lines. A store file must only be used by
+ * one instance at a time, which is safe to use from several threads.
+ * <p/>
+ * The wagons share {@link #getDefault() a default instance}, kept in the file given by the
+ * <code>maven.wagon.validators.file</code> system property, or in memory if it is not set.
+ *
+ * @since 2.3
+ */
+public class ValidatorStore
+{
+    private static final String ENCODING = "UTF-8";
+
+    private static final char SEPARATOR = '\t';
+
+    private static final int KEY_FIELDS = 3;
+
+    private static final int FIELDS = KEY_FIELDS + 3;
+
+    /**
+     * The number of lines of the file from which it is rewritten if most of them are stale.
+     */
+    private static final int MINIMUM_COMPACTION_LINES = 1024;
+
+    private static final ValidatorStore DEFAULT = createDefault();
+
+    private final File file;
+
+    private final Map<String, ResourceValidator> validators = new HashMap<String, ResourceValidator>();
+
+    private boolean loaded;
+
+    private int lines;
+
+    /**
+     * Creates a store kept in memory only.
+     */
+    public ValidatorStore()
+    {
+        this( null );
+    }
+
+    /**
+     * @param file the file keeping the validators, created if needed; <code>null</code> to keep them in memory only
+     */
+    public ValidatorStore( File file )
+    {
+        this.file = file;
+        this.loaded = file == null;
+    }
+
+    /**
+     * @return the instance shared by the wagons which were not given another one
+     */
+    public static ValidatorStore getDefault()
+    {
+        return DEFAULT;
+    }
+
+    private static ValidatorStore createDefault()
+    {
+        String path = System.getProperty( "maven.wagon.validators.file" );
+
+        return new ValidatorStore( path == null || path.length() == 0 ? null : new File( path ) );
+    }
+
+    /**
+     * @param destination the file the resource was downloaded to
+     * @return the validator of the resource when it was downloaded to the file, or <code>null</code> if unknown
+     */
+    public synchronized ResourceValidator get( String repositoryUrl, String resourceName, File destination )
+        throws IOException
+    {
+        load();
+
+        return validators.get( getKey( repositoryUrl, resourceName, destination ) );
+    }
+
+    /**
+     * Records the validator of a resource just downloaded to the given file, replacing any previous one.
+     */
+    public synchronized void put( String repositoryUrl, String resourceName, File destination,
+                                  ResourceValidator validator )
+        throws IOException
+    {
+        load();
+
+        String key = getKey( repositoryUrl, resourceName, destination );
+        validators.put( key, validator );
+
+        if ( isStorable( key ) )
+        {
+            String line = toLine( key, validator );
+            // a validator which cannot be written is only kept in memory, and forgotten in the file
+            append( line != null ? line : key );
+        }
+    }
+
+    /**
+     * Forgets the validator of a resource downloaded to the given file.
+     */
+    public synchronized void remove( String repositoryUrl, String resourceName, File destination )
+        throws IOException
+    {
+        load();
+
+        String key = getKey( repositoryUrl, resourceName, destination );
+        if ( validators.remove( key ) != null && isStorable( key ) )
+        {
+            append( key );
+        }
+    }
+
+    /**
+     * @return the number of resources whose validator is known
+     */
+    public synchronized int size()
+        throws IOException
+    {
+        load();
+
+        return validators.size();
+    }
+
+    /**
+     * @return the file keeping the validators, or <code>null</code> if they are kept in memory only
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    private void load()
+        throws IOException
+    {
+        if ( loaded )
+        {
+            return;
+        }
+        loaded = true;
+
+        BufferedReader reader;
+        try
+        {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), ENCODING ) );
+        }
+        catch ( FileNotFoundException e )
+        {
+            return;
+        }
+
+        try
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                lines++;
+
+                String[] fields = line.split( String.valueOf( SEPARATOR ), -1 );
+                if ( fields.length == KEY_FIELDS )
+                {
+                    validators.remove( line );
+                }
+                else if ( fields.length == FIELDS )
+                {
+                    String key = fields[0] + SEPARATOR + fields[1] + SEPARATOR + fields[2];
+                    String entityTag = fields[KEY_FIELDS + 2].length() > 0 ? fields[KEY_FIELDS + 2] : null;
+                    try
+                    {
+                        validators.put( key, new ResourceValidator( entityTag, Long.parseLong( fields[KEY_FIELDS + 1] ),
+                                                                    Long.parseLong( fields[KEY_FIELDS] ) ) );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // a line truncated by a crash, skipped
+                    }
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    private void append( String line )
+        throws IOException
+    {
+        if ( file == null )
+        {
+            return;
+        }
+
+        if ( lines >= MINIMUM_COMPACTION_LINES && lines >= 2 * validators.size() )
+        {
+            compact();
+        }
+
+        if ( file.getParentFile() != null )
+        {
+            file.getParentFile().mkdirs();
+        }
+
+        Writer writer = new OutputStreamWriter( new FileOutputStream( file, true ), ENCODING );
+        try
+        {
+            writer.write( line );
+            writer.write( '\n' );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+        lines++;
+    }
+
+    /**
+     * Rewrites the file with the current validators only.
+     */
+    private void compact()
+        throws IOException
+    {
+        File temp = new File( file.getPath() + ".tmp" );
+
+        Writer writer = new OutputStreamWriter( new FileOutputStream( temp ), ENCODING );
+        int written = 0;
+        try
+        {
+            for ( Map.Entry<String, ResourceValidator> entry : validators.entrySet() )
+            {
+                String line = toLine( entry.getKey(), entry.getValue() );
+                if ( line != null )
+                {
+                    writer.write( line );
+                    writer.write( '\n' );
+                    written++;
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+
+        file.delete();
+        if ( !temp.renameTo( file ) )
+        {
+            temp.delete();
+            throw new IOException( "Cannot move " + temp + " to " + file );
+        }
+        lines = written;
+    }
+
+    /**
+     * @return the line recording the validator of the resource, or <code>null</code> if the key or the entity tag hold
+     *         characters which would be mistaken for separators
+     */
+    private static String toLine( String key, ResourceValidator validator )
+    {
+        String entityTag = validator.getEntityTag() != null ? validator.getEntityTag() : "";
+        if ( !isStorable( key ) || entityTag.indexOf( SEPARATOR ) >= 0 || entityTag.indexOf( '\n' ) >= 0
+            || entityTag.indexOf( '\r' ) >= 0 )
+        {
+            return null;
+        }
+
+        return key + SEPARATOR + validator.getLength() + SEPARATOR + validator.getLastModified() + SEPARATOR
+            + entityTag;
+    }
+
+    /**
+     * @return whether the key can be written in a line without being mistaken for other fields
+     */
+    private static boolean isStorable( String key )
+    {
+        return key.indexOf( '\n' ) < 0 && key.indexOf( '\r' ) < 0
+            && key.split( String.valueOf( SEPARATOR ), -1 ).length == KEY_FIELDS;
+    }
+
+    private static String getKey( String repositoryUrl, String resourceName, File destination )
+    {
+        return repositoryUrl + SEPARATOR + resourceName + SEPARATOR + destination.getAbsolutePath();
+    }
+}
@@ -0,0 +1,679 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.BufferPool;
+import org.apache.maven.wagon.DefaultBufferPool;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local store of downloaded resources, shared by the {@link CachingWagon}s of a build.
+ * <p/>
+ * The content of the resources is kept once per distinct content, under its SHA-1 checksum, in the
+ * <code>objects</code> directory. Each cached resource, identified by the URL of its repository and its name, has an
+ * entry in the <code>entries</code> directory pointing at its content and recording its last modification date. When
+ * the content takes more than the maximum size, the least recently used resources are evicted.
+ * <p/>
+ * A cache directory must only be used by one instance at a time, which is safe to use from several threads.
+ *
+ * @since 2.3
+ */
+public class WagonCache
+{
+    private static final String OBJECTS = "objects";
+
+    private static final String ENTRIES = "entries";
+
+    private static final String TEMP = "tmp";
+
+    private static final int COPY_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final BufferPool BUFFER_POOL = new DefaultBufferPool();
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+
+    private final long maximumSize;
+
+    /**
+     * Entries by key, the least recently used first.
+     */
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>( 16, 0.75f, true );
+
+    /**
+     * Number of entries pointing at each content.
+     */
+    private final Map<String, Integer> references = new HashMap<String, Integer>();
+
+    /**
+     * Number of open streams on each content, which is only deleted once they are all closed.
+     */
+    private final Map<String, Integer> readers = new HashMap<String, Integer>();
+
+    private long size;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * @param directory   the directory of the cache, created if needed
+     * @param maximumSize the number of bytes the cached content can take
+     */
+    public WagonCache( File directory, long maximumSize )
+        throws IOException
+    {
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+
+        FileUtils.forceMkdir( new File( directory, OBJECTS ) );
+        FileUtils.forceMkdir( new File( directory, ENTRIES ) );
+        FileUtils.forceMkdir( new File( directory, TEMP ) );
+
+        load();
+    }
+
+    /**
+     * Returns the entry of a resource and marks it as the most recently used.
+     *
+     * @return the entry, or <code>null</code> if the resource is not cached
+     */
+    public synchronized CacheEntry get( String repositoryUrl, String resourceName )
+    {
+        CacheEntry entry = entries.get( getKey( repositoryUrl, resourceName ) );
+        if ( entry != null )
+        {
+            getEntryFile( entry.getKey() ).setLastModified( System.currentTimeMillis() );
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the content of a resource, replacing any previous one, and evicts the least recently used resources if
+     * the cache is now too large.
+     *
+     * @param content      the file holding the content of the resource, left untouched
+     * @param lastModified the last modification date of the resource, <code>0</code> if unknown
+     * @return the new entry of the resource
+     */
+    public CacheEntry put( String repositoryUrl, String resourceName, File content, long lastModified )
+        throws IOException
+    {
+        // the content is copied and hashed outside of the lock
+        File temp = File.createTempFile( "wagon", ".tmp", new File( directory, TEMP ) );
+        String checksum;
+        try
+        {
+            checksum = copyAndHash( content, temp );
+        }
+        catch ( IOException e )
+        {
+            temp.delete();
+            throw e;
+        }
+
+        synchronized ( this )
+        {
+            File object = getObjectFile( checksum );
+            if ( object.exists() )
+            {
+                temp.delete();
+            }
+            else
+            {
+                object.getParentFile().mkdirs();
+                if ( !temp.renameTo( object ) )
+                {
+                    temp.delete();
+                    throw new IOException( "Cannot move " + temp + " to " + object );
+                }
+            }
+
+            String key = getKey( repositoryUrl, resourceName );
+            CacheEntry entry = new CacheEntry( key, repositoryUrl, resourceName, checksum, object.length(),
+                                               lastModified );
+
+            // the previous entry is released once the new one holds its content, which may be the same
+            CacheEntry previous = entries.remove( key );
+            storeEntry( entry );
+            addEntry( entry );
+            if ( previous != null )
+            {
+                release( previous.getChecksum() );
+            }
+
+            evict();
+
+            return entry;
+        }
+    }
+
+    /**
+     * Forgets a resource, usually because it was changed in its repository.
+     */
+    public synchronized void remove( String repositoryUrl, String resourceName )
+    {
+        String key = getKey( repositoryUrl, resourceName );
+        if ( removeEntry( key ) )
+        {
+            getEntryFile( key ).delete();
+        }
+    }
+
+    /**
+     * Forgets all the resources below the given directory of a repository.
+     */
+    public synchronized void removeDirectory( String repositoryUrl, String directoryName )
+    {
+        String prefix = directoryName.endsWith( "/" ) || directoryName.length() == 0 ? directoryName
+            : directoryName + "/";
+
+        List<String> keys = new ArrayList<String>();
+        for ( CacheEntry entry : entries.values() )
+        {
+            if ( entry.getRepositoryUrl().equals( repositoryUrl ) && entry.getResourceName().startsWith( prefix ) )
+            {
+                keys.add( entry.getKey() );
+            }
+        }
+
+        for ( String key : keys )
+        {
+            removeEntry( key );
+            getEntryFile( key ).delete();
+        }
+    }
+
+    /**
+     * Opens the cached content of a resource. The content can be read until the stream is closed, even if the
+     * resource is evicted meanwhile.
+     *
+     * @return the content, or <code>null</code> if it is no longer in the cache
+     */
+    public synchronized FileInputStream openContent( CacheEntry entry )
+        throws IOException
+    {
+        String checksum = entry.getChecksum();
+        if ( !references.containsKey( checksum ) )
+        {
+            return null;
+        }
+
+        FileInputStream input;
+        try
+        {
+            input = new ContentInputStream( checksum );
+        }
+        catch ( FileNotFoundException e )
+        {
+            // deleted behind the back of the cache
+            return null;
+        }
+
+        Integer count = readers.get( checksum );
+        readers.put( checksum, count == null ? 1 : count + 1 );
+
+        return input;
+    }
+
+    /**
+     * Copies the cached content of a resource to the given file, without going through the Java heap.
+     *
+     * @return <code>false</code> if the content is no longer in the cache
+     */
+    public boolean copy( CacheEntry entry, File destination )
+        throws IOException
+    {
+        FileInputStream input = openContent( entry );
+        if ( input == null )
+        {
+            return false;
+        }
+
+        FileOutputStream output = null;
+        try
+        {
+            File parent = destination.getAbsoluteFile().getParentFile();
+            if ( parent != null )
+            {
+                parent.mkdirs();
+            }
+            output = new FileOutputStream( destination );
+
+            FileChannel in = input.getChannel();
+            FileChannel out = output.getChannel();
+
+            long length = in.size();
+            long position = 0;
+            while ( position < length )
+            {
+                long n = in.transferTo( position, Math.min( COPY_CHUNK_SIZE, length - position ), out );
+                if ( n <= 0 )
+                {
+                    throw new IOException( "Unexpected end of " + getObjectFile( entry.getChecksum() ) );
+                }
+                position += n;
+            }
+        }
+        finally
+        {
+            IOUtil.close( output );
+            IOUtil.close( input );
+        }
+
+        return true;
+    }
+
+    /**
+     * Records a resource served from the cache instead of its repository.
+     */
+    public void recordHit( CacheEntry entry )
+    {
+        hitCount.incrementAndGet();
+        bytesSaved.addAndGet( entry.getLength() );
+    }
+
+    /**
+     * Records a resource which had to be downloaded from its repository.
+     */
+    public void recordMiss()
+    {
+        missCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of resources served from the cache
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of resources downloaded from their repository
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of bytes served from the cache instead of being downloaded
+     */
+    public long getBytesSaved()
+    {
+        return bytesSaved.get();
+    }
+
+    /**
+     * @return the number of bytes taken by the cached content
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    public long getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of cached resources
+     */
+    public synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    private void evict()
+    {
+        for ( Iterator<CacheEntry> i = entries.values().iterator(); size > maximumSize && i.hasNext(); )
+        {
+            CacheEntry entry = i.next();
+            i.remove();
+
+            getEntryFile( entry.getKey() ).delete();
+            release( entry.getChecksum() );
+        }
+    }
+
+    private void addEntry( CacheEntry entry )
+    {
+        entries.put( entry.getKey(), entry );
+
+        Integer count = references.get( entry.getChecksum() );
+        if ( count == null )
+        {
+            size += entry.getLength();
+        }
+        references.put( entry.getChecksum(), count == null ? 1 : count + 1 );
+    }
+
+    private boolean removeEntry( String key )
+    {
+        CacheEntry entry = entries.remove( key );
+        if ( entry == null )
+        {
+            return false;
+        }
+
+        release( entry.getChecksum() );
+        return true;
+    }
+
+    private void release( String checksum )
+    {
+        Integer count = references.get( checksum );
+        if ( count == null )
+        {
+            return;
+        }
+
+        if ( count > 1 )
+        {
+            references.put( checksum, count - 1 );
+            return;
+        }
+
+        references.remove( checksum );
+
+        File object = getObjectFile( checksum );
+        size -= object.length();
+
+        // otherwise deleted by the last stream reading it
+        if ( !readers.containsKey( checksum ) )
+        {
+            object.delete();
+        }
+    }
+
+    private synchronized void closeContent( String checksum )
+    {
+        Integer count = readers.get( checksum );
+        if ( count > 1 )
+        {
+            readers.put( checksum, count - 1 );
+            return;
+        }
+
+        readers.remove( checksum );
+
+        if ( !references.containsKey( checksum ) )
+        {
+            getObjectFile( checksum ).delete();
+        }
+    }
+
+    private void load()
+    {
+        File[] files = new File( directory, ENTRIES ).listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        // the entry files are touched when used
+        Arrays.sort( files, new Comparator<File>()
+        {
+            public int compare( File f1, File f2 )
+            {
+                long t1 = f1.lastModified();
+                long t2 = f2.lastModified();
+                return t1 < t2 ? -1 : ( t1 == t2 ? 0 : 1 );
+            }
+        } );
+
+        for ( File file : files )
+        {
+            CacheEntry entry = loadEntry( file );
+            if ( entry != null && getObjectFile( entry.getChecksum() ).isFile() )
+            {
+                addEntry( entry );
+            }
+            else
+            {
+                file.delete();
+            }
+        }
+
+        evict();
+    }
+
+    private CacheEntry loadEntry( File file )
+    {
+        Properties properties = new Properties();
+        InputStream input = null;
+        try
+        {
+            input = new FileInputStream( file );
+            properties.load( input );
+
+            String repositoryUrl = properties.getProperty( "repositoryUrl" );
+            String resourceName = properties.getProperty( "resourceName" );
+            String checksum = properties.getProperty( "checksum" );
+            if ( repositoryUrl == null || resourceName == null || checksum == null )
+            {
+                return null;
+            }
+
+            return new CacheEntry( getKey( repositoryUrl, resourceName ), repositoryUrl, resourceName, checksum,
+                                   getObjectFile( checksum ).length(),
+                                   Long.parseLong( properties.getProperty( "lastModified", "0" ) ) );
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+        finally
+        {
+            IOUtil.close( input );
+        }
+    }
+
+    private void storeEntry( CacheEntry entry )
+        throws IOException
+    {
+        Properties properties = new Properties();
+        properties.setProperty( "repositoryUrl", entry.getRepositoryUrl() );
+        properties.setProperty( "resourceName", entry.getResourceName() );
+        properties.setProperty( "checksum", entry.getChecksum() );
+        properties.setProperty( "lastModified", Long.toString( entry.getLastModified() ) );
+
+        OutputStream output = null;
+        try
+        {
+            output = new FileOutputStream( getEntryFile( entry.getKey() ) );
+            properties.store( output, null );
+        }
+        finally
+        {
+            IOUtil.close( output );
+        }
+    }
+
+    private File getObjectFile( String checksum )
+    {
+        return new File( new File( new File( directory, OBJECTS ), checksum.substring( 0, 2 ) ),
+                         checksum.substring( 2 ) );
+    }
+
+    private File getEntryFile( String key )
+    {
+        return new File( new File( directory, ENTRIES ), key );
+    }
+
+    /**
+     * @return the file name of the entry of a resource
+     */
+    private static String getKey( String repositoryUrl, String resourceName )
+    {
+        try
+        {
+            MessageDigest digest = newDigest();
+            digest.update( repositoryUrl.getBytes( "UTF-8" ) );
+            digest.update( (byte) 0 );
+            digest.update( resourceName.getBytes( "UTF-8" ) );
+            return encode( digest.digest() );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+    }
+
+    private static String copyAndHash( File source, File destination )
+        throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        InputStream input = null;
+        OutputStream output = null;
+        try
+        {
+            input = new FileInputStream( source );
+            output = new FileOutputStream( destination );
+
+            byte[] buffer = BUFFER_POOL.acquire( BUFFER_SIZE );
+            try
+            {
+                int n;
+                while ( ( n = input.read( buffer ) ) != -1 )
+                {
+                    digest.update( buffer, 0, n );
+                    output.write( buffer, 0, n );
+                }
+            }
+            finally
+            {
+                BUFFER_POOL.release( buffer );
+            }
+        }
+        finally
+        {
+            IOUtil.close( output );
+            IOUtil.close( input );
+        }
+
+        return encode( digest.digest() );
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // every JRE has SHA-1
+            throw new IllegalStateException( e.getMessage() );
+        }
+    }
+
+    private static String encode( byte[] bytes )
+    {
+        char[] hex = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            hex[i * 2] = HEX_DIGITS[( bytes[i] >> 4 ) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String( hex );
+    }
+
+    /**
+     * The content of a resource, kept in the cache until the stream is closed.
+     */
+    private final class ContentInputStream
+        extends FileInputStream
+    {
+        private final String checksum;
+
+        private boolean closed;
+
+        private ContentInputStream( String checksum )
+            throws FileNotFoundException
+        {
+            super( getObjectFile( checksum ) );
+            this.checksum = checksum;
+        }
+
+        public void close()
+            throws IOException
+        {
+            boolean first;
+            synchronized ( this )
+            {
+                first = !closed;
+                closed = true;
+            }
+
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                if ( first )
+                {
+                    closeContent( checksum );
+                }
+            }
+        }
+    }
+}
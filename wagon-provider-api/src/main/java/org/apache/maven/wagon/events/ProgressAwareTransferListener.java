@@ -0,0 +1,53 @@
+package org.apache.maven.wagon.events;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A {@link TransferListener} which only wants to know how far a transfer went, not the transferred content.
+ * <p/>
+ * Such a listener never gets {@link TransferListener#transferProgress(TransferEvent, byte[], int)} called. Instead,
+ * {@link #transferProgress(TransferEvent, long)} is called once at least {@link #getProgressByteInterval()} bytes
+ * have been transferred or {@link #getProgressTimeInterval()} milliseconds have elapsed since the previous call,
+ * whichever comes first, and once more when the transfer loop ends with bytes not yet reported.
+ * An interval of <code>0</code> or less disables that threshold; with both disabled the listener is called for every
+ * chunk of the transfer.
+ *
+ * @since 2.3
+ */
+public interface ProgressAwareTransferListener
+    extends TransferListener
+{
+    /**
+     * @return the minimum number of bytes between two progress notifications, or <code>0</code> for no byte threshold
+     */
+    long getProgressByteInterval();
+
+    /**
+     * @return the minimum number of milliseconds between two progress notifications, or <code>0</code> for no time
+     *         threshold
+     */
+    long getProgressTimeInterval();
+
+    /**
+     * @param transferEvent the progress event of the transfer
+     * @param transferred   the number of bytes transferred so far in this transfer
+     */
+    void transferProgress( TransferEvent transferEvent, long transferred );
+}
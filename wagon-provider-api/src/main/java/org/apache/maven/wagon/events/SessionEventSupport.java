@@ -19,10 +19,6 @@ package org.apache.maven.wagon.events;
  * under the License.
  */
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 /**
  * The class allows registration and deregistration of session listeners
  *
@@ -31,10 +27,13 @@ import java.util.List;
  */
 public final class SessionEventSupport
 {
+    private static final SessionListener[] NO_LISTENERS = new SessionListener[0];
+
     /**
-     * registered listeners
+     * registered listeners. The array is never modified once published: registration replaces it with a copy, so
+     * events are dispatched without locking and listeners may be added or removed while events are fired.
      */
-    private final List listeners = new ArrayList();
+    private volatile SessionListener[] listeners = NO_LISTENERS;
 
     /**
      * Adds the listener to the collection of listeners
@@ -47,11 +46,14 @@ public final class SessionEventSupport
      * @see #removeSessionListener(SessionListener)
      * @see TransferListener
      */
-    public void addSessionListener( final SessionListener listener )
+    public synchronized void addSessionListener( final SessionListener listener )
     {
         if ( listener != null )
         {
-            listeners.add( listener );
+            SessionListener[] copy = new SessionListener[listeners.length + 1];
+            System.arraycopy( listeners, 0, copy, 0, listeners.length );
+            copy[listeners.length] = listener;
+            listeners = copy;
         }
     }
 
@@ -66,9 +68,20 @@ public final class SessionEventSupport
      * @param listener the session listener
      * @see #addSessionListener(org.apache.maven.wagon.events.SessionListener)
      */
-    public void removeSessionListener( final SessionListener listener )
+    public synchronized void removeSessionListener( final SessionListener listener )
     {
-        listeners.remove( listener );
+        SessionListener[] current = listeners;
+        for ( int i = 0; i < current.length; i++ )
+        {
+            if ( current[i].equals( listener ) )
+            {
+                SessionListener[] copy = new SessionListener[current.length - 1];
+                System.arraycopy( current, 0, copy, 0, i );
+                System.arraycopy( current, i + 1, copy, i, current.length - i - 1 );
+                listeners = copy;
+                return;
+            }
+        }
     }
 
     /**
@@ -85,7 +98,25 @@ public final class SessionEventSupport
      */
     public boolean hasSessionListener( final SessionListener listener )
     {
-        return listeners.contains( listener );
+        for ( SessionListener registered : listeners )
+        {
+            if ( registered.equals( listener ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether any listener is registered at all, so callers can avoid building events nobody will receive.
+     *
+     * @return <code>true</code> if at least one listener is registered, <code>false</code> otherwise
+     * @since 2.3
+     */
+    public boolean hasListeners()
+    {
+        return listeners.length > 0;
     }
 
     /**
@@ -97,9 +128,8 @@ public final class SessionEventSupport
      */
     public void fireSessionDisconnected( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionDisconnected( sessionEvent );
         }
     }
@@ -113,9 +143,8 @@ public final class SessionEventSupport
      */
     public void fireSessionDisconnecting( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionDisconnecting( sessionEvent );
         }
     }
@@ -129,9 +158,8 @@ public final class SessionEventSupport
      */
     public void fireSessionLoggedIn( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionLoggedIn( sessionEvent );
         }
     }
@@ -145,9 +173,8 @@ public final class SessionEventSupport
      */
     public void fireSessionLoggedOff( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionLoggedOff( sessionEvent );
         }
     }
@@ -161,9 +188,8 @@ public final class SessionEventSupport
      */
     public void fireSessionOpened( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionOpened( sessionEvent );
         }
     }
@@ -177,9 +203,8 @@ public final class SessionEventSupport
      */
     public void fireSessionOpening( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionOpening( sessionEvent );
         }
     }
@@ -193,9 +218,8 @@ public final class SessionEventSupport
      */
     public void fireSessionConnectionRefused( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionConnectionRefused( sessionEvent );
         }
     }
@@ -208,9 +232,8 @@ public final class SessionEventSupport
      */
     public void fireDebug( final String message )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.debug( message );
         }
     }
@@ -225,9 +248,8 @@ public final class SessionEventSupport
      */
     public void fireSessionError( final SessionEvent sessionEvent )
     {
-        for ( Iterator iter = listeners.iterator(); iter.hasNext(); )
+        for ( SessionListener listener : listeners )
         {
-            final SessionListener listener = (SessionListener) iter.next();
             listener.sessionError( sessionEvent );
         }
     }
@@ -23,6 +23,8 @@ import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.resource.Resource;
 
 import java.io.File;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * TransferEvent is used to notify TransferListeners about progress
@@ -80,6 +82,16 @@ public class TransferEvent
 
     private File localFile;
 
+    /**
+     * Bytes reported so far through this progress event, and when each {@link ProgressAwareTransferListener} was
+     * last notified. Only touched by the thread running the transfer.
+     */
+    private long transferred;
+
+    private Map<ProgressAwareTransferListener, long[]> progressNotified;
+
+    private long nanoTime;
+
     public TransferEvent( final Wagon wagon, final Resource resource, final int eventType, final int requestType )
     {
         super( wagon );
@@ -115,6 +127,15 @@ public class TransferEvent
         return exception;
     }
 
+    /**
+     * @param exception The exception to set.
+     * @since 2.3
+     */
+    public void setException( final Exception exception )
+    {
+        this.exception = exception;
+    }
+
     /**
      * Returns the request type.
      *
@@ -203,6 +224,59 @@ public class TransferEvent
         this.localFile = localFile;
     }
 
+    /**
+     * @return the number of bytes reported so far through progress notifications with this event
+     * @since 2.3
+     */
+    public long getTransferredBytes()
+    {
+        return transferred;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which this event occurred, or <code>0</code> if it was not set
+     * @since 2.3
+     */
+    public long getNanoTime()
+    {
+        return nanoTime;
+    }
+
+    /**
+     * @param nanoTime the {@link System#nanoTime()} at which this event occurred
+     * @since 2.3
+     */
+    public void setNanoTime( final long nanoTime )
+    {
+        this.nanoTime = nanoTime;
+    }
+
+    long addTransferred( long length )
+    {
+        transferred += length;
+
+        return transferred;
+    }
+
+    /**
+     * @return the number of bytes and the {@link System#nanoTime()} of the last notification of the given listener
+     */
+    long[] getProgressNotified( ProgressAwareTransferListener listener, long now )
+    {
+        if ( progressNotified == null )
+        {
+            progressNotified = new IdentityHashMap<ProgressAwareTransferListener, long[]>( 4 );
+        }
+
+        long[] notified = progressNotified.get( listener );
+        if ( notified == null )
+        {
+            notified = new long[]{ 0, now };
+            progressNotified.put( listener, notified );
+        }
+        return notified;
+    }
+
     public String toString()
     {
         StringBuffer sb = new StringBuffer();
@@ -31,11 +31,13 @@ import java.util.List;
  */
 public final class TransferEventSupport
 {
+    private static final long NANOS_PER_MILLI = 1000L * 1000L;
 
     /**
-     * registered listeners
+     * registered listeners. Never modified once published: registration replaces it with a new instance, so
+     * events are dispatched without locking and listeners may be added or removed while events are fired.
      */
-    private final List<TransferListener> listeners = new ArrayList<TransferListener>();
+    private volatile Listeners listeners = new Listeners( new TransferListener[0] );
 
     /**
      * Adds the listener to the collection of listeners
@@ -52,7 +54,11 @@ public final class TransferEventSupport
     {
         if ( listener != null )
         {
-            listeners.add( listener );
+            TransferListener[] current = listeners.all;
+            TransferListener[] copy = new TransferListener[current.length + 1];
+            System.arraycopy( current, 0, copy, 0, current.length );
+            copy[current.length] = listener;
+            listeners = new Listeners( copy );
         }
     }
 
@@ -69,7 +75,18 @@ public final class TransferEventSupport
      */
     public synchronized void removeTransferListener( final TransferListener listener )
     {
-        listeners.remove( listener );
+        TransferListener[] current = listeners.all;
+        for ( int i = 0; i < current.length; i++ )
+        {
+            if ( current[i].equals( listener ) )
+            {
+                TransferListener[] copy = new TransferListener[current.length - 1];
+                System.arraycopy( current, 0, copy, 0, i );
+                System.arraycopy( current, i + 1, copy, i, current.length - i - 1 );
+                listeners = new Listeners( copy );
+                return;
+            }
+        }
     }
 
     /**
@@ -84,9 +101,41 @@ public final class TransferEventSupport
      * @see org.apache.maven.wagon.events.TransferEvent
      * @see #addTransferListener(TransferListener)
      */
-    public synchronized boolean hasTransferListener( final TransferListener listener )
+    public boolean hasTransferListener( final TransferListener listener )
     {
-        return listeners.contains( listener );
+        for ( TransferListener registered : listeners.all )
+        {
+            if ( registered.equals( listener ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether any listener is registered at all, so callers can avoid building events nobody will receive.
+     *
+     * @return <code>true</code> if at least one listener is registered, <code>false</code> otherwise
+     * @since 2.3
+     */
+    public boolean hasListeners()
+    {
+        return listeners.all.length > 0;
+    }
+
+    /**
+     * Returns whether any registered listener wants the transferred content, that is a listener which is not a
+     * {@link ProgressAwareTransferListener}. When there is none, transfers don't need to hand their buffers to
+     * {@link #fireTransferProgress(TransferEvent, byte[], int)} and may use
+     * {@link #fireTransferProgress(TransferEvent, int)} instead.
+     *
+     * @return <code>true</code> if at least one listener needs the content of the progress events
+     * @since 2.3
+     */
+    public boolean hasRawProgressListeners()
+    {
+        return listeners.raw.length > 0;
     }
 
 
@@ -97,9 +146,9 @@ public final class TransferEventSupport
      *
      * @param transferEvent the TransferEvent which will be dispatched to listeners
      */
-    public synchronized void fireTransferStarted( final TransferEvent transferEvent )
+    public void fireTransferStarted( final TransferEvent transferEvent )
     {
-        for ( TransferListener listener : listeners )
+        for ( TransferListener listener : listeners.all )
         {
             listener.transferStarted( transferEvent );
         }
@@ -114,13 +163,77 @@ public final class TransferEventSupport
      * @param buffer        the buffer containing the additional content
      * @param length        the length of the content in the buffer
      */
-    public synchronized void fireTransferProgress( final TransferEvent transferEvent, byte[] buffer, int length )
+    public void fireTransferProgress( final TransferEvent transferEvent, byte[] buffer, int length )
     {
-        for ( TransferListener listener : listeners )
+        Listeners current = listeners;
+
+        for ( TransferListener listener : current.raw )
         {
             listener.transferProgress( transferEvent, buffer, length );
 
         }
+
+        fireCoalescedProgress( current, transferEvent, length, false );
+    }
+
+    /**
+     * Reports the given number of bytes of progress to the registered {@link ProgressAwareTransferListener}s only,
+     * for transfers which do not have the content at hand.
+     *
+     * @param transferEvent the TransferEvent which will be dispatched to listeners
+     * @param length        the number of bytes transferred since the previous progress event
+     * @see #hasRawProgressListeners()
+     * @since 2.3
+     */
+    public void fireTransferProgress( final TransferEvent transferEvent, int length )
+    {
+        fireCoalescedProgress( listeners, transferEvent, length, false );
+    }
+
+    /**
+     * Reports to the registered {@link ProgressAwareTransferListener}s the progress they have not been told about yet
+     * because their interval was not reached. To be called once the transfer loop of the given progress event ends.
+     *
+     * @param transferEvent the TransferEvent which was used for the progress of the transfer
+     * @since 2.3
+     */
+    public void flushTransferProgress( final TransferEvent transferEvent )
+    {
+        fireCoalescedProgress( listeners, transferEvent, 0, true );
+    }
+
+    private void fireCoalescedProgress( Listeners current, TransferEvent transferEvent, int length, boolean flush )
+    {
+        long transferred = transferEvent.addTransferred( length );
+
+        if ( current.progressAware.length == 0 )
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for ( ProgressAwareTransferListener listener : current.progressAware )
+        {
+            long[] notified = transferEvent.getProgressNotified( listener, now );
+
+            long bytes = transferred - notified[0];
+            if ( bytes <= 0 )
+            {
+                continue;
+            }
+
+            long byteInterval = listener.getProgressByteInterval();
+            long timeInterval = listener.getProgressTimeInterval();
+            if ( flush || ( byteInterval <= 0 && timeInterval <= 0 )
+                || ( byteInterval > 0 && bytes >= byteInterval )
+                || ( timeInterval > 0 && now - notified[1] >= timeInterval * NANOS_PER_MILLI ) )
+            {
+                notified[0] = transferred;
+                notified[1] = now;
+
+                listener.transferProgress( transferEvent, transferred );
+            }
+        }
     }
 
     /**
@@ -130,9 +243,9 @@ public final class TransferEventSupport
      *
      * @param transferEvent the TransferEvent which will be dispatched to listeners
      */
-    public synchronized void fireTransferCompleted( final TransferEvent transferEvent )
+    public void fireTransferCompleted( final TransferEvent transferEvent )
     {
-        for ( TransferListener listener : listeners )
+        for ( TransferListener listener : listeners.all )
         {
             listener.transferCompleted( transferEvent );
 
@@ -147,9 +260,9 @@ public final class TransferEventSupport
      *
      * @param transferEvent the TransferEvent which will be dispatched to listeners
      */
-    public synchronized void fireTransferError( final TransferEvent transferEvent )
+    public void fireTransferError( final TransferEvent transferEvent )
     {
-        for ( TransferListener listener : listeners )
+        for ( TransferListener listener : listeners.all )
         {
             listener.transferError( transferEvent );
 
@@ -162,10 +275,10 @@ public final class TransferEventSupport
      *
      * @param message the debug message which will be dispatched to listeners
      */
-    public synchronized void fireDebug( final String message )
+    public void fireDebug( final String message )
     {
 
-        for ( TransferListener listener : listeners )
+        for ( TransferListener listener : listeners.all )
         {
             listener.debug( message );
 
@@ -179,11 +292,44 @@ public final class TransferEventSupport
      *
      * @param transferEvent the TransferEvent which will be dispatched to listeners
      */
-    public synchronized void fireTransferInitiated( final TransferEvent transferEvent )
+    public void fireTransferInitiated( final TransferEvent transferEvent )
     {
-        for ( TransferListener listener : listeners )
+        for ( TransferListener listener : listeners.all )
         {
             listener.transferInitiated( transferEvent );
         }
     }
+
+    /**
+     * Snapshot of the registered listeners, with the progress listeners split by the kind of notification they want.
+     */
+    private static final class Listeners
+    {
+        private final TransferListener[] all;
+
+        private final TransferListener[] raw;
+
+        private final ProgressAwareTransferListener[] progressAware;
+
+        private Listeners( TransferListener[] all )
+        {
+            this.all = all;
+
+            List<TransferListener> raw = new ArrayList<TransferListener>();
+            List<ProgressAwareTransferListener> progressAware = new ArrayList<ProgressAwareTransferListener>();
+            for ( TransferListener listener : all )
+            {
+                if ( listener instanceof ProgressAwareTransferListener )
+                {
+                    progressAware.add( (ProgressAwareTransferListener) listener );
+                }
+                else
+                {
+                    raw.add( listener );
+                }
+            }
+            this.raw = raw.toArray( new TransferListener[raw.size()] );
+            this.progressAware = progressAware.toArray( new ProgressAwareTransferListener[progressAware.size()] );
+        }
+    }
 }
@@ -0,0 +1,197 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values in buckets whose width grows with the values, so that any positive <code>long</code> is
+ * counted with a precision of about 6% in a fixed amount of memory. Values are recorded without locking, from any
+ * number of threads; reading while values are recorded gives an approximate, but never inconsistent, picture.
+ * <p/>
+ * The values below 16 have a bucket each; above, each power of two is split in 16 buckets of equal width.
+ *
+ * @since 2.3
+ */
+public class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = ( Long.SIZE - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong minimum = new AtomicLong( Long.MAX_VALUE );
+
+    private final AtomicLong maximum = new AtomicLong( Long.MIN_VALUE );
+
+    /**
+     * @param value the value to count, negative values being counted as <code>0</code>
+     */
+    public void record( long value )
+    {
+        long v = Math.max( value, 0 );
+
+        counts.incrementAndGet( getBucket( v ) );
+        count.incrementAndGet();
+        sum.addAndGet( v );
+
+        for ( long min = minimum.get(); v < min && !minimum.compareAndSet( min, v ); min = minimum.get() )
+        {
+            // another thread changed the minimum meanwhile
+        }
+        for ( long max = maximum.get(); v > max && !maximum.compareAndSet( max, v ); max = maximum.get() )
+        {
+            // another thread changed the maximum meanwhile
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * @return the sum of the recorded values
+     */
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    /**
+     * @return the smallest recorded value, <code>0</code> if none
+     */
+    public long getMinimum()
+    {
+        long min = minimum.get();
+        return min != Long.MAX_VALUE ? min : 0;
+    }
+
+    /**
+     * @return the largest recorded value, <code>0</code> if none
+     */
+    public long getMaximum()
+    {
+        long max = maximum.get();
+        return max != Long.MIN_VALUE ? max : 0;
+    }
+
+    /**
+     * @return the mean of the recorded values, <code>0</code> if none
+     */
+    public double getMean()
+    {
+        long n = count.get();
+        return n > 0 ? (double) sum.get() / n : 0;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values are, that is the highest value of the
+     * bucket where that percentage is reached.
+     *
+     * @param percentile the percentage of the recorded values, like <code>50</code> for the median
+     * @return the value at the percentile, <code>0</code> if no value was recorded
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long total = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            total += counts.get( i );
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+
+        long rank = Math.max( 1, (long) Math.ceil( Math.min( percentile, 100 ) / 100 * total ) );
+
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts.get( i );
+            if ( seen >= rank )
+            {
+                return Math.min( getHighestValue( i ), getMaximum() );
+            }
+        }
+        return getMaximum();
+    }
+
+    /**
+     * @return a copy of this histogram, which does not change when values are recorded in this one
+     */
+    public Histogram copy()
+    {
+        Histogram copy = new Histogram();
+
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            long n = counts.get( i );
+            copy.counts.set( i, n );
+            copy.count.addAndGet( n );
+        }
+        copy.sum.set( sum.get() );
+        copy.minimum.set( minimum.get() );
+        copy.maximum.set( maximum.get() );
+
+        return copy;
+    }
+
+    static int getBucket( long value )
+    {
+        if ( value < SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+        return ( shift + 1 ) * SUB_BUCKETS + (int) ( ( value >>> shift ) & ( SUB_BUCKETS - 1 ) );
+    }
+
+    static long getHighestValue( int bucket )
+    {
+        if ( bucket < SUB_BUCKETS )
+        {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) ( SUB_BUCKETS + bucket % SUB_BUCKETS ) << shift;
+        return lowest + ( 1L << shift ) - 1;
+    }
+
+    public String toString()
+    {
+        return "count " + getCount() + ", min " + getMinimum() + ", median " + getValueAtPercentile( 50 ) + ", 99% "
+            + getValueAtPercentile( 99 ) + ", max " + getMaximum();
+    }
+}
@@ -0,0 +1,181 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * The measures of the connections to a repository and of its transfers, by request type.
+ *
+ * @since 2.3
+ */
+public class RepositoryMetrics
+    implements RepositoryMetricsMBean
+{
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String repositoryUrl;
+
+    private final Histogram connectionOpenTime;
+
+    private final RequestMetrics downloads;
+
+    private final RequestMetrics uploads;
+
+    RepositoryMetrics( String repositoryUrl )
+    {
+        this( repositoryUrl, new Histogram(), new RequestMetrics(), new RequestMetrics() );
+    }
+
+    private RepositoryMetrics( String repositoryUrl, Histogram connectionOpenTime, RequestMetrics downloads,
+                               RequestMetrics uploads )
+    {
+        this.repositoryUrl = repositoryUrl;
+        this.connectionOpenTime = connectionOpenTime;
+        this.downloads = downloads;
+        this.uploads = uploads;
+    }
+
+    public String getRepositoryUrl()
+    {
+        return repositoryUrl;
+    }
+
+    /**
+     * @return the time each connection to the repository took to open, in nanoseconds
+     */
+    public Histogram getConnectionOpenTime()
+    {
+        return connectionOpenTime;
+    }
+
+    public RequestMetrics getDownloads()
+    {
+        return downloads;
+    }
+
+    public RequestMetrics getUploads()
+    {
+        return uploads;
+    }
+
+    RepositoryMetrics copy()
+    {
+        return new RepositoryMetrics( repositoryUrl, connectionOpenTime.copy(), downloads.copy(), uploads.copy() );
+    }
+
+    // ----------------------------------------------------------------------
+    // JMX attributes
+    // ----------------------------------------------------------------------
+
+    public long getConnectionCount()
+    {
+        return connectionOpenTime.getCount();
+    }
+
+    public double getConnectionOpenTimeMedian()
+    {
+        return toMillis( connectionOpenTime, 50 );
+    }
+
+    public double getConnectionOpenTime99thPercentile()
+    {
+        return toMillis( connectionOpenTime, 99 );
+    }
+
+    public long getDownloadCount()
+    {
+        return downloads.getTransferCount();
+    }
+
+    public long getDownloadErrorCount()
+    {
+        return downloads.getErrorCount();
+    }
+
+    public long getDownloadedBytes()
+    {
+        return downloads.getBytes().getSum();
+    }
+
+    public double getDownloadTimeToFirstByteMedian()
+    {
+        return toMillis( downloads.getTimeToFirstByte(), 50 );
+    }
+
+    public double getDownloadTimeToFirstByte99thPercentile()
+    {
+        return toMillis( downloads.getTimeToFirstByte(), 99 );
+    }
+
+    public double getDownloadDurationMedian()
+    {
+        return toMillis( downloads.getDuration(), 50 );
+    }
+
+    public double getDownloadDuration99thPercentile()
+    {
+        return toMillis( downloads.getDuration(), 99 );
+    }
+
+    public long getDownloadThroughputMedian()
+    {
+        return downloads.getThroughput().getValueAtPercentile( 50 );
+    }
+
+    public long getUploadCount()
+    {
+        return uploads.getTransferCount();
+    }
+
+    public long getUploadErrorCount()
+    {
+        return uploads.getErrorCount();
+    }
+
+    public long getUploadedBytes()
+    {
+        return uploads.getBytes().getSum();
+    }
+
+    public double getUploadDurationMedian()
+    {
+        return toMillis( uploads.getDuration(), 50 );
+    }
+
+    public double getUploadDuration99thPercentile()
+    {
+        return toMillis( uploads.getDuration(), 99 );
+    }
+
+    public long getUploadThroughputMedian()
+    {
+        return uploads.getThroughput().getValueAtPercentile( 50 );
+    }
+
+    private static double toMillis( Histogram nanos, double percentile )
+    {
+        return nanos.getValueAtPercentile( percentile ) / NANOS_PER_MILLI;
+    }
+
+    public String toString()
+    {
+        return repositoryUrl + ": " + getDownloadCount() + " downloads, " + getDownloadErrorCount() + " failed, "
+            + getUploadCount() + " uploads, " + getUploadErrorCount() + " failed";
+    }
+}
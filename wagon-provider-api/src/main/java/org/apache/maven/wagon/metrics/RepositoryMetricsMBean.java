@@ -0,0 +1,64 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * The JMX view of the {@link RepositoryMetrics} of a repository, times being in milliseconds.
+ *
+ * @since 2.3
+ */
+public interface RepositoryMetricsMBean
+{
+    String getRepositoryUrl();
+
+    long getConnectionCount();
+
+    double getConnectionOpenTimeMedian();
+
+    double getConnectionOpenTime99thPercentile();
+
+    long getDownloadCount();
+
+    long getDownloadErrorCount();
+
+    long getDownloadedBytes();
+
+    double getDownloadTimeToFirstByteMedian();
+
+    double getDownloadTimeToFirstByte99thPercentile();
+
+    double getDownloadDurationMedian();
+
+    double getDownloadDuration99thPercentile();
+
+    long getDownloadThroughputMedian();
+
+    long getUploadCount();
+
+    long getUploadErrorCount();
+
+    long getUploadedBytes();
+
+    double getUploadDurationMedian();
+
+    double getUploadDuration99thPercentile();
+
+    long getUploadThroughputMedian();
+}
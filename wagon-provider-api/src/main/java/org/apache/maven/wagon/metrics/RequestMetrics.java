@@ -0,0 +1,150 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The measures of the downloads, or of the uploads, of a repository.
+ *
+ * @since 2.3
+ */
+public class RequestMetrics
+{
+    private final Histogram timeToFirstByte;
+
+    private final Histogram duration;
+
+    private final Histogram bytes;
+
+    private final Histogram throughput;
+
+    private final ConcurrentMap<String, AtomicLong> errorCounts = new ConcurrentHashMap<String, AtomicLong>();
+
+    RequestMetrics()
+    {
+        this( new Histogram(), new Histogram(), new Histogram(), new Histogram() );
+    }
+
+    private RequestMetrics( Histogram timeToFirstByte, Histogram duration, Histogram bytes, Histogram throughput )
+    {
+        this.timeToFirstByte = timeToFirstByte;
+        this.duration = duration;
+        this.bytes = bytes;
+        this.throughput = throughput;
+    }
+
+    /**
+     * @return the time from the start of each transfer to the first byte of content being available, the response
+     *         of the repository for a download, in nanoseconds
+     */
+    public Histogram getTimeToFirstByte()
+    {
+        return timeToFirstByte;
+    }
+
+    /**
+     * @return the time each complete transfer took, in nanoseconds
+     */
+    public Histogram getDuration()
+    {
+        return duration;
+    }
+
+    /**
+     * @return the number of bytes of each complete transfer
+     */
+    public Histogram getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * @return the throughput of each complete transfer, from its first to its last byte, in bytes per second
+     */
+    public Histogram getThroughput()
+    {
+        return throughput;
+    }
+
+    /**
+     * @return the number of complete transfers
+     */
+    public long getTransferCount()
+    {
+        return duration.getCount();
+    }
+
+    /**
+     * @return the number of failed transfers
+     */
+    public long getErrorCount()
+    {
+        long count = 0;
+        for ( AtomicLong errorCount : errorCounts.values() )
+        {
+            count += errorCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of failed transfers by class name of the exception they failed with
+     */
+    public Map<String, Long> getErrorCounts()
+    {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for ( Map.Entry<String, AtomicLong> entry : errorCounts.entrySet() )
+        {
+            counts.put( entry.getKey(), entry.getValue().get() );
+        }
+        return counts;
+    }
+
+    void recordError( String type )
+    {
+        AtomicLong count = errorCounts.get( type );
+        if ( count == null )
+        {
+            AtomicLong newCount = new AtomicLong();
+            count = errorCounts.putIfAbsent( type, newCount );
+            if ( count == null )
+            {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    RequestMetrics copy()
+    {
+        RequestMetrics copy =
+            new RequestMetrics( timeToFirstByte.copy(), duration.copy(), bytes.copy(), throughput.copy() );
+        for ( Map.Entry<String, Long> entry : getErrorCounts().entrySet() )
+        {
+            copy.errorCounts.put( entry.getKey(), new AtomicLong( entry.getValue() ) );
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,373 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.events.ProgressAwareTransferListener;
+import org.apache.maven.wagon.events.SessionEvent;
+import org.apache.maven.wagon.events.SessionListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.repository.Repository;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures the transfers and the connections of the wagons it listens to, for each repository: how long the
+ * connections take to open, how long the repository takes to answer, how long the transfers take and their
+ * throughput, and how many fail with which exception.
+ * <p/>
+ * The measures can be read from {@link #getSnapshot()}, or through JMX once {@link #registerMBeans(MBeanServer)} is
+ * called, with an MBean named <code>org.apache.maven.wagon:type=TransferMetrics,name=<i>name</i>,repository=<i>url</i>
+ * </code> for each repository. The same instance can listen to any number of wagons, from any number of threads. It
+ * does not want the transferred content, which wagons then do not need to hand over.
+ *
+ * @since 2.3
+ */
+public class TransferMetrics
+    implements ProgressAwareTransferListener, SessionListener
+{
+    private static final String DOMAIN = "org.apache.maven.wagon";
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final String name;
+
+    private final ConcurrentMap<String, RepositoryMetrics> repositories =
+        new ConcurrentHashMap<String, RepositoryMetrics>();
+
+    /**
+     * The transfer in progress of each wagon, a wagon doing one transfer at a time. Transfers which end without
+     * completing nor failing, like a download which was not newer, are dropped with their wagon or its next transfer.
+     */
+    private final Map<Wagon, Transfer> transfers = Collections.synchronizedMap( new WeakHashMap<Wagon, Transfer>() );
+
+    /**
+     * When each wagon started opening its connection.
+     */
+    private final Map<Wagon, Long> openings = Collections.synchronizedMap( new WeakHashMap<Wagon, Long>() );
+
+    private MBeanServer server;
+
+    public TransferMetrics()
+    {
+        this( "default" );
+    }
+
+    /**
+     * @param name the name of the metrics in JMX, to tell them from the metrics of other instances
+     */
+    public TransferMetrics( String name )
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return a copy of the current metrics of each repository, by URL, which do not change as transfers go on
+     */
+    public Map<String, RepositoryMetrics> getSnapshot()
+    {
+        Map<String, RepositoryMetrics> snapshot = new TreeMap<String, RepositoryMetrics>();
+        for ( RepositoryMetrics metrics : repositories.values() )
+        {
+            snapshot.put( metrics.getRepositoryUrl(), metrics.copy() );
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the current metrics of the repository, or <code>null</code> if no wagon connected to it was measured
+     */
+    public RepositoryMetrics getRepositoryMetrics( String repositoryUrl )
+    {
+        return repositories.get( repositoryUrl );
+    }
+
+    // ----------------------------------------------------------------------
+    // JMX
+    // ----------------------------------------------------------------------
+
+    /**
+     * Registers an MBean for each repository measured so far, and then for each new one.
+     *
+     * @param server the server to register the MBeans with, typically the platform MBean server
+     */
+    public synchronized void registerMBeans( MBeanServer server )
+        throws JMException
+    {
+        unregisterMBeans();
+
+        this.server = server;
+
+        for ( RepositoryMetrics metrics : repositories.values() )
+        {
+            ObjectName objectName = getObjectName( metrics.getRepositoryUrl() );
+            // unless a new repository registered it meanwhile
+            if ( !server.isRegistered( objectName ) )
+            {
+                server.registerMBean( metrics, objectName );
+            }
+        }
+    }
+
+    /**
+     * Unregisters the MBeans registered by {@link #registerMBeans(MBeanServer)}.
+     */
+    public synchronized void unregisterMBeans()
+    {
+        if ( server == null )
+        {
+            return;
+        }
+
+        for ( RepositoryMetrics metrics : repositories.values() )
+        {
+            try
+            {
+                ObjectName objectName = getObjectName( metrics.getRepositoryUrl() );
+                if ( server.isRegistered( objectName ) )
+                {
+                    server.unregisterMBean( objectName );
+                }
+            }
+            catch ( JMException e )
+            {
+                // gone already
+            }
+        }
+        server = null;
+    }
+
+    private synchronized void registerMBean( RepositoryMetrics metrics )
+    {
+        if ( server == null )
+        {
+            return;
+        }
+
+        try
+        {
+            server.registerMBean( metrics, getObjectName( metrics.getRepositoryUrl() ) );
+        }
+        catch ( JMException e )
+        {
+            // the metrics are still in the snapshots, transfers must not fail because of JMX
+        }
+    }
+
+    private ObjectName getObjectName( String repositoryUrl )
+        throws MalformedObjectNameException
+    {
+        return new ObjectName( DOMAIN + ":type=TransferMetrics,name=" + ObjectName.quote( name ) + ",repository="
+            + ObjectName.quote( repositoryUrl ) );
+    }
+
+    private RepositoryMetrics getMetrics( Wagon wagon )
+    {
+        Repository repository = wagon != null ? wagon.getRepository() : null;
+        String url = repository != null && repository.getUrl() != null ? repository.getUrl() : UNKNOWN;
+
+        RepositoryMetrics metrics = repositories.get( url );
+        if ( metrics == null )
+        {
+            RepositoryMetrics newMetrics = new RepositoryMetrics( url );
+            metrics = repositories.putIfAbsent( url, newMetrics );
+            if ( metrics == null )
+            {
+                metrics = newMetrics;
+                registerMBean( metrics );
+            }
+        }
+        return metrics;
+    }
+
+    private RequestMetrics getMetrics( TransferEvent transferEvent )
+    {
+        RepositoryMetrics metrics = getMetrics( transferEvent.getWagon() );
+        return transferEvent.getRequestType() == TransferEvent.REQUEST_PUT ? metrics.getUploads()
+            : metrics.getDownloads();
+    }
+
+    // ----------------------------------------------------------------------
+    // Transfers
+    // ----------------------------------------------------------------------
+
+    public void transferInitiated( TransferEvent transferEvent )
+    {
+        transfers.put( transferEvent.getWagon(), new Transfer( getNanoTime( transferEvent ) ) );
+    }
+
+    public void transferStarted( TransferEvent transferEvent )
+    {
+        Transfer transfer = transfers.get( transferEvent.getWagon() );
+        if ( transfer != null )
+        {
+            transfer.started = getNanoTime( transferEvent );
+
+            getMetrics( transferEvent ).getTimeToFirstByte().record( transfer.started - transfer.initiated );
+        }
+    }
+
+    public long getProgressByteInterval()
+    {
+        // only the total, reported when the transfer loop ends
+        return Long.MAX_VALUE;
+    }
+
+    public long getProgressTimeInterval()
+    {
+        return 0;
+    }
+
+    public void transferProgress( TransferEvent transferEvent, long transferred )
+    {
+        Transfer transfer = transfers.get( transferEvent.getWagon() );
+        if ( transfer != null )
+        {
+            transfer.transferred = transferred;
+        }
+    }
+
+    public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+    {
+        // not called on progress aware listeners
+    }
+
+    public void transferCompleted( TransferEvent transferEvent )
+    {
+        Transfer transfer = transfers.remove( transferEvent.getWagon() );
+        if ( transfer == null )
+        {
+            return;
+        }
+
+        long completed = getNanoTime( transferEvent );
+        long bytes = Math.max( transfer.transferred, transferEvent.getTransferredBytes() );
+
+        RequestMetrics metrics = getMetrics( transferEvent );
+        metrics.getDuration().record( completed - transfer.initiated );
+        metrics.getBytes().record( bytes );
+
+        long started = transfer.started != 0 ? transfer.started : transfer.initiated;
+        if ( bytes > 0 && completed > started )
+        {
+            metrics.getThroughput().record( (long) ( (double) bytes * NANOS_PER_SECOND / ( completed - started ) ) );
+        }
+    }
+
+    public void transferError( TransferEvent transferEvent )
+    {
+        // a failure may be reported again on its way up, it is only counted once
+        if ( transfers.remove( transferEvent.getWagon() ) == null )
+        {
+            return;
+        }
+
+        Exception exception = transferEvent.getException();
+        getMetrics( transferEvent ).recordError( exception != null ? exception.getClass().getName() : UNKNOWN );
+    }
+
+    public void debug( String message )
+    {
+    }
+
+    private static long getNanoTime( TransferEvent transferEvent )
+    {
+        // each event gets the time it is created by getTransferEvent, those created by providers without it have none
+        long nanoTime = transferEvent.getNanoTime();
+        return nanoTime != 0 ? nanoTime : System.nanoTime();
+    }
+
+    // ----------------------------------------------------------------------
+    // Sessions
+    // ----------------------------------------------------------------------
+
+    public void sessionOpening( SessionEvent sessionEvent )
+    {
+        openings.put( sessionEvent.getWagon(), System.nanoTime() );
+    }
+
+    public void sessionOpened( SessionEvent sessionEvent )
+    {
+        Long opening = openings.remove( sessionEvent.getWagon() );
+        if ( opening != null )
+        {
+            getMetrics( sessionEvent.getWagon() ).getConnectionOpenTime().record( System.nanoTime() - opening );
+        }
+    }
+
+    public void sessionConnectionRefused( SessionEvent sessionEvent )
+    {
+        openings.remove( sessionEvent.getWagon() );
+    }
+
+    public void sessionError( SessionEvent sessionEvent )
+    {
+        openings.remove( sessionEvent.getWagon() );
+    }
+
+    public void sessionDisconnecting( SessionEvent sessionEvent )
+    {
+    }
+
+    public void sessionDisconnected( SessionEvent sessionEvent )
+    {
+    }
+
+    public void sessionLoggedIn( SessionEvent sessionEvent )
+    {
+    }
+
+    public void sessionLoggedOff( SessionEvent sessionEvent )
+    {
+    }
+
+    /**
+     * The times of a transfer in progress, only changed by the thread of its wagon.
+     */
+    private static final class Transfer
+    {
+        private final long initiated;
+
+        private volatile long started;
+
+        private volatile long transferred;
+
+        private Transfer( long initiated )
+        {
+            this.initiated = initiated;
+        }
+    }
+}
@@ -38,6 +38,10 @@ public class ChecksumObserver
 
     private String actualChecksum;
 
+    private DigestPipeline pipeline;
+
+    private boolean pipelined;
+
     public ChecksumObserver()
         throws NoSuchAlgorithmException
     {
@@ -45,7 +49,8 @@ public class ChecksumObserver
     }
 
     /**
-     * @param algorithm One of the algorithms supported by JDK: MD5, MD2 or SHA-1
+     * @param algorithm One of the algorithms supported by JDK: MD5, MD2, SHA-1, SHA-256 or SHA-512
+     * @see MultiChecksumObserver to compute several checksums in one pass
      */
     public ChecksumObserver( String algorithm )
         throws NoSuchAlgorithmException
@@ -63,9 +68,13 @@ public class ChecksumObserver
      */
     public void transferStarted( TransferEvent transferEvent )
     {
+        drain();
+
         actualChecksum = null;
 
         digester.reset();
+
+        pipelined = pipeline != null && DigestPipeline.isPipelined( transferEvent.getResource().getContentLength() );
     }
 
     /**
@@ -73,16 +82,27 @@ public class ChecksumObserver
      */
     public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
     {
-        digester.update( buffer, 0, length );
+        if ( pipelined )
+        {
+            pipeline.update( buffer, length );
+        }
+        else
+        {
+            digester.update( buffer, 0, length );
+        }
     }
 
     public void transferCompleted( TransferEvent transferEvent )
     {
+        drain();
+
         actualChecksum = encode( digester.digest() );
     }
 
     public void transferError( TransferEvent transferEvent )
     {
+        drain();
+
         digester.reset();
 
         actualChecksum = null;
@@ -93,6 +113,40 @@ public class ChecksumObserver
         // left intentionally blank
     }
 
+    /**
+     * Enables or disables the pipelined mode, where the checksum of large transfers is computed on a dedicated thread
+     * while the transfer goes on. The checksum is still available once the transfer completed.
+     *
+     * @param pipelined whether to compute the checksum on a dedicated thread
+     * @since 2.3
+     */
+    public void setPipelined( boolean pipelined )
+    {
+        drain();
+
+        pipeline =
+            pipelined ? new DigestPipeline( new MessageDigest[]{ digester }, DigestPipeline.DEFAULT_SLOTS ) : null;
+    }
+
+    /**
+     * @return whether the checksum of large transfers is computed on a dedicated thread
+     * @since 2.3
+     */
+    public boolean isPipelined()
+    {
+        return pipeline != null;
+    }
+
+    private void drain()
+    {
+        if ( pipelined )
+        {
+            pipeline.drain();
+
+            pipelined = false;
+        }
+    }
+
     /**
      * Returns md5 checksum which was computed during transfer
      *
@@ -104,37 +158,13 @@ public class ChecksumObserver
     }
 
     /**
-     * Encodes a 128 bit or 160-bit byte array into a String.
+     * Encodes a digest of any length into a lower case hex String.
      *
      * @param binaryData Array containing the digest
-     * @return Encoded hex string, or null if encoding failed
+     * @return Encoded hex string
      */
     protected String encode( byte[] binaryData )
     {
-        if ( binaryData.length != 16 && binaryData.length != 20 )
-        {
-            int bitLength = binaryData.length * 8;
-            throw new IllegalArgumentException( "Unrecognised length for binary data: " + bitLength + " bits" );
-        }
-
-        StringBuilder retValue = new StringBuilder();
-
-        for ( int i = 0; i < binaryData.length; i++ )
-        {
-            String t = Integer.toHexString( binaryData[i] & 0xff );
-
-            if ( t.length() == 1 )
-            {
-                retValue.append( '0' ).append( t );
-            }
-            else
-            {
-                retValue.append( t );
-            }
-        }
-
-        return retValue.toString().trim();
+        return MultiChecksumObserver.encodeHex( binaryData );
     }
-
-
 }
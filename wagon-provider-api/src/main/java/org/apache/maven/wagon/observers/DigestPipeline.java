@@ -0,0 +1,240 @@
+package org.apache.maven.wagon.observers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.BufferPool;
+import org.apache.maven.wagon.DefaultBufferPool;
+
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the digests of a checksum observer on a dedicated thread, so the transfer loop only copies each progress
+ * buffer into a slot of a small ring of pooled buffers instead of hashing it. When all the slots wait to be hashed,
+ * the transfer loop blocks until one is free.
+ * <p/>
+ * The digests must only be used by the observer after {@link #drain()}. The hashing thread is started by the first
+ * content of a transfer and stops once the transfer is drained.
+ *
+ * @since 2.3
+ */
+final class DigestPipeline
+{
+    /**
+     * Default number of buffers in the ring.
+     */
+    static final int DEFAULT_SLOTS = 4;
+
+    /**
+     * Transfers known to be smaller are hashed in the transfer loop, where they do not wait for the hashing thread.
+     */
+    static final long MINIMUM_PIPELINED_LENGTH = 1024 * 1024;
+
+    private static final BufferPool BUFFER_POOL = new DefaultBufferPool();
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory()
+    {
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "wagon-checksum" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
+    private static final Runnable NOOP = new Runnable()
+    {
+        public void run()
+        {
+            // only marks a point in the queue of the hashing thread
+        }
+    };
+
+    private final MessageDigest[] digesters;
+
+    private final int slots;
+
+    private final BlockingQueue<byte[]> freeSlots;
+
+    /**
+     * The hashing thread of the current transfer, if any; like the number of buffers taken from the pool for the
+     * ring, only used by the transfer thread.
+     */
+    private ExecutorService executor;
+
+    private int acquiredSlots;
+
+    DigestPipeline( MessageDigest[] digesters, int slots )
+    {
+        this.digesters = digesters;
+        this.slots = slots;
+        this.freeSlots = new ArrayBlockingQueue<byte[]>( slots );
+    }
+
+    /**
+     * @param contentLength the length of the transferred resource, negative if unknown
+     * @return whether a transfer of that length is worth hashing on the hashing thread
+     */
+    static boolean isPipelined( long contentLength )
+    {
+        return contentLength < 0 || contentLength >= MINIMUM_PIPELINED_LENGTH;
+    }
+
+    /**
+     * Hands the given content to the hashing thread. The buffer can be reused as soon as this method returns.
+     */
+    void update( byte[] buffer, int length )
+    {
+        if ( length <= 0 )
+        {
+            return;
+        }
+
+        byte[] slot = takeSlot();
+        if ( slot.length < length )
+        {
+            BUFFER_POOL.release( slot );
+            slot = BUFFER_POOL.acquire( length );
+        }
+        System.arraycopy( buffer, 0, slot, 0, length );
+
+        if ( executor == null )
+        {
+            executor = Executors.newSingleThreadExecutor( THREAD_FACTORY );
+        }
+
+        final byte[] data = slot;
+        final int n = length;
+        executor.execute( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( MessageDigest digester : digesters )
+                    {
+                        digester.update( data, 0, n );
+                    }
+                }
+                finally
+                {
+                    freeSlots.add( data );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Waits until all the content handed so far is hashed, stops the hashing thread and gives the buffers of the ring
+     * back to the pool.
+     */
+    void drain()
+    {
+        if ( executor != null )
+        {
+            await( executor.submit( NOOP ) );
+
+            executor.shutdown();
+            executor = null;
+        }
+
+        for ( byte[] slot = freeSlots.poll(); slot != null; slot = freeSlots.poll() )
+        {
+            BUFFER_POOL.release( slot );
+        }
+        acquiredSlots = 0;
+    }
+
+    private static void await( Future<?> done )
+    {
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    done.get();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    throw new IllegalStateException( "Checksum computation failed", e.getCause() );
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private byte[] takeSlot()
+    {
+        byte[] slot = freeSlots.poll();
+        if ( slot != null )
+        {
+            return slot;
+        }
+
+        if ( acquiredSlots < slots )
+        {
+            acquiredSlots++;
+
+            return BUFFER_POOL.acquire( DefaultBufferPool.MINIMUM_BUFFER_SIZE );
+        }
+
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    return freeSlots.take();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.apache.maven.wagon.observers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TransferListener which computes the checksums of several algorithms on the fly when files are transferred, feeding
+ * every digest from the same progress buffer.
+ *
+ * @see ChecksumObserver
+ * @since 2.3
+ */
+public class MultiChecksumObserver
+    implements TransferListener
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String[] algorithms;
+
+    private final MessageDigest[] digesters;
+
+    private final String[] actualChecksums;
+
+    private DigestPipeline pipeline;
+
+    private boolean pipelined;
+
+    /**
+     * Computes MD5, SHA-1, SHA-256 and SHA-512 checksums.
+     */
+    public MultiChecksumObserver()
+        throws NoSuchAlgorithmException
+    {
+        this( "MD5", "SHA-1", "SHA-256", "SHA-512" );
+    }
+
+    /**
+     * @param algorithms the algorithms supported by the JDK to compute checksums with, eg MD5, SHA-1 or SHA-256
+     */
+    public MultiChecksumObserver( String... algorithms )
+        throws NoSuchAlgorithmException
+    {
+        if ( algorithms.length == 0 )
+        {
+            throw new IllegalArgumentException( "At least one checksum algorithm is required" );
+        }
+
+        this.algorithms = algorithms.clone();
+        this.digesters = new MessageDigest[algorithms.length];
+        this.actualChecksums = new String[algorithms.length];
+
+        for ( int i = 0; i < algorithms.length; i++ )
+        {
+            digesters[i] = MessageDigest.getInstance( algorithms[i] );
+        }
+    }
+
+    public void transferInitiated( TransferEvent transferEvent )
+    {
+        // This space left intentionally blank
+    }
+
+    public void transferStarted( TransferEvent transferEvent )
+    {
+        reset();
+
+        pipelined = pipeline != null && DigestPipeline.isPipelined( transferEvent.getResource().getContentLength() );
+    }
+
+    public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+    {
+        if ( pipelined )
+        {
+            pipeline.update( buffer, length );
+
+            return;
+        }
+
+        for ( MessageDigest digester : digesters )
+        {
+            digester.update( buffer, 0, length );
+        }
+    }
+
+    public void transferCompleted( TransferEvent transferEvent )
+    {
+        drain();
+
+        for ( int i = 0; i < digesters.length; i++ )
+        {
+            actualChecksums[i] = encode( digesters[i].digest() );
+        }
+    }
+
+    public void transferError( TransferEvent transferEvent )
+    {
+        reset();
+    }
+
+    public void debug( String message )
+    {
+        // left intentionally blank
+    }
+
+    /**
+     * Enables or disables the pipelined mode, where the checksums of large transfers are computed on a dedicated
+     * thread while the transfer goes on. The checksums are still available once the transfer completed.
+     *
+     * @param pipelined whether to compute the checksums on a dedicated thread
+     */
+    public void setPipelined( boolean pipelined )
+    {
+        drain();
+
+        pipeline = pipelined ? new DigestPipeline( digesters, DigestPipeline.DEFAULT_SLOTS ) : null;
+    }
+
+    /**
+     * @return whether the checksums of large transfers are computed on a dedicated thread
+     */
+    public boolean isPipelined()
+    {
+        return pipeline != null;
+    }
+
+    /**
+     * @return the algorithms this observer computes checksums with, in the order they were given
+     */
+    public String[] getAlgorithms()
+    {
+        return algorithms.clone();
+    }
+
+    /**
+     * Returns the checksum computed with the given algorithm during the last completed transfer.
+     *
+     * @param algorithm one of the algorithms given to the constructor
+     * @return the hex encoded checksum, or <code>null</code> if no transfer completed since the last one started
+     * @throws IllegalArgumentException if this observer does not compute the given algorithm
+     */
+    public String getActualChecksum( String algorithm )
+    {
+        for ( int i = 0; i < algorithms.length; i++ )
+        {
+            if ( algorithms[i].equalsIgnoreCase( algorithm ) )
+            {
+                return actualChecksums[i];
+            }
+        }
+        throw new IllegalArgumentException( "Checksum algorithm not computed by this observer: " + algorithm );
+    }
+
+    /**
+     * @return the checksums computed during the last completed transfer, keyed by algorithm, or an empty map if no
+     *         transfer completed since the last one started
+     */
+    public Map<String, String> getActualChecksums()
+    {
+        Map<String, String> checksums = new LinkedHashMap<String, String>();
+        for ( int i = 0; i < algorithms.length; i++ )
+        {
+            if ( actualChecksums[i] != null )
+            {
+                checksums.put( algorithms[i], actualChecksums[i] );
+            }
+        }
+        return checksums;
+    }
+
+    private void drain()
+    {
+        if ( pipelined )
+        {
+            pipeline.drain();
+
+            pipelined = false;
+        }
+    }
+
+    private void reset()
+    {
+        drain();
+
+        for ( int i = 0; i < digesters.length; i++ )
+        {
+            digesters[i].reset();
+
+            actualChecksums[i] = null;
+        }
+    }
+
+    /**
+     * Encodes a digest of any length into a lower case hex String.
+     *
+     * @param binaryData Array containing the digest
+     * @return Encoded hex string
+     */
+    protected String encode( byte[] binaryData )
+    {
+        return encodeHex( binaryData );
+    }
+
+    static String encodeHex( byte[] binaryData )
+    {
+        char[] hex = new char[binaryData.length * 2];
+
+        for ( int i = 0; i < binaryData.length; i++ )
+        {
+            hex[i * 2] = HEX_DIGITS[( binaryData[i] >> 4 ) & 0x0f];
+            hex[i * 2 + 1] = HEX_DIGITS[binaryData[i] & 0x0f];
+        }
+
+        return new String( hex );
+    }
+}
@@ -0,0 +1,378 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.WagonException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads many resources of a repository concurrently, with wagons borrowed from a {@link WagonPool}: each of at
+ * most {@link #getParallelism()} threads borrows a connected wagon, which downloads requests one after the other until
+ * none is left. The transfers thus go over as many sessions of the repository in parallel, SSH sessions, FTP logins
+ * or pooled HTTP connections. There are never more threads than the maximum number of wagons per repository of the
+ * pool, and a thread only takes a request once it has a wagon.
+ * <p/>
+ * A failed request does not stop the others: {@link #getAll(List)} returns the result of each of them. The transfer
+ * listeners are added to the borrowed wagons for the time of the batch, and so are called from several threads, like
+ * the batch listeners.
+ *
+ * @since 2.3
+ */
+public class BatchGet
+{
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory()
+    {
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "wagon-batch-get" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
+    private final WagonPool pool;
+
+    private final Repository repository;
+
+    private final AuthenticationInfo authenticationInfo;
+
+    private final ProxyInfo proxyInfo;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private final List<TransferListener> transferListeners = new ArrayList<TransferListener>();
+
+    private final List<BatchListener> batchListeners = new ArrayList<BatchListener>();
+
+    /**
+     * @see #BatchGet(WagonPool, Repository, AuthenticationInfo, ProxyInfo)
+     */
+    public BatchGet( WagonPool pool, Repository repository )
+    {
+        this( pool, repository, null, null );
+    }
+
+    /**
+     * @param pool               the pool to borrow the wagons from
+     * @param repository         the repository to download from
+     * @param authenticationInfo the authentication, <code>null</code> if none
+     * @param proxyInfo          the proxy, <code>null</code> if none
+     */
+    public BatchGet( WagonPool pool, Repository repository, AuthenticationInfo authenticationInfo,
+                     ProxyInfo proxyInfo )
+    {
+        this.pool = pool;
+        this.repository = repository;
+        this.authenticationInfo = authenticationInfo;
+        this.proxyInfo = proxyInfo;
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism the number of requests downloaded at most at the same time, 4 by default
+     */
+    public void setParallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "The parallelism must be at least 1: " + parallelism );
+        }
+        this.parallelism = parallelism;
+    }
+
+    public void addTransferListener( TransferListener listener )
+    {
+        transferListeners.add( listener );
+    }
+
+    public void removeTransferListener( TransferListener listener )
+    {
+        transferListeners.remove( listener );
+    }
+
+    public void addBatchListener( BatchListener listener )
+    {
+        batchListeners.add( listener );
+    }
+
+    public void removeBatchListener( BatchListener listener )
+    {
+        batchListeners.remove( listener );
+    }
+
+    /**
+     * Downloads the requested resources, and waits until all of them succeeded or failed. If the calling thread is
+     * interrupted meanwhile, the requests not ended yet fail.
+     *
+     * @param requests the resources to download
+     * @return the result of each request, in the order of the requests
+     */
+    public List<GetResult> getAll( List<GetRequest> requests )
+    {
+        Batch batch = new Batch( requests );
+
+        // more threads would only wait for the wagons of the others
+        int threads = Math.min( Math.min( parallelism, pool.getMaximumWagonsPerKey() ), requests.size() );
+        if ( threads < 2 )
+        {
+            batch.run();
+            if ( Thread.currentThread().isInterrupted() )
+            {
+                batch.cancel( interrupted() );
+            }
+            return batch.getResults();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads, THREAD_FACTORY );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for ( int i = 0; i < threads; i++ )
+            {
+                futures.add( executor.submit( batch ) );
+            }
+
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            batch.cancel( interrupted() );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return batch.getResults();
+    }
+
+    private TransferFailedException interrupted()
+    {
+        return new TransferFailedException( "Interrupted while downloading from " + repository.getUrl() );
+    }
+
+    /**
+     * The requests of a call to {@link #getAll(List)}, which each of its threads runs until none is left.
+     */
+    private final class Batch
+        implements Runnable
+    {
+        private final List<GetRequest> requests;
+
+        private final GetResult[] results;
+
+        private final AtomicInteger nextRequest = new AtomicInteger();
+
+        private final AtomicInteger endedCount = new AtomicInteger();
+
+        private final AtomicLong completedBytes = new AtomicLong();
+
+        /**
+         * The listeners as they were when the batch started.
+         */
+        private final List<TransferListener> transferListeners =
+            new ArrayList<TransferListener>( BatchGet.this.transferListeners );
+
+        private final List<BatchListener> batchListeners =
+            new ArrayList<BatchListener>( BatchGet.this.batchListeners );
+
+        private Batch( List<GetRequest> requests )
+        {
+            this.requests = new ArrayList<GetRequest>( requests );
+            results = new GetResult[requests.size()];
+        }
+
+        public void run()
+        {
+            Wagon wagon = null;
+            try
+            {
+                while ( nextRequest.get() < requests.size() && !Thread.currentThread().isInterrupted() )
+                {
+                    // the wagon first, not to hold a request the other threads could download meanwhile
+                    Exception exception = null;
+                    if ( wagon == null )
+                    {
+                        try
+                        {
+                            wagon = borrow();
+                        }
+                        catch ( WagonException e )
+                        {
+                            exception = e;
+                        }
+                    }
+
+                    int i = nextRequest.getAndIncrement();
+                    if ( i >= requests.size() )
+                    {
+                        break;
+                    }
+
+                    GetRequest request = requests.get( i );
+                    try
+                    {
+                        if ( exception == null )
+                        {
+                            wagon.get( request.getResourceName(), request.getDestination() );
+                        }
+                    }
+                    catch ( ResourceDoesNotExistException e )
+                    {
+                        exception = e;
+                    }
+                    catch ( AuthorizationException e )
+                    {
+                        exception = e;
+                    }
+                    catch ( WagonException e )
+                    {
+                        exception = e;
+
+                        // the session may be broken, the next request gets another wagon
+                        if ( wagon != null )
+                        {
+                            invalidate( wagon );
+                            wagon = null;
+                        }
+                    }
+
+                    end( i, new GetResult( request, exception ) );
+                }
+            }
+            finally
+            {
+                if ( wagon != null )
+                {
+                    removeTransferListeners( wagon );
+                    pool.release( wagon );
+                }
+            }
+        }
+
+        private Wagon borrow()
+            throws WagonException
+        {
+            Wagon wagon = pool.borrow( repository, authenticationInfo, proxyInfo );
+            for ( TransferListener listener : transferListeners )
+            {
+                wagon.addTransferListener( listener );
+            }
+            return wagon;
+        }
+
+        private void invalidate( Wagon wagon )
+        {
+            removeTransferListeners( wagon );
+            pool.invalidate( wagon );
+        }
+
+        private void removeTransferListeners( Wagon wagon )
+        {
+            for ( TransferListener listener : transferListeners )
+            {
+                wagon.removeTransferListener( listener );
+            }
+        }
+
+        private void end( int index, GetResult result )
+        {
+            synchronized ( results )
+            {
+                if ( results[index] != null )
+                {
+                    // cancelled meanwhile
+                    return;
+                }
+                results[index] = result;
+            }
+
+            if ( result.isSuccessful() )
+            {
+                completedBytes.addAndGet( result.getRequest().getDestination().length() );
+            }
+
+            int ended = endedCount.incrementAndGet();
+            for ( BatchListener listener : batchListeners )
+            {
+                listener.requestEnded( result, ended, results.length, completedBytes.get() );
+            }
+        }
+
+        /**
+         * Fails the requests not ended yet, and keeps the threads from starting new ones.
+         */
+        private void cancel( Exception exception )
+        {
+            nextRequest.set( requests.size() );
+
+            for ( int i = 0; i < results.length; i++ )
+            {
+                end( i, new GetResult( requests.get( i ), exception ) );
+            }
+        }
+
+        private List<GetResult> getResults()
+        {
+            synchronized ( results )
+            {
+                return new ArrayList<GetResult>( Arrays.asList( results ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Follows the progress of a whole {@link BatchGet}, while the transfer listeners of the batch follow each transfer.
+ * It is called from the threads of the batch, concurrently.
+ *
+ * @since 2.3
+ */
+public interface BatchListener
+{
+    /**
+     * @param result         the result of the request which just ended, successful or not
+     * @param endedCount     the number of requests of the batch ended so far, this one included
+     * @param requestCount   the number of requests of the batch
+     * @param completedBytes the number of bytes downloaded so far by the successful requests of the batch
+     */
+    void requestEnded( GetResult result, int endedCount, int requestCount, long completedBytes );
+}
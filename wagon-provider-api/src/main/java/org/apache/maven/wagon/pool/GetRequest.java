@@ -0,0 +1,59 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * A resource to download with a {@link BatchGet}, and where to.
+ *
+ * @since 2.3
+ */
+public final class GetRequest
+{
+    private final String resourceName;
+
+    private final File destination;
+
+    /**
+     * @param resourceName the name of the resource in the repository
+     * @param destination  the file to download the resource to
+     */
+    public GetRequest( String resourceName, File destination )
+    {
+        this.resourceName = resourceName;
+        this.destination = destination;
+    }
+
+    public String getResourceName()
+    {
+        return resourceName;
+    }
+
+    public File getDestination()
+    {
+        return destination;
+    }
+
+    public String toString()
+    {
+        return resourceName + " -> " + destination;
+    }
+}
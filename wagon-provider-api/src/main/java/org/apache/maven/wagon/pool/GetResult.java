@@ -0,0 +1,65 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * The outcome of a {@link GetRequest} of a {@link BatchGet}.
+ *
+ * @since 2.3
+ */
+public final class GetResult
+{
+    private final GetRequest request;
+
+    private final Exception exception;
+
+    GetResult( GetRequest request, Exception exception )
+    {
+        this.request = request;
+        this.exception = exception;
+    }
+
+    public GetRequest getRequest()
+    {
+        return request;
+    }
+
+    /**
+     * @return <code>true</code> if the resource was downloaded to its destination
+     */
+    public boolean isSuccessful()
+    {
+        return exception == null;
+    }
+
+    /**
+     * @return why the resource could not be downloaded, like a
+     *         {@link org.apache.maven.wagon.ResourceDoesNotExistException}, or <code>null</code> if it was
+     */
+    public Exception getException()
+    {
+        return exception;
+    }
+
+    public String toString()
+    {
+        return request + ( exception == null ? ": done" : ": " + exception );
+    }
+}
@@ -0,0 +1,50 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.UnsupportedProtocolException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * Creates the wagons of a {@link WagonPool}, typically by looking up the wagon of the protocol of the repository in
+ * the container.
+ *
+ * @since 2.3
+ */
+public interface WagonFactory
+{
+    /**
+     * @param repository the repository the wagon will be connected to
+     * @return a new wagon, not connected yet
+     * @throws UnsupportedProtocolException if there is no wagon for the protocol of the repository
+     */
+    Wagon createWagon( Repository repository )
+        throws UnsupportedProtocolException;
+
+    /**
+     * Tells whether a connected wagon which was idle in the pool can still be used, like whether its session is still
+     * open.
+     *
+     * @param wagon a connected wagon
+     * @return <code>false</code> to have the wagon disconnected and another one borrowed instead
+     */
+    boolean validateWagon( Wagon wagon );
+}
@@ -0,0 +1,515 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.UnsupportedProtocolException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lends connected wagons, so that the sessions of a repository, like SSH sessions, FTP logins or HTTP clients with
+ * their connections, are reused by the transfers of a whole build instead of being opened again for each of them.
+ * <p/>
+ * Wagons are pooled by repository id and URL, authentication and proxy: a wagon is only lent to callers connecting
+ * with the same. A borrowed wagon must be given back with {@link #release(Wagon)}, or with
+ * {@link #invalidate(Wagon)} if it failed in a way which leaves its session unusable; the caller must remove the
+ * listeners it added to it before.
+ * <p/>
+ * At most {@link #getMaximumWagonsPerKey()} wagons are connected for the same key, further borrowers waiting for one
+ * to be released. A wagon idle for longer than {@link #getIdleTimeout()} is disconnected the next time the pool is
+ * used, or by {@link #evictIdle()}. The pool is safe to use from several threads.
+ *
+ * @since 2.3
+ */
+public class WagonPool
+{
+    private static final int DEFAULT_MAXIMUM_WAGONS_PER_KEY = 8;
+
+    private static final long DEFAULT_IDLE_TIMEOUT = 60 * 1000;
+
+    private static final long DEFAULT_MAXIMUM_WAIT = 60 * 1000;
+
+    private final WagonFactory factory;
+
+    private int maximumWagonsPerKey = DEFAULT_MAXIMUM_WAGONS_PER_KEY;
+
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private long maximumWait = DEFAULT_MAXIMUM_WAIT;
+
+    /**
+     * The idle wagons of each key, the most recently released first.
+     */
+    private final Map<Key, LinkedList<IdleWagon>> idleWagons = new HashMap<Key, LinkedList<IdleWagon>>();
+
+    /**
+     * The number of wagons connected, or being connected, for each key.
+     */
+    private final Map<Key, Integer> wagonCounts = new HashMap<Key, Integer>();
+
+    private final Map<Wagon, Key> borrowedWagons = new IdentityHashMap<Wagon, Key>();
+
+    private boolean closed;
+
+    /**
+     * @param factory creates the wagons of the pool
+     */
+    public WagonPool( WagonFactory factory )
+    {
+        this.factory = factory;
+    }
+
+    /**
+     * @see #borrow(Repository, AuthenticationInfo, ProxyInfo)
+     */
+    public Wagon borrow( Repository repository )
+        throws ConnectionException, AuthenticationException, UnsupportedProtocolException
+    {
+        return borrow( repository, null, null );
+    }
+
+    /**
+     * Lends a wagon connected to the repository with the given authentication and proxy, connecting a new one if no
+     * idle wagon is left and the maximum number of wagons for them is not reached yet, or else waiting for one to be
+     * released.
+     *
+     * @param repository         the repository to connect to
+     * @param authenticationInfo the authentication, <code>null</code> if none
+     * @param proxyInfo          the proxy, <code>null</code> if none
+     * @return a connected wagon, to give back with {@link #release(Wagon)}
+     * @throws ConnectionException if no wagon could be connected, or none was released in time
+     */
+    public Wagon borrow( Repository repository, AuthenticationInfo authenticationInfo, ProxyInfo proxyInfo )
+        throws ConnectionException, AuthenticationException, UnsupportedProtocolException
+    {
+        Key key = new Key( repository, authenticationInfo, proxyInfo );
+
+        while ( true )
+        {
+            List<Wagon> evicted = new ArrayList<Wagon>();
+            Wagon wagon;
+            try
+            {
+                wagon = reserve( key, evicted );
+            }
+            finally
+            {
+                disconnect( evicted );
+            }
+
+            if ( wagon == null )
+            {
+                return connect( key, repository, authenticationInfo, proxyInfo );
+            }
+
+            // validated outside of the lock, as it may ask the repository
+            if ( factory.validateWagon( wagon ) )
+            {
+                return wagon;
+            }
+
+            invalidate( wagon );
+        }
+    }
+
+    /**
+     * Takes an idle wagon of the key, or reserves the room to connect a new one, waiting for either if needed.
+     *
+     * @param evicted where to add the wagons found idle for too long, to disconnect outside of the lock
+     * @return the idle wagon, now borrowed, or <code>null</code> to connect a new one
+     */
+    private synchronized Wagon reserve( Key key, List<Wagon> evicted )
+        throws ConnectionException
+    {
+        long deadline = System.currentTimeMillis() + maximumWait;
+
+        while ( true )
+        {
+            if ( closed )
+            {
+                throw new ConnectionException( "The wagon pool is closed" );
+            }
+
+            evicted.addAll( evictIdle( System.currentTimeMillis() ) );
+
+            LinkedList<IdleWagon> idle = idleWagons.get( key );
+            if ( idle != null && !idle.isEmpty() )
+            {
+                Wagon wagon = idle.removeFirst().wagon;
+                if ( idle.isEmpty() )
+                {
+                    idleWagons.remove( key );
+                }
+                borrowedWagons.put( wagon, key );
+                return wagon;
+            }
+
+            int count = getWagonCount( key );
+            if ( count < maximumWagonsPerKey )
+            {
+                wagonCounts.put( key, count + 1 );
+                return null;
+            }
+
+            long wait = deadline - System.currentTimeMillis();
+            if ( wait <= 0 )
+            {
+                throw new ConnectionException( "No wagon connected to " + key.url + " was released within "
+                    + maximumWait + " ms, " + count + " being in use" );
+            }
+
+            try
+            {
+                wait( wait );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new ConnectionException( "Interrupted while waiting for a wagon connected to " + key.url );
+            }
+        }
+    }
+
+    /**
+     * Connects a new wagon in the room reserved for it.
+     */
+    private Wagon connect( Key key, Repository repository, AuthenticationInfo authenticationInfo,
+                           ProxyInfo proxyInfo )
+        throws ConnectionException, AuthenticationException, UnsupportedProtocolException
+    {
+        boolean connected = false;
+        try
+        {
+            Wagon wagon = factory.createWagon( repository );
+            wagon.connect( repository, authenticationInfo, proxyInfo );
+            connected = true;
+
+            synchronized ( this )
+            {
+                borrowedWagons.put( wagon, key );
+            }
+            return wagon;
+        }
+        finally
+        {
+            if ( !connected )
+            {
+                removeWagon( key );
+            }
+        }
+    }
+
+    /**
+     * Gives back a borrowed wagon, to be lent again. Wagons which were not borrowed from this pool are ignored.
+     */
+    public void release( Wagon wagon )
+    {
+        synchronized ( this )
+        {
+            Key key = borrowedWagons.remove( wagon );
+            if ( key == null )
+            {
+                return;
+            }
+
+            if ( !closed )
+            {
+                LinkedList<IdleWagon> idle = idleWagons.get( key );
+                if ( idle == null )
+                {
+                    idle = new LinkedList<IdleWagon>();
+                    idleWagons.put( key, idle );
+                }
+                idle.addFirst( new IdleWagon( wagon, System.currentTimeMillis() ) );
+
+                notifyAll();
+                return;
+            }
+
+            removeWagon( key );
+        }
+
+        disconnect( wagon );
+    }
+
+    /**
+     * Gives back a borrowed wagon which must not be lent again, and disconnects it.
+     */
+    public void invalidate( Wagon wagon )
+    {
+        synchronized ( this )
+        {
+            Key key = borrowedWagons.remove( wagon );
+            if ( key == null )
+            {
+                return;
+            }
+
+            removeWagon( key );
+        }
+
+        disconnect( wagon );
+    }
+
+    /**
+     * Disconnects the wagons idle for longer than the idle timeout.
+     */
+    public void evictIdle()
+    {
+        List<Wagon> evicted;
+        synchronized ( this )
+        {
+            evicted = evictIdle( System.currentTimeMillis() );
+        }
+
+        disconnect( evicted );
+    }
+
+    /**
+     * Removes the wagons idle for longer than the idle timeout from the pool, leaving them to be disconnected.
+     */
+    private List<Wagon> evictIdle( long now )
+    {
+        List<Wagon> evicted = new ArrayList<Wagon>();
+
+        for ( Iterator<Map.Entry<Key, LinkedList<IdleWagon>>> i = idleWagons.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry<Key, LinkedList<IdleWagon>> entry = i.next();
+            LinkedList<IdleWagon> idle = entry.getValue();
+
+            // the least recently released last
+            while ( !idle.isEmpty() && now - idle.getLast().since >= idleTimeout )
+            {
+                evicted.add( idle.removeLast().wagon );
+                decrementWagonCount( entry.getKey() );
+            }
+            if ( idle.isEmpty() )
+            {
+                i.remove();
+            }
+        }
+
+        if ( !evicted.isEmpty() )
+        {
+            notifyAll();
+        }
+        return evicted;
+    }
+
+    /**
+     * Disconnects the idle wagons, and the borrowed ones as they are released. The pool cannot be used any more.
+     */
+    public void close()
+    {
+        List<Wagon> idle = new ArrayList<Wagon>();
+        synchronized ( this )
+        {
+            closed = true;
+
+            for ( Map.Entry<Key, LinkedList<IdleWagon>> entry : idleWagons.entrySet() )
+            {
+                for ( IdleWagon idleWagon : entry.getValue() )
+                {
+                    idle.add( idleWagon.wagon );
+                    decrementWagonCount( entry.getKey() );
+                }
+            }
+            idleWagons.clear();
+
+            notifyAll();
+        }
+
+        disconnect( idle );
+    }
+
+    private synchronized void removeWagon( Key key )
+    {
+        decrementWagonCount( key );
+        notifyAll();
+    }
+
+    private void decrementWagonCount( Key key )
+    {
+        int count = getWagonCount( key ) - 1;
+        if ( count > 0 )
+        {
+            wagonCounts.put( key, count );
+        }
+        else
+        {
+            wagonCounts.remove( key );
+        }
+    }
+
+    private int getWagonCount( Key key )
+    {
+        Integer count = wagonCounts.get( key );
+        return count != null ? count : 0;
+    }
+
+    private static void disconnect( List<Wagon> wagons )
+    {
+        for ( Wagon wagon : wagons )
+        {
+            disconnect( wagon );
+        }
+    }
+
+    private static void disconnect( Wagon wagon )
+    {
+        try
+        {
+            wagon.disconnect();
+        }
+        catch ( ConnectionException e )
+        {
+            // the wagon is dropped all the same
+        }
+    }
+
+    /**
+     * @return the number of wagons lent and not released yet
+     */
+    public synchronized int getBorrowedCount()
+    {
+        return borrowedWagons.size();
+    }
+
+    /**
+     * @return the number of connected wagons waiting to be lent
+     */
+    public synchronized int getIdleCount()
+    {
+        int count = 0;
+        for ( LinkedList<IdleWagon> idle : idleWagons.values() )
+        {
+            count += idle.size();
+        }
+        return count;
+    }
+
+    public synchronized int getMaximumWagonsPerKey()
+    {
+        return maximumWagonsPerKey;
+    }
+
+    /**
+     * @param maximumWagonsPerKey the number of wagons connected at most to the same repository with the same
+     *                            authentication and proxy, 8 by default
+     */
+    public synchronized void setMaximumWagonsPerKey( int maximumWagonsPerKey )
+    {
+        this.maximumWagonsPerKey = maximumWagonsPerKey;
+        notifyAll();
+    }
+
+    public synchronized long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout how long a wagon stays connected in the pool without being borrowed, in milliseconds, a minute
+     *                    by default
+     */
+    public synchronized void setIdleTimeout( long idleTimeout )
+    {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public synchronized long getMaximumWait()
+    {
+        return maximumWait;
+    }
+
+    /**
+     * @param maximumWait how long a borrower waits for a wagon to be released when the maximum number of wagons is
+     *                    reached, in milliseconds, a minute by default
+     */
+    public synchronized void setMaximumWait( long maximumWait )
+    {
+        this.maximumWait = maximumWait;
+    }
+
+    private static final class IdleWagon
+    {
+        private final Wagon wagon;
+
+        private final long since;
+
+        private IdleWagon( Wagon wagon, long since )
+        {
+            this.wagon = wagon;
+            this.since = since;
+        }
+    }
+
+    /**
+     * What a wagon was connected with.
+     */
+    private static final class Key
+    {
+        private final String url;
+
+        private final List<Object> values;
+
+        private Key( Repository repository, AuthenticationInfo authenticationInfo, ProxyInfo proxyInfo )
+        {
+            url = repository.getUrl();
+
+            values = new ArrayList<Object>( Arrays.asList( new Object[]{ repository.getId(), url } ) );
+            if ( authenticationInfo != null )
+            {
+                values.addAll( Arrays.asList( new Object[]{ authenticationInfo.getUserName(),
+                    authenticationInfo.getPassword(), authenticationInfo.getPrivateKey(),
+                    authenticationInfo.getPassphrase() } ) );
+            }
+            if ( proxyInfo != null )
+            {
+                values.addAll( Arrays.asList( new Object[]{ proxyInfo.getType(), proxyInfo.getHost(),
+                    proxyInfo.getPort(), proxyInfo.getUserName(), proxyInfo.getPassword(),
+                    proxyInfo.getNonProxyHosts(), proxyInfo.getNtlmHost(), proxyInfo.getNtlmDomain() } ) );
+            }
+        }
+
+        public boolean equals( Object o )
+        {
+            return o instanceof Key && values.equals( ( (Key) o ).values );
+        }
+
+        public int hashCode()
+        {
+            return values.hashCode();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.apache.maven.wagon.proxy;
+
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The non-proxy hosts of a {@link ProxyInfo}, compiled once: plain host names are looked up in a set, patterns like
+ * <code>*.foo.com</code> in a trie of their reversed suffixes, and only the other patterns are matched as regular
+ * expressions. The answer for each host is then remembered.
+ *
+ * @since 2.3
+ */
+final class NonProxyHostsMatcher
+{
+    /**
+     * Wagons connect to a few hosts, the cache is only bounded against callers asking for unbounded numbers of hosts.
+     */
+    private static final int MAXIMUM_CACHED_HOSTS = 1024;
+
+    /**
+     * The characters which make a pattern a regular expression, besides the dots and the stars which
+     * {@link ProxyUtils} has always translated.
+     */
+    private static final String REGEX_CHARACTERS = "\\^$?+()[]{}";
+
+    private final String nonProxyHosts;
+
+    private final Set<String> hosts = new HashSet<String>();
+
+    private final SuffixNode suffixes = new SuffixNode();
+
+    private final List<Pattern> patterns = new ArrayList<Pattern>();
+
+    private final ConcurrentMap<String, Boolean> matches = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * @param nonProxyHosts the non-proxy hosts, in the format of the <code>http.nonProxyHosts</code> system property
+     */
+    NonProxyHostsMatcher( String nonProxyHosts )
+    {
+        this.nonProxyHosts = nonProxyHosts;
+
+        StringTokenizer tokenizer = new StringTokenizer( nonProxyHosts, "|" );
+        while ( tokenizer.hasMoreTokens() )
+        {
+            String pattern = tokenizer.nextToken();
+
+            int star = pattern.lastIndexOf( '*' );
+            if ( isRegex( pattern ) || star > 0 )
+            {
+                patterns.add( Pattern.compile( pattern.replaceAll( "\\.", "\\\\." ).replaceAll( "\\*", ".*" ) ) );
+            }
+            else if ( star == 0 )
+            {
+                suffixes.add( pattern.substring( 1 ) );
+            }
+            else
+            {
+                hosts.add( pattern );
+            }
+        }
+    }
+
+    String getNonProxyHosts()
+    {
+        return nonProxyHosts;
+    }
+
+    /**
+     * @param host the target host name
+     * @return <code>true</code> if the host matches one of the non-proxy hosts
+     */
+    boolean matches( String host )
+    {
+        Boolean match = matches.get( host );
+        if ( match == null )
+        {
+            match = Boolean.valueOf( match( host ) );
+
+            if ( matches.size() >= MAXIMUM_CACHED_HOSTS )
+            {
+                matches.clear();
+            }
+            matches.put( host, match );
+        }
+        return match.booleanValue();
+    }
+
+    private boolean match( String host )
+    {
+        if ( hosts.contains( host ) || suffixes.matches( host ) )
+        {
+            return true;
+        }
+        for ( Pattern pattern : patterns )
+        {
+            if ( pattern.matcher( host ).matches() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRegex( String pattern )
+    {
+        for ( int i = 0; i < pattern.length(); i++ )
+        {
+            if ( REGEX_CHARACTERS.indexOf( pattern.charAt( i ) ) >= 0 )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A node of the trie of the suffixes, read from their last character.
+     */
+    private static final class SuffixNode
+    {
+        private final Map<Character, SuffixNode> children = new HashMap<Character, SuffixNode>();
+
+        /**
+         * Whether a suffix ends at this node, any host ending with it matching.
+         */
+        private boolean terminal;
+
+        void add( String suffix )
+        {
+            SuffixNode node = this;
+            for ( int i = suffix.length() - 1; i >= 0; i-- )
+            {
+                Character c = Character.valueOf( suffix.charAt( i ) );
+                SuffixNode child = node.children.get( c );
+                if ( child == null )
+                {
+                    child = new SuffixNode();
+                    node.children.put( c, child );
+                }
+                node = child;
+            }
+            node.terminal = true;
+        }
+
+        boolean matches( String host )
+        {
+            SuffixNode node = this;
+            for ( int i = host.length() - 1; !node.terminal; i-- )
+            {
+                node = i >= 0 ? node.children.get( Character.valueOf( host.charAt( i ) ) ) : null;
+                if ( node == null )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -71,6 +71,11 @@ public class ProxyInfo
      */
     private String nonProxyHosts;
 
+    /**
+     * The non-proxy hosts compiled for matching, built on first use.
+     */
+    private transient volatile NonProxyHostsMatcher nonProxyHostsMatcher;
+
     /**
      * For NTLM proxies, specifies the NTLM host.
      */
@@ -189,6 +194,26 @@ public class ProxyInfo
         this.nonProxyHosts = nonProxyHosts;
     }
 
+    /**
+     * @return the non-proxy hosts compiled for matching, <code>null</code> if there are none
+     */
+    NonProxyHostsMatcher getNonProxyHostsMatcher()
+    {
+        String nonProxyHosts = getNonProxyHosts();
+        if ( nonProxyHosts == null )
+        {
+            return null;
+        }
+
+        NonProxyHostsMatcher matcher = nonProxyHostsMatcher;
+        if ( matcher == null || !matcher.getNonProxyHosts().equals( nonProxyHosts ) )
+        {
+            matcher = new NonProxyHostsMatcher( nonProxyHosts );
+            nonProxyHostsMatcher = matcher;
+        }
+        return matcher;
+    }
+
     public String getNtlmHost()
     {
         return ntlmHost;
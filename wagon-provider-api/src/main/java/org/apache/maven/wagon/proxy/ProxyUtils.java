@@ -19,8 +19,6 @@ package org.apache.maven.wagon.proxy;
  * under the License.
  */
 
-import java.util.StringTokenizer;
-
 /**
  * @author <a href="mailto:lafeuil@gmail.com">Thomas Champagne</a>
  */
@@ -31,8 +29,9 @@ public final class ProxyUtils
     }
 
     /**
-     * Check if the specified host is in the list of non proxy hosts.
-     * 
+     * Check if the specified host is in the list of non proxy hosts. The list is compiled once for each
+     * <code>ProxyInfo</code> and the answer remembered for each host, so that it can be checked for every request.
+     *
      * @param proxy the proxy info object contains set of properties.
      * @param targetHost the target hostname
      * @return true if the hostname is in the list of non proxy hosts, false otherwise.
@@ -47,23 +46,7 @@ public final class ProxyUtils
         {
             return false;
         }
-        String nonProxyHosts = proxy.getNonProxyHosts();
-        if ( nonProxyHosts == null )
-        {
-            return false;
-        }
-
-        StringTokenizer tokenizer = new StringTokenizer( nonProxyHosts, "|" );
-
-        while ( tokenizer.hasMoreTokens() )
-        {
-            String pattern = tokenizer.nextToken();
-            pattern = pattern.replaceAll( "\\.", "\\\\." ).replaceAll( "\\*", ".*" );
-            if ( targetHost.matches( pattern ) )
-            {
-                return true;
-            }
-        }
-        return false;
+        NonProxyHostsMatcher matcher = proxy.getNonProxyHostsMatcher();
+        return matcher != null && matcher.matches( targetHost );
     }
 }
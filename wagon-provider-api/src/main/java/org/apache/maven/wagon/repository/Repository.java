@@ -19,7 +19,7 @@ package org.apache.maven.wagon.repository;
  * under the License.
  */
 
-import org.apache.maven.wagon.PathUtils;
+import org.apache.maven.wagon.ParsedUrl;
 import org.apache.maven.wagon.WagonConstants;
 import org.codehaus.plexus.util.StringUtils;
 
@@ -134,38 +134,23 @@ public class Repository
 
     public void setUrl( String url )
     {
-        this.url = url;
+        ParsedUrl parsedUrl = ParsedUrl.parse( url );
 
-        // TODO [BP]: refactor out the PathUtils URL stuff into a class like java.net.URL, so you only parse once
-        //  can't use URL class as is because it won't recognise our protocols, though perhaps we could attempt to
-        //  register handlers for scp, etc?
+        this.url = parsedUrl.getUrlWithoutCredentials();
 
-        this.protocol = PathUtils.protocol( url );
+        this.protocol = parsedUrl.getProtocol();
 
-        this.host = PathUtils.host( url );
+        this.host = parsedUrl.getHost();
 
-        this.port = PathUtils.port( url );
+        this.port = parsedUrl.getPort();
 
-        this.basedir = PathUtils.basedir( url );
+        this.basedir = parsedUrl.getBasedir();
 
-        String username = PathUtils.user( url );
-        this.username = username;
+        this.username = parsedUrl.getUsername();
 
-        if ( username != null )
+        if ( username != null && parsedUrl.getPassword() != null )
         {
-            String password = PathUtils.password( url );
-
-            if ( password != null )
-            {
-                this.password = password;
-
-                username += ":" + password;
-            }
-
-            username += "@";
-
-            int index = url.indexOf( username );
-            this.url = url.substring( 0, index ) + url.substring( index + username.length() );
+            this.password = parsedUrl.getPassword();
         }
     }
 
@@ -26,6 +26,7 @@ import org.apache.maven.wagon.authorization.AuthorizationException;
 import org.apache.maven.wagon.events.SessionListener;
 import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
 import org.apache.maven.wagon.proxy.ProxyInfo;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
@@ -41,6 +42,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author <a href="michal.maczka@dimatics.com">Michal Maczka</a>
@@ -448,6 +451,101 @@ public class AbstractWagonTest
         transferListenerControl.verify();
     }
 
+    public void testTransferEventsCanBeKept()
+        throws Exception
+    {
+        final List<TransferEvent> events = new ArrayList<TransferEvent>();
+        final List<Integer> eventTypes = new ArrayList<Integer>();
+        final List<TransferEvent> progressEvents = new ArrayList<TransferEvent>();
+
+        WagonMock wagon = new WagonMock();
+        wagon.addTransferListener( new AbstractTransferListener()
+        {
+            public void transferInitiated( TransferEvent transferEvent )
+            {
+                record( transferEvent );
+            }
+
+            public void transferStarted( TransferEvent transferEvent )
+            {
+                record( transferEvent );
+            }
+
+            public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+            {
+                if ( progressEvents.isEmpty() || progressEvents.get( progressEvents.size() - 1 ) != transferEvent )
+                {
+                    progressEvents.add( transferEvent );
+                }
+            }
+
+            public void transferCompleted( TransferEvent transferEvent )
+            {
+                record( transferEvent );
+            }
+
+            private void record( TransferEvent transferEvent )
+            {
+                events.add( transferEvent );
+                eventTypes.add( Integer.valueOf( transferEvent.getEventType() ) );
+            }
+        } );
+        wagon.connect( new Repository() );
+
+        wagon.get( artifact, destination );
+
+        assertEquals( 3, events.size() );
+        assertNotSame( events.get( 0 ), events.get( 1 ) );
+        assertNotSame( events.get( 1 ), events.get( 2 ) );
+        assertEquals( 1, progressEvents.size() );
+        assertEquals( 1024 * 4 * 5, progressEvents.get( 0 ).getTransferredBytes() );
+
+        // the next transfer does not change the events of the previous one
+        wagon.get( artifact, destination );
+
+        assertEquals( 6, events.size() );
+        for ( int i = 0; i < events.size(); i++ )
+        {
+            TransferEvent event = events.get( i );
+            assertEquals( eventTypes.get( i ).intValue(), event.getEventType() );
+            assertTrue( event.getNanoTime() != 0 );
+            if ( i < 3 )
+            {
+                assertNotSame( event, events.get( i + 3 ) );
+            }
+        }
+        assertEquals( 2, progressEvents.size() );
+        assertEquals( 1024 * 4 * 5, progressEvents.get( 0 ).getTransferredBytes() );
+        assertEquals( TransferEvent.TRANSFER_INITIATED, events.get( 0 ).getEventType() );
+        assertEquals( TransferEvent.TRANSFER_STARTED, events.get( 1 ).getEventType() );
+        assertEquals( TransferEvent.TRANSFER_COMPLETED, events.get( 2 ).getEventType() );
+    }
+
+    public void testDeprecatedIntTransferIsStillCalled()
+        throws Exception
+    {
+        final List<Integer> maxSizes = new ArrayList<Integer>();
+
+        WagonMock wagon = new WagonMock()
+        {
+            protected void transfer( Resource resource, InputStream input, OutputStream output, int requestType,
+                                     int maxSize )
+                throws IOException
+            {
+                maxSizes.add( Integer.valueOf( maxSize ) );
+
+                super.transfer( resource, input, output, requestType, maxSize );
+            }
+        };
+        wagon.connect( new Repository() );
+
+        wagon.get( artifact, destination );
+
+        assertEquals( 1, maxSizes.size() );
+        assertEquals( Integer.MAX_VALUE, maxSizes.get( 0 ).intValue() );
+        assertEquals( 1024 * 4 * 5, destination.length() );
+    }
+
     public void testStreamShutdown()
     {
         IOUtil.close( (InputStream) null );
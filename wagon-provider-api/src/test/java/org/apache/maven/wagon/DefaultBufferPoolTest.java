@@ -0,0 +1,88 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * @see DefaultBufferPool
+ */
+public class DefaultBufferPoolTest
+    extends TestCase
+{
+    public void testSizeClasses()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+
+        assertEquals( 4096, pool.acquire( 1 ).length );
+        assertEquals( 4096, pool.acquire( 4096 ).length );
+        assertEquals( 8192, pool.acquire( 4097 ).length );
+        assertEquals( 512 * 1024, pool.acquire( 300 * 1024 ).length );
+        assertEquals( 600 * 1024, pool.acquire( 600 * 1024 ).length );
+    }
+
+    public void testReuse()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+
+        byte[] first = pool.acquire( 4096 );
+        assertEquals( 0, pool.getHitCount() );
+        assertEquals( 1, pool.getMissCount() );
+
+        pool.release( first );
+
+        assertSame( first, pool.acquire( 4096 ) );
+        assertEquals( 1, pool.getHitCount() );
+        assertEquals( 1, pool.getMissCount() );
+    }
+
+    public void testSharedPoolIsBounded()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool( 1 );
+
+        byte[] first = pool.acquire( 4096 );
+        byte[] second = pool.acquire( 4096 );
+        byte[] third = pool.acquire( 4096 );
+
+        // one goes to the thread local slot, one to the shared pool, the last one is dropped
+        pool.release( first );
+        pool.release( second );
+        pool.release( third );
+
+        pool.acquire( 4096 );
+        pool.acquire( 4096 );
+        pool.acquire( 4096 );
+
+        assertEquals( 2, pool.getHitCount() );
+        assertEquals( 4, pool.getMissCount() );
+    }
+
+    public void testForeignBuffersAreNotPooled()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+
+        pool.release( new byte[5000] );
+        pool.release( new byte[1024 * 1024] );
+        pool.release( null );
+
+        assertEquals( 8192, pool.acquire( 5000 ).length );
+        assertEquals( 0, pool.getHitCount() );
+    }
+}
@@ -0,0 +1,245 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.FileUtils;
+
+public class DirectoryUploadTest
+    extends TestCase
+{
+    /**
+     * Records the resources put by all the wagons, in order.
+     */
+    private final List<String> puts = Collections.synchronizedList( new ArrayList<String>() );
+
+    private class RecordingWagon
+        extends StreamWagon
+    {
+        private final List<String> ownPuts = new ArrayList<String>();
+
+        public void fillInputData( InputData inputData )
+        {
+        }
+
+        public void fillOutputData( OutputData outputData )
+            throws TransferFailedException
+        {
+            String name = outputData.getResource().getName();
+            if ( name.endsWith( "broken.txt" ) )
+            {
+                throw new TransferFailedException( name );
+            }
+
+            puts.add( name );
+            ownPuts.add( name );
+            outputData.setOutputStream( new ByteArrayOutputStream() );
+        }
+
+        protected void openConnectionInternal()
+        {
+            connections++;
+        }
+
+        public void closeConnection()
+        {
+            connections--;
+        }
+
+        protected AbstractWagon createSiblingWagon()
+        {
+            return new RecordingWagon();
+        }
+    }
+
+    private int connections;
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = File.createTempFile( "directory-upload", "" );
+        directory.delete();
+
+        for ( String path : Arrays.asList( "a.txt", "b.txt", "x/c.txt", "x/y/d.txt", "x/y/e.txt", "z/f.txt",
+                                           "z/g.txt", "empty/" ) )
+        {
+            File file = new File( directory, path );
+            if ( path.endsWith( "/" ) )
+            {
+                file.mkdirs();
+            }
+            else
+            {
+                file.getParentFile().mkdirs();
+                FileUtils.fileWrite( file.getPath(), path );
+            }
+        }
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+    }
+
+    public void testDirectoriesAreWalkedParentsFirst()
+    {
+        List<String> directories = new ArrayList<String>( new DirectoryUpload( directory, "site/" ).getDirectories() );
+
+        assertEquals( "site", directories.get( 0 ) );
+        assertTrue( directories.indexOf( "site/x" ) < directories.indexOf( "site/x/y" ) );
+
+        Collections.sort( directories );
+        assertEquals( Arrays.asList( "site", "site/empty", "site/x", "site/x/y", "site/z" ), directories );
+    }
+
+    public void testFirstFileOfEachDirectoryIsUploadedFirst()
+        throws Exception
+    {
+        DirectoryUpload upload = new DirectoryUpload( directory, "." );
+        upload.upload( new RecordingWagon() );
+
+        assertEquals( 7, puts.size() );
+        assertEquals( 7, upload.getFileCount() );
+
+        // the parents first
+        List<String> first = puts.subList( 0, 3 );
+        assertTrue( first.toString(), first.contains( "x/c.txt" ) );
+        assertTrue( first.toString(), first.contains( "z/f.txt" ) || first.contains( "z/g.txt" ) );
+        assertTrue( first.toString(), first.get( 2 ).startsWith( "x/y/" ) );
+    }
+
+    public void testFilesAreSharedByTheWagons()
+        throws Exception
+    {
+        for ( int i = 0; i < 50; i++ )
+        {
+            FileUtils.fileWrite( new File( directory, "x/y/many-" + i + ".txt" ).getPath(), "" + i );
+        }
+
+        RecordingWagon wagon = new RecordingWagon();
+        List<RecordingWagon> additionalWagons = Arrays.asList( new RecordingWagon(), new RecordingWagon() );
+
+        final List<Integer> counts = Collections.synchronizedList( new ArrayList<Integer>() );
+        DirectoryUpload upload = new DirectoryUpload( directory, "" );
+        upload.addListener( new DirectoryUploadListener()
+        {
+            public void fileUploaded( String resourceName, int uploadedCount, int fileCount, long uploadedBytes )
+            {
+                assertEquals( 57, fileCount );
+                counts.add( uploadedCount );
+            }
+        } );
+        upload.upload( wagon, additionalWagons );
+
+        assertEquals( 57, puts.size() );
+        assertEquals( 57, counts.size() );
+        assertTrue( counts.contains( 57 ) );
+        assertEquals( 57, wagon.ownPuts.size() + additionalWagons.get( 0 ).ownPuts.size()
+            + additionalWagons.get( 1 ).ownPuts.size() );
+
+        // the directories are created by the first wagon, before the others start
+        assertTrue( wagon.ownPuts.contains( "x/c.txt" ) );
+        assertTrue( wagon.ownPuts.contains( "z/f.txt" ) || wagon.ownPuts.contains( "z/g.txt" ) );
+    }
+
+    public void testDirectoriesCreatedByTheWagonAreNotUploadedFirst()
+        throws Exception
+    {
+        final List<String> created = new ArrayList<String>();
+
+        new DirectoryUpload( directory, "site" )
+        {
+            protected boolean createDirectory( Wagon wagon, String directory )
+            {
+                assertEquals( 0, puts.size() );
+                created.add( directory );
+                return true;
+            }
+        }.upload( new RecordingWagon() );
+
+        assertEquals( 5, created.size() );
+        assertEquals( 7, puts.size() );
+    }
+
+    public void testFailureStopsTheUpload()
+        throws Exception
+    {
+        FileUtils.fileWrite( new File( directory, "x/y/broken.txt" ).getPath(), "" );
+
+        try
+        {
+            new DirectoryUpload( directory, "" ).upload( new RecordingWagon(),
+                                                          Arrays.asList( new RecordingWagon() ) );
+            fail();
+        }
+        catch ( TransferFailedException e )
+        {
+            assertTrue( e.getMessage().endsWith( "broken.txt" ) );
+        }
+    }
+
+    public void testSiblingWagonsUploadWithTheListenersOfTheWagon()
+        throws Exception
+    {
+        final List<String> completed = Collections.synchronizedList( new ArrayList<String>() );
+
+        RecordingWagon wagon = new RecordingWagon();
+        wagon.setPutDirectoryParallelism( 3 );
+        wagon.addTransferListener( new AbstractTransferListener()
+        {
+            public void transferCompleted( TransferEvent transferEvent )
+            {
+                completed.add( transferEvent.getResource().getName() );
+            }
+        } );
+        wagon.connect( new Repository( "test", "file:///tmp/repo" ) );
+
+        wagon.uploadDirectory( new DirectoryUpload( directory, "" ) );
+
+        assertEquals( 7, puts.size() );
+        assertEquals( 7, completed.size() );
+        // the sibling wagons are disconnected again
+        assertEquals( 1, connections );
+    }
+
+    public void testWagonUtilsIncludesTheBaseDirectory()
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        WagonUtils.putDirectory( directory, new RecordingWagon(), true );
+
+        assertEquals( 7, puts.size() );
+        assertTrue( puts.contains( directory.getName() + "/x/y/d.txt" ) );
+    }
+}
@@ -0,0 +1,120 @@
+package org.apache.maven.wagon;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.IOUtil;
+
+public class StreamContentTest
+    extends TestCase
+{
+    private static byte[] createBytes( int length )
+    {
+        byte[] bytes = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    public void testShortStreamIsBuffered()
+        throws IOException
+    {
+        byte[] bytes = createBytes( 100 );
+        StreamContent content = new StreamContent( new ByteArrayInputStream( bytes ), -1, 1024 );
+
+        assertTrue( content.isBuffered() );
+        assertEquals( 100, content.getLength() );
+        assertTrue( Arrays.equals( bytes, IOUtil.toByteArray( content.openStream() ) ) );
+        assertTrue( content.isRepeatable() );
+        assertTrue( Arrays.equals( bytes, IOUtil.toByteArray( content.openStream() ) ) );
+    }
+
+    public void testStreamOfTheMaximumLengthIsBuffered()
+        throws IOException
+    {
+        StreamContent content = new StreamContent( new ByteArrayInputStream( createBytes( 1024 ) ), -1, 1024 );
+
+        assertTrue( content.isBuffered() );
+        assertEquals( 1024, content.getLength() );
+    }
+
+    public void testKnownLengthLimitsTheContent()
+        throws IOException
+    {
+        StreamContent content = new StreamContent( new ByteArrayInputStream( createBytes( 100 ) ), 10, 1024 );
+
+        assertTrue( content.isBuffered() );
+        assertEquals( 10, content.getLength() );
+        assertEquals( 10, IOUtil.toByteArray( content.openStream() ).length );
+    }
+
+    public void testLongStreamIsReadOnce()
+        throws IOException
+    {
+        final int[] read = new int[1];
+        byte[] bytes = createBytes( 10000 );
+        InputStream stream = new ByteArrayInputStream( bytes )
+        {
+            public synchronized int read( byte[] b, int off, int len )
+            {
+                int n = super.read( b, off, len );
+                read[0] += Math.max( n, 0 );
+                return n;
+            }
+        };
+
+        StreamContent content = new StreamContent( stream, -1, 1024 );
+
+        assertFalse( content.isBuffered() );
+        assertEquals( -1, content.getLength() );
+        assertEquals( 1025, read[0] );
+        assertTrue( content.isRepeatable() );
+
+        assertTrue( Arrays.equals( bytes, IOUtil.toByteArray( content.openStream() ) ) );
+        assertFalse( content.isRepeatable() );
+
+        try
+        {
+            content.openStream();
+            fail();
+        }
+        catch ( IOException e )
+        {
+            assertTrue( true );
+        }
+    }
+
+    public void testLongStreamKeepsItsKnownLength()
+        throws IOException
+    {
+        StreamContent content = new StreamContent( new ByteArrayInputStream( createBytes( 10000 ) ), 10000, 1024 );
+
+        assertFalse( content.isBuffered() );
+        assertEquals( 10000, content.getLength() );
+    }
+}
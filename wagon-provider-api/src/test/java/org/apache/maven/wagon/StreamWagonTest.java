@@ -23,13 +23,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 
 import junit.framework.TestCase;
 
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.ProgressAwareTransferListener;
 import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.observers.ChecksumObserver;
 import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
 import org.codehaus.plexus.util.FileUtils;
@@ -384,6 +387,228 @@ public class StreamWagonTest
         }
     }
 
+    private static TestWagon createResumingWagon( final String content, final int failAt )
+    {
+        final int[] attempts = new int[1];
+        return new TestWagon()
+        {
+            public void fillInputData( InputData inputData )
+            {
+                inputData.getResource().setContentLength( content.length() );
+                inputData.setValidator( "v1" );
+
+                if ( attempts[0]++ == 0 )
+                {
+                    inputData.setInputStream( new StringInputStream( content.substring( 0, failAt ) )
+                    {
+                        public int read( byte[] b, int off, int len )
+                            throws IOException
+                        {
+                            int n = super.read( b, off, len );
+                            if ( n == -1 )
+                            {
+                                throw new IOException( "connection reset" );
+                            }
+                            return n;
+                        }
+                    } );
+                }
+                else
+                {
+                    assertEquals( failAt, inputData.getResumeOffset() );
+                    assertEquals( "v1", inputData.getResumeValidator() );
+
+                    inputData.setOffset( inputData.getResumeOffset() );
+                    inputData.setInputStream( new StringInputStream( content.substring( failAt ) ) );
+                }
+            }
+        };
+    }
+
+    public void testResumableGet()
+        throws Exception
+    {
+        final String content = "the content to return in two attempts";
+        final int failAt = 10;
+        TestWagon wagon = createResumingWagon( content, failAt );
+        wagon.setResumableGet( true );
+
+        ChecksumObserver checksumObserver = new ChecksumObserver();
+        wagon.addTransferListener( checksumObserver );
+
+        File tempFile = File.createTempFile( "wagon", "tmp" );
+        tempFile.delete();
+        File partFile = new File( tempFile.getPath() + ".part" );
+
+        wagon.connect( repository );
+        try
+        {
+            try
+            {
+                wagon.get( "resource", tempFile );
+                fail();
+            }
+            catch ( TransferFailedException e )
+            {
+                assertTrue( true );
+            }
+            assertFalse( tempFile.exists() );
+            assertEquals( failAt, partFile.length() );
+
+            wagon.get( "resource", tempFile );
+            assertEquals( content, FileUtils.fileRead( tempFile ) );
+            assertFalse( partFile.exists() );
+            assertFalse( new File( tempFile.getPath() + ".part.properties" ).exists() );
+
+            // the bytes of the first attempt are reported to the listeners too
+            assertEquals( "2c16dc0a5f751ce8b0aafdcfe07f3d5e", checksumObserver.getActualChecksum() );
+        }
+        finally
+        {
+            wagon.disconnect();
+            tempFile.delete();
+            partFile.delete();
+        }
+    }
+
+    public void testResumedProgressIsReported()
+        throws Exception
+    {
+        final String content = "the content to return in two attempts";
+        TestWagon wagon = createResumingWagon( content, 10 );
+        wagon.setResumableGet( true );
+
+        final long[] reported = new long[1];
+        wagon.addTransferListener( new ProgressAwareTransferListener()
+        {
+            public long getProgressByteInterval()
+            {
+                return Long.MAX_VALUE;
+            }
+
+            public long getProgressTimeInterval()
+            {
+                return 0;
+            }
+
+            public void transferProgress( TransferEvent transferEvent, long transferred )
+            {
+                // one notification per progress event, once its loop ends
+                reported[0] += transferred;
+            }
+
+            public void transferInitiated( TransferEvent transferEvent )
+            {
+            }
+
+            public void transferStarted( TransferEvent transferEvent )
+            {
+            }
+
+            public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+            {
+            }
+
+            public void transferCompleted( TransferEvent transferEvent )
+            {
+            }
+
+            public void transferError( TransferEvent transferEvent )
+            {
+            }
+
+            public void debug( String message )
+            {
+            }
+        } );
+
+        File tempFile = File.createTempFile( "wagon", "tmp" );
+        tempFile.delete();
+        File partFile = new File( tempFile.getPath() + ".part" );
+
+        wagon.connect( repository );
+        try
+        {
+            try
+            {
+                wagon.get( "resource", tempFile );
+                fail();
+            }
+            catch ( TransferFailedException e )
+            {
+                assertTrue( true );
+            }
+
+            reported[0] = 0;
+            wagon.get( "resource", tempFile );
+            assertEquals( content.length(), reported[0] );
+        }
+        finally
+        {
+            wagon.disconnect();
+            tempFile.delete();
+            partFile.delete();
+        }
+    }
+
+    public void testResumableGetWithoutValidator()
+        throws Exception
+    {
+        TestWagon wagon = new TestWagon()
+        {
+            public void fillInputData( InputData inputData )
+            {
+                inputData.setInputStream( new StringInputStream( "content" )
+                {
+                    public int read( byte[] b, int off, int len )
+                        throws IOException
+                    {
+                        int n = super.read( b, off, len );
+                        if ( n == -1 )
+                        {
+                            throw new IOException( "connection reset" );
+                        }
+                        return n;
+                    }
+                } );
+            }
+        };
+        wagon.setResumableGet( true );
+
+        File tempFile = File.createTempFile( "wagon", "tmp" );
+        tempFile.delete();
+        File partFile = new File( tempFile.getPath() + ".part" );
+
+        wagon.connect( repository );
+        try
+        {
+            wagon.get( "resource", tempFile );
+            fail();
+        }
+        catch ( TransferFailedException e )
+        {
+            // the download cannot be resumed, so nothing is left behind
+            assertFalse( tempFile.exists() );
+            assertFalse( partFile.exists() );
+        }
+        finally
+        {
+            wagon.disconnect();
+            tempFile.delete();
+            partFile.delete();
+        }
+    }
+
+    public void testParseContentRange()
+    {
+        assertTrue( Arrays.equals( new long[]{ 10, 100 }, StreamWagon.parseContentRange( "bytes 10-99/100" ) ) );
+        assertTrue( Arrays.equals( new long[]{ 10, -1 }, StreamWagon.parseContentRange( " bytes 10-99/* " ) ) );
+        assertNull( StreamWagon.parseContentRange( null ) );
+        assertNull( StreamWagon.parseContentRange( "items 10-99/100" ) );
+        assertNull( StreamWagon.parseContentRange( "bytes */100" ) );
+        assertNull( StreamWagon.parseContentRange( "bytes x-99/100" ) );
+    }
+
     public void testGetIfNewerToStreamWithNewerResource()
         throws Exception
     {
@@ -0,0 +1,342 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+public class CachingWagonTest
+    extends TestCase
+{
+    /**
+     * Serves the resources of a map.
+     */
+    private static class MapWagon
+        extends StreamWagon
+    {
+        private final Map<String, String> contents = new HashMap<String, String>();
+
+        private final Map<String, Long> lastModified = new HashMap<String, Long>();
+
+        void setResource( String name, String content, long modified )
+        {
+            contents.put( name, content );
+            lastModified.put( name, modified );
+        }
+
+        public void fillInputData( InputData inputData )
+            throws ResourceDoesNotExistException
+        {
+            String name = inputData.getResource().getName();
+            if ( !contents.containsKey( name ) )
+            {
+                throw new ResourceDoesNotExistException( name );
+            }
+
+            inputData.getResource().setLastModified( lastModified.get( name ) );
+            inputData.getResource().setContentLength( contents.get( name ).length() );
+            inputData.setInputStream( new ByteArrayInputStream( contents.get( name ).getBytes() ) );
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+            outputData.setOutputStream( new ByteArrayOutputStream() );
+        }
+
+        protected void openConnectionInternal()
+        {
+        }
+
+        public void closeConnection()
+        {
+        }
+    }
+
+    private File cacheDirectory;
+
+    private File destination;
+
+    protected void setUp()
+        throws Exception
+    {
+        cacheDirectory = new File( System.getProperty( "basedir", "." ), "target/test-output/wagon-cache" );
+        FileUtils.deleteDirectory( cacheDirectory );
+
+        destination = File.createTempFile( "wagon", ".tmp" );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        destination.delete();
+        FileUtils.deleteDirectory( cacheDirectory );
+    }
+
+    public void testHitOnSecondGet()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon first = new MapWagon();
+        first.setResource( "a/b.jar", "the content", 1000 );
+        first.connect( new Repository( "id", "http://localhost/repo" ) );
+        new CachingWagon( first, cache ).get( "a/b.jar", destination );
+
+        assertEquals( "the content", FileUtils.fileRead( destination ) );
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 1, cache.getMissCount() );
+
+        destination.delete();
+
+        // another wagon on the same repository
+        MapWagon second = new MapWagon();
+        second.setResource( "a/b.jar", "the content", 1000 );
+        second.connect( new Repository( "other", "http://localhost/repo" ) );
+        new CachingWagon( second, cache ).get( "a/b.jar", destination );
+
+        assertEquals( "the content", FileUtils.fileRead( destination ) );
+        assertEquals( 1, cache.getHitCount() );
+        assertEquals( "the content".length(), cache.getBytesSaved() );
+    }
+
+    public void testChangedResourceIsDownloadedAgain()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a/b.jar", "old content", 1000 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        CachingWagon cachingWagon = new CachingWagon( wagon, cache );
+        cachingWagon.get( "a/b.jar", destination );
+
+        wagon.setResource( "a/b.jar", "new content", 2000 );
+        cachingWagon.get( "a/b.jar", destination );
+
+        assertEquals( "new content", FileUtils.fileRead( destination ) );
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 2, cache.getMissCount() );
+        assertEquals( 2000, cache.get( "http://localhost/repo", "a/b.jar" ).getLastModified() );
+    }
+
+    public void testIdenticalContentIsStoredOnce()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a.jar", "same content", 1000 );
+        wagon.setResource( "b.jar", "same content", 1000 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        CachingWagon cachingWagon = new CachingWagon( wagon, cache );
+        cachingWagon.get( "a.jar", destination );
+        cachingWagon.get( "b.jar", destination );
+
+        assertEquals( 2, cache.getEntryCount() );
+        assertEquals( "same content".length(), cache.getSize() );
+    }
+
+    public void testSameContentPutAgainIsKept()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        FileUtils.fileWrite( destination.getPath(), "the content" );
+        cache.put( "http://localhost/repo", "a.jar", destination, 1000 );
+        CacheEntry entry = cache.put( "http://localhost/repo", "a.jar", destination, 2000 );
+
+        assertEquals( 1, cache.getEntryCount() );
+        assertEquals( "the content".length(), cache.getSize() );
+        assertEquals( 2000, cache.get( "http://localhost/repo", "a.jar" ).getLastModified() );
+
+        FileInputStream input = cache.openContent( entry );
+        assertNotNull( input );
+        try
+        {
+            assertEquals( "the content", IOUtil.toString( input ) );
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    public void testLeastRecentlyUsedIsEvicted()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 25 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a.jar", "0123456789", 1000 );
+        wagon.setResource( "b.jar", "abcdefghij", 1000 );
+        wagon.setResource( "c.jar", "ABCDEFGHIJ", 1000 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        CachingWagon cachingWagon = new CachingWagon( wagon, cache );
+        cachingWagon.get( "a.jar", destination );
+        cachingWagon.get( "b.jar", destination );
+        cachingWagon.get( "a.jar", destination );
+        cachingWagon.get( "c.jar", destination );
+
+        assertNotNull( cache.get( "http://localhost/repo", "a.jar" ) );
+        assertNull( cache.get( "http://localhost/repo", "b.jar" ) );
+        assertNotNull( cache.get( "http://localhost/repo", "c.jar" ) );
+        assertEquals( 20, cache.getSize() );
+
+        // the entries survive a restart
+        cache = new WagonCache( cacheDirectory, 25 );
+        assertEquals( 2, cache.getEntryCount() );
+        assertEquals( 20, cache.getSize() );
+    }
+
+    public void testPutForgetsResource()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a/b.jar", "the content", 1000 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        CachingWagon cachingWagon = new CachingWagon( wagon, cache );
+        cachingWagon.get( "a/b.jar", destination );
+
+        cachingWagon.put( destination, "a/b.jar" );
+
+        assertNull( cache.get( "http://localhost/repo", "a/b.jar" ) );
+    }
+
+    public void testHitFiresTransferEvents()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a/b.jar", "the content", 1000 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        CachingWagon cachingWagon = new CachingWagon( wagon, cache );
+        cachingWagon.get( "a/b.jar", destination );
+
+        final List<Integer> eventTypes = new ArrayList<Integer>();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        cachingWagon.addTransferListener( new AbstractTransferListener()
+        {
+            public void transferInitiated( TransferEvent transferEvent )
+            {
+                eventTypes.add( transferEvent.getEventType() );
+            }
+
+            public void transferStarted( TransferEvent transferEvent )
+            {
+                eventTypes.add( transferEvent.getEventType() );
+            }
+
+            public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+            {
+                content.write( buffer, 0, length );
+            }
+
+            public void transferCompleted( TransferEvent transferEvent )
+            {
+                eventTypes.add( transferEvent.getEventType() );
+                assertEquals( 1000, transferEvent.getResource().getLastModified() );
+            }
+        } );
+
+        destination.delete();
+        cachingWagon.getIfNewer( "a/b.jar", destination, 500 );
+
+        assertEquals( 1, cache.getHitCount() );
+        assertEquals( "the content", FileUtils.fileRead( destination ) );
+        assertEquals( "the content", content.toString() );
+        // after the wrapped wagon initiated the check of the resource
+        assertEquals( Arrays.asList( TransferEvent.TRANSFER_INITIATED, TransferEvent.TRANSFER_INITIATED,
+                                     TransferEvent.TRANSFER_STARTED, TransferEvent.TRANSFER_COMPLETED ), eventTypes );
+    }
+
+    public void testWrappedWagonKeepsItsFastPaths()
+        throws Exception
+    {
+        MapWagon wagon = new MapWagon();
+        new CachingWagon( wagon, new WagonCache( cacheDirectory, 1024 * 1024 ) );
+
+        assertTrue( wagon.getTransferEventSupport().hasListeners() );
+        assertFalse( wagon.getTransferEventSupport().hasRawProgressListeners() );
+    }
+
+    public void testResourceWithoutLastModifiedIsNotCached()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 1024 * 1024 );
+
+        MapWagon wagon = new MapWagon();
+        wagon.setResource( "a/b.jar", "the content", 0 );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        new CachingWagon( wagon, cache ).get( "a/b.jar", destination );
+
+        assertEquals( 1, cache.getMissCount() );
+        assertEquals( 0, cache.getEntryCount() );
+        assertEquals( 0, cache.getSize() );
+    }
+
+    public void testEvictedContentStaysReadableUntilClosed()
+        throws Exception
+    {
+        WagonCache cache = new WagonCache( cacheDirectory, 15 );
+
+        FileUtils.fileWrite( destination.getPath(), "0123456789" );
+        CacheEntry entry = cache.put( "http://localhost/repo", "a.jar", destination, 1000 );
+
+        FileInputStream input = cache.openContent( entry );
+        try
+        {
+            FileUtils.fileWrite( destination.getPath(), "abcdefghij" );
+            cache.put( "http://localhost/repo", "b.jar", destination, 1000 );
+
+            assertNull( cache.get( "http://localhost/repo", "a.jar" ) );
+            assertNull( cache.openContent( entry ) );
+            assertEquals( "0123456789", IOUtil.toString( input ) );
+        }
+        finally
+        {
+            input.close();
+        }
+
+        assertFalse( cache.copy( entry, destination ) );
+        assertEquals( 1, FileUtils.getFiles( new File( cacheDirectory, "objects" ), null, null ).size() );
+    }
+}
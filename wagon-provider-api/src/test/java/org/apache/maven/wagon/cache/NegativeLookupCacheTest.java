@@ -0,0 +1,149 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.repository.Repository;
+
+public class NegativeLookupCacheTest
+    extends TestCase
+{
+    /**
+     * A repository without any resource, counting the lookups.
+     */
+    private static class EmptyWagon
+        extends StreamWagon
+    {
+        private int lookups;
+
+        public void fillInputData( InputData inputData )
+            throws ResourceDoesNotExistException
+        {
+            lookups++;
+            throw new ResourceDoesNotExistException( inputData.getResource().getName() );
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+            outputData.setOutputStream( new ByteArrayOutputStream() );
+        }
+
+        protected void openConnectionInternal()
+        {
+        }
+
+        public void closeConnection()
+        {
+        }
+    }
+
+    public void testMissingResourceExpires()
+        throws Exception
+    {
+        NegativeLookupCache cache = new NegativeLookupCache( 50, 10 );
+
+        assertFalse( cache.isMissing( "http://localhost/repo", "a.jar" ) );
+
+        cache.recordMissing( "http://localhost/repo", "a.jar" );
+        assertTrue( cache.isMissing( "http://localhost/repo", "a.jar" ) );
+        assertFalse( cache.isMissing( "http://localhost/other", "a.jar" ) );
+        assertEquals( 1, cache.getHitCount() );
+
+        Thread.sleep( 100 );
+        assertFalse( cache.isMissing( "http://localhost/repo", "a.jar" ) );
+        assertEquals( 0, cache.size() );
+    }
+
+    public void testSizeIsBounded()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache( 60000, 2 );
+
+        cache.recordMissing( "http://localhost/repo", "a.jar" );
+        cache.recordMissing( "http://localhost/repo", "b.jar" );
+        cache.recordMissing( "http://localhost/repo", "c.jar" );
+
+        assertEquals( 2, cache.size() );
+        assertFalse( cache.isMissing( "http://localhost/repo", "a.jar" ) );
+        assertTrue( cache.isMissing( "http://localhost/repo", "c.jar" ) );
+    }
+
+    public void testDisabledWithoutTimeToLive()
+    {
+        NegativeLookupCache cache = new NegativeLookupCache( 0, 10 );
+
+        cache.recordMissing( "http://localhost/repo", "a.jar" );
+
+        assertFalse( cache.isMissing( "http://localhost/repo", "a.jar" ) );
+    }
+
+    public void testRepeatedMissDoesNotReachRepository()
+        throws Exception
+    {
+        EmptyWagon wagon = new EmptyWagon();
+        wagon.setNegativeLookupCache( new NegativeLookupCache( 60000, 10 ) );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+
+        File destination = File.createTempFile( "wagon", ".tmp" );
+        destination.delete();
+        for ( int i = 0; i < 3; i++ )
+        {
+            try
+            {
+                wagon.get( "a.jar", destination );
+                fail();
+            }
+            catch ( ResourceDoesNotExistException e )
+            {
+                assertTrue( true );
+            }
+        }
+        assertEquals( 1, wagon.lookups );
+
+        // an upload makes it exist
+        File source = File.createTempFile( "wagon", ".tmp" );
+        try
+        {
+            wagon.put( source, "a.jar" );
+        }
+        finally
+        {
+            source.delete();
+        }
+
+        try
+        {
+            wagon.get( "a.jar", destination );
+            fail();
+        }
+        catch ( ResourceDoesNotExistException e )
+        {
+            assertTrue( true );
+        }
+        assertEquals( 2, wagon.lookups );
+    }
+}
@@ -0,0 +1,191 @@
+package org.apache.maven.wagon.cache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.FileUtils;
+
+public class ValidatorStoreTest
+    extends TestCase
+{
+    /**
+     * Serves a single resource, answering conditional requests on its entity tag, or else on its last modification
+     * date when it has one.
+     */
+    private static class EntityTagWagon
+        extends StreamWagon
+    {
+        private String content = "first";
+
+        private String entityTag = "\"1\"";
+
+        private long lastModified;
+
+        private int downloads;
+
+        public void fillInputData( InputData inputData )
+        {
+            if ( entityTag != null ? entityTag.equals( inputData.getConditionalEntityTag() )
+                : lastModified > 0 && inputData.getResource().getLastModified() >= lastModified )
+            {
+                inputData.setNotModified( true );
+                return;
+            }
+
+            downloads++;
+            inputData.setEntityTag( entityTag );
+            if ( lastModified > 0 )
+            {
+                inputData.getResource().setLastModified( lastModified );
+            }
+            inputData.getResource().setContentLength( content.length() );
+            inputData.setInputStream( new ByteArrayInputStream( content.getBytes() ) );
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+            outputData.setOutputStream( new ByteArrayOutputStream() );
+        }
+
+        protected void openConnectionInternal()
+        {
+        }
+
+        public void closeConnection()
+        {
+        }
+    }
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = new File( System.getProperty( "basedir", "." ), "target/test-output/validator-store" );
+        FileUtils.deleteDirectory( directory );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+    }
+
+    public void testValidatorsSurviveRestart()
+        throws Exception
+    {
+        File file = new File( directory, "validators" );
+        File a = new File( directory, "a.jar" );
+        File b = new File( directory, "b.jar" );
+
+        ValidatorStore store = new ValidatorStore( file );
+        store.put( "http://localhost/repo", "a.jar", a, new ResourceValidator( "\"abc\"", 1000, 10 ) );
+        store.put( "http://localhost/repo", "b.jar", b, new ResourceValidator( null, 2000, 20 ) );
+        store.put( "http://localhost/repo", "b.jar", b, new ResourceValidator( null, 3000, 30 ) );
+        store.remove( "http://localhost/repo", "a.jar", a );
+
+        store = new ValidatorStore( file );
+        assertEquals( 1, store.size() );
+        assertNull( store.get( "http://localhost/repo", "a.jar", a ) );
+
+        ResourceValidator validator = store.get( "http://localhost/repo", "b.jar", b );
+        assertNull( validator.getEntityTag() );
+        assertEquals( 3000, validator.getLastModified() );
+        assertEquals( 30, validator.getLength() );
+    }
+
+    public void testNotModifiedLeavesFileAlone()
+        throws Exception
+    {
+        File destination = new File( directory, "a.jar" );
+
+        EntityTagWagon wagon = new EntityTagWagon();
+        wagon.setValidatorStore( new ValidatorStore( new File( directory, "validators" ) ) );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+        assertFalse( wagon.getIfChanged( "a.jar", destination ) );
+        assertEquals( 1, wagon.downloads );
+
+        // another process, with the same store file
+        wagon = new EntityTagWagon();
+        wagon.setValidatorStore( new ValidatorStore( new File( directory, "validators" ) ) );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        wagon.content = "second";
+        wagon.entityTag = "\"2\"";
+
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+        assertEquals( "second", FileUtils.fileRead( destination ) );
+        assertFalse( wagon.getIfChanged( "a.jar", destination ) );
+        assertEquals( 1, wagon.downloads );
+    }
+
+    public void testChangedFileIsDownloadedAgain()
+        throws Exception
+    {
+        File destination = new File( directory, "a.jar" );
+
+        EntityTagWagon wagon = new EntityTagWagon();
+        wagon.setValidatorStore( new ValidatorStore() );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+
+        FileUtils.fileWrite( destination.getPath(), "local changes" );
+
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+        assertEquals( "first", FileUtils.fileRead( destination ) );
+        assertEquals( 2, wagon.downloads );
+    }
+
+    public void testResponseWithoutLastModifiedRecordsNoDate()
+        throws Exception
+    {
+        File destination = new File( directory, "a.jar" );
+
+        EntityTagWagon wagon = new EntityTagWagon();
+        wagon.setValidatorStore( new ValidatorStore() );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        wagon.entityTag = null;
+        wagon.lastModified = 1000;
+
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+        assertFalse( wagon.getIfChanged( "a.jar", destination ) );
+
+        // the server no longer sends the date, nor honours If-Modified-Since
+        wagon.lastModified = 0;
+        wagon.content = "second";
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+
+        wagon.content = "sec0nd";
+        assertTrue( wagon.getIfChanged( "a.jar", destination ) );
+        assertEquals( "sec0nd", FileUtils.fileRead( destination ) );
+        assertEquals( 3, wagon.downloads );
+    }
+}
@@ -83,6 +83,20 @@ public class SessionEventSupportTest
         assertFalse( eventSupport.hasSessionListener( mock1 ) );
     }
 
+    public void testHasListeners()
+    {
+        assertFalse( eventSupport.hasListeners() );
+
+        final SessionListenerMock mock1 = new SessionListenerMock();
+        eventSupport.addSessionListener( mock1 );
+
+        assertTrue( eventSupport.hasListeners() );
+
+        eventSupport.removeSessionListener( mock1 );
+
+        assertFalse( eventSupport.hasListeners() );
+    }
+
     public void testFireSessionDisconnected()
     {
 
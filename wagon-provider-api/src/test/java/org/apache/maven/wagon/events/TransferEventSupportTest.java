@@ -77,6 +77,46 @@ public class TransferEventSupportTest
         assertFalse( eventSupport.hasTransferListener( mock1 ) );
     }
 
+    public void testHasListeners()
+    {
+        assertFalse( eventSupport.hasListeners() );
+
+        final TransferListenerMock mock1 = new TransferListenerMock();
+        eventSupport.addTransferListener( mock1 );
+        eventSupport.addTransferListener( null );
+
+        assertTrue( eventSupport.hasListeners() );
+
+        eventSupport.removeTransferListener( mock1 );
+
+        assertFalse( eventSupport.hasListeners() );
+    }
+
+    public void testRemoveListenerWhileFiring()
+    {
+        final TransferListenerMock mock2 = new TransferListenerMock();
+
+        final TransferListenerMock mock1 = new TransferListenerMock()
+        {
+            public void transferStarted( TransferEvent transferEvent )
+            {
+                super.transferStarted( transferEvent );
+                eventSupport.removeTransferListener( this );
+                eventSupport.removeTransferListener( mock2 );
+            }
+        };
+
+        eventSupport.addTransferListener( mock1 );
+        eventSupport.addTransferListener( mock2 );
+
+        eventSupport.fireTransferStarted( getEvent( wagon ) );
+
+        // the dispatch in progress still reaches every listener registered when it started
+        assertTrue( mock1.isTransferStartedCalled() );
+        assertTrue( mock2.isTransferStartedCalled() );
+        assertFalse( eventSupport.hasListeners() );
+    }
+
     public void testFireTransferStarted()
     {
         final TransferListenerMock mock1 = new TransferListenerMock();
@@ -120,6 +160,55 @@ public class TransferEventSupportTest
         assertEquals( event, mock2.getTransferEvent() );
     }
 
+    public void testFireCoalescedTransferProgress()
+    {
+        final TransferListenerMock raw = new TransferListenerMock();
+        eventSupport.addTransferListener( raw );
+
+        final ProgressListenerMock progress = new ProgressListenerMock( 10, 0 );
+        eventSupport.addTransferListener( progress );
+
+        assertTrue( eventSupport.hasRawProgressListeners() );
+
+        final TransferEvent event = getEvent( wagon );
+        byte[] buffer = new byte[4];
+
+        for ( int i = 0; i < 7; i++ )
+        {
+            eventSupport.fireTransferProgress( event, buffer, buffer.length );
+        }
+
+        assertEquals( 7, raw.getNumberOfProgressCalls() );
+        assertEquals( 2, progress.calls );
+        assertEquals( 24, progress.transferred );
+
+        eventSupport.flushTransferProgress( event );
+
+        assertEquals( 3, progress.calls );
+        assertEquals( 28, progress.transferred );
+
+        // nothing left to report
+        eventSupport.flushTransferProgress( event );
+
+        assertEquals( 3, progress.calls );
+    }
+
+    public void testFireTransferProgressWithoutContent()
+    {
+        final ProgressListenerMock progress = new ProgressListenerMock( 0, 0 );
+        eventSupport.addTransferListener( progress );
+
+        assertFalse( eventSupport.hasRawProgressListeners() );
+
+        final TransferEvent event = getEvent( wagon );
+
+        eventSupport.fireTransferProgress( event, 5 );
+        eventSupport.fireTransferProgress( event, null, 5 );
+
+        assertEquals( 2, progress.calls );
+        assertEquals( 10, progress.transferred );
+    }
+
     public void testFireTransferCompleted()
     {
         final TransferListenerMock mock1 = new TransferListenerMock();
@@ -197,4 +286,44 @@ public class TransferEventSupportTest
         return event;
     }
 
+
+    private static class ProgressListenerMock
+        extends TransferListenerMock
+        implements ProgressAwareTransferListener
+    {
+        private final long byteInterval;
+
+        private final long timeInterval;
+
+        private int calls;
+
+        private long transferred;
+
+        ProgressListenerMock( long byteInterval, long timeInterval )
+        {
+            this.byteInterval = byteInterval;
+            this.timeInterval = timeInterval;
+        }
+
+        public long getProgressByteInterval()
+        {
+            return byteInterval;
+        }
+
+        public long getProgressTimeInterval()
+        {
+            return timeInterval;
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+            fail( "no content expected" );
+        }
+
+        public void transferProgress( TransferEvent transferEvent, long transferred )
+        {
+            calls++;
+            this.transferred = transferred;
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+public class HistogramTest
+    extends TestCase
+{
+    public void testBucketsCoverAllValues()
+    {
+        for ( long value : new long[]{ 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE } )
+        {
+            int bucket = Histogram.getBucket( value );
+
+            assertTrue( value + " above its bucket", value <= Histogram.getHighestValue( bucket ) );
+            assertTrue( value + " below its bucket", bucket == 0 || value > Histogram.getHighestValue( bucket - 1 ) );
+        }
+    }
+
+    public void testPercentiles()
+    {
+        Histogram histogram = new Histogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.record( i * 1000L );
+        }
+
+        assertEquals( 1000, histogram.getCount() );
+        assertEquals( 1000, histogram.getMinimum() );
+        assertEquals( 1000000, histogram.getMaximum() );
+        assertEquals( 500500.0, histogram.getMean(), 0.1 );
+
+        long median = histogram.getValueAtPercentile( 50 );
+        assertTrue( "median " + median, median >= 500000 && median <= 500000 * 1.07 );
+        assertEquals( 1000000, histogram.getValueAtPercentile( 100 ) );
+    }
+
+    public void testCopyIsIndependent()
+    {
+        Histogram histogram = new Histogram();
+        histogram.record( 10 );
+
+        Histogram copy = histogram.copy();
+        histogram.record( 20 );
+
+        assertEquals( 1, copy.getCount() );
+        assertEquals( 10, copy.getMaximum() );
+        assertEquals( 2, histogram.getCount() );
+    }
+
+    public void testEmpty()
+    {
+        Histogram histogram = new Histogram();
+
+        assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+        assertEquals( 0, histogram.getMinimum() );
+        assertEquals( 0, histogram.getMaximum() );
+    }
+}
@@ -0,0 +1,145 @@
+package org.apache.maven.wagon.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.repository.Repository;
+
+public class TransferMetricsTest
+    extends TestCase
+{
+    private static final String CONTENT = "the content of the resource";
+
+    /**
+     * Serves any resource but <code>missing.jar</code>.
+     */
+    private static class ContentWagon
+        extends StreamWagon
+    {
+        public void fillInputData( InputData inputData )
+            throws ResourceDoesNotExistException
+        {
+            if ( "missing.jar".equals( inputData.getResource().getName() ) )
+            {
+                throw new ResourceDoesNotExistException( "missing.jar" );
+            }
+            inputData.getResource().setContentLength( CONTENT.length() );
+            inputData.setInputStream( new ByteArrayInputStream( CONTENT.getBytes() ) );
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+            outputData.setOutputStream( new ByteArrayOutputStream() );
+        }
+
+        protected void openConnectionInternal()
+        {
+        }
+
+        public void closeConnection()
+        {
+        }
+    }
+
+    private File destination;
+
+    protected void setUp()
+        throws Exception
+    {
+        destination = File.createTempFile( "wagon", ".tmp" );
+    }
+
+    protected void tearDown()
+    {
+        destination.delete();
+    }
+
+    public void testTransfersAreMeasured()
+        throws Exception
+    {
+        TransferMetrics metrics = new TransferMetrics();
+
+        ContentWagon wagon = new ContentWagon();
+        wagon.addTransferListener( metrics );
+        wagon.addSessionListener( metrics );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+
+        wagon.get( "a.jar", destination );
+        wagon.get( "b.jar", destination );
+        wagon.put( destination, "c.jar" );
+        try
+        {
+            wagon.get( "missing.jar", destination );
+            fail();
+        }
+        catch ( ResourceDoesNotExistException e )
+        {
+            assertTrue( true );
+        }
+
+        RepositoryMetrics repository = metrics.getSnapshot().get( "http://localhost/repo" );
+        assertEquals( 1, repository.getConnectionCount() );
+
+        assertEquals( 2, repository.getDownloads().getTransferCount() );
+        assertEquals( 2 * CONTENT.length(), repository.getDownloadedBytes() );
+        assertEquals( 2, repository.getDownloads().getTimeToFirstByte().getCount() );
+        assertEquals( 1, repository.getDownloadErrorCount() );
+        assertEquals( Long.valueOf( 1 ),
+                      repository.getDownloads().getErrorCounts().get( ResourceDoesNotExistException.class.getName() ) );
+
+        assertEquals( 1, repository.getUploadCount() );
+        assertEquals( CONTENT.length(), repository.getUploadedBytes() );
+        assertEquals( 0, repository.getUploadErrorCount() );
+    }
+
+    public void testMetricsAreRegisteredInJmx()
+        throws Exception
+    {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        TransferMetrics metrics = new TransferMetrics( "test" );
+        metrics.registerMBeans( server );
+
+        ContentWagon wagon = new ContentWagon();
+        wagon.addTransferListener( metrics );
+        wagon.connect( new Repository( "id", "http://localhost/repo" ) );
+        wagon.get( "a.jar", destination );
+
+        ObjectName name = new ObjectName( "org.apache.maven.wagon:type=TransferMetrics,name=\"test\","
+            + "repository=" + ObjectName.quote( "http://localhost/repo" ) );
+        assertEquals( Long.valueOf( 1 ), server.getAttribute( name, "DownloadCount" ) );
+
+        metrics.unregisterMBeans();
+        assertFalse( server.isRegistered( name ) );
+    }
+}
@@ -120,4 +120,28 @@ public class ChecksumObserverTest
 
         assertEquals( "2e5daf0201ddeb068a62d5e08da18657ab2c6be9", listener.getActualChecksum() );
     }
+
+    public void testPipelinedChecksum()
+        throws NoSuchAlgorithmException
+    {
+        ChecksumObserver listener = new ChecksumObserver( "SHA-1" );
+        listener.setPipelined( true );
+
+        Resource resource = new Resource( "resource" );
+
+        listener.transferStarted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_GET ) );
+
+        TransferEvent transferEvent =
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_GET );
+        byte[] buffer = "checksum\n".getBytes();
+        listener.transferProgress( transferEvent, buffer, 4 );
+        System.arraycopy( buffer, 4, buffer, 0, 5 );
+        listener.transferProgress( transferEvent, buffer, 5 );
+
+        listener.transferCompleted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_GET ) );
+
+        assertEquals( "2e5daf0201ddeb068a62d5e08da18657ab2c6be9", listener.getActualChecksum() );
+    }
 }
@@ -0,0 +1,99 @@
+package org.apache.maven.wagon.observers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DigestPipelineTest
+    extends TestCase
+{
+    private static final long TIMEOUT = 60 * 1000;
+
+    public void testDigestsAreComplete()
+        throws Exception
+    {
+        final byte[] content = new byte[3 * 1024 * 1024 + 123];
+        new Random( 0 ).nextBytes( content );
+
+        final MessageDigest sha1 = MessageDigest.getInstance( "SHA-1" );
+        final MessageDigest md5 = MessageDigest.getInstance( "MD5" );
+        final DigestPipeline pipeline = new DigestPipeline( new MessageDigest[]{ sha1, md5 }, 2 );
+
+        // twice, the second transfer starting a new hashing thread
+        for ( int i = 0; i < 2; i++ )
+        {
+            runWithTimeout( new Runnable()
+            {
+                public void run()
+                {
+                    byte[] buffer = new byte[8 * 1024];
+                    for ( int offset = 0; offset < content.length; offset += buffer.length )
+                    {
+                        int n = Math.min( buffer.length, content.length - offset );
+                        System.arraycopy( content, offset, buffer, 0, n );
+                        pipeline.update( buffer, n );
+
+                        // the buffer is reused as soon as update returns
+                        Arrays.fill( buffer, (byte) 0 );
+                    }
+                    pipeline.drain();
+                }
+            } );
+
+            assertTrue( Arrays.equals( MessageDigest.getInstance( "SHA-1" ).digest( content ), sha1.digest() ) );
+            assertTrue( Arrays.equals( MessageDigest.getInstance( "MD5" ).digest( content ), md5.digest() ) );
+        }
+    }
+
+    public void testDrainWithoutContent()
+        throws Exception
+    {
+        MessageDigest sha1 = MessageDigest.getInstance( "SHA-1" );
+        final DigestPipeline pipeline = new DigestPipeline( new MessageDigest[]{ sha1 }, 2 );
+
+        runWithTimeout( new Runnable()
+        {
+            public void run()
+            {
+                pipeline.drain();
+            }
+        } );
+
+        assertTrue( Arrays.equals( MessageDigest.getInstance( "SHA-1" ).digest(), sha1.digest() ) );
+    }
+
+    /**
+     * Runs the transfer on another thread, so that a pipeline which never hashes fails the test instead of hanging it.
+     */
+    private static void runWithTimeout( Runnable transfer )
+        throws InterruptedException
+    {
+        Thread thread = new Thread( transfer, "transfer" );
+        thread.setDaemon( true );
+        thread.start();
+        thread.join( TIMEOUT );
+
+        assertFalse( "the pipeline did not complete", thread.isAlive() );
+    }
+}
@@ -0,0 +1,161 @@
+package org.apache.maven.wagon.observers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.WagonMock;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.resource.Resource;
+
+public class MultiChecksumObserverTest
+    extends TestCase
+{
+    private Wagon wagon = new WagonMock();
+
+    public void testChecksums()
+        throws NoSuchAlgorithmException
+    {
+        MultiChecksumObserver listener = new MultiChecksumObserver();
+
+        transfer( listener, "checksum\n".getBytes() );
+
+        assertEquals( "bd4a9b642562547754086de2dab26b7d", listener.getActualChecksum( "MD5" ) );
+        assertEquals( "2e5daf0201ddeb068a62d5e08da18657ab2c6be9", listener.getActualChecksum( "SHA-1" ) );
+        assertEquals( "6015a3a7eab257d3d87424cb91827d58b7af7a089147ce9b4f8ea3c5fc1ebbd2",
+                      listener.getActualChecksum( "sha-256" ) );
+        assertEquals( "5b7a408f2427015c4bdcc61ca89646c2d0d31c466da51e07d9ce583faab5bc62"
+                          + "ec53eb5acc21d856838d4b38afd2f8e5c5fb1635e05fc3d3b7b61b7199ae7f84",
+                      listener.getActualChecksum( "SHA-512" ) );
+
+        Map<String, String> checksums = listener.getActualChecksums();
+        assertEquals( 4, checksums.size() );
+        assertEquals( "bd4a9b642562547754086de2dab26b7d", checksums.get( "MD5" ) );
+    }
+
+    public void testChecksumsAreResetOnNextTransfer()
+        throws NoSuchAlgorithmException
+    {
+        MultiChecksumObserver listener = new MultiChecksumObserver( "SHA-1" );
+
+        transfer( listener, "something else\n".getBytes() );
+        transfer( listener, "checksum\n".getBytes() );
+
+        assertEquals( "2e5daf0201ddeb068a62d5e08da18657ab2c6be9", listener.getActualChecksum( "SHA-1" ) );
+
+        listener.transferStarted(
+            new TransferEvent( wagon, new Resource( "resource" ), TransferEvent.TRANSFER_STARTED,
+                               TransferEvent.REQUEST_GET ) );
+
+        assertNull( listener.getActualChecksum( "SHA-1" ) );
+        assertTrue( listener.getActualChecksums().isEmpty() );
+    }
+
+    public void testPipelinedChecksums()
+        throws NoSuchAlgorithmException
+    {
+        MultiChecksumObserver synchronous = new MultiChecksumObserver();
+        MultiChecksumObserver pipelined = new MultiChecksumObserver();
+        pipelined.setPipelined( true );
+        assertTrue( pipelined.isPipelined() );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            transferChunks( synchronous );
+            transferChunks( pipelined );
+
+            assertEquals( synchronous.getActualChecksums(), pipelined.getActualChecksums() );
+        }
+    }
+
+    public void testUnknownAlgorithm()
+        throws NoSuchAlgorithmException
+    {
+        MultiChecksumObserver listener = new MultiChecksumObserver( "MD5" );
+
+        try
+        {
+            listener.getActualChecksum( "SHA-1" );
+            fail();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( true );
+        }
+
+        try
+        {
+            new MultiChecksumObserver( "NO-SUCH-DIGEST" );
+            fail();
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            assertTrue( true );
+        }
+    }
+
+    /**
+     * Transfers 100 chunks of various sizes, all from the same buffer rewritten between chunks.
+     */
+    private void transferChunks( MultiChecksumObserver listener )
+    {
+        Resource resource = new Resource( "resource" );
+
+        listener.transferStarted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_GET ) );
+
+        TransferEvent transferEvent =
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_GET );
+        byte[] buffer = new byte[64 * 1024];
+        for ( int i = 0; i < 100; i++ )
+        {
+            Arrays.fill( buffer, (byte) i );
+            listener.transferProgress( transferEvent, buffer, 1000 + i * 600 );
+        }
+
+        listener.transferCompleted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_GET ) );
+    }
+
+    private void transfer( MultiChecksumObserver listener, byte[] content )
+    {
+        Resource resource = new Resource( "resource" );
+
+        listener.transferInitiated(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_INITIATED, TransferEvent.REQUEST_GET ) );
+        listener.transferStarted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_STARTED, TransferEvent.REQUEST_GET ) );
+
+        TransferEvent transferEvent =
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_GET );
+        listener.transferProgress( transferEvent, content, 4 );
+        byte[] rest = new byte[content.length - 4 + 10];
+        System.arraycopy( content, 4, rest, 0, content.length - 4 );
+        listener.transferProgress( transferEvent, rest, content.length - 4 );
+
+        listener.transferCompleted(
+            new TransferEvent( wagon, resource, TransferEvent.TRANSFER_COMPLETED, TransferEvent.REQUEST_GET ) );
+    }
+}
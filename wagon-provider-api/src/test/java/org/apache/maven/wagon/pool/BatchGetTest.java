@@ -0,0 +1,289 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.FileUtils;
+
+public class BatchGetTest
+    extends TestCase
+{
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private static final AtomicInteger MAXIMUM_ACTIVE = new AtomicInteger();
+
+    /**
+     * Serves the name of any resource as its content, but for the missing ones.
+     */
+    private static class ContentWagon
+        extends StreamWagon
+    {
+        public void fillInputData( InputData inputData )
+            throws TransferFailedException, ResourceDoesNotExistException
+        {
+            String name = inputData.getResource().getName();
+            if ( name.startsWith( "missing" ) )
+            {
+                throw new ResourceDoesNotExistException( name );
+            }
+            if ( name.startsWith( "broken" ) )
+            {
+                throw new TransferFailedException( name );
+            }
+
+            int active = ACTIVE.incrementAndGet();
+            for ( int max = MAXIMUM_ACTIVE.get(); active > max && !MAXIMUM_ACTIVE.compareAndSet( max, active );
+                  max = MAXIMUM_ACTIVE.get() )
+            {
+                // another thread changed the maximum meanwhile
+            }
+            try
+            {
+                Thread.sleep( 10 );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            ACTIVE.decrementAndGet();
+
+            inputData.getResource().setContentLength( name.length() );
+            inputData.setInputStream( new ByteArrayInputStream( name.getBytes() ) );
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+        }
+
+        protected void openConnectionInternal()
+        {
+        }
+
+        public void closeConnection()
+        {
+        }
+    }
+
+    private static class ContentWagonFactory
+        implements WagonFactory
+    {
+        private final AtomicInteger created = new AtomicInteger();
+
+        public Wagon createWagon( Repository repository )
+        {
+            created.incrementAndGet();
+            return new ContentWagon();
+        }
+
+        public boolean validateWagon( Wagon wagon )
+        {
+            return true;
+        }
+    }
+
+    private final Repository repository = new Repository( "central", "http://localhost/repo" );
+
+    private ContentWagonFactory factory;
+
+    private WagonPool pool;
+
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        ACTIVE.set( 0 );
+        MAXIMUM_ACTIVE.set( 0 );
+
+        factory = new ContentWagonFactory();
+        pool = new WagonPool( factory );
+
+        directory = File.createTempFile( "batch-get", "" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        pool.close();
+        FileUtils.deleteDirectory( directory );
+    }
+
+    private List<GetRequest> createRequests( int count )
+    {
+        List<GetRequest> requests = new ArrayList<GetRequest>();
+        for ( int i = 0; i < count; i++ )
+        {
+            String name = "org/test/artifact-" + i + ".jar";
+            requests.add( new GetRequest( name, new File( directory, name ) ) );
+        }
+        return requests;
+    }
+
+    public void testAllResourcesAreDownloaded()
+        throws Exception
+    {
+        List<GetRequest> requests = createRequests( 40 );
+
+        BatchGet batchGet = new BatchGet( pool, repository );
+        batchGet.setParallelism( 4 );
+        List<GetResult> results = batchGet.getAll( requests );
+
+        assertEquals( requests.size(), results.size() );
+        for ( int i = 0; i < requests.size(); i++ )
+        {
+            GetResult result = results.get( i );
+            assertSame( requests.get( i ), result.getRequest() );
+            assertTrue( result.toString(), result.isSuccessful() );
+            assertEquals( result.getRequest().getResourceName(),
+                          FileUtils.fileRead( result.getRequest().getDestination() ) );
+        }
+
+        assertTrue( MAXIMUM_ACTIVE.get() <= 4 );
+        assertTrue( factory.created.get() <= 4 );
+        assertEquals( 0, pool.getBorrowedCount() );
+    }
+
+    public void testParallelismIsBoundedByThePool()
+        throws Exception
+    {
+        pool.setMaximumWagonsPerKey( 2 );
+        // shorter than the batch, the threads beyond the pool maximum must not wait for a wagon
+        pool.setMaximumWait( 50 );
+
+        BatchGet batchGet = new BatchGet( pool, repository );
+        batchGet.setParallelism( 8 );
+        List<GetResult> results = batchGet.getAll( createRequests( 20 ) );
+
+        for ( GetResult result : results )
+        {
+            assertTrue( result.toString(), result.isSuccessful() );
+        }
+        assertTrue( MAXIMUM_ACTIVE.get() <= 2 );
+        assertEquals( 2, factory.created.get() );
+    }
+
+    public void testFailuresAreReportedPerRequest()
+        throws Exception
+    {
+        List<GetRequest> requests = createRequests( 6 );
+        requests.add( 2, new GetRequest( "missing.jar", new File( directory, "missing.jar" ) ) );
+        requests.add( 5, new GetRequest( "broken.jar", new File( directory, "broken.jar" ) ) );
+
+        BatchGet batchGet = new BatchGet( pool, repository );
+        batchGet.setParallelism( 3 );
+        List<GetResult> results = batchGet.getAll( requests );
+
+        for ( int i = 0; i < results.size(); i++ )
+        {
+            GetResult result = results.get( i );
+            if ( i == 2 )
+            {
+                assertTrue( result.getException() instanceof ResourceDoesNotExistException );
+            }
+            else if ( i == 5 )
+            {
+                assertTrue( result.getException() instanceof TransferFailedException );
+            }
+            else
+            {
+                assertTrue( result.toString(), result.isSuccessful() );
+            }
+        }
+        assertEquals( 0, pool.getBorrowedCount() );
+    }
+
+    public void testProgressIsAggregated()
+        throws Exception
+    {
+        final AtomicInteger completedTransfers = new AtomicInteger();
+        final List<Integer> endedCounts = new ArrayList<Integer>();
+        final long[] completedBytes = new long[1];
+
+        BatchGet batchGet = new BatchGet( pool, repository );
+        batchGet.addTransferListener( new AbstractTransferListener()
+        {
+            public void transferCompleted( TransferEvent transferEvent )
+            {
+                completedTransfers.incrementAndGet();
+            }
+        } );
+        batchGet.addBatchListener( new BatchListener()
+        {
+            public synchronized void requestEnded( GetResult result, int endedCount, int requestCount,
+                                                   long bytes )
+            {
+                assertEquals( 10, requestCount );
+                endedCounts.add( endedCount );
+                completedBytes[0] = Math.max( completedBytes[0], bytes );
+            }
+        } );
+
+        List<GetRequest> requests = createRequests( 10 );
+        batchGet.getAll( requests );
+
+        long expectedBytes = 0;
+        for ( GetRequest request : requests )
+        {
+            expectedBytes += request.getResourceName().length();
+        }
+
+        assertEquals( 10, completedTransfers.get() );
+        assertEquals( 10, endedCounts.size() );
+        assertTrue( endedCounts.contains( 10 ) );
+        assertEquals( expectedBytes, completedBytes[0] );
+    }
+
+    public void testSingleRequestRunsInTheCallingThread()
+        throws Exception
+    {
+        final Thread caller = Thread.currentThread();
+        final Thread[] listened = new Thread[1];
+
+        BatchGet batchGet = new BatchGet( pool, repository );
+        batchGet.addBatchListener( new BatchListener()
+        {
+            public void requestEnded( GetResult result, int endedCount, int requestCount, long bytes )
+            {
+                listened[0] = Thread.currentThread();
+            }
+        } );
+        batchGet.getAll( createRequests( 1 ) );
+
+        assertSame( caller, listened[0] );
+    }
+}
@@ -0,0 +1,192 @@
+package org.apache.maven.wagon.pool;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+public class WagonPoolTest
+    extends TestCase
+{
+    private static class SessionWagon
+        extends StreamWagon
+    {
+        private boolean open;
+
+        public void fillInputData( InputData inputData )
+        {
+        }
+
+        public void fillOutputData( OutputData outputData )
+        {
+        }
+
+        protected void openConnectionInternal()
+        {
+            open = true;
+        }
+
+        public void closeConnection()
+        {
+            open = false;
+        }
+    }
+
+    private static class SessionWagonFactory
+        implements WagonFactory
+    {
+        private final List<SessionWagon> wagons = new ArrayList<SessionWagon>();
+
+        public Wagon createWagon( Repository repository )
+        {
+            SessionWagon wagon = new SessionWagon();
+            wagons.add( wagon );
+            return wagon;
+        }
+
+        public boolean validateWagon( Wagon wagon )
+        {
+            return ( (SessionWagon) wagon ).open;
+        }
+    }
+
+    private final Repository repository = new Repository( "central", "http://localhost/repo" );
+
+    private SessionWagonFactory factory;
+
+    private WagonPool pool;
+
+    protected void setUp()
+    {
+        factory = new SessionWagonFactory();
+        pool = new WagonPool( factory );
+    }
+
+    public void testReleasedWagonIsLentAgain()
+        throws Exception
+    {
+        Wagon wagon = pool.borrow( repository );
+        pool.release( wagon );
+
+        assertSame( wagon, pool.borrow( new Repository( "central", "http://localhost/repo" ) ) );
+        assertEquals( 1, factory.wagons.size() );
+        assertEquals( 1, pool.getBorrowedCount() );
+    }
+
+    public void testWagonsAreKeyedByAuthentication()
+        throws Exception
+    {
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName( "user" );
+
+        pool.release( pool.borrow( repository ) );
+        Wagon wagon = pool.borrow( repository, authenticationInfo, null );
+
+        assertEquals( 2, factory.wagons.size() );
+        assertEquals( 1, pool.getIdleCount() );
+        assertSame( factory.wagons.get( 1 ), wagon );
+    }
+
+    public void testInvalidWagonIsReplaced()
+        throws Exception
+    {
+        Wagon wagon = pool.borrow( repository );
+        pool.release( wagon );
+        ( (SessionWagon) wagon ).open = false;
+
+        assertNotSame( wagon, pool.borrow( repository ) );
+        assertEquals( 2, factory.wagons.size() );
+    }
+
+    public void testBorrowersWaitBeyondMaximum()
+        throws Exception
+    {
+        pool.setMaximumWagonsPerKey( 1 );
+        pool.setMaximumWait( 50 );
+
+        final Wagon wagon = pool.borrow( repository );
+        try
+        {
+            pool.borrow( repository );
+            fail();
+        }
+        catch ( ConnectionException e )
+        {
+            assertTrue( true );
+        }
+
+        pool.setMaximumWait( 10000 );
+        new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep( 50 );
+                }
+                catch ( InterruptedException e )
+                {
+                    // released all the same
+                }
+                pool.release( wagon );
+            }
+        }.start();
+
+        assertSame( wagon, pool.borrow( repository ) );
+    }
+
+    public void testIdleWagonIsDisconnected()
+        throws Exception
+    {
+        pool.setIdleTimeout( 0 );
+
+        Wagon wagon = pool.borrow( repository );
+        pool.release( wagon );
+        pool.evictIdle();
+
+        assertFalse( ( (SessionWagon) wagon ).open );
+        assertEquals( 0, pool.getIdleCount() );
+    }
+
+    public void testCloseDisconnectsWagons()
+        throws Exception
+    {
+        Wagon idle = pool.borrow( repository );
+        Wagon borrowed = pool.borrow( repository );
+        pool.release( idle );
+
+        pool.close();
+        assertFalse( ( (SessionWagon) idle ).open );
+        assertTrue( ( (SessionWagon) borrowed ).open );
+
+        pool.release( borrowed );
+        assertFalse( ( (SessionWagon) borrowed ).open );
+    }
+}
@@ -89,4 +89,49 @@ public class ProxyInfoUtilsTest
 
         assertFalse( "www.ibiblio.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "www.ibiblio.org" ) );
     }
+
+    public void testValidateNonProxyHostsWithExactHostsAndPatterns()
+    {
+        final ProxyInfo proxyInfo = new ProxyInfo();
+        proxyInfo.setNonProxyHosts( "localhost|*.apache.org|*codehaus.org|192.168.*|repo[0-9].example.com" );
+
+        assertTrue( "localhost", ProxyUtils.validateNonProxyHosts( proxyInfo, "localhost" ) );
+        assertFalse( "localhost.localdomain", ProxyUtils.validateNonProxyHosts( proxyInfo, "localhost.localdomain" ) );
+
+        assertTrue( "maven.apache.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "maven.apache.org" ) );
+        assertFalse( "apache.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "apache.org" ) );
+        assertFalse( "apache.org.evil.com", ProxyUtils.validateNonProxyHosts( proxyInfo, "apache.org.evil.com" ) );
+
+        assertTrue( "codehaus.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "codehaus.org" ) );
+        assertTrue( "wiki.codehaus.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "wiki.codehaus.org" ) );
+
+        assertTrue( "192.168.0.1", ProxyUtils.validateNonProxyHosts( proxyInfo, "192.168.0.1" ) );
+        assertFalse( "10.192.168.1", ProxyUtils.validateNonProxyHosts( proxyInfo, "10.192.168.1" ) );
+
+        assertTrue( "repo1.example.com", ProxyUtils.validateNonProxyHosts( proxyInfo, "repo1.example.com" ) );
+        assertFalse( "repoX.example.com", ProxyUtils.validateNonProxyHosts( proxyInfo, "repoX.example.com" ) );
+    }
+
+    public void testValidateNonProxyHostsWithWildcard()
+    {
+        final ProxyInfo proxyInfo = new ProxyInfo();
+        proxyInfo.setNonProxyHosts( "*" );
+
+        assertTrue( "maven.apache.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "maven.apache.org" ) );
+        assertTrue( "null", ProxyUtils.validateNonProxyHosts( proxyInfo, null ) );
+    }
+
+    public void testValidateNonProxyHostsAfterChange()
+    {
+        final ProxyInfo proxyInfo = new ProxyInfo();
+        proxyInfo.setNonProxyHosts( "*.apache.org" );
+
+        assertTrue( "maven.apache.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "maven.apache.org" ) );
+        assertSame( proxyInfo.getNonProxyHostsMatcher(), proxyInfo.getNonProxyHostsMatcher() );
+
+        proxyInfo.setNonProxyHosts( "*.codehaus.org" );
+
+        assertFalse( "maven.apache.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "maven.apache.org" ) );
+        assertTrue( "wiki.codehaus.org", ProxyUtils.validateNonProxyHosts( proxyInfo, "wiki.codehaus.org" ) );
+    }
 }
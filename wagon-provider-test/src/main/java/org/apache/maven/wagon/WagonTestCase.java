@@ -37,6 +37,7 @@ import org.easymock.MockControl;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -864,6 +865,108 @@ public abstract class WagonTestCase
         tearDownWagonTestingFixtures();
     }
 
+    /**
+     * Size of the file of {@link #testWagonLargeFileRoundTrip()}, above what 32 bit sizes can address.
+     */
+    private static final long LARGE_FILE_SIZE = ( 4L << 30 ) + 1024;
+
+    /**
+     * Puts a sparse file larger than 4 GB to the repository and gets it back. As it moves several GB per provider,
+     * the test only runs when the <code>wagon.test.largeFile</code> system property is <code>true</code>.
+     *
+     * @throws Exception
+     * @since 2.3
+     */
+    public void testWagonLargeFileRoundTrip()
+        throws Exception
+    {
+        if ( !Boolean.getBoolean( "wagon.test.largeFile" ) || !supportsLargeFiles() )
+        {
+            return;
+        }
+
+        setupRepositories();
+
+        setupWagonTestingFixtures();
+
+        File source = new File( FileTestUtils.getTestOutputDir(), "large-resource" );
+        source.getParentFile().mkdirs();
+        source.deleteOnExit();
+
+        // only the last bytes are written, the rest of the file stays a hole on most file systems
+        RandomAccessFile output = new RandomAccessFile( source, "rw" );
+        try
+        {
+            output.seek( LARGE_FILE_SIZE - 8 );
+            output.writeLong( LARGE_FILE_SIZE );
+        }
+        finally
+        {
+            output.close();
+        }
+
+        Wagon wagon = getWagon();
+
+        ChecksumObserver putChecksumObserver = new ChecksumObserver();
+        wagon.addTransferListener( putChecksumObserver );
+        wagon.connect( testRepository, getAuthInfo() );
+        try
+        {
+            wagon.put( source, "large/large-resource" );
+        }
+        finally
+        {
+            wagon.removeTransferListener( putChecksumObserver );
+            wagon.disconnect();
+        }
+
+        File destination = FileTestUtils.createUniqueFile( getName(), getName() );
+        destination.deleteOnExit();
+
+        ChecksumObserver getChecksumObserver = new ChecksumObserver();
+        wagon.addTransferListener( getChecksumObserver );
+        wagon.connect( testRepository, getAuthInfo() );
+        try
+        {
+            wagon.get( "large/large-resource", destination );
+        }
+        finally
+        {
+            wagon.removeTransferListener( getChecksumObserver );
+            wagon.disconnect();
+        }
+
+        assertEquals( LARGE_FILE_SIZE, destination.length() );
+        assertNotNull( "check checksum is not null", putChecksumObserver.getActualChecksum() );
+        assertEquals( "compare checksums", putChecksumObserver.getActualChecksum(),
+                      getChecksumObserver.getActualChecksum() );
+
+        RandomAccessFile input = new RandomAccessFile( destination, "r" );
+        try
+        {
+            input.seek( LARGE_FILE_SIZE - 8 );
+            assertEquals( LARGE_FILE_SIZE, input.readLong() );
+        }
+        finally
+        {
+            input.close();
+        }
+
+        source.delete();
+        destination.delete();
+
+        tearDownWagonTestingFixtures();
+    }
+
+    /**
+     * @return whether the provider and its test server handle files larger than 4 GB
+     * @since 2.3
+     */
+    protected boolean supportsLargeFiles()
+    {
+        return true;
+    }
+
     // ----------------------------------------------------------------------
     // File <--> File round trip testing
     // ----------------------------------------------------------------------
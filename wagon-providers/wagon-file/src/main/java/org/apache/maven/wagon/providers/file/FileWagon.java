@@ -24,9 +24,12 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,8 +41,10 @@ import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.StreamWagon;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.resource.Resource;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
@@ -55,19 +60,9 @@ public class FileWagon
     public void fillInputData( InputData inputData )
         throws TransferFailedException, ResourceDoesNotExistException
     {
-        if ( getRepository().getBasedir() == null )
-        {
-            throw new TransferFailedException( "Unable to operate with a null basedir." );
-        }
-
         Resource resource = inputData.getResource();
 
-        File file = new File( getRepository().getBasedir(), resource.getName() );
-
-        if ( !file.exists() )
-        {
-            throw new ResourceDoesNotExistException( "File: " + file + " does not exist" );
-        }
+        File file = getSourceFile( resource );
 
         try
         {
@@ -88,14 +83,9 @@ public class FileWagon
     public void fillOutputData( OutputData outputData )
         throws TransferFailedException
     {
-        if ( getRepository().getBasedir() == null )
-        {
-            throw new TransferFailedException( "Unable to operate with a null basedir." );
-        }
-
         Resource resource = outputData.getResource();
 
-        File file = new File( getRepository().getBasedir(), resource.getName() );
+        File file = getFile( resource );
 
         createParentDirectories( file );
 
@@ -104,6 +94,216 @@ public class FileWagon
         outputData.setOutputStream( outputStream );
     }
 
+    /**
+     * Downloads the resource opened by {@link #fillInputData(InputData)}, copying it file to file through
+     * {@link FileChannel}s instead of going through streams. The lookup of the resource, and resumed downloads, are
+     * left to {@link StreamWagon}.
+     */
+    protected void getTransfer( Resource resource, File destination, InputData inputData )
+        throws TransferFailedException
+    {
+        IOUtil.close( inputData.getInputStream() );
+
+        File source = getFile( resource );
+
+        fireTransferDebug( "attempting to create parent directories for destination: " + destination.getName() );
+        createParentDirectories( destination );
+
+        fireGetStarted( resource, destination );
+
+        try
+        {
+            transfer( resource, source, destination, TransferEvent.REQUEST_GET );
+        }
+        catch ( IOException e )
+        {
+            if ( destination.exists() && !destination.delete() )
+            {
+                destination.deleteOnExit();
+            }
+
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            String msg = "GET request of: " + resource.getName() + " from " + repository.getName() + " failed";
+
+            throw new TransferFailedException( msg, e );
+        }
+        finally
+        {
+            cleanupGetTransfer( resource );
+        }
+
+        fireGetCompleted( resource, destination );
+    }
+
+    /**
+     * Same contract as {@link StreamWagon#put(File, String)}, but the content is copied file to file through
+     * {@link FileChannel}s instead of going through streams.
+     */
+    public void put( File source, String resourceName )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        Resource resource = new Resource( resourceName );
+
+        firePutInitiated( resource, source );
+
+        resource.setContentLength( source.length() );
+
+        resource.setLastModified( source.lastModified() );
+
+        try
+        {
+            File destination;
+            try
+            {
+                destination = getFile( resource );
+
+                createParentDirectories( destination );
+            }
+            catch ( TransferFailedException e )
+            {
+                fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+                throw e;
+            }
+
+            firePutStarted( resource, source );
+
+            if ( !source.isFile() )
+            {
+                TransferFailedException e =
+                    new TransferFailedException( "Specified source file does not exist: " + source );
+                fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+                throw e;
+            }
+
+            transfer( resource, source, destination, TransferEvent.REQUEST_PUT );
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+
+            String msg = "PUT request to: " + resource.getName() + " in " + repository.getName() + " failed";
+
+            throw new TransferFailedException( msg, e );
+        }
+        finally
+        {
+            cleanupPutTransfer( resource );
+        }
+
+        firePutCompleted( resource, source );
+    }
+
+    /**
+     * Copies source to destination with {@link FileChannel#transferTo}, so the written content does not have to go
+     * through the Java heap, in chunks sized like the buffers of {@link #transfer(Resource, InputStream, OutputStream,
+     * int)}. When some listeners need the transferred content, each chunk is rather read into a pooled buffer, handed
+     * to them and written from there, so progress events keep their usual size and content and the source is still
+     * read once.
+     */
+    private void transfer( Resource resource, File source, File destination, int requestType )
+        throws IOException
+    {
+        TransferEvent transferEvent = getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, requestType );
+
+        FileInputStream input = null;
+        FileOutputStream output = null;
+        byte[] buffer = null;
+        try
+        {
+            input = new FileInputStream( source );
+            output = new FileOutputStream( destination );
+
+            FileChannel in = input.getChannel();
+            FileChannel out = output.getChannel();
+
+            long size = in.size();
+            int chunkSize = getBufferCapacityForTransfer( size );
+
+            long position = 0;
+            while ( position < size )
+            {
+                int count = (int) Math.min( chunkSize, size - position );
+
+                if ( transferEventSupport.hasRawProgressListeners() )
+                {
+                    if ( buffer == null )
+                    {
+                        buffer = getBufferPool().acquire( chunkSize );
+                    }
+
+                    ByteBuffer chunk = ByteBuffer.wrap( buffer, 0, count );
+                    while ( chunk.hasRemaining() && in.read( chunk, position + chunk.position() ) != -1 )
+                    {
+                        // keep reading until the chunk is full
+                    }
+                    if ( chunk.hasRemaining() )
+                    {
+                        throw new IOException( "Unexpected end of file: " + source );
+                    }
+
+                    fireTransferProgress( transferEvent, buffer, count );
+
+                    chunk.flip();
+                    while ( chunk.hasRemaining() )
+                    {
+                        out.write( chunk );
+                    }
+                }
+                else
+                {
+                    fireTransferProgress( transferEvent, count );
+
+                    long transferred = 0;
+                    while ( transferred < count )
+                    {
+                        long n = in.transferTo( position + transferred, count - transferred, out );
+                        if ( n <= 0 )
+                        {
+                            throw new IOException( "Unexpected end of file: " + source );
+                        }
+                        transferred += n;
+                    }
+                }
+
+                position += count;
+            }
+
+            flushTransferProgress( transferEvent );
+        }
+        finally
+        {
+            IOUtil.close( output );
+            IOUtil.close( input );
+
+            getBufferPool().release( buffer );
+        }
+    }
+
+    private File getSourceFile( Resource resource )
+        throws TransferFailedException, ResourceDoesNotExistException
+    {
+        File file = getFile( resource );
+
+        if ( !file.exists() )
+        {
+            throw new ResourceDoesNotExistException( "File: " + file + " does not exist" );
+        }
+
+        return file;
+    }
+
+    private File getFile( Resource resource )
+        throws TransferFailedException
+    {
+        if ( getRepository().getBasedir() == null )
+        {
+            throw new TransferFailedException( "Unable to operate with a null basedir." );
+        }
+
+        return new File( getRepository().getBasedir(), resource.getName() );
+    }
+
     protected void openConnectionInternal()
         throws ConnectionException
     {
@@ -21,11 +21,18 @@ package org.apache.maven.wagon.providers.file;
 
 import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.FileTestUtils;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.StreamingWagonTestCase;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.cache.NegativeLookupCache;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.observers.ChecksumObserver;
 import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
+import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -94,4 +101,107 @@ public class FileWagonTest
         
         wagon.disconnect();
     }
+
+    public void testChannelTransferOfMultipleChunks()
+        throws Exception
+    {
+        StringBuilder content = new StringBuilder();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            content.append( "line " ).append( i ).append( '\n' );
+        }
+        File source = FileTestUtils.createUniqueFile( getName(), "source" );
+        FileUtils.fileWrite( source.getAbsolutePath(), content.toString() );
+
+        final long[] progress = new long[1];
+        AbstractTransferListener progressListener = new AbstractTransferListener()
+        {
+            public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+            {
+                progress[0] += length;
+            }
+        };
+        ChecksumObserver checksum = new ChecksumObserver();
+
+        Wagon wagon = new FileWagon();
+        wagon.addTransferListener( progressListener );
+        wagon.addTransferListener( checksum );
+        wagon.connect( new Repository( "id", getTestRepositoryUrl() ) );
+
+        wagon.put( source, "chunked/source.txt" );
+        assertEquals( source.length(), progress[0] );
+        String putChecksum = checksum.getActualChecksum();
+
+        progress[0] = 0;
+        File destination = FileTestUtils.createUniqueFile( getName(), "destination" );
+        wagon.get( "chunked/source.txt", destination );
+        assertEquals( source.length(), progress[0] );
+        assertEquals( putChecksum, checksum.getActualChecksum() );
+
+        wagon.disconnect();
+
+        assertEquals( content.toString(), FileUtils.fileRead( destination ) );
+    }
+
+    public void testGetGoesThroughTheNegativeLookupCache()
+        throws Exception
+    {
+        File repository = FileTestUtils.createUniqueDir( getName() + ".file-repository." );
+
+        FileWagon wagon = new FileWagon();
+        wagon.setNegativeLookupCache( new NegativeLookupCache( 60000, 10 ) );
+        wagon.connect( new Repository( "id", "file://" + repository.getPath() ) );
+
+        File destination = FileTestUtils.createUniqueFile( getName(), "destination" );
+        try
+        {
+            wagon.get( "missing.txt", destination );
+            fail();
+        }
+        catch ( ResourceDoesNotExistException e )
+        {
+            assertTrue( true );
+        }
+
+        // created behind the back of the wagon, so still known missing
+        FileUtils.fileWrite( new File( repository, "missing.txt" ).getAbsolutePath(), "content" );
+        try
+        {
+            wagon.get( "missing.txt", destination );
+            fail();
+        }
+        catch ( ResourceDoesNotExistException e )
+        {
+            assertTrue( true );
+        }
+
+        wagon.disconnect();
+    }
+
+    public void testFailedPutIsCleanedUp()
+        throws Exception
+    {
+        final int[] cleanups = new int[1];
+        Wagon wagon = new FileWagon()
+        {
+            protected void cleanupPutTransfer( Resource resource )
+            {
+                cleanups[0]++;
+            }
+        };
+        wagon.connect( new Repository( "id", getTestRepositoryUrl() ) );
+
+        try
+        {
+            wagon.put( new File( getBasedir(), "target/does-not-exist" ), "missing.txt" );
+            fail();
+        }
+        catch ( TransferFailedException e )
+        {
+            assertTrue( true );
+        }
+        assertEquals( 1, cleanups[0] );
+
+        wagon.disconnect();
+    }
 }
@@ -25,13 +25,16 @@ import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
+import org.apache.maven.wagon.AbstractWagon;
 import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.DirectoryUpload;
 import org.apache.maven.wagon.InputData;
 import org.apache.maven.wagon.OutputData;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.StreamWagon;
 import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.WagonConstants;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
@@ -369,7 +372,30 @@ public class FtpWagon
 
             resource.setLastModified( lastModified );
 
+            // the size and modification time tell whether a partial download still matches the remote file
+            String validator = contentLength + "@" + lastModified;
+            inputData.setValidator( validator );
+
+            long offset = inputData.getResumeOffset();
+            if ( offset > 0 && offset < contentLength && lastModified != 0
+                && validator.equals( inputData.getResumeValidator() ) )
+            {
+                // sends REST before the transfer starts
+                ftp.setRestartOffset( offset );
+                inputData.setOffset( offset );
+            }
+
             is = ftp.retrieveFileStream( filename );
+
+            if ( is == null && inputData.getOffset() > 0 )
+            {
+                fireTransferDebug( "Server refused to restart at byte " + offset + ", getting the whole file" );
+
+                ftp.setRestartOffset( 0 );
+                inputData.setOffset( 0 );
+
+                is = ftp.retrieveFileStream( filename );
+            }
         }
         catch ( IOException e )
         {
@@ -471,6 +497,11 @@ public class FtpWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
         Resource resource = new Resource( resourceName );
 
         try
@@ -480,10 +511,15 @@ public class FtpWagon
             String filename = PathUtils.filename( resource.getName() );
             int status = ftp.stat( filename );
 
-            return ( ( status == FTPReply.FILE_STATUS ) || ( status == FTPReply.DIRECTORY_STATUS ) || ( status
+            boolean exists = ( ( status == FTPReply.FILE_STATUS ) || ( status == FTPReply.DIRECTORY_STATUS ) || ( status
                 == FTPReply.FILE_STATUS_OK ) // not in the RFC but used by some FTP servers
                 || ( status == FTPReply.COMMAND_OK )     // not in the RFC but used by some FTP servers
                 || ( status == FTPReply.SYSTEM_STATUS ) );
+            if ( !exists )
+            {
+                recordMissing( resourceName );
+            }
+            return exists;
         }
         catch ( IOException e )
         {
@@ -491,6 +527,7 @@ public class FtpWagon
         }
         catch ( ResourceDoesNotExistException e )
         {
+            recordMissing( resourceName );
             return false;
         }
     }
@@ -531,7 +568,78 @@ public class FtpWagon
 
         fireTransferDebug(
             "Recursively uploading directory " + sourceDirectory.getAbsolutePath() + " as " + destinationDirectory );
-        ftpRecursivePut( sourceDirectory, destinationDirectory );
+
+        if ( getPutDirectoryParallelism() > 1 )
+        {
+            uploadDirectory( new DirectoryUpload( sourceDirectory, destinationDirectory )
+            {
+                protected boolean createDirectory( Wagon wagon, String directory )
+                    throws TransferFailedException
+                {
+                    ftpMakeDirectory( directory );
+                    return true;
+                }
+            } );
+        }
+        else
+        {
+            ftpRecursivePut( sourceDirectory, destinationDirectory );
+        }
+    }
+
+    protected AbstractWagon createSiblingWagon()
+    {
+        FtpWagon wagon = new FtpWagon();
+        wagon.setPassiveMode( passiveMode );
+        wagon.setControlEncoding( controlEncoding );
+        return wagon;
+    }
+
+    /**
+     * Creates a directory whose parent exists, unless it exists already.
+     *
+     * @param directory the directory, relative to the repository
+     */
+    private void ftpMakeDirectory( String directory )
+        throws TransferFailedException
+    {
+        RepositoryPermissions permissions = repository.getPermissions();
+
+        try
+        {
+            if ( !ftp.changeWorkingDirectory( getRepository().getBasedir() ) )
+            {
+                throw new TransferFailedException(
+                    "Required directory: '" + getRepository().getBasedir() + "' " + "is missing" );
+            }
+
+            if ( ftp.changeWorkingDirectory( directory ) )
+            {
+                return;
+            }
+
+            if ( !ftp.makeDirectory( directory ) )
+            {
+                throw new TransferFailedException(
+                    "Unable to create directory " + directory + ". FTP Server response: " + ftp.getReplyString() );
+            }
+
+            if ( permissions != null && permissions.getGroup() != null )
+            {
+                // ignore failures
+                ftp.sendSiteCommand( "CHGRP " + permissions.getGroup() + " " + directory );
+            }
+
+            if ( permissions != null && permissions.getDirectoryMode() != null )
+            {
+                // ignore failures
+                ftp.sendSiteCommand( "CHMOD " + permissions.getDirectoryMode() + " " + directory );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "IOException caught while creating directory " + directory, e );
+        }
     }
 
     private void ftpRecursivePut( File sourceFile, String fileName )
@@ -23,7 +23,9 @@ import org.apache.commons.io.IOUtils;
 import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.InputData;
 import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ParsedUrl;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamContent;
 import org.apache.maven.wagon.StreamWagon;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
@@ -71,6 +73,11 @@ public class LightweightHttpWagon
 
     public static final int MAX_REDIRECTS = 10;
 
+    /**
+     * Size of the chunks of the uploads too large for a fixed length.
+     */
+    private static final int STREAMING_CHUNK_SIZE = 64 * 1024;
+
     /**
      * Whether to use any proxy cache or not.
      *
@@ -96,16 +103,7 @@ public class LightweightHttpWagon
      */
     private String buildUrl( String path )
     {
-        final String repoUrl = getRepository().getUrl();
-
-        path = path.replace( ' ', '+' );
-
-        if ( repoUrl.charAt( repoUrl.length() - 1 ) != '/' )
-        {
-            return repoUrl + '/' + path;
-        }
-
-        return repoUrl + path;
+        return ParsedUrl.parse( getRepository().getUrl() ).resolve( path.replace( ' ', '+' ) );
     }
 
     public void fillInputData( InputData inputData )
@@ -137,6 +135,11 @@ public class LightweightHttpWagon
 
                 addHeaders( urlConnection );
 
+                if ( inputData.getConditionalEntityTag() != null )
+                {
+                    urlConnection.setRequestProperty( "If-None-Match", inputData.getConditionalEntityTag() );
+                }
+
                 // TODO: handle all response codes
                 int responseCode = urlConnection.getResponseCode();
                 if ( responseCode == HttpURLConnection.HTTP_FORBIDDEN
@@ -150,6 +153,12 @@ public class LightweightHttpWagon
                     visitingUrl = urlConnection.getHeaderField( "Location" );
                     continue;
                 }
+                if ( responseCode == HttpURLConnection.HTTP_NOT_MODIFIED )
+                {
+                    urlConnection.disconnect();
+                    inputData.setNotModified( true );
+                    break;
+                }
 
                 InputStream is = urlConnection.getInputStream();
                 String contentEncoding = urlConnection.getHeaderField( "Content-Encoding" );
@@ -160,7 +169,8 @@ public class LightweightHttpWagon
                 }
                 inputData.setInputStream( is );
                 resource.setLastModified( urlConnection.getLastModified() );
-                resource.setContentLength( urlConnection.getContentLength() );
+                resource.setContentLength( getContentLength( urlConnection ) );
+                inputData.setEntityTag( urlConnection.getHeaderField( "ETag" ) );
                 break;
             }
         }
@@ -185,6 +195,28 @@ public class LightweightHttpWagon
         }
     }
 
+    /**
+     * Reads the length of the response, which {@link HttpURLConnection#getContentLength()} gets wrong above 2 GB.
+     *
+     * @return the length, or <code>-1</code> if unknown
+     */
+    private long getContentLength( HttpURLConnection urlConnection )
+    {
+        String contentLength = urlConnection.getHeaderField( "Content-Length" );
+        if ( contentLength != null )
+        {
+            try
+            {
+                return Long.parseLong( contentLength.trim() );
+            }
+            catch ( NumberFormatException e )
+            {
+                fireTransferDebug( "error parsing content length header '" + contentLength + "' " + e );
+            }
+        }
+        return -1;
+    }
+
     private void addHeaders( HttpURLConnection urlConnection )
     {
         if ( httpHeaders != null )
@@ -221,6 +253,22 @@ public class LightweightHttpWagon
 
             putConnection.setRequestMethod( "PUT" );
             putConnection.setDoOutput( true );
+
+            // a small content is kept in memory, to be sent again if the server asks for authentication; a large one
+            // is streamed, as the connection would otherwise hold all of it
+            long contentLength = resource.getContentLength();
+            if ( contentLength > StreamContent.DEFAULT_MAXIMUM_BUFFERED_LENGTH )
+            {
+                if ( contentLength <= Integer.MAX_VALUE )
+                {
+                    putConnection.setFixedLengthStreamingMode( (int) contentLength );
+                }
+                else
+                {
+                    // the long length of setFixedLengthStreamingMode is not in the Java 5 API
+                    putConnection.setChunkedStreamingMode( STREAMING_CHUNK_SIZE );
+                }
+            }
             outputData.setOutputStream( putConnection.getOutputStream() );
         }
         catch ( IOException e )
@@ -248,6 +296,11 @@ public class LightweightHttpWagon
                 case HttpURLConnection.HTTP_FORBIDDEN:
                     throw new AuthorizationException( "Access denied to: " + buildUrl( resource.getName() ) );
 
+                case HttpURLConnection.HTTP_UNAUTHORIZED:
+                    // a streamed content cannot be sent again with the credentials
+                    throw new AuthorizationException( "Not authorized to put: " + buildUrl( resource.getName() )
+                        + ", streamed uploads need preemptive authentication" );
+
                 case HttpURLConnection.HTTP_NOT_FOUND:
                     throw new ResourceDoesNotExistException(
                         "File: " + buildUrl( resource.getName() ) + " does not exist" );
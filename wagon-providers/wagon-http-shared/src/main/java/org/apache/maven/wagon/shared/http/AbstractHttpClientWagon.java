@@ -41,8 +41,10 @@ import org.apache.commons.httpclient.util.DateParseException;
 import org.apache.commons.httpclient.util.DateUtil;
 import org.apache.maven.wagon.InputData;
 import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ParsedUrl;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamContent;
 import org.apache.maven.wagon.StreamWagon;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
@@ -54,14 +56,13 @@ import org.apache.maven.wagon.resource.Resource;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URLEncoder;
-import java.nio.ByteBuffer;
+import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
@@ -86,7 +87,7 @@ public abstract class AbstractHttpClientWagon
 
         private File source;
 
-        private ByteBuffer byteBuffer;
+        private StreamContent content;
 
         private RequestEntityImplementation( final InputStream stream, final Resource resource, final Wagon wagon,
                                              final File source )
@@ -100,9 +101,7 @@ public abstract class AbstractHttpClientWagon
             {
                 try
                 {
-                    byte[] bytes = IOUtil.toByteArray( stream );
-                    this.byteBuffer = ByteBuffer.allocate( bytes.length );
-                    this.byteBuffer.put( bytes );
+                    content = new StreamContent( stream, resource.getContentLength() );
                 }
                 catch ( IOException e )
                 {
@@ -114,9 +113,12 @@ public abstract class AbstractHttpClientWagon
             this.wagon = wagon;
         }
 
+        /**
+         * @return the length of the content, <code>-1</code> to send it in chunks until the end of the stream
+         */
         public long getContentLength()
         {
-            return resource.getContentLength();
+            return source != null ? resource.getContentLength() : content.getLength();
         }
 
         public String getContentType()
@@ -126,44 +128,44 @@ public abstract class AbstractHttpClientWagon
 
         public boolean isRepeatable()
         {
-            return true;
+            return source != null || content.isRepeatable();
+        }
+
+        /**
+         * @return <code>true</code> if the content is read from a stream, and so cannot be sent again once sent
+         */
+        private boolean isStreamed()
+        {
+            return source == null && !content.isBuffered();
         }
 
         public void writeRequest( OutputStream output )
             throws IOException
         {
-            byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+            byte[] buffer = getBufferPool().acquire( getBufferCapacityForTransfer( getContentLength() ) );
 
             TransferEvent transferEvent =
-                new TransferEvent( wagon, resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_PUT );
-            transferEvent.setTimestamp( System.currentTimeMillis() );
+                getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_PUT );
 
             InputStream fin = null;
             try
             {
-                fin = this.source != null
-                    ? new FileInputStream( source )
-                    : new ByteArrayInputStream( this.byteBuffer.array() );
-                int remaining = Integer.MAX_VALUE;
-                while ( remaining > 0 )
+                fin = this.source != null ? new FileInputStream( source ) : content.openStream();
+                int n;
+                while ( ( n = fin.read( buffer ) ) != -1 )
                 {
-                    int n = fin.read( buffer, 0, Math.min( buffer.length, remaining ) );
-
-                    if ( n == -1 )
-                    {
-                        break;
-                    }
-
                     fireTransferProgress( transferEvent, buffer, n );
 
                     output.write( buffer, 0, n );
-
-                    remaining -= n;
                 }
+
+                flushTransferProgress( transferEvent );
             }
             finally
             {
                 IOUtil.close( fin );
+
+                getBufferPool().release( buffer );
             }
 
             output.flush();
@@ -174,6 +176,19 @@ public abstract class AbstractHttpClientWagon
 
     protected static final TimeZone GMT_TIME_ZONE = TimeZone.getTimeZone( "GMT" );
 
+    /**
+     * The RFC 1123 format of the dates sent in headers, which is not thread safe.
+     */
+    private static final ThreadLocal<DateFormat> HTTP_DATE_FORMAT = new ThreadLocal<DateFormat>()
+    {
+        protected DateFormat initialValue()
+        {
+            DateFormat format = new SimpleDateFormat( DateUtil.PATTERN_RFC1123, Locale.US );
+            format.setTimeZone( GMT_TIME_ZONE );
+            return format;
+        }
+    };
+
     private HttpClient client;
 
     protected HttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
@@ -320,16 +335,18 @@ public abstract class AbstractHttpClientWagon
     private void put( final InputStream stream, Resource resource, File source )
         throws TransferFailedException, AuthorizationException, ResourceDoesNotExistException
     {
-        StringBuilder url = new StringBuilder( getRepository().getUrl() );
+        String repositoryUrl = getRepository().getUrl();
+        StringBuilder url = new StringBuilder( repositoryUrl.length() + resource.getName().length() + 16 );
+        url.append( repositoryUrl );
         String[] parts = StringUtils.split( resource.getName(), "/" );
-        for ( String part : parts )
+        for ( int i = 0; i < parts.length; i++ )
         {
             // TODO: Fix encoding...
-            if ( !url.toString().endsWith( "/" ) )
+            if ( i > 0 || !repositoryUrl.endsWith( "/" ) )
             {
                 url.append( '/' );
             }
-            url.append( URLEncoder.encode( part ) );
+            url.append( URLEncoder.encode( parts[i] ) );
         }
         RequestEntityImplementation requestEntityImplementation =
             new RequestEntityImplementation( stream, resource, this, source );
@@ -357,6 +374,12 @@ public abstract class AbstractHttpClientWagon
 
         PutMethod putMethod = new PutMethod( url );
 
+        if ( requestEntityImplementation.isStreamed() )
+        {
+            // a stream can only be sent once, the server is asked first whether it accepts the request as it is
+            putMethod.getParams().setBooleanParameter( HttpMethodParams.USE_EXPECT_CONTINUE, true );
+        }
+
         firePutStarted( resource, source );
 
         try
@@ -393,6 +416,14 @@ public abstract class AbstractHttpClientWagon
                 case HttpStatus.SC_MOVED_TEMPORARILY: // 302
                 case HttpStatus.SC_SEE_OTHER: // 303
                     String relocatedUrl = calculateRelocatedUrl( putMethod );
+                    if ( !requestEntityImplementation.isRepeatable() )
+                    {
+                        TransferFailedException e = new TransferFailedException(
+                            "Failed to transfer file: " + url + " was relocated to " + relocatedUrl
+                                + " after its content was sent, which cannot be sent again from a stream" );
+                        fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+                        throw e;
+                    }
                     fireTransferDebug( "relocate to " + relocatedUrl );
                     put( resource, source, requestEntityImplementation, relocatedUrl );
                     return;
@@ -446,13 +477,13 @@ public abstract class AbstractHttpClientWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
-        StringBuilder url = new StringBuilder( getRepository().getUrl() );
-        if ( !url.toString().endsWith( "/" ) )
+        if ( isKnownMissing( resourceName ) )
         {
-            url.append( '/' );
+            return false;
         }
-        url.append( resourceName );
-        HeadMethod headMethod = new HeadMethod( url.toString() );
+
+        String url = ParsedUrl.parse( getRepository().getUrl() ).resolve( resourceName );
+        HeadMethod headMethod = new HeadMethod( url );
 
         int statusCode;
         try
@@ -486,6 +517,7 @@ public abstract class AbstractHttpClientWagon
                     throw new AuthorizationException( "Not authorized by proxy." );
 
                 case HttpStatus.SC_NOT_FOUND:
+                    recordMissing( resourceName );
                     return false;
 
                 //add more entries here
@@ -611,24 +643,32 @@ public abstract class AbstractHttpClientWagon
     {
         Resource resource = inputData.getResource();
 
-        StringBuilder url = new StringBuilder( getRepository().getUrl() );
-        if ( !url.toString().endsWith( "/" ) )
-        {
-            url.append( '/' );
-        }
-        url.append( resource.getName() );
+        String url = ParsedUrl.parse( getRepository().getUrl() ).resolve( resource.getName() );
 
-        getMethod = new GetMethod( url.toString() );
+        getMethod = new GetMethod( url );
 
         long timestamp = resource.getLastModified();
         if ( timestamp > 0 )
         {
-            SimpleDateFormat fmt = new SimpleDateFormat( "EEE, dd-MMM-yy HH:mm:ss zzz", Locale.US );
-            fmt.setTimeZone( GMT_TIME_ZONE );
-            Header hdr = new Header( "If-Modified-Since", fmt.format( new Date( timestamp ) ) );
+            Header hdr = new Header( "If-Modified-Since", HTTP_DATE_FORMAT.get().format( new Date( timestamp ) ) );
             fireTransferDebug( "sending ==> " + hdr + "(" + timestamp + ")" );
             getMethod.addRequestHeader( hdr );
         }
+        if ( inputData.getConditionalEntityTag() != null )
+        {
+            Header hdr = new Header( "If-None-Match", inputData.getConditionalEntityTag() );
+            fireTransferDebug( "sending ==> " + hdr );
+            getMethod.addRequestHeader( hdr );
+        }
+
+        long resumeOffset = inputData.getResumeOffset();
+        if ( resumeOffset > 0 && inputData.getResumeValidator() != null )
+        {
+            getMethod.addRequestHeader( "Range", "bytes=" + resumeOffset + "-" );
+            // the server sends the whole resource instead if it no longer has this validator
+            getMethod.addRequestHeader( "If-Range", inputData.getResumeValidator() );
+            fireTransferDebug( "resuming from byte " + resumeOffset + " if " + inputData.getResumeValidator() );
+        }
 
         int statusCode;
         try
@@ -649,10 +689,12 @@ public abstract class AbstractHttpClientWagon
         switch ( statusCode )
         {
             case HttpStatus.SC_OK:
+            case HttpStatus.SC_PARTIAL_CONTENT:
                 break;
 
             case HttpStatus.SC_NOT_MODIFIED:
                 // return, leaving last modified set to original value so getIfNewer should return unmodified
+                inputData.setNotModified( true );
                 return;
 
             case SC_NULL:
@@ -678,6 +720,15 @@ public abstract class AbstractHttpClientWagon
                 throw new ResourceDoesNotExistException( "File: " + url + " does not exist" );
 
                 // add more entries here
+            case HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE:
+                if ( resumeOffset > 0 )
+                {
+                    getMethod.abort();
+                    cleanupGetTransfer( resource );
+                    fillInputDataWithoutResume( inputData );
+                    return;
+                }
+                // fall through
             default:
             {
                 cleanupGetTransfer( resource );
@@ -696,7 +747,7 @@ public abstract class AbstractHttpClientWagon
         {
             try
             {
-                long contentLength = Integer.valueOf( contentLengthHeader.getValue() ).intValue();
+                long contentLength = Long.parseLong( contentLengthHeader.getValue().trim() );
 
                 resource.setContentLength( contentLength );
             }
@@ -707,8 +758,47 @@ public abstract class AbstractHttpClientWagon
             }
         }
 
+        Header contentEncoding = getMethod.getResponseHeader( "Content-Encoding" );
+        boolean isGZipped = contentEncoding != null && "gzip".equalsIgnoreCase( contentEncoding.getValue() );
+
+        if ( statusCode == HttpStatus.SC_PARTIAL_CONTENT )
+        {
+            // a range of the compressed content would not line up with the uncompressed part already downloaded
+            Header contentRangeHeader = getMethod.getResponseHeader( "Content-Range" );
+            long[] contentRange =
+                isGZipped || contentRangeHeader == null ? null : parseContentRange( contentRangeHeader.getValue() );
+            if ( contentRange == null || contentRange[0] != resumeOffset )
+            {
+                getMethod.abort();
+                cleanupGetTransfer( resource );
+                fillInputDataWithoutResume( inputData );
+                return;
+            }
+
+            inputData.setOffset( resumeOffset );
+            resource.setContentLength( contentRange[1] );
+        }
+
         Header lastModifiedHeader = getMethod.getResponseHeader( "Last-Modified" );
 
+        Header etagHeader = getMethod.getResponseHeader( "ETag" );
+        if ( etagHeader != null )
+        {
+            inputData.setEntityTag( etagHeader.getValue() );
+        }
+
+        if ( !isGZipped )
+        {
+            if ( etagHeader != null && !etagHeader.getValue().startsWith( "W/" ) )
+            {
+                inputData.setValidator( etagHeader.getValue() );
+            }
+            else if ( lastModifiedHeader != null )
+            {
+                inputData.setValidator( lastModifiedHeader.getValue() );
+            }
+        }
+
         long lastModified = 0;
 
         if ( lastModifiedHeader != null )
@@ -727,9 +817,6 @@ public abstract class AbstractHttpClientWagon
             fireTransferDebug( "last-modified = " + lastModifiedHeader.getValue() + " (" + lastModified + ")" );
         }
 
-        Header contentEncoding = getMethod.getResponseHeader( "Content-Encoding" );
-        boolean isGZipped = contentEncoding != null && "gzip".equalsIgnoreCase( contentEncoding.getValue() );
-
         try
         {
             is = getMethod.getResponseBodyAsStream();
@@ -40,26 +40,30 @@ import org.apache.http.client.protocol.ClientContext;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.params.ConnRoutePNames;
 import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.BrowserCompatHostnameVerifier;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.conn.ssl.X509HostnameVerifier;
 import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.auth.BasicScheme;
-import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.impl.conn.SingleClientConnManager;
-import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.impl.cookie.DateParseException;
 import org.apache.http.impl.cookie.DateUtils;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.maven.wagon.InputData;
 import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ParsedUrl;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamContent;
 import org.apache.maven.wagon.StreamWagon;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
@@ -74,21 +78,27 @@ import org.codehaus.plexus.util.StringUtils;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
-import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.URLEncoder;
-import java.nio.ByteBuffer;
 import java.security.cert.X509Certificate;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -99,19 +109,23 @@ public abstract class AbstractHttpClientWagon
     extends StreamWagon
 {
 
+    /**
+     * The authentication scheme of each host, learned from its challenges and then sent preemptively by the requests
+     * of all the wagons.
+     */
+    private static final AuthSchemeCache AUTH_SCHEME_CACHE = new AuthSchemeCache();
+
     private BasicHttpContext localContext;
 
     private final class RequestEntityImplementation
         extends AbstractHttpEntity
     {
 
-        private final static int BUFFER_SIZE = 2048;
-
         private final Resource resource;
 
         private final Wagon wagon;
 
-        private ByteBuffer byteBuffer;
+        private StreamContent content;
 
         private File source;
 
@@ -121,6 +135,9 @@ public abstract class AbstractHttpClientWagon
                                              final File source )
             throws TransferFailedException
         {
+            this.resource = resource;
+            this.length = resource == null ? -1 : resource.getContentLength();
+
             if ( source != null )
             {
                 this.source = source;
@@ -129,17 +146,17 @@ public abstract class AbstractHttpClientWagon
             {
                 try
                 {
-                    byte[] bytes = IOUtil.toByteArray( stream );
-                    byteBuffer = ByteBuffer.allocate( bytes.length );
-                    byteBuffer.put( bytes );
+                    content = new StreamContent( stream, this.length );
                 }
                 catch ( IOException e )
                 {
                     throw new TransferFailedException( e.getMessage(), e );
                 }
+                this.length = content.getLength();
             }
-            this.resource = resource;
-            this.length = resource == null ? -1 : resource.getContentLength();
+
+            // without a length, the content is sent in chunks until the end of the stream
+            setChunked( this.length < 0 );
 
             this.wagon = wagon;
         }
@@ -157,12 +174,20 @@ public abstract class AbstractHttpClientWagon
             {
                 return new FileInputStream( this.source );
             }
-            return new ByteArrayInputStream( this.byteBuffer.array() );
+            return content.openStream();
+        }
+
+        /**
+         * @return <code>true</code> if the content is read from a stream, and so cannot be sent again once sent
+         */
+        private boolean isStreamed()
+        {
+            return source == null && !content.isBuffered();
         }
 
         public boolean isRepeatable()
         {
-            return true;
+            return source != null || content.isRepeatable();
         }
 
 
@@ -174,21 +199,18 @@ public abstract class AbstractHttpClientWagon
                 throw new IllegalArgumentException( "Output stream may not be null" );
             }
             TransferEvent transferEvent =
-                new TransferEvent( wagon, resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_PUT );
-            transferEvent.setTimestamp( System.currentTimeMillis() );
-            InputStream instream = this.source != null
-                ? new FileInputStream( this.source )
-                : new ByteArrayInputStream( this.byteBuffer.array() );
+                getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_PUT );
+            InputStream instream = getContent();
+            byte[] buffer = getBufferPool().acquire( getBufferCapacityForTransfer( this.length ) );
             try
             {
-                byte[] buffer = new byte[BUFFER_SIZE];
                 int l;
                 if ( this.length < 0 )
                 {
                     // until EOF
                     while ( ( l = instream.read( buffer ) ) != -1 )
                     {
-                        fireTransferProgress( transferEvent, buffer, -1 );
+                        fireTransferProgress( transferEvent, buffer, l );
                         outstream.write( buffer, 0, l );
                     }
                 }
@@ -198,20 +220,24 @@ public abstract class AbstractHttpClientWagon
                     long remaining = this.length;
                     while ( remaining > 0 )
                     {
-                        l = instream.read( buffer, 0, (int) Math.min( BUFFER_SIZE, remaining ) );
+                        l = instream.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
                         if ( l == -1 )
                         {
                             break;
                         }
-                        fireTransferProgress( transferEvent, buffer, (int) Math.min( BUFFER_SIZE, remaining ) );
+                        fireTransferProgress( transferEvent, buffer, l );
                         outstream.write( buffer, 0, l );
                         remaining -= l;
                     }
                 }
+
+                flushTransferProgress( transferEvent );
             }
             finally
             {
                 instream.close();
+
+                getBufferPool().release( buffer );
             }
         }
 
@@ -227,6 +253,25 @@ public abstract class AbstractHttpClientWagon
 
     protected static final TimeZone GMT_TIME_ZONE = TimeZone.getTimeZone( "GMT" );
 
+    private static final long DEFAULT_SEGMENTED_GET_THRESHOLD = 16 * 1024 * 1024;
+
+    /**
+     * Segments are never smaller than that, not to spend a connection on a few round trips.
+     */
+    private static final long MINIMUM_SEGMENT_LENGTH = 1024 * 1024;
+
+    private static final long SEGMENT_PROGRESS_INTERVAL_MILLIS = 100;
+
+    private static final ThreadFactory SEGMENT_THREAD_FACTORY = new ThreadFactory()
+    {
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "wagon-http-segment" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
     private DefaultHttpClient client;
 
     /**
@@ -274,6 +319,13 @@ public abstract class AbstractHttpClientWagon
     protected static boolean IGNORE_SSL_VALIDITY_DATES =
         Boolean.valueOf( System.getProperty( "maven.wagon.http.ssl.ignore.validity.dates", "true" ) );
 
+    /**
+     * The pools of the wagons configured with a {@link HttpConfiguration#getConnectionPool()}, shared by the wagons
+     * with equal configurations.
+     */
+    private static final ConcurrentMap<HttpConnectionPoolConfiguration, HttpConnectionPool> CONFIGURED_POOLS =
+        new ConcurrentHashMap<HttpConnectionPoolConfiguration, HttpConnectionPool>();
+
     static
     {
         if ( !useClientManagerPooled )
@@ -282,34 +334,33 @@ public abstract class AbstractHttpClientWagon
         }
         else
         {
+            connectionManagerPooled =
+                new HttpConnectionPool( createSchemeRegistry(), new HttpConnectionPoolConfiguration() );
+        }
+    }
 
-            ThreadSafeClientConnManager threadSafeClientConnManager = new ThreadSafeClientConnManager();
-            int maxPerRoute =
-                Integer.parseInt( System.getProperty( "maven.wagon.httpconnectionManager.maxPerRoute", "20" ) );
-            threadSafeClientConnManager.setDefaultMaxPerRoute( maxPerRoute );
-            int maxTotal = Integer.parseInt( System.getProperty( "maven.wagon.httpconnectionManager.maxTotal", "40" ) );
-            threadSafeClientConnManager.setDefaultMaxPerRoute( maxPerRoute );
-            threadSafeClientConnManager.setMaxTotal( maxTotal );
+    private static SchemeRegistry createSchemeRegistry()
+    {
+        SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
 
-            if ( sslEasy )
+        if ( sslEasy )
+        {
+            try
             {
-                try
-                {
-                    SSLSocketFactory sslSocketFactory =
-                        new SSLSocketFactory( EasyX509TrustManager.createEasySSLContext(), sslAllowAll
-                            ? new EasyHostNameVerifier()
-                            : new BrowserCompatHostnameVerifier() );
-                    Scheme httpsScheme = new Scheme( "https", 443, sslSocketFactory );
+                SSLSocketFactory sslSocketFactory =
+                    new SSLSocketFactory( EasyX509TrustManager.createEasySSLContext(), sslAllowAll
+                        ? new EasyHostNameVerifier()
+                        : new BrowserCompatHostnameVerifier() );
+                Scheme httpsScheme = new Scheme( "https", 443, sslSocketFactory );
 
-                    threadSafeClientConnManager.getSchemeRegistry().register( httpsScheme );
-                }
-                catch ( IOException e )
-                {
-                    throw new RuntimeException( "failed to init SSLSocket Factory " + e.getMessage(), e );
-                }
+                schemeRegistry.register( httpsScheme );
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( "failed to init SSLSocket Factory " + e.getMessage(), e );
             }
-            connectionManagerPooled = threadSafeClientConnManager;
         }
+        return schemeRegistry;
     }
 
     /**
@@ -344,13 +395,65 @@ public abstract class AbstractHttpClientWagon
         }
     }
 
+    /**
+     * @return the connection manager of this wagon: its own pool if one was set, else the pool shared by the wagons
+     *         with the same {@link HttpConfiguration#getConnectionPool()}, else the pool configured by the system
+     *         properties, or a manager of a single connection when pooling is disabled
+     */
     public ClientConnectionManager getConnectionManager()
     {
         if ( !useClientManagerPooled )
         {
             return clientConnectionManager;
         }
-        return connectionManagerPooled;
+        if ( connectionPool != null )
+        {
+            return connectionPool;
+        }
+
+        HttpConnectionPoolConfiguration poolConfiguration =
+            httpConfiguration != null ? httpConfiguration.getConnectionPool() : null;
+        if ( poolConfiguration == null )
+        {
+            return connectionManagerPooled;
+        }
+
+        HttpConnectionPool pool = CONFIGURED_POOLS.get( poolConfiguration );
+        if ( pool == null )
+        {
+            // the key is copied, the configuration of the wagon may still change
+            HttpConnectionPoolConfiguration key = poolConfiguration.copy();
+            HttpConnectionPool newPool = new HttpConnectionPool( createSchemeRegistry(), key );
+            pool = CONFIGURED_POOLS.putIfAbsent( key, newPool );
+            if ( pool == null )
+            {
+                pool = newPool;
+            }
+            else
+            {
+                newPool.shutdown();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return the pool set with {@link #setConnectionPool(HttpConnectionPool)}, or <code>null</code>
+     * @since 2.3
+     */
+    public HttpConnectionPool getConnectionPool()
+    {
+        return connectionPool;
+    }
+
+    /**
+     * Makes this wagon use its own connection pool, rather than a shared one. The caller shuts the pool down.
+     *
+     * @since 2.3
+     */
+    public void setConnectionPool( HttpConnectionPool connectionPool )
+    {
+        this.connectionPool = connectionPool;
     }
 
     public static void setConnectionManagerPooled( ClientConnectionManager clientConnectionManager )
@@ -374,12 +477,46 @@ public abstract class AbstractHttpClientWagon
      */
     private HttpConfiguration httpConfiguration;
 
+    /**
+     * @since 2.3
+     */
+    private HttpConnectionPool connectionPool;
+
     private HttpGet getMethod;
 
+    /**
+     * Whether the response to the last {@link #getMethod} is the whole resource, from a server accepting ranges.
+     */
+    private boolean rangesAccepted;
+
+    /**
+     * Number of ranges of a large resource downloaded concurrently to a file, <code>1</code> to always download over a
+     * single connection. Segmented downloads require the pooled connection manager.
+     *
+     * @since 2.3
+     */
+    private int segmentedGetCount = Integer.getInteger( "maven.wagon.http.segmentedGet.count", 1 );
+
+    /**
+     * Length from which a resource is downloaded in several segments.
+     *
+     * @since 2.3
+     */
+    private long segmentedGetThreshold =
+        Long.getLong( "maven.wagon.http.segmentedGet.threshold", DEFAULT_SEGMENTED_GET_THRESHOLD );
+
     public void openConnectionInternal()
     {
         repository.setUrl( getURL( repository ) );
-        client = new DefaultHttpClient( getConnectionManager() );
+        ClientConnectionManager connectionManager = getConnectionManager();
+        client = new DefaultHttpClient( connectionManager );
+
+        if ( connectionManager instanceof HttpConnectionPool
+            && !( (HttpConnectionPool) connectionManager ).isStaleCheckingEnabled() )
+        {
+            // the pool closes the connections idle for too long instead
+            HttpConnectionParams.setStaleCheckingEnabled( client.getParams(), false );
+        }
 
         // WAGON-273: default the cookie-policy to browser compatible
         client.getParams().setParameter( ClientPNames.COOKIE_POLICY, CookiePolicy.BROWSER_COMPATIBILITY );
@@ -398,20 +535,13 @@ public abstract class AbstractHttpClientWagon
                 int port = getRepository().getPort() > -1 ? getRepository().getPort() : AuthScope.ANY_PORT;
 
                 client.getCredentialsProvider().setCredentials( new AuthScope( host, port ), creds );
-                // preemptive off by default
-                /*
-                AuthCache authCache = new BasicAuthCache();
-                BasicScheme basicAuth = new BasicScheme();
-                HttpHost targetHost =
-                    new HttpHost( repository.getHost(), repository.getPort(), repository.getProtocol() );
-                authCache.put( targetHost, basicAuth );
-
-                localContext = new BasicHttpContext();
-                localContext.setAttribute( ClientContext.AUTH_CACHE, authCache );
-                */
             }
         }
 
+        // once a host challenged a request, the next ones authenticate preemptively with the same scheme
+        localContext = new BasicHttpContext();
+        localContext.setAttribute( ClientContext.AUTH_CACHE, AUTH_SCHEME_CACHE );
+
         ProxyInfo proxyInfo = getProxyInfo( getRepository().getProtocol(), getRepository().getHost() );
         if ( proxyInfo != null )
         {
@@ -494,17 +624,19 @@ public abstract class AbstractHttpClientWagon
         throws TransferFailedException, AuthorizationException, ResourceDoesNotExistException
     {
 
-        StringBuilder url = new StringBuilder( getURL( getRepository() ) );
+        String repositoryUrl = getURL( getRepository() );
+        StringBuilder url = new StringBuilder( repositoryUrl.length() + resource.getName().length() + 16 );
+        url.append( repositoryUrl );
         String[] parts = StringUtils.split( resource.getName(), "/" );
-        for ( String part : parts )
+        for ( int i = 0; i < parts.length; i++ )
         {
             // TODO: Fix encoding...
             // url += "/" + URLEncoder.encode( parts[i], System.getProperty("file.encoding") );
-            if ( !url.toString().endsWith( "/" ) )
+            if ( i > 0 || !repositoryUrl.endsWith( "/" ) )
             {
                 url.append( '/' );
             }
-            url.append( URLEncoder.encode( part ) );
+            url.append( URLEncoder.encode( parts[i] ) );
         }
         put( resource, source, httpEntity, url.toString() );
     }
@@ -527,28 +659,15 @@ public abstract class AbstractHttpClientWagon
             fireTransferError( resource, e, TransferEvent.REQUEST_GET );
         }
 
-        if ( authenticationInfo != null )
-        {
-
-            String username = authenticationInfo.getUserName();
-            String password = authenticationInfo.getPassword();
-            // preemptive for put
-            if ( StringUtils.isNotEmpty( username ) && StringUtils.isNotEmpty( password ) )
-            {
-
-                AuthCache authCache = new BasicAuthCache();
-                BasicScheme basicAuth = new BasicScheme();
-                HttpHost targetHost =
-                    new HttpHost( repository.getHost(), repository.getPort(), repository.getProtocol() );
-                authCache.put( targetHost, basicAuth );
+        HttpPut putMethod = new HttpPut( url );
 
-                localContext = new BasicHttpContext();
-                localContext.setAttribute( ClientContext.AUTH_CACHE, authCache );
-            }
+        if ( httpEntity instanceof RequestEntityImplementation
+            && ( (RequestEntityImplementation) httpEntity ).isStreamed() )
+        {
+            // a stream can only be sent once, the server is asked first whether it accepts the request as it is
+            putMethod.getParams().setBooleanParameter( CoreProtocolPNames.USE_EXPECT_CONTINUE, true );
         }
 
-        HttpPut putMethod = new HttpPut( url );
-
         firePutStarted( resource, source );
 
         try
@@ -590,7 +709,16 @@ public abstract class AbstractHttpClientWagon
                 case HttpStatus.SC_MOVED_PERMANENTLY: // 301
                 case HttpStatus.SC_MOVED_TEMPORARILY: // 302
                 case HttpStatus.SC_SEE_OTHER: // 303
-                    put( resource, source, httpEntity, calculateRelocatedUrl( response ) );
+                    String relocatedUrl = calculateRelocatedUrl( response );
+                    if ( !httpEntity.isRepeatable() )
+                    {
+                        TransferFailedException e = new TransferFailedException(
+                            "Failed to transfer file: " + url + " was relocated to " + relocatedUrl
+                                + " after its content was sent, which cannot be sent again from a stream" );
+                        fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+                        throw e;
+                    }
+                    put( resource, source, httpEntity, relocatedUrl );
                     return;
                 case SC_NULL:
                 {
@@ -642,8 +770,12 @@ public abstract class AbstractHttpClientWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
-        String repositoryUrl = getRepository().getUrl();
-        String url = repositoryUrl + ( repositoryUrl.endsWith( "/" ) ? "" : "/" ) + resourceName;
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
+        String url = ParsedUrl.parse( getRepository().getUrl() ).resolve( resourceName );
         HttpHead headMethod = new HttpHead( url );
         HttpResponse response = null;
         int statusCode;
@@ -685,6 +817,7 @@ public abstract class AbstractHttpClientWagon
                     throw new AuthorizationException( "Not authorized by proxy" + reasonPhrase );
 
                 case HttpStatus.SC_NOT_FOUND:
+                    recordMissing( resourceName );
                     return false;
 
                 //add more entries here
@@ -706,6 +839,71 @@ public abstract class AbstractHttpClientWagon
         setHeaders( httpMethod );
         client.getParams().setParameter( CoreProtocolPNames.USER_AGENT, getUserAgent( httpMethod ) );
 
+        setProxyAuthorizationHeader( httpMethod );
+
+        HttpResponse response = client.execute( httpMethod, createContext( httpMethod, localContext ) );
+
+        if ( response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED )
+        {
+            // the cached scheme did not do, the next request learns it again from the challenge
+            AUTH_SCHEME_CACHE.remove( getTargetHost() );
+        }
+
+        return response;
+    }
+
+    private HttpHost getTargetHost()
+    {
+        return new HttpHost( repository.getHost(), repository.getPort(), repository.getProtocol() );
+    }
+
+    /**
+     * @return whether the request authenticates with the Basic scheme from the start: always for a PUT, otherwise if
+     *         its method configuration says so
+     */
+    private boolean isPreemptive( HttpUriRequest method )
+    {
+        if ( authenticationInfo == null || StringUtils.isEmpty( authenticationInfo.getUserName() )
+            || StringUtils.isEmpty( authenticationInfo.getPassword() ) )
+        {
+            return false;
+        }
+
+        if ( method instanceof HttpPut )
+        {
+            return true;
+        }
+
+        HttpMethodConfiguration config =
+            httpConfiguration == null ? null : httpConfiguration.getMethodConfiguration( method );
+        return config != null && config.isUsePreemptive();
+    }
+
+    /**
+     * Returns the context to execute a request in. A preemptive request gets a context of its own, so that its Basic
+     * scheme is not cached for the other requests to the host.
+     *
+     * @param parent the context of the wagon, or <code>null</code> for the requests of a segmented download which
+     *               each run on a thread of their own, the authentication state not being thread safe unlike the
+     *               cached schemes
+     */
+    private HttpContext createContext( HttpUriRequest method, HttpContext parent )
+    {
+        AuthCache authCache =
+            isPreemptive( method ) ? new PreemptiveAuthCache( AUTH_SCHEME_CACHE, getTargetHost() ) : AUTH_SCHEME_CACHE;
+        if ( parent != null && authCache == AUTH_SCHEME_CACHE )
+        {
+            return parent;
+        }
+
+        HttpContext context = new BasicHttpContext( parent );
+        context.setAttribute( ClientContext.AUTH_CACHE, authCache );
+        return context;
+    }
+
+    private void setProxyAuthorizationHeader( HttpUriRequest httpMethod )
+        throws HttpException
+    {
         ProxyInfo proxyInfo = getProxyInfo( getRepository().getProtocol(), getRepository().getHost() );
 
         if ( proxyInfo != null )
@@ -729,8 +927,6 @@ public abstract class AbstractHttpClientWagon
             }
 
         }
-
-        return client.execute( httpMethod, localContext );
     }
 
     protected void setParameters( HttpUriRequest method )
@@ -741,26 +937,6 @@ public abstract class AbstractHttpClientWagon
         {
             HttpParams params = config.asMethodParams( method.getParams() );
 
-            if ( config.isUsePreemptive() && authenticationInfo != null )
-            {
-                String username = authenticationInfo.getUserName();
-                String password = authenticationInfo.getPassword();
-
-                if ( StringUtils.isNotEmpty( username ) && StringUtils.isNotEmpty( password ) )
-                {
-
-                    AuthCache authCache = new BasicAuthCache();
-                    BasicScheme basicAuth = new BasicScheme();
-                    HttpHost targetHost =
-                        new HttpHost( repository.getHost(), repository.getPort(), repository.getProtocol() );
-                    authCache.put( targetHost, basicAuth );
-
-                    localContext = new BasicHttpContext();
-                    localContext.setAttribute( ClientContext.AUTH_CACHE, authCache );
-                }
-
-            }
-
             if ( params != null )
             {
                 method.setParams( params );
@@ -853,18 +1029,32 @@ public abstract class AbstractHttpClientWagon
     {
         Resource resource = inputData.getResource();
 
-        String repositoryUrl = getRepository().getUrl();
-        String url = repositoryUrl + ( repositoryUrl.endsWith( "/" ) ? "" : "/" ) + resource.getName();
+        String url = ParsedUrl.parse( getRepository().getUrl() ).resolve( resource.getName() );
         getMethod = new HttpGet( url );
+        rangesAccepted = false;
         long timestamp = resource.getLastModified();
         if ( timestamp > 0 )
         {
-            SimpleDateFormat fmt = new SimpleDateFormat( "EEE, dd-MMM-yy HH:mm:ss zzz", Locale.US );
-            fmt.setTimeZone( GMT_TIME_ZONE );
-            Header hdr = new BasicHeader( "If-Modified-Since", fmt.format( new Date( timestamp ) ) );
+            // DateUtils keeps its formats per thread
+            Header hdr = new BasicHeader( "If-Modified-Since", DateUtils.formatDate( new Date( timestamp ) ) );
             fireTransferDebug( "sending ==> " + hdr + "(" + timestamp + ")" );
             getMethod.addHeader( hdr );
         }
+        if ( inputData.getConditionalEntityTag() != null )
+        {
+            Header hdr = new BasicHeader( "If-None-Match", inputData.getConditionalEntityTag() );
+            fireTransferDebug( "sending ==> " + hdr );
+            getMethod.addHeader( hdr );
+        }
+
+        long resumeOffset = inputData.getResumeOffset();
+        if ( resumeOffset > 0 && inputData.getResumeValidator() != null )
+        {
+            getMethod.addHeader( "Range", "bytes=" + resumeOffset + "-" );
+            // the server sends the whole resource instead if it no longer has this validator
+            getMethod.addHeader( "If-Range", inputData.getResumeValidator() );
+            fireTransferDebug( "resuming from byte " + resumeOffset + " if " + inputData.getResumeValidator() );
+        }
 
         HttpResponse response;
         int statusCode;
@@ -896,10 +1086,12 @@ public abstract class AbstractHttpClientWagon
         switch ( statusCode )
         {
             case HttpStatus.SC_OK:
+            case HttpStatus.SC_PARTIAL_CONTENT:
                 break;
 
             case HttpStatus.SC_NOT_MODIFIED:
                 // return, leaving last modified set to original value so getIfNewer should return unmodified
+                inputData.setNotModified( true );
                 return;
 
             case SC_NULL:
@@ -926,6 +1118,14 @@ public abstract class AbstractHttpClientWagon
                 throw new ResourceDoesNotExistException( "File: " + url + reasonPhrase );
 
                 // add more entries here
+            case HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE:
+                if ( resumeOffset > 0 )
+                {
+                    cleanupGetTransfer( resource );
+                    fillInputDataWithoutResume( inputData );
+                    return;
+                }
+                // fall through
             default:
             {
                 cleanupGetTransfer( resource );
@@ -944,7 +1144,7 @@ public abstract class AbstractHttpClientWagon
         {
             try
             {
-                long contentLength = Integer.valueOf( contentLengthHeader.getValue() ).intValue();
+                long contentLength = Long.parseLong( contentLengthHeader.getValue().trim() );
 
                 resource.setContentLength( contentLength );
             }
@@ -955,8 +1155,50 @@ public abstract class AbstractHttpClientWagon
             }
         }
 
+        Header contentEncoding = response.getFirstHeader( "Content-Encoding" );
+        boolean isGZipped = contentEncoding == null ? false : "gzip".equalsIgnoreCase( contentEncoding.getValue() );
+
+        if ( statusCode == HttpStatus.SC_PARTIAL_CONTENT )
+        {
+            // a range of the compressed content would not line up with the uncompressed part already downloaded
+            Header contentRangeHeader = response.getFirstHeader( "Content-Range" );
+            long[] contentRange =
+                isGZipped || contentRangeHeader == null ? null : parseContentRange( contentRangeHeader.getValue() );
+            if ( contentRange == null || contentRange[0] != resumeOffset )
+            {
+                cleanupGetTransfer( resource );
+                fillInputDataWithoutResume( inputData );
+                return;
+            }
+
+            inputData.setOffset( resumeOffset );
+            resource.setContentLength( contentRange[1] );
+        }
+
+        Header acceptRangesHeader = response.getFirstHeader( "Accept-Ranges" );
+        rangesAccepted = statusCode == HttpStatus.SC_OK && !isGZipped && acceptRangesHeader != null
+            && "bytes".equalsIgnoreCase( acceptRangesHeader.getValue().trim() );
+
         Header lastModifiedHeader = response.getFirstHeader( "Last-Modified" );
 
+        Header etagHeader = response.getFirstHeader( "ETag" );
+        if ( etagHeader != null )
+        {
+            inputData.setEntityTag( etagHeader.getValue() );
+        }
+
+        if ( !isGZipped )
+        {
+            if ( etagHeader != null && !etagHeader.getValue().startsWith( "W/" ) )
+            {
+                inputData.setValidator( etagHeader.getValue() );
+            }
+            else if ( lastModifiedHeader != null )
+            {
+                inputData.setValidator( lastModifiedHeader.getValue() );
+            }
+        }
+
         long lastModified = 0;
 
         if ( lastModifiedHeader != null )
@@ -975,9 +1217,6 @@ public abstract class AbstractHttpClientWagon
             fireTransferDebug( "last-modified = " + lastModifiedHeader.getValue() + " (" + lastModified + ")" );
         }
 
-        Header contentEncoding = response.getFirstHeader( "Content-Encoding" );
-        boolean isGZipped = contentEncoding == null ? false : "gzip".equalsIgnoreCase( contentEncoding.getValue() );
-
         try
         {
             is = response.getEntity().getContent();
@@ -1000,6 +1239,504 @@ public abstract class AbstractHttpClientWagon
         inputData.setInputStream( is );
     }
 
+    /**
+     * Downloads large resources in several segments at once when the server accepts ranges, see
+     * {@link #setSegmentedGetCount(int)}.
+     */
+    @Override
+    protected void getTransfer( Resource resource, File destination, InputData inputData )
+        throws TransferFailedException
+    {
+        int segments = getSegmentCount( resource, inputData );
+        if ( segments < 2 )
+        {
+            super.getTransfer( resource, destination, inputData );
+            return;
+        }
+
+        fireTransferDebug( "downloading " + resource.getName() + " in " + segments + " segments" );
+
+        createParentDirectories( destination );
+
+        List<HttpGet> segmentMethods = new ArrayList<HttpGet>();
+        ExecutorService executor = null;
+        RandomAccessFile file = null;
+        boolean complete = false;
+        try
+        {
+            file = new RandomAccessFile( destination, "rw" );
+            file.setLength( resource.getContentLength() );
+
+            SegmentedDownload download =
+                new SegmentedDownload( file.getChannel(), resource.getContentLength(), segments, getBufferPool() );
+
+            // the requests are set up here, the wagon is not meant to be used by several threads
+            for ( int i = 1; i < segments; i++ )
+            {
+                segmentMethods.add( createSegmentMethod( resource, inputData.getValidator(), download, i ) );
+            }
+
+            fireGetStarted( resource, destination );
+
+            executor = Executors.newFixedThreadPool( segments, SEGMENT_THREAD_FACTORY );
+
+            // the first segment is the beginning of the response already there
+            executor.execute( new SegmentGet( download, 0, getMethod, inputData.getInputStream() ) );
+            for ( int i = 1; i < segments; i++ )
+            {
+                executor.execute( new SegmentGet( download, i, segmentMethods.get( i - 1 ), null ) );
+            }
+
+            fireSegmentedTransferProgress( resource, download, inputData.getValidator() );
+
+            complete = true;
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            String msg = "GET request of: " + resource.getName() + " from " + repository.getName() + " failed";
+
+            throw new TransferFailedException( msg, e );
+        }
+        catch ( HttpException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            throw new TransferFailedException( e.getMessage(), e );
+        }
+        finally
+        {
+            for ( HttpGet segmentMethod : segmentMethods )
+            {
+                segmentMethod.abort();
+            }
+            cleanupGetTransfer( resource );
+            IOUtil.close( inputData.getInputStream() );
+
+            if ( executor != null )
+            {
+                stopSegments( executor );
+            }
+
+            close( file );
+
+            if ( !complete && destination.exists() && !destination.delete() )
+            {
+                destination.deleteOnExit();
+            }
+        }
+
+        fireGetCompleted( resource, destination );
+    }
+
+    /**
+     * @return the number of segments to download the resource in, <code>1</code> to use the response already there
+     */
+    private int getSegmentCount( Resource resource, InputData inputData )
+    {
+        long length = resource.getContentLength();
+
+        // without a validator, the segments could come from different versions of the resource
+        if ( segmentedGetCount < 2 || !rangesAccepted || inputData.getValidator() == null
+            || length < Math.max( segmentedGetThreshold, 2 * MINIMUM_SEGMENT_LENGTH ) || !useClientManagerPooled )
+        {
+            return 1;
+        }
+
+        return (int) Math.min( segmentedGetCount, length / MINIMUM_SEGMENT_LENGTH );
+    }
+
+    private HttpGet createSegmentMethod( Resource resource, String validator, SegmentedDownload download,
+                                         int segment )
+        throws HttpException
+    {
+        HttpGet segmentMethod = new HttpGet( getMethod.getURI() );
+
+        setParameters( segmentMethod );
+        setHeaders( segmentMethod );
+        setProxyAuthorizationHeader( segmentMethod );
+
+        // ranges of the compressed content would not fit together
+        segmentMethod.removeHeaders( "Accept-Encoding" );
+        segmentMethod.addHeader( "Range", "bytes=" + download.getStart( segment ) + "-" + download.getEnd( segment ) );
+        // the server sends the whole resource instead if it changed since the first segment
+        segmentMethod.addHeader( "If-Range", validator );
+
+        fireTransferDebug( "segment " + segment + " of " + resource.getName() + ": "
+                               + segmentMethod.getFirstHeader( "Range" ).getValue() );
+
+        return segmentMethod;
+    }
+
+    /**
+     * Reports the progress of a segmented download until it is complete. The listeners which want the content get it
+     * in order, as soon as all the segments before it are written. If the server turns out to ignore the ranges, the
+     * rest of the resource is downloaded in a single request.
+     */
+    private void fireSegmentedTransferProgress( Resource resource, SegmentedDownload download, String validator )
+        throws IOException, HttpException
+    {
+        TransferEvent transferEvent =
+            getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_GET );
+
+        boolean withContent = transferEventSupport.hasRawProgressListeners();
+        byte[] buffer = withContent ? getBufferPool().acquire( MAXIMUM_BUFFER_SIZE ) : null;
+        long reported = 0;
+        try
+        {
+            boolean finished;
+            do
+            {
+                finished = download.await( SEGMENT_PROGRESS_INTERVAL_MILLIS );
+
+                long available = withContent ? download.getContiguous() : download.getTransferred();
+                while ( reported < available )
+                {
+                    if ( withContent )
+                    {
+                        int n = (int) Math.min( buffer.length, available - reported );
+
+                        download.read( buffer, n, reported );
+                        fireTransferProgress( transferEvent, buffer, n );
+
+                        reported += n;
+                    }
+                    else
+                    {
+                        int n = (int) Math.min( Integer.MAX_VALUE, available - reported );
+
+                        fireTransferProgress( transferEvent, n );
+
+                        reported += n;
+                    }
+                }
+            }
+            while ( !finished );
+        }
+        catch ( RangesIgnoredException e )
+        {
+            fireTransferDebug( e.getMessage() + ", downloading the rest of " + resource.getName() + " at once" );
+
+            getRemainder( download, validator, transferEvent, withContent, reported );
+        }
+        finally
+        {
+            if ( buffer != null )
+            {
+                getBufferPool().release( buffer );
+            }
+        }
+
+        flushTransferProgress( transferEvent );
+    }
+
+    /**
+     * Downloads the rest of a segmented download with a request for the whole resource, going on from the content
+     * already reported to the listeners.
+     *
+     * @param reported the number of bytes reported so far, from the beginning of the file when the listeners get the
+     *                 content
+     */
+    private void getRemainder( SegmentedDownload download, String validator, TransferEvent transferEvent,
+                               boolean withContent, long reported )
+        throws IOException, HttpException
+    {
+        HttpGet method = new HttpGet( getMethod.getURI() );
+
+        setParameters( method );
+        setHeaders( method );
+        setProxyAuthorizationHeader( method );
+        method.removeHeaders( "Accept-Encoding" );
+
+        byte[] buffer = getBufferPool().acquire( MAXIMUM_BUFFER_SIZE );
+        try
+        {
+            HttpResponse response = client.execute( method, createContext( method, null ) );
+
+            int statusCode = response.getStatusLine().getStatusCode();
+            if ( statusCode != HttpStatus.SC_OK || !hasValidator( response, validator ) )
+            {
+                throw new IOException( "Request for the rest of " + method.getURI() + " failed, status code: "
+                                           + statusCode + ( statusCode == HttpStatus.SC_OK
+                    ? " (the resource changed during the download)"
+                    : "" ) );
+            }
+
+            // without the content, the listeners were told about bytes written anywhere in the file
+            long position = withContent ? reported : download.getContiguous();
+            long unreported = download.getLength() - reported;
+
+            InputStream input = response.getEntity().getContent();
+            skip( input, position );
+
+            while ( position < download.getLength() )
+            {
+                int n = input.read( buffer, 0, (int) Math.min( buffer.length, download.getLength() - position ) );
+                if ( n == -1 )
+                {
+                    throw new EOFException( method.getURI() + " ended at byte " + position + " instead of "
+                                                + download.getLength() );
+                }
+
+                download.write( buffer, n, position );
+                position += n;
+
+                if ( withContent )
+                {
+                    fireTransferProgress( transferEvent, buffer, n );
+                }
+                else if ( unreported > 0 )
+                {
+                    int count = (int) Math.min( n, unreported );
+
+                    fireTransferProgress( transferEvent, count );
+
+                    unreported -= count;
+                }
+            }
+
+            while ( unreported > 0 )
+            {
+                int count = (int) Math.min( Integer.MAX_VALUE, unreported );
+
+                fireTransferProgress( transferEvent, count );
+
+                unreported -= count;
+            }
+        }
+        finally
+        {
+            getBufferPool().release( buffer );
+
+            method.abort();
+        }
+    }
+
+    private static void skip( InputStream input, long length )
+        throws IOException
+    {
+        long remaining = length;
+        while ( remaining > 0 )
+        {
+            long skipped = input.skip( remaining );
+            if ( skipped <= 0 )
+            {
+                if ( input.read() == -1 )
+                {
+                    throw new EOFException(
+                        "Unexpected end of the content after " + ( length - remaining ) + " bytes" );
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * @return whether the response is for the version of the resource with the given entity tag or last modification
+     */
+    private static boolean hasValidator( HttpResponse response, String validator )
+    {
+        Header etagHeader = response.getFirstHeader( "ETag" );
+        Header lastModifiedHeader = response.getFirstHeader( "Last-Modified" );
+
+        return etagHeader != null && etagHeader.getValue().equals( validator )
+            || lastModifiedHeader != null && lastModifiedHeader.getValue().equals( validator );
+    }
+
+    /**
+     * Stops the threads of a segmented download, whose requests are aborted already, and waits until none of them
+     * uses the file any more, so that it can be closed and deleted.
+     */
+    private static void stopSegments( ExecutorService executor )
+    {
+        executor.shutdownNow();
+
+        boolean interrupted = false;
+        while ( true )
+        {
+            try
+            {
+                if ( executor.awaitTermination( SEGMENT_PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    break;
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void close( RandomAccessFile file )
+    {
+        if ( file != null )
+        {
+            try
+            {
+                file.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Downloads one segment, on a thread of its own.
+     */
+    private final class SegmentGet
+        implements Runnable
+    {
+        private final SegmentedDownload download;
+
+        private final int segment;
+
+        private final HttpGet method;
+
+        private InputStream input;
+
+        /**
+         * @param input the content of the segment if it is already there, <code>null</code> to execute the method
+         */
+        private SegmentGet( SegmentedDownload download, int segment, HttpGet method, InputStream input )
+        {
+            this.download = download;
+            this.segment = segment;
+            this.method = method;
+            this.input = input;
+        }
+
+        public void run()
+        {
+            try
+            {
+                if ( input == null )
+                {
+                    input = executeSegmentMethod();
+                }
+
+                download.write( segment, input );
+
+                if ( segment > 0 )
+                {
+                    // the whole range is read, the connection goes back to the pool
+                    input.close();
+                }
+            }
+            catch ( IOException e )
+            {
+                download.fail( e );
+            }
+            catch ( HttpException e )
+            {
+                download.fail( e );
+            }
+            catch ( RuntimeException e )
+            {
+                download.fail( e );
+            }
+            finally
+            {
+                // the first segment leaves the rest of its response unread, failed segments may too
+                method.abort();
+
+                download.segmentFinished();
+            }
+        }
+
+        private InputStream executeSegmentMethod()
+            throws IOException, HttpException
+        {
+            HttpResponse response = client.execute( method, createContext( method, null ) );
+
+            int statusCode = response.getStatusLine().getStatusCode();
+            String validator = method.getFirstHeader( "If-Range" ).getValue();
+            if ( statusCode == HttpStatus.SC_OK && hasValidator( response, validator ) )
+            {
+                throw new RangesIgnoredException( "The server ignored the range of segment " + segment + " of "
+                                                      + method.getURI() );
+            }
+            if ( statusCode != HttpStatus.SC_PARTIAL_CONTENT )
+            {
+                throw new IOException( "Segment " + segment + " of " + method.getURI() + " failed, status code: "
+                                           + statusCode + ( statusCode == HttpStatus.SC_OK
+                    ? " (the resource changed during the download)"
+                    : "" ) );
+            }
+
+            Header contentRange = response.getFirstHeader( "Content-Range" );
+            long[] range = contentRange != null ? parseContentRange( contentRange.getValue() ) : null;
+            if ( range == null || range[0] != download.getStart( segment ) )
+            {
+                throw new IOException( "Segment " + segment + " of " + method.getURI() + " returned the wrong range: "
+                                           + contentRange );
+            }
+
+            return response.getEntity().getContent();
+        }
+    }
+
+    /**
+     * The whole resource was sent in response to the request for a segment, the server does not support ranges.
+     */
+    private static final class RangesIgnoredException
+        extends IOException
+    {
+        private RangesIgnoredException( String message )
+        {
+            super( message );
+        }
+    }
+
+    /**
+     * @return the number of ranges of a large resource downloaded concurrently to a file
+     * @since 2.3
+     */
+    public int getSegmentedGetCount()
+    {
+        return segmentedGetCount;
+    }
+
+    /**
+     * Sets the number of ranges of a large resource downloaded concurrently to a file, when the server accepts ranges
+     * and tells a strong validator of the resource. The first segment is read from the response to the initial
+     * request, and the content is reported to the transfer listeners in order.
+     *
+     * @param segmentedGetCount the number of concurrent ranges, <code>1</code> to always use a single connection
+     * @since 2.3
+     */
+    public void setSegmentedGetCount( int segmentedGetCount )
+    {
+        this.segmentedGetCount = segmentedGetCount;
+    }
+
+    /**
+     * @return the length from which a resource is downloaded in several segments
+     * @since 2.3
+     */
+    public long getSegmentedGetThreshold()
+    {
+        return segmentedGetThreshold;
+    }
+
+    /**
+     * @param segmentedGetThreshold the length from which a resource is downloaded in several segments
+     * @since 2.3
+     */
+    public void setSegmentedGetThreshold( long segmentedGetThreshold )
+    {
+        this.segmentedGetThreshold = segmentedGetThreshold;
+    }
+
     protected void cleanupGetTransfer( Resource resource )
     {
         if ( getMethod != null )
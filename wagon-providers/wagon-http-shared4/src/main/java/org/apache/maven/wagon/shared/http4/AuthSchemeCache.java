@@ -0,0 +1,192 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.auth.ContextAwareAuthScheme;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.MalformedChallengeException;
+import org.apache.http.client.AuthCache;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The authentication scheme of each host, shared by the requests of any number of wagons and threads. HttpClient
+ * puts in the cache the Basic or Digest scheme a host challenged a request with, once the request authenticated, and
+ * the next requests to the host authenticate preemptively with it, with the credentials of their own wagon, instead
+ * of being challenged first. A Digest scheme keeps its nonce, counting its uses.
+ * <p/>
+ * A scheme is used by one request at a time, its state changing as it authenticates.
+ *
+ * @since 2.3
+ */
+public class AuthSchemeCache
+    implements AuthCache
+{
+    private final ConcurrentMap<HttpHost, AuthScheme> schemes = new ConcurrentHashMap<HttpHost, AuthScheme>();
+
+    public void put( HttpHost host, AuthScheme authScheme )
+    {
+        if ( host == null || authScheme == null )
+        {
+            return;
+        }
+        schemes.put( getKey( host ), unwrap( authScheme ) );
+    }
+
+    /**
+     * Caches the scheme unless the host has one already, which may have been learned from the host.
+     */
+    public void putIfAbsent( HttpHost host, AuthScheme authScheme )
+    {
+        schemes.putIfAbsent( getKey( host ), unwrap( authScheme ) );
+    }
+
+    public AuthScheme get( HttpHost host )
+    {
+        AuthScheme authScheme = host != null ? schemes.get( getKey( host ) ) : null;
+        return authScheme != null ? new SynchronizedAuthScheme( authScheme ) : null;
+    }
+
+    public void remove( HttpHost host )
+    {
+        if ( host != null )
+        {
+            schemes.remove( getKey( host ) );
+        }
+    }
+
+    public void clear()
+    {
+        schemes.clear();
+    }
+
+    static HttpHost getKey( HttpHost host )
+    {
+        if ( host.getPort() > 0 )
+        {
+            return host;
+        }
+        int port = "https".equalsIgnoreCase( host.getSchemeName() ) ? 443 : 80;
+        return new HttpHost( host.getHostName(), port, host.getSchemeName() );
+    }
+
+    private static AuthScheme unwrap( AuthScheme authScheme )
+    {
+        return authScheme instanceof SynchronizedAuthScheme
+            ? ( (SynchronizedAuthScheme) authScheme ).authScheme
+            : authScheme;
+    }
+
+    public String toString()
+    {
+        return schemes.toString();
+    }
+
+    /**
+     * A cached scheme, locked while it authenticates or processes a challenge.
+     */
+    private static final class SynchronizedAuthScheme
+        implements ContextAwareAuthScheme
+    {
+        private final AuthScheme authScheme;
+
+        private SynchronizedAuthScheme( AuthScheme authScheme )
+        {
+            this.authScheme = authScheme;
+        }
+
+        public void processChallenge( Header header )
+            throws MalformedChallengeException
+        {
+            synchronized ( authScheme )
+            {
+                authScheme.processChallenge( header );
+            }
+        }
+
+        public String getSchemeName()
+        {
+            return authScheme.getSchemeName();
+        }
+
+        public String getParameter( String name )
+        {
+            synchronized ( authScheme )
+            {
+                return authScheme.getParameter( name );
+            }
+        }
+
+        public String getRealm()
+        {
+            synchronized ( authScheme )
+            {
+                return authScheme.getRealm();
+            }
+        }
+
+        public boolean isConnectionBased()
+        {
+            return authScheme.isConnectionBased();
+        }
+
+        public boolean isComplete()
+        {
+            synchronized ( authScheme )
+            {
+                return authScheme.isComplete();
+            }
+        }
+
+        public Header authenticate( Credentials credentials, HttpRequest request )
+            throws AuthenticationException
+        {
+            synchronized ( authScheme )
+            {
+                return authScheme.authenticate( credentials, request );
+            }
+        }
+
+        public Header authenticate( Credentials credentials, HttpRequest request, HttpContext context )
+            throws AuthenticationException
+        {
+            synchronized ( authScheme )
+            {
+                if ( authScheme instanceof ContextAwareAuthScheme )
+                {
+                    return ( (ContextAwareAuthScheme) authScheme ).authenticate( credentials, request, context );
+                }
+                return authScheme.authenticate( credentials, request );
+            }
+        }
+
+        public String toString()
+        {
+            return authScheme.toString();
+        }
+    }
+}
@@ -39,6 +39,8 @@ public class HttpConfiguration
 
     private HttpMethodConfiguration head;
 
+    private HttpConnectionPoolConfiguration connectionPool;
+
     public HttpMethodConfiguration getAll()
     {
         return all;
@@ -83,6 +85,22 @@ public class HttpConfiguration
         return this;
     }
 
+    /**
+     * @return the configuration of the connection pool of the wagon, or <code>null</code> to use the pool configured
+     *         by the system properties
+     * @since 2.3
+     */
+    public HttpConnectionPoolConfiguration getConnectionPool()
+    {
+        return connectionPool;
+    }
+
+    public HttpConfiguration setConnectionPool( HttpConnectionPoolConfiguration connectionPool )
+    {
+        this.connectionPool = connectionPool;
+        return this;
+    }
+
     public HttpMethodConfiguration getMethodConfiguration( HttpUriRequest method )
     {
         if ( method instanceof HttpGet )
@@ -0,0 +1,225 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of HTTP connections configured by a {@link HttpConnectionPoolConfiguration}, with limits for each host,
+ * a reaper thread closing the idle and the expired connections, and statistics telling how many connections are
+ * in use and how many requests wait for one. The pool can be registered with an MBean server to watch these
+ * statistics while a build runs.
+ * <p/>
+ * The reaper thread runs until {@link #shutdown()}.
+ *
+ * @since 2.3
+ */
+public class HttpConnectionPool
+    extends ThreadSafeClientConnManager
+    implements HttpConnectionPoolMBean
+{
+    private static final ThreadFactory REAPER_THREAD_FACTORY = new ThreadFactory()
+    {
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "wagon-http-pool-reaper" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
+    private final HttpConnectionPoolConfiguration configuration;
+
+    /**
+     * The connections given to requests and not released yet, a connection being released at most once.
+     */
+    private final ConcurrentMap<ManagedClientConnection, Boolean> leasedConnections =
+        new ConcurrentHashMap<ManagedClientConnection, Boolean>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final ScheduledExecutorService reaper;
+
+    public HttpConnectionPool( HttpConnectionPoolConfiguration configuration )
+    {
+        this( SchemeRegistryFactory.createDefault(), configuration );
+    }
+
+    /**
+     * @param schemeRegistry the schemes of the connections, like an <code>https</code> scheme with its own trust
+     * @param configuration  the configuration of the pool, copied so that later changes do not apply to this pool
+     */
+    public HttpConnectionPool( SchemeRegistry schemeRegistry, HttpConnectionPoolConfiguration configuration )
+    {
+        super( schemeRegistry, configuration.getTimeToLive() > 0 ? configuration.getTimeToLive() : -1,
+               TimeUnit.MILLISECONDS );
+
+        this.configuration = configuration.copy();
+
+        setMaxTotal( configuration.getMaxTotal() );
+        setDefaultMaxPerRoute( configuration.getMaxPerRoute() );
+
+        long interval = configuration.getReaperInterval();
+        if ( interval > 0 )
+        {
+            reaper = Executors.newSingleThreadScheduledExecutor( REAPER_THREAD_FACTORY );
+            reaper.scheduleWithFixedDelay( new Runnable()
+            {
+                public void run()
+                {
+                    closeIdleAndExpiredConnections();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS );
+        }
+        else
+        {
+            reaper = null;
+        }
+    }
+
+    /**
+     * @return a copy of the configuration of this pool
+     */
+    public HttpConnectionPoolConfiguration getConfiguration()
+    {
+        return configuration.copy();
+    }
+
+    /**
+     * @return whether the connections are checked before each reuse, rather than closed after some inactivity
+     */
+    public boolean isStaleCheckingEnabled()
+    {
+        return configuration.getValidateAfterInactivity() <= 0;
+    }
+
+    /**
+     * Closes the connections whose keep-alive or time to live expired, and those nobody used for longer than the idle
+     * timeout. The reaper calls this regularly.
+     */
+    public void closeIdleAndExpiredConnections()
+    {
+        closeExpiredConnections();
+
+        if ( configuration.getIdleTimeout() > 0 )
+        {
+            closeIdleConnections( configuration.getIdleTimeout(), TimeUnit.MILLISECONDS );
+        }
+    }
+
+    public ClientConnectionRequest requestConnection( HttpRoute route, Object state )
+    {
+        if ( !configuration.getMaxPerHost().isEmpty() )
+        {
+            HttpHost target = route.getTargetHost();
+            int max = configuration.getMaxForHost( target.getHostName(), target.getPort() );
+            if ( max != getMaxForRoute( route ) )
+            {
+                setMaxForRoute( route, max );
+            }
+        }
+
+        if ( !isStaleCheckingEnabled() )
+        {
+            closeIdleConnections( configuration.getValidateAfterInactivity(), TimeUnit.MILLISECONDS );
+        }
+
+        final ClientConnectionRequest request = super.requestConnection( route, state );
+
+        return new ClientConnectionRequest()
+        {
+            public ManagedClientConnection getConnection( long timeout, TimeUnit unit )
+                throws InterruptedException, ConnectionPoolTimeoutException
+            {
+                pendingCount.incrementAndGet();
+                try
+                {
+                    ManagedClientConnection connection = request.getConnection( timeout, unit );
+                    leasedConnections.put( connection, Boolean.TRUE );
+                    return connection;
+                }
+                finally
+                {
+                    pendingCount.decrementAndGet();
+                }
+            }
+
+            public void abortRequest()
+            {
+                request.abortRequest();
+            }
+        };
+    }
+
+    public void releaseConnection( ManagedClientConnection connection, long validDuration, TimeUnit timeUnit )
+    {
+        super.releaseConnection( connection, validDuration, timeUnit );
+
+        leasedConnections.remove( connection );
+    }
+
+    public void shutdown()
+    {
+        if ( reaper != null )
+        {
+            reaper.shutdownNow();
+        }
+
+        super.shutdown();
+
+        leasedConnections.clear();
+    }
+
+    public int getLeasedCount()
+    {
+        return leasedConnections.size();
+    }
+
+    public int getAvailableCount()
+    {
+        return Math.max( 0, getConnectionsInPool() - getLeasedCount() );
+    }
+
+    public int getPendingCount()
+    {
+        return pendingCount.get();
+    }
+
+    public String toString()
+    {
+        return "leased " + getLeasedCount() + ", available " + getAvailableCount() + ", pending " + getPendingCount()
+            + " (" + configuration + ")";
+    }
+}
@@ -0,0 +1,226 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Properties;
+
+/**
+ * The configuration of a {@link HttpConnectionPool}: how many connections it keeps, to each host and in all, and
+ * when it closes the connections which are not used. Wagons whose {@link HttpConfiguration} has equal pool
+ * configurations share the same pool.
+ * <p/>
+ * The defaults come from the <code>maven.wagon.httpconnectionManager.*</code> system properties, which also
+ * configure the pool of the wagons without a pool configuration.
+ *
+ * @since 2.3
+ */
+public class HttpConnectionPoolConfiguration
+{
+
+    private int maxTotal = Integer.getInteger( "maven.wagon.httpconnectionManager.maxTotal", 40 );
+
+    private int maxPerRoute = Integer.getInteger( "maven.wagon.httpconnectionManager.maxPerRoute", 20 );
+
+    private Properties maxPerHost = new Properties();
+
+    private long idleTimeout = Long.getLong( "maven.wagon.httpconnectionManager.idleTimeout", 60000L );
+
+    private long reaperInterval = Long.getLong( "maven.wagon.httpconnectionManager.reaperInterval", 10000L );
+
+    private long timeToLive = Long.getLong( "maven.wagon.httpconnectionManager.timeToLive", -1L );
+
+    private long validateAfterInactivity =
+        Long.getLong( "maven.wagon.httpconnectionManager.validateAfterInactivity", -1L );
+
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+    /**
+     * @param maxTotal the maximum number of connections of the pool, to all the hosts
+     */
+    public HttpConnectionPoolConfiguration setMaxTotal( int maxTotal )
+    {
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    public int getMaxPerRoute()
+    {
+        return maxPerRoute;
+    }
+
+    /**
+     * @param maxPerRoute the maximum number of connections to a host without its own maximum
+     */
+    public HttpConnectionPoolConfiguration setMaxPerRoute( int maxPerRoute )
+    {
+        this.maxPerRoute = maxPerRoute;
+        return this;
+    }
+
+    /**
+     * @param host the name of the host, optionally followed by <code>:<i>port</i></code> for that port only
+     * @param max  the maximum number of connections to that host
+     */
+    public HttpConnectionPoolConfiguration addMaxPerHost( String host, int max )
+    {
+        maxPerHost.setProperty( host, Integer.toString( max ) );
+        return this;
+    }
+
+    public Properties getMaxPerHost()
+    {
+        return maxPerHost;
+    }
+
+    public HttpConnectionPoolConfiguration setMaxPerHost( Properties maxPerHost )
+    {
+        this.maxPerHost = maxPerHost;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of connections to the host, from {@link #getMaxPerHost()} with or without the port,
+     *         or {@link #getMaxPerRoute()}
+     */
+    public int getMaxForHost( String host, int port )
+    {
+        String max = maxPerHost.getProperty( host + ":" + port );
+        if ( max == null )
+        {
+            max = maxPerHost.getProperty( host );
+        }
+        return max != null ? Integer.parseInt( max.trim() ) : maxPerRoute;
+    }
+
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout the time after which the reaper closes a connection nobody used, in milliseconds,
+     *                    <code>0</code> or less to keep them until the server closes them
+     */
+    public HttpConnectionPoolConfiguration setIdleTimeout( long idleTimeout )
+    {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public long getReaperInterval()
+    {
+        return reaperInterval;
+    }
+
+    /**
+     * @param reaperInterval the time between two runs of the reaper closing the idle and the expired connections, in
+     *                       milliseconds, <code>0</code> or less for no reaper
+     */
+    public HttpConnectionPoolConfiguration setReaperInterval( long reaperInterval )
+    {
+        this.reaperInterval = reaperInterval;
+        return this;
+    }
+
+    public long getTimeToLive()
+    {
+        return timeToLive;
+    }
+
+    /**
+     * @param timeToLive the time after which a connection is not reused, however busy, in milliseconds,
+     *                   <code>0</code> or less for no limit
+     */
+    public HttpConnectionPoolConfiguration setTimeToLive( long timeToLive )
+    {
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    public long getValidateAfterInactivity()
+    {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * Checking that a pooled connection was not closed by the server costs a blocking read before each request.
+     * With a positive value, the connections idle for longer are closed rather than checked when a connection is
+     * leased, and the others are reused without a check.
+     *
+     * @param validateAfterInactivity the idle time in milliseconds after which a connection is not trusted anymore,
+     *                                <code>0</code> or less to check every connection before its reuse
+     */
+    public HttpConnectionPoolConfiguration setValidateAfterInactivity( long validateAfterInactivity )
+    {
+        this.validateAfterInactivity = validateAfterInactivity;
+        return this;
+    }
+
+    HttpConnectionPoolConfiguration copy()
+    {
+        HttpConnectionPoolConfiguration copy = new HttpConnectionPoolConfiguration();
+        copy.maxTotal = maxTotal;
+        copy.maxPerRoute = maxPerRoute;
+        copy.maxPerHost = new Properties();
+        copy.maxPerHost.putAll( maxPerHost );
+        copy.idleTimeout = idleTimeout;
+        copy.reaperInterval = reaperInterval;
+        copy.timeToLive = timeToLive;
+        copy.validateAfterInactivity = validateAfterInactivity;
+        return copy;
+    }
+
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof HttpConnectionPoolConfiguration ) )
+        {
+            return false;
+        }
+        HttpConnectionPoolConfiguration that = (HttpConnectionPoolConfiguration) obj;
+        return maxTotal == that.maxTotal && maxPerRoute == that.maxPerRoute && idleTimeout == that.idleTimeout
+            && reaperInterval == that.reaperInterval && timeToLive == that.timeToLive
+            && validateAfterInactivity == that.validateAfterInactivity && maxPerHost.equals( that.maxPerHost );
+    }
+
+    public int hashCode()
+    {
+        int result = maxTotal;
+        result = 31 * result + maxPerRoute;
+        result = 31 * result + maxPerHost.hashCode();
+        result = 31 * result + (int) ( idleTimeout ^ ( idleTimeout >>> 32 ) );
+        result = 31 * result + (int) ( reaperInterval ^ ( reaperInterval >>> 32 ) );
+        result = 31 * result + (int) ( timeToLive ^ ( timeToLive >>> 32 ) );
+        result = 31 * result + (int) ( validateAfterInactivity ^ ( validateAfterInactivity >>> 32 ) );
+        return result;
+    }
+
+    public String toString()
+    {
+        return "max " + maxTotal + ", " + maxPerRoute + " per route" + ( maxPerHost.isEmpty() ? "" : " " + maxPerHost )
+            + ", idle timeout " + idleTimeout + " ms";
+    }
+}
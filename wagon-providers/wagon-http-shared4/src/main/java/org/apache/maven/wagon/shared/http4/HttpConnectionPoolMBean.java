@@ -0,0 +1,47 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * The JMX view of a {@link HttpConnectionPool}, to tell whether transfers wait for connections.
+ *
+ * @since 2.3
+ */
+public interface HttpConnectionPoolMBean
+{
+    /**
+     * @return the number of connections in use by a request
+     */
+    int getLeasedCount();
+
+    /**
+     * @return the number of open connections waiting in the pool for a request
+     */
+    int getAvailableCount();
+
+    /**
+     * @return the number of requests waiting for a connection, the pool or their route being full
+     */
+    int getPendingCount();
+
+    int getMaxTotal();
+
+    int getDefaultMaxPerRoute();
+}
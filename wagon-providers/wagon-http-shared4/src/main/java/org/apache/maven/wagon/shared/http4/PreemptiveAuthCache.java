@@ -0,0 +1,85 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.client.AuthCache;
+import org.apache.http.impl.auth.BasicScheme;
+
+/**
+ * The authentication cache of a single request which authenticates with the Basic scheme from the start, unless its
+ * host is known to challenge with another scheme. The Basic scheme only lives as long as the request; the schemes
+ * learned from challenges go to the shared cache, for the next requests of all the wagons.
+ *
+ * @since 2.3
+ */
+final class PreemptiveAuthCache
+    implements AuthCache
+{
+    private final AuthSchemeCache shared;
+
+    private final HttpHost host;
+
+    private final AuthScheme preemptiveScheme = new BasicScheme();
+
+    /**
+     * @param shared the cache of the schemes learned from the hosts
+     * @param host   the host the request authenticates with preemptively
+     */
+    PreemptiveAuthCache( AuthSchemeCache shared, HttpHost host )
+    {
+        this.shared = shared;
+        this.host = AuthSchemeCache.getKey( host );
+    }
+
+    public void put( HttpHost host, AuthScheme authScheme )
+    {
+        if ( authScheme != preemptiveScheme )
+        {
+            shared.put( host, authScheme );
+        }
+    }
+
+    public AuthScheme get( HttpHost host )
+    {
+        AuthScheme authScheme = shared.get( host );
+        if ( authScheme == null && host != null && this.host.equals( AuthSchemeCache.getKey( host ) ) )
+        {
+            authScheme = preemptiveScheme;
+        }
+        return authScheme;
+    }
+
+    public void remove( HttpHost host )
+    {
+        shared.remove( host );
+    }
+
+    public void clear()
+    {
+        shared.clear();
+    }
+
+    public String toString()
+    {
+        return shared + " with " + preemptiveScheme + " for " + host;
+    }
+}
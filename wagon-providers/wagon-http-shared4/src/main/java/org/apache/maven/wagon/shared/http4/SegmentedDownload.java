@@ -0,0 +1,261 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.BufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A download split into consecutive segments of a preallocated file, each one written by its own thread with
+ * positional writes while the thread which started the download follows the progress.
+ *
+ * @since 2.3
+ */
+final class SegmentedDownload
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final BufferPool bufferPool;
+
+    /**
+     * Offset of the first byte of each segment, followed by the length of the file.
+     */
+    private final long[] bounds;
+
+    private final AtomicLongArray written;
+
+    private final CountDownLatch finished;
+
+    private final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+
+    SegmentedDownload( FileChannel channel, long length, int segments, BufferPool bufferPool )
+    {
+        this.channel = channel;
+        this.bufferPool = bufferPool;
+
+        bounds = new long[segments + 1];
+        for ( int i = 0; i <= segments; i++ )
+        {
+            bounds[i] = length / segments * i;
+        }
+        bounds[segments] = length;
+
+        written = new AtomicLongArray( segments );
+        finished = new CountDownLatch( segments );
+    }
+
+    int getSegments()
+    {
+        return bounds.length - 1;
+    }
+
+    /**
+     * @return the offset of the first byte of the segment
+     */
+    long getStart( int segment )
+    {
+        return bounds[segment];
+    }
+
+    /**
+     * @return the offset of the last byte of the segment
+     */
+    long getEnd( int segment )
+    {
+        return bounds[segment + 1] - 1;
+    }
+
+    /**
+     * @return the length of the file
+     */
+    long getLength()
+    {
+        return bounds[bounds.length - 1];
+    }
+
+    /**
+     * Writes the content of a segment, read from the given input, to its place in the file. Only the bytes of the
+     * segment are read.
+     */
+    void write( int segment, InputStream input )
+        throws IOException
+    {
+        long position = bounds[segment];
+        long end = bounds[segment + 1];
+
+        byte[] buffer = bufferPool.acquire( (int) Math.min( end - position, BUFFER_SIZE ) );
+        try
+        {
+            while ( position < end )
+            {
+                if ( failure.get() != null )
+                {
+                    throw new InterruptedIOException( "Another segment failed" );
+                }
+
+                int n = input.read( buffer, 0, (int) Math.min( buffer.length, end - position ) );
+                if ( n == -1 )
+                {
+                    throw new EOFException(
+                        "Segment " + segment + " ended at byte " + position + " instead of " + end );
+                }
+
+                ByteBuffer content = ByteBuffer.wrap( buffer, 0, n );
+                while ( content.hasRemaining() )
+                {
+                    position += channel.write( content, position );
+                }
+
+                written.addAndGet( segment, n );
+            }
+        }
+        finally
+        {
+            bufferPool.release( buffer );
+        }
+    }
+
+    /**
+     * Records why a segment could not be downloaded; only the first failure is kept.
+     */
+    void fail( Exception e )
+    {
+        IOException ioe;
+        if ( e instanceof IOException )
+        {
+            ioe = (IOException) e;
+        }
+        else
+        {
+            ioe = new IOException( e.getMessage() );
+            ioe.initCause( e );
+        }
+        failure.compareAndSet( null, ioe );
+    }
+
+    /**
+     * To be called by the thread of each segment once it is done, successfully or not.
+     */
+    void segmentFinished()
+    {
+        finished.countDown();
+    }
+
+    /**
+     * Waits for all the segments to finish, at most the given time.
+     *
+     * @return whether all the segments are finished
+     * @throws IOException the failure of a segment, if any
+     */
+    boolean await( long millis )
+        throws IOException
+    {
+        boolean done;
+        try
+        {
+            done = finished.await( millis, TimeUnit.MILLISECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            InterruptedIOException interrupted = new InterruptedIOException( "Interrupted while downloading" );
+            fail( interrupted );
+            throw interrupted;
+        }
+
+        IOException e = failure.get();
+        if ( e != null )
+        {
+            throw e;
+        }
+        return done;
+    }
+
+    /**
+     * @return the number of bytes written so far, in all the segments
+     */
+    long getTransferred()
+    {
+        long transferred = 0;
+        for ( int i = 0; i < written.length(); i++ )
+        {
+            transferred += written.get( i );
+        }
+        return transferred;
+    }
+
+    /**
+     * @return the number of bytes written so far from the beginning of the file without any gap
+     */
+    long getContiguous()
+    {
+        for ( int i = 0; i < written.length(); i++ )
+        {
+            long segmentWritten = written.get( i );
+            if ( bounds[i] + segmentWritten < bounds[i + 1] )
+            {
+                return bounds[i] + segmentWritten;
+            }
+        }
+        return bounds[bounds.length - 1];
+    }
+
+    /**
+     * Writes content to the file outside of any segment, once they are given up.
+     */
+    void write( byte[] buffer, int length, long position )
+        throws IOException
+    {
+        ByteBuffer content = ByteBuffer.wrap( buffer, 0, length );
+        while ( content.hasRemaining() )
+        {
+            channel.write( content, position + content.position() );
+        }
+    }
+
+    /**
+     * Reads back written content of the file.
+     */
+    void read( byte[] buffer, int length, long position )
+        throws IOException
+    {
+        ByteBuffer content = ByteBuffer.wrap( buffer, 0, length );
+        while ( content.hasRemaining() )
+        {
+            if ( channel.read( content, position + content.position() ) == -1 )
+            {
+                throw new EOFException( "Unexpected end of file at byte " + ( position + content.position() ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScheme;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.auth.DigestScheme;
+import org.apache.http.message.BasicHeader;
+
+public class AuthSchemeCacheTest
+    extends TestCase
+{
+    public void testDefaultPortIsTheSameHost()
+    {
+        AuthSchemeCache cache = new AuthSchemeCache();
+        cache.put( new HttpHost( "repo.example.com", -1, "https" ), new BasicScheme() );
+
+        assertNotNull( cache.get( new HttpHost( "repo.example.com", 443, "https" ) ) );
+        assertNull( cache.get( new HttpHost( "repo.example.com", 80, "http" ) ) );
+
+        cache.remove( new HttpHost( "repo.example.com", 443, "https" ) );
+        assertNull( cache.get( new HttpHost( "repo.example.com", -1, "https" ) ) );
+    }
+
+    public void testLearnedSchemeIsKept()
+        throws Exception
+    {
+        AuthSchemeCache cache = new AuthSchemeCache();
+        HttpHost host = new HttpHost( "repo.example.com", 8081, "http" );
+
+        DigestScheme digest = new DigestScheme();
+        digest.processChallenge( new BasicHeader( "WWW-Authenticate", "Digest realm=\"nexus\", nonce=\"abc\"" ) );
+        cache.put( host, digest );
+
+        cache.putIfAbsent( host, new BasicScheme() );
+
+        AuthScheme cached = cache.get( host );
+        assertEquals( "digest", cached.getSchemeName().toLowerCase() );
+        assertEquals( "abc", cached.getParameter( "nonce" ) );
+
+        // the request caches the scheme it authenticated with, the wrapper of the cached one
+        cache.put( host, cached );
+        assertEquals( "abc", cache.get( host ).getParameter( "nonce" ) );
+    }
+
+    public void testCachedSchemeAuthenticates()
+        throws Exception
+    {
+        AuthSchemeCache cache = new AuthSchemeCache();
+        HttpHost host = new HttpHost( "repo.example.com", 80, "http" );
+        cache.putIfAbsent( host, new BasicScheme() );
+
+        AuthScheme cached = cache.get( host );
+        assertEquals( "Basic dXNlcjpwYXNz", cached.authenticate( new UsernamePasswordCredentials( "user", "pass" ),
+                                                                 new HttpGet( "http://repo.example.com/" ) ).getValue() );
+    }
+
+    public void testPreemptiveSchemeStaysInTheRequest()
+    {
+        AuthSchemeCache cache = new AuthSchemeCache();
+        HttpHost host = new HttpHost( "repo.example.com", -1, "http" );
+
+        PreemptiveAuthCache requestCache = new PreemptiveAuthCache( cache, host );
+        AuthScheme preemptive = requestCache.get( new HttpHost( "repo.example.com", 80, "http" ) );
+        assertEquals( "basic", preemptive.getSchemeName().toLowerCase() );
+        assertNull( requestCache.get( new HttpHost( "other.example.com", 80, "http" ) ) );
+
+        // the request caches the scheme it authenticated with
+        requestCache.put( host, preemptive );
+        assertNull( cache.get( host ) );
+    }
+
+    public void testLearnedSchemeWinsOverPreemptive()
+        throws Exception
+    {
+        AuthSchemeCache cache = new AuthSchemeCache();
+        HttpHost host = new HttpHost( "repo.example.com", 8081, "http" );
+
+        PreemptiveAuthCache requestCache = new PreemptiveAuthCache( cache, host );
+
+        DigestScheme digest = new DigestScheme();
+        digest.processChallenge( new BasicHeader( "WWW-Authenticate", "Digest realm=\"nexus\", nonce=\"abc\"" ) );
+        requestCache.put( host, digest );
+
+        assertEquals( "abc", cache.get( host ).getParameter( "nonce" ) );
+        assertEquals( "digest", requestCache.get( host ).getSchemeName().toLowerCase() );
+        assertEquals( "digest", new PreemptiveAuthCache( cache, host ).get( host ).getSchemeName().toLowerCase() );
+    }
+}
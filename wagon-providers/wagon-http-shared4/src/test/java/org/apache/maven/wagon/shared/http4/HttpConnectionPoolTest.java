@@ -0,0 +1,121 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.TransferFailedException;
+
+import java.util.concurrent.TimeUnit;
+
+public class HttpConnectionPoolTest
+    extends TestCase
+{
+    public void testMaxForHost()
+    {
+        HttpConnectionPoolConfiguration configuration =
+            new HttpConnectionPoolConfiguration().setMaxPerRoute( 5 ).addMaxPerHost( "repo.example.com", 10 )
+                .addMaxPerHost( "repo.example.com:8080", 2 );
+
+        assertEquals( 10, configuration.getMaxForHost( "repo.example.com", 443 ) );
+        assertEquals( 2, configuration.getMaxForHost( "repo.example.com", 8080 ) );
+        assertEquals( 5, configuration.getMaxForHost( "other.example.com", 443 ) );
+    }
+
+    public void testConfigurationEquality()
+    {
+        HttpConnectionPoolConfiguration configuration =
+            new HttpConnectionPoolConfiguration().setMaxTotal( 7 ).addMaxPerHost( "repo.example.com", 3 );
+        HttpConnectionPoolConfiguration copy = configuration.copy();
+
+        assertEquals( configuration, copy );
+        assertEquals( configuration.hashCode(), copy.hashCode() );
+
+        copy.addMaxPerHost( "other.example.com", 3 );
+        assertFalse( configuration.equals( copy ) );
+        assertFalse( configuration.equals( new HttpConnectionPoolConfiguration() ) );
+    }
+
+    public void testStatistics()
+        throws Exception
+    {
+        HttpConnectionPool pool = new HttpConnectionPool(
+            new HttpConnectionPoolConfiguration().setMaxTotal( 4 ).setMaxPerRoute( 1 ).addMaxPerHost( "busy", 2 ) );
+        try
+        {
+            HttpRoute route = new HttpRoute( new HttpHost( "busy", 80 ) );
+
+            ManagedClientConnection first = pool.requestConnection( route, null ).getConnection( 1, TimeUnit.SECONDS );
+            ManagedClientConnection second = pool.requestConnection( route, null ).getConnection( 1, TimeUnit.SECONDS );
+
+            assertEquals( 2, pool.getMaxForRoute( route ) );
+            assertEquals( 2, pool.getLeasedCount() );
+            assertEquals( 0, pool.getAvailableCount() );
+            assertEquals( 0, pool.getPendingCount() );
+
+            pool.releaseConnection( first, -1, TimeUnit.MILLISECONDS );
+            pool.releaseConnection( first, -1, TimeUnit.MILLISECONDS );
+
+            assertEquals( 1, pool.getLeasedCount() );
+
+            pool.releaseConnection( second, -1, TimeUnit.MILLISECONDS );
+
+            assertEquals( 0, pool.getLeasedCount() );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    public void testWagonsShareThePoolOfEqualConfigurations()
+    {
+        TestWagon wagon = new TestWagon();
+        wagon.setHttpConfiguration( new HttpConfiguration().setConnectionPool(
+            new HttpConnectionPoolConfiguration().setMaxTotal( 3 ).setReaperInterval( 0 ) ) );
+        TestWagon other = new TestWagon();
+        other.setHttpConfiguration( new HttpConfiguration().setConnectionPool(
+            new HttpConnectionPoolConfiguration().setMaxTotal( 3 ).setReaperInterval( 0 ) ) );
+
+        HttpConnectionPool pool = (HttpConnectionPool) wagon.getConnectionManager();
+        assertSame( pool, other.getConnectionManager() );
+        assertEquals( 3, pool.getMaxTotal() );
+
+        assertNotSame( pool, new TestWagon().getConnectionManager() );
+
+        HttpConnectionPool own = new HttpConnectionPool( new HttpConnectionPoolConfiguration().setReaperInterval( 0 ) );
+        wagon.setConnectionPool( own );
+        assertSame( own, wagon.getConnectionManager() );
+        own.shutdown();
+    }
+
+    private static final class TestWagon
+        extends AbstractHttpClientWagon
+    {
+        public void fillOutputData( OutputData outputData )
+            throws TransferFailedException
+        {
+
+        }
+    }
+}
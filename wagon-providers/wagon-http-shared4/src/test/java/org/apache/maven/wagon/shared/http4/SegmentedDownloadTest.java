@@ -0,0 +1,158 @@
+package org.apache.maven.wagon.shared.http4;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.wagon.DefaultBufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SegmentedDownloadTest
+    extends TestCase
+{
+    private File file;
+
+    private RandomAccessFile randomAccessFile;
+
+    protected void setUp()
+        throws Exception
+    {
+        file = File.createTempFile( "wagon", "segmented" );
+        randomAccessFile = new RandomAccessFile( file, "rw" );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        randomAccessFile.close();
+        file.delete();
+    }
+
+    public void testSegmentBounds()
+    {
+        SegmentedDownload download = newDownload( 10, 3 );
+
+        assertEquals( 3, download.getSegments() );
+        assertEquals( 0, download.getStart( 0 ) );
+        assertEquals( 2, download.getEnd( 0 ) );
+        assertEquals( 3, download.getStart( 1 ) );
+        assertEquals( 5, download.getEnd( 1 ) );
+        assertEquals( 6, download.getStart( 2 ) );
+        assertEquals( 9, download.getEnd( 2 ) );
+    }
+
+    public void testConcurrentSegmentsAreReadBackInOrder()
+        throws Exception
+    {
+        final byte[] content = new byte[1024 * 1024 + 7];
+        new Random( 1 ).nextBytes( content );
+
+        final SegmentedDownload download = newDownload( content.length, 4 );
+
+        for ( int i = 0; i < download.getSegments(); i++ )
+        {
+            final int segment = i;
+            // the first segment comes with the rest of the content, like the response to the initial request
+            final InputStream input = segment == 0
+                ? new ByteArrayInputStream( content )
+                : new ByteArrayInputStream( content, (int) download.getStart( segment ),
+                                            (int) ( download.getEnd( segment ) - download.getStart( segment ) + 1 ) );
+            new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        download.write( segment, input );
+                    }
+                    catch ( IOException e )
+                    {
+                        download.fail( e );
+                    }
+                    finally
+                    {
+                        download.segmentFinished();
+                    }
+                }
+            } ).start();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        long read = 0;
+        boolean finished;
+        do
+        {
+            finished = download.await( 10 );
+
+            for ( long contiguous = download.getContiguous(); read < contiguous; )
+            {
+                int n = (int) Math.min( buffer.length, contiguous - read );
+                download.read( buffer, n, read );
+                output.write( buffer, 0, n );
+                read += n;
+            }
+        }
+        while ( !finished );
+
+        assertEquals( content.length, download.getTransferred() );
+        assertTrue( Arrays.equals( content, output.toByteArray() ) );
+    }
+
+    public void testShortSegmentFails()
+        throws Exception
+    {
+        SegmentedDownload download = newDownload( 100, 2 );
+
+        try
+        {
+            download.write( 1, new ByteArrayInputStream( new byte[10] ) );
+            fail();
+        }
+        catch ( EOFException e )
+        {
+            download.fail( e );
+        }
+        download.segmentFinished();
+
+        try
+        {
+            download.await( 10 );
+            fail();
+        }
+        catch ( EOFException e )
+        {
+            assertTrue( true );
+        }
+    }
+
+    private SegmentedDownload newDownload( long length, int segments )
+    {
+        return new SegmentedDownload( randomAccessFile.getChannel(), length, segments, new DefaultBufferPool() );
+    }
+}
@@ -0,0 +1,239 @@
+package org.apache.maven.wagon.providers.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.FileTestUtils;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.events.ProgressAwareTransferListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.IOUtil;
+import org.mortbay.jetty.servlet.ServletHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Segmented downloads of the http wagon against a server which serves ranges, or does not.
+ */
+public class HttpWagonSegmentedGetTest
+    extends HttpWagonHttpServerTestCase
+{
+    private static final int SEGMENTS = 3;
+
+    private static final int SEGMENT_LENGTH = 1024 * 1024 + 7;
+
+    private byte[] content;
+
+    private RangeServlet servlet;
+
+    private File destination;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        content = new byte[SEGMENTS * SEGMENT_LENGTH];
+        new Random( 1 ).nextBytes( content );
+
+        servlet = new RangeServlet( content );
+        context.addServlet( new ServletHolder( servlet ), "/*" );
+        startServer();
+
+        destination = FileTestUtils.createUniqueFile( getName(), getName() );
+        destination.deleteOnExit();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        stopServer();
+        destination.delete();
+
+        super.tearDown();
+    }
+
+    public void testSegmentedGet()
+        throws Exception
+    {
+        ContentListener listener = new ContentListener();
+
+        get( listener );
+
+        assertTrue( Arrays.equals( content, readDestination() ) );
+        assertTrue( "content reported in order", Arrays.equals( content, listener.getContent() ) );
+
+        List<String> ranges = servlet.getRanges();
+        assertEquals( SEGMENTS, ranges.size() );
+        assertEquals( 1, Collections.frequency( ranges, null ) );
+        assertTrue( ranges.contains( "bytes=" + SEGMENT_LENGTH + "-" + ( 2 * SEGMENT_LENGTH - 1 ) ) );
+        assertTrue( ranges.contains( "bytes=" + 2 * SEGMENT_LENGTH + "-" + ( 3 * SEGMENT_LENGTH - 1 ) ) );
+
+        assertEquals( 1, Collections.frequency( servlet.getIfRanges(), null ) );
+        assertEquals( SEGMENTS - 1, Collections.frequency( servlet.getIfRanges(), RangeServlet.ETAG ) );
+    }
+
+    public void testSegmentedGetFallsBackToSingleRequestWhenRangesAreIgnored()
+        throws Exception
+    {
+        servlet.setIgnoreRanges( true );
+        ContentListener listener = new ContentListener();
+
+        get( listener );
+
+        assertTrue( Arrays.equals( content, readDestination() ) );
+        assertTrue( "content reported once, in order", Arrays.equals( content, listener.getContent() ) );
+
+        // the initial request and the one for the rest of the resource
+        assertEquals( 2, Collections.frequency( servlet.getRanges(), null ) );
+    }
+
+    public void testSegmentedGetFallsBackWithoutContentListener()
+        throws Exception
+    {
+        servlet.setIgnoreRanges( true );
+        CountListener listener = new CountListener();
+
+        get( listener );
+
+        assertTrue( Arrays.equals( content, readDestination() ) );
+        assertEquals( content.length, listener.transferred );
+    }
+
+    public void testSegmentWithWrongContentRange()
+        throws Exception
+    {
+        servlet.setRangeShift( 1 );
+
+        try
+        {
+            get( new ContentListener() );
+            fail();
+        }
+        catch ( TransferFailedException e )
+        {
+            assertFalse( destination.exists() );
+        }
+    }
+
+    public void testResourceChangedDuringSegmentedGet()
+        throws Exception
+    {
+        servlet.setChangedEtag( "\"changed\"" );
+
+        try
+        {
+            get( new ContentListener() );
+            fail();
+        }
+        catch ( TransferFailedException e )
+        {
+            assertFalse( destination.exists() );
+        }
+    }
+
+    private void get( AbstractTransferListener listener )
+        throws Exception
+    {
+        HttpWagon wagon = (HttpWagon) getWagon();
+        wagon.setSegmentedGetCount( SEGMENTS );
+        wagon.setSegmentedGetThreshold( 0 );
+        wagon.addTransferListener( listener );
+
+        Repository testRepository = new Repository();
+        testRepository.setUrl( "http://localhost:" + httpServerPort );
+
+        wagon.connect( testRepository );
+        try
+        {
+            wagon.get( "segmented", destination );
+        }
+        finally
+        {
+            wagon.disconnect();
+        }
+    }
+
+    private byte[] readDestination()
+        throws IOException
+    {
+        InputStream input = new FileInputStream( destination );
+        try
+        {
+            return IOUtil.toByteArray( input );
+        }
+        finally
+        {
+            IOUtil.close( input );
+        }
+    }
+
+    private static class ContentListener
+        extends AbstractTransferListener
+    {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        public void transferStarted( TransferEvent transferEvent )
+        {
+            content.reset();
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+            content.write( buffer, 0, length );
+        }
+
+        byte[] getContent()
+        {
+            return content.toByteArray();
+        }
+    }
+
+    private static class CountListener
+        extends AbstractTransferListener
+        implements ProgressAwareTransferListener
+    {
+        private long transferred;
+
+        public long getProgressByteInterval()
+        {
+            return 0;
+        }
+
+        public long getProgressTimeInterval()
+        {
+            return 0;
+        }
+
+        public void transferProgress( TransferEvent transferEvent, long transferred )
+        {
+            this.transferred = transferred;
+        }
+    }
+}
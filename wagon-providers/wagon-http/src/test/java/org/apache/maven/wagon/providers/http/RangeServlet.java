@@ -0,0 +1,128 @@
+package org.apache.maven.wagon.providers.http;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serves a single resource with a strong entity tag, honouring <code>Range</code> requests guarded by
+ * <code>If-Range</code>, and records the headers of these requests.
+ */
+public class RangeServlet
+    extends HttpServlet
+{
+    static final String ETAG = "\"segmented\"";
+
+    private final byte[] content;
+
+    private final List<String> ranges = Collections.synchronizedList( new ArrayList<String>() );
+
+    private final List<String> ifRanges = Collections.synchronizedList( new ArrayList<String>() );
+
+    private boolean ignoreRanges;
+
+    private int rangeShift;
+
+    private String changedEtag;
+
+    public RangeServlet( byte[] content )
+    {
+        this.content = content;
+    }
+
+    /**
+     * Sends the whole resource whatever the range asked for.
+     */
+    public void setIgnoreRanges( boolean ignoreRanges )
+    {
+        this.ignoreRanges = ignoreRanges;
+    }
+
+    /**
+     * Sends ranges starting that many bytes after the requested one.
+     */
+    public void setRangeShift( int rangeShift )
+    {
+        this.rangeShift = rangeShift;
+    }
+
+    /**
+     * Serves another version of the resource to the requests for a range.
+     */
+    public void setChangedEtag( String changedEtag )
+    {
+        this.changedEtag = changedEtag;
+    }
+
+    /**
+     * @return the <code>Range</code> header of each request, <code>null</code> for the requests without one
+     */
+    public List<String> getRanges()
+    {
+        return ranges;
+    }
+
+    /**
+     * @return the <code>If-Range</code> header of each request, <code>null</code> for the requests without one
+     */
+    public List<String> getIfRanges()
+    {
+        return ifRanges;
+    }
+
+    public void service( HttpServletRequest request, HttpServletResponse response )
+        throws ServletException, IOException
+    {
+        String range = request.getHeader( "Range" );
+        String ifRange = request.getHeader( "If-Range" );
+        ranges.add( range );
+        ifRanges.add( ifRange );
+
+        String etag = range != null && changedEtag != null ? changedEtag : ETAG;
+
+        response.setHeader( "Accept-Ranges", "bytes" );
+        response.setHeader( "ETag", etag );
+
+        if ( range != null && !ignoreRanges && etag.equals( ifRange ) )
+        {
+            String[] bounds = range.substring( "bytes=".length() ).split( "-" );
+            int start = Integer.parseInt( bounds[0] ) + rangeShift;
+            int end = Integer.parseInt( bounds[1] );
+
+            response.setStatus( HttpServletResponse.SC_PARTIAL_CONTENT );
+            response.setHeader( "Content-Range", "bytes " + start + "-" + end + "/" + content.length );
+            response.setContentLength( end - start + 1 );
+            response.getOutputStream().write( content, start, end - start + 1 );
+        }
+        else
+        {
+            response.setStatus( HttpServletResponse.SC_OK );
+            response.setContentLength( content.length );
+            response.getOutputStream().write( content );
+        }
+    }
+}
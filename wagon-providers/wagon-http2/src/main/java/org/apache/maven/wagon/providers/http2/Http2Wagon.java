@@ -0,0 +1,926 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.OutputData;
+import org.apache.maven.wagon.ParsedUrl;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamContent;
+import org.apache.maven.wagon.StreamWagon;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.repository.Repository;
+import org.apache.maven.wagon.resource.Resource;
+import org.apache.maven.wagon.shared.http4.HtmlFileListParser;
+import org.apache.maven.wagon.shared.http4.HttpConfiguration;
+import org.apache.maven.wagon.shared.http4.HttpMethodConfiguration;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Http2Wagon, using the HTTP client of Java 11 to speak HTTP/2: over TLS with <code>h2://</code> or
+ * <code>https://</code> repository URLs, and in clear text with <code>h2c://</code> or <code>http://</code> ones, the
+ * first request to the host asking to upgrade its connection. Servers which do not speak HTTP/2 are spoken to in
+ * HTTP/1.1.
+ * <p/>
+ * The wagons connected to the same host with the same credentials, proxy and connection timeout share one client,
+ * which multiplexes their transfers as concurrent streams of a single connection. The client remembers the hosts
+ * which asked for Basic authentication, and authenticates the next requests to them preemptively.
+ *
+ * @plexus.component role="org.apache.maven.wagon.Wagon" role-hint="h2" instantiation-strategy="per-lookup"
+ * @since 2.3
+ */
+public class Http2Wagon
+    extends StreamWagon
+{
+    private static final int SC_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+    /**
+     * The URLs of the repositories, mapped to the URLs spoken to; the order of the mapping is the search order.
+     */
+    private static final String[][] PROTOCOL_MAP =
+        new String[][]{ { "h2:https://", "https://" }, { "h2:http://", "http://" }, { "h2://", "https://" },
+            { "h2c://", "http://" } };
+
+    /**
+     * The clients shared by the connected wagons, by repository host, connection timeout, proxy and digest of the
+     * credentials. A client is dropped when the last wagon using it disconnects.
+     */
+    private static final Map<List<Object>, SharedClient> CLIENTS = new HashMap<List<Object>, SharedClient>();
+
+    /**
+     * @plexus.configuration
+     */
+    private Properties httpHeaders;
+
+    private HttpConfiguration httpConfiguration;
+
+    private HttpClient client;
+
+    private List<Object> clientKey;
+
+    private ParsedUrl url;
+
+    /**
+     * Maps the URL of the repository to the URL of the HTTP server.
+     *
+     * @param repository the repository
+     * @return the <code>http://</code> or <code>https://</code> URL of the repository
+     */
+    protected String getURL( Repository repository )
+    {
+        String repositoryUrl = repository.getUrl();
+
+        for ( int i = 0; i < PROTOCOL_MAP.length; i++ )
+        {
+            String protocol = PROTOCOL_MAP[i][0];
+            if ( repositoryUrl.startsWith( protocol ) )
+            {
+                return PROTOCOL_MAP[i][1] + repositoryUrl.substring( protocol.length() );
+            }
+        }
+        return repositoryUrl;
+    }
+
+    protected void openConnectionInternal()
+        throws ConnectionException, AuthenticationException
+    {
+        url = ParsedUrl.parse( getURL( getRepository() ) );
+
+        ProxyInfo proxyInfo = getProxyInfo( url.getProtocol(), url.getHost() );
+        if ( proxyInfo != null && proxyInfo.getHost() != null && ( ProxyInfo.PROXY_SOCKS4.equals( proxyInfo.getType() )
+            || ProxyInfo.PROXY_SOCKS5.equals( proxyInfo.getType() ) ) )
+        {
+            throw new ConnectionException( "SOCKS proxies are not supported by the HTTP/2 wagon: " + proxyInfo );
+        }
+        if ( proxyInfo != null && proxyInfo.getHost() == null )
+        {
+            proxyInfo = null;
+        }
+
+        String username = authenticationInfo != null ? authenticationInfo.getUserName() : null;
+        String password = authenticationInfo != null ? authenticationInfo.getPassword() : null;
+        clientKey = Arrays.<Object>asList( url.getHost(), url.getPort(), getTimeout(),
+                                           proxyInfo != null ? proxyInfo.getHost() : null,
+                                           proxyInfo != null ? proxyInfo.getPort() : null,
+                                           digest( username, password,
+                                                   proxyInfo != null ? proxyInfo.getUserName() : null,
+                                                   proxyInfo != null ? proxyInfo.getPassword() : null ) );
+
+        synchronized ( CLIENTS )
+        {
+            SharedClient sharedClient = CLIENTS.get( clientKey );
+            if ( sharedClient == null )
+            {
+                sharedClient = new SharedClient( createClient( proxyInfo ) );
+                CLIENTS.put( clientKey, sharedClient );
+            }
+            sharedClient.references++;
+            client = sharedClient.client;
+        }
+    }
+
+    /**
+     * Digests the credentials keying the shared clients, so that the keys do not hold them.
+     *
+     * @param values the user names and passwords, which may be <code>null</code>
+     * @return the hexadecimal SHA-256 digest of the values
+     */
+    private static String digest( String... values )
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-256 is not available", e );
+        }
+
+        for ( String value : values )
+        {
+            byte[] bytes = value != null ? value.getBytes( StandardCharsets.UTF_8 ) : new byte[0];
+            // the length prefix tells a null value from an empty one, and where each value ends
+            digest.update( ByteBuffer.allocate( 4 ).putInt( value != null ? bytes.length : -1 ).array() );
+            digest.update( bytes );
+        }
+
+        return new BigInteger( 1, digest.digest() ).toString( 16 );
+    }
+
+    private HttpClient createClient( ProxyInfo proxyInfo )
+    {
+        HttpClient.Builder builder =
+            HttpClient.newBuilder().version( HttpClient.Version.HTTP_2 ).followRedirects( HttpClient.Redirect.NORMAL );
+
+        if ( getTimeout() > 0 )
+        {
+            builder.connectTimeout( Duration.ofMillis( getTimeout() ) );
+        }
+
+        if ( proxyInfo != null )
+        {
+            builder.proxy( ProxySelector.of( InetSocketAddress.createUnresolved( proxyInfo.getHost(),
+                                                                                 proxyInfo.getPort() ) ) );
+        }
+
+        String username = authenticationInfo != null ? authenticationInfo.getUserName() : null;
+        if ( username != null || ( proxyInfo != null && proxyInfo.getUserName() != null ) )
+        {
+            builder.authenticator( new WagonAuthenticator( url.getHost(), username,
+                                                           username != null ? authenticationInfo.getPassword() : null,
+                                                           proxyInfo ) );
+        }
+
+        return builder.build();
+    }
+
+    public void closeConnection()
+        throws ConnectionException
+    {
+        if ( client == null )
+        {
+            return;
+        }
+
+        // the client stays open for the other wagons connected to the host
+        synchronized ( CLIENTS )
+        {
+            SharedClient sharedClient = CLIENTS.get( clientKey );
+            if ( sharedClient != null && --sharedClient.references == 0 )
+            {
+                // there is no close() in Java 11: the selector thread of the client ends once it is collected
+                CLIENTS.remove( clientKey );
+            }
+        }
+        client = null;
+        clientKey = null;
+    }
+
+    // ----------------------------------------------------------------------
+    // Downloads
+    // ----------------------------------------------------------------------
+
+    public void fillInputData( InputData inputData )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        Resource resource = inputData.getResource();
+
+        String resourceUrl = resolve( resource.getName() );
+        HttpRequest.Builder request = newRequest( resourceUrl, "GET" ).GET();
+
+        long timestamp = resource.getLastModified();
+        if ( timestamp > 0 )
+        {
+            String ifModifiedSince = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                Instant.ofEpochMilli( timestamp ).atZone( ZoneOffset.UTC ) );
+            fireTransferDebug( "sending ==> If-Modified-Since: " + ifModifiedSince + "(" + timestamp + ")" );
+            request.setHeader( "If-Modified-Since", ifModifiedSince );
+        }
+        if ( inputData.getConditionalEntityTag() != null )
+        {
+            fireTransferDebug( "sending ==> If-None-Match: " + inputData.getConditionalEntityTag() );
+            request.setHeader( "If-None-Match", inputData.getConditionalEntityTag() );
+        }
+
+        long resumeOffset = inputData.getResumeOffset();
+        if ( resumeOffset > 0 && inputData.getResumeValidator() != null )
+        {
+            request.setHeader( "Range", "bytes=" + resumeOffset + "-" );
+            // the server sends the whole resource instead if it no longer has this validator
+            request.setHeader( "If-Range", inputData.getResumeValidator() );
+            fireTransferDebug( "resuming from byte " + resumeOffset + " if " + inputData.getResumeValidator() );
+        }
+
+        HttpResponse<InputStream> response;
+        try
+        {
+            response = send( request.build(), HttpResponse.BodyHandlers.ofInputStream() );
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            throw new TransferFailedException( e.getMessage(), e );
+        }
+
+        int statusCode = response.statusCode();
+
+        fireTransferDebug( resourceUrl + " - Status code: " + statusCode + " over " + response.version() );
+
+        switch ( statusCode )
+        {
+            case HttpURLConnection.HTTP_OK:
+            case HttpURLConnection.HTTP_PARTIAL:
+                break;
+
+            case HttpURLConnection.HTTP_NOT_MODIFIED:
+                IOUtil.close( response.body() );
+                // return, leaving last modified set to original value so getIfNewer should return unmodified
+                inputData.setNotModified( true );
+                return;
+
+            case HttpURLConnection.HTTP_FORBIDDEN:
+                IOUtil.close( response.body() );
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Access denied to: " + resourceUrl );
+
+            case HttpURLConnection.HTTP_UNAUTHORIZED:
+                IOUtil.close( response.body() );
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Not authorized" );
+
+            case HttpURLConnection.HTTP_PROXY_AUTH:
+                IOUtil.close( response.body() );
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Not authorized by proxy" );
+
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                IOUtil.close( response.body() );
+                throw new ResourceDoesNotExistException( "File: " + resourceUrl );
+
+            case SC_REQUESTED_RANGE_NOT_SATISFIABLE:
+                if ( resumeOffset > 0 )
+                {
+                    IOUtil.close( response.body() );
+                    fillInputDataWithoutResume( inputData );
+                    return;
+                }
+                // fall through
+            default:
+            {
+                IOUtil.close( response.body() );
+                TransferFailedException e = new TransferFailedException(
+                    "Failed to transfer file: " + resourceUrl + ". Return code is: " + statusCode );
+                fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+                throw e;
+            }
+        }
+
+        String contentLength = response.headers().firstValue( "Content-Length" ).orElse( null );
+        if ( contentLength != null )
+        {
+            try
+            {
+                resource.setContentLength( Long.parseLong( contentLength.trim() ) );
+            }
+            catch ( NumberFormatException e )
+            {
+                fireTransferDebug( "error parsing content length header '" + contentLength + "' " + e );
+            }
+        }
+
+        String contentEncoding = response.headers().firstValue( "Content-Encoding" ).orElse( null );
+        boolean isGZipped = "gzip".equalsIgnoreCase( contentEncoding );
+
+        if ( statusCode == HttpURLConnection.HTTP_PARTIAL )
+        {
+            // a range of the compressed content would not line up with the uncompressed part already downloaded
+            long[] contentRange =
+                isGZipped ? null : parseContentRange( response.headers().firstValue( "Content-Range" ).orElse( null ) );
+            if ( contentRange == null || contentRange[0] != resumeOffset )
+            {
+                IOUtil.close( response.body() );
+                fillInputDataWithoutResume( inputData );
+                return;
+            }
+
+            inputData.setOffset( resumeOffset );
+            resource.setContentLength( contentRange[1] );
+        }
+
+        String lastModified = response.headers().firstValue( "Last-Modified" ).orElse( null );
+        String etag = response.headers().firstValue( "ETag" ).orElse( null );
+        if ( etag != null )
+        {
+            inputData.setEntityTag( etag );
+        }
+
+        if ( !isGZipped )
+        {
+            if ( etag != null && !etag.startsWith( "W/" ) )
+            {
+                inputData.setValidator( etag );
+            }
+            else if ( lastModified != null )
+            {
+                inputData.setValidator( lastModified );
+            }
+        }
+
+        if ( lastModified != null )
+        {
+            try
+            {
+                ZonedDateTime dateTime = ZonedDateTime.parse( lastModified, DateTimeFormatter.RFC_1123_DATE_TIME );
+                resource.setLastModified( dateTime.toInstant().toEpochMilli() );
+            }
+            catch ( DateTimeParseException e )
+            {
+                fireTransferDebug( "Unable to parse last modified header" );
+            }
+
+            fireTransferDebug( "last-modified = " + lastModified + " (" + resource.getLastModified() + ")" );
+        }
+
+        InputStream is = response.body();
+        try
+        {
+            if ( isGZipped )
+            {
+                is = new GZIPInputStream( is );
+            }
+        }
+        catch ( IOException e )
+        {
+            IOUtil.close( response.body() );
+
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+
+            String msg =
+                "Error occurred while retrieving from remote repository:" + getRepository() + ": " + e.getMessage();
+
+            throw new TransferFailedException( msg, e );
+        }
+
+        inputData.setInputStream( is );
+    }
+
+    public boolean resourceExists( String resourceName )
+        throws TransferFailedException, AuthorizationException
+    {
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
+        String resourceUrl = resolve( resourceName );
+        HttpRequest request =
+            newRequest( resourceUrl, "HEAD" ).method( "HEAD", HttpRequest.BodyPublishers.noBody() ).build();
+
+        int statusCode;
+        try
+        {
+            statusCode = send( request, HttpResponse.BodyHandlers.discarding() ).statusCode();
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( e.getMessage(), e );
+        }
+
+        switch ( statusCode )
+        {
+            case HttpURLConnection.HTTP_OK:
+                return true;
+
+            case HttpURLConnection.HTTP_NOT_MODIFIED:
+                return true;
+
+            case HttpURLConnection.HTTP_FORBIDDEN:
+                throw new AuthorizationException( "Access denied to: " + resourceUrl );
+
+            case HttpURLConnection.HTTP_UNAUTHORIZED:
+                throw new AuthorizationException( "Not authorized" );
+
+            case HttpURLConnection.HTTP_PROXY_AUTH:
+                throw new AuthorizationException( "Not authorized by proxy" );
+
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                recordMissing( resourceName );
+                return false;
+
+            default:
+                throw new TransferFailedException(
+                    "Failed to transfer file: " + resourceUrl + ". Return code is: " + statusCode );
+        }
+    }
+
+    public List<String> getFileList( String destinationDirectory )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        if ( destinationDirectory.length() > 0 && !destinationDirectory.endsWith( "/" ) )
+        {
+            destinationDirectory += "/";
+        }
+
+        Resource resource = new Resource( destinationDirectory );
+
+        InputData inputData = new InputData();
+        inputData.setResource( resource );
+
+        fillInputData( inputData );
+
+        InputStream is = inputData.getInputStream();
+        try
+        {
+            if ( is == null )
+            {
+                throw new TransferFailedException(
+                    resolve( destinationDirectory ) + " - Could not open input stream for resource: '" + resource
+                        + "'" );
+            }
+
+            return HtmlFileListParser.parseFileList( resolve( destinationDirectory ), is );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Uploads
+    // ----------------------------------------------------------------------
+
+    public void put( File source, String resourceName )
+        throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
+    {
+        Resource resource = new Resource( resourceName );
+
+        firePutInitiated( resource, source );
+
+        resource.setContentLength( source.length() );
+
+        resource.setLastModified( source.lastModified() );
+
+        put( resource, source, null );
+    }
+
+    protected void putFromStream( InputStream stream, Resource resource )
+        throws TransferFailedException, AuthorizationException, ResourceDoesNotExistException
+    {
+        put( resource, null, stream );
+    }
+
+    private void put( Resource resource, File source, InputStream stream )
+        throws TransferFailedException, AuthorizationException, ResourceDoesNotExistException
+    {
+        String resourceUrl = resolve( resource.getName() );
+
+        // a small stream is kept in memory, to be sent again if the request is redirected
+        StreamContent content;
+        try
+        {
+            content = source == null ? new StreamContent( stream, resource.getContentLength() ) : null;
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+
+            throw new TransferFailedException( e.getMessage(), e );
+        }
+        long length = source != null ? source.length() : content.getLength();
+
+        firePutStarted( resource, source );
+
+        TransferEvent transferEvent =
+            getTransferEvent( resource, TransferEvent.TRANSFER_PROGRESS, TransferEvent.REQUEST_PUT );
+
+        HttpRequest.BodyPublisher body =
+            HttpRequest.BodyPublishers.ofInputStream( new UploadContent( source, content, transferEvent ) );
+        if ( length == 0 )
+        {
+            body = HttpRequest.BodyPublishers.noBody();
+        }
+        else if ( length > 0 )
+        {
+            body = HttpRequest.BodyPublishers.fromPublisher( body, length );
+        }
+
+        int statusCode;
+        try
+        {
+            HttpRequest.Builder request = newRequest( resourceUrl, "PUT" ).PUT( body );
+            if ( content != null && !content.isBuffered() )
+            {
+                // the stream cannot be read again if the request is challenged or redirected: ask the server first
+                request.expectContinue( true );
+            }
+            statusCode = send( request.build(), HttpResponse.BodyHandlers.discarding() ).statusCode();
+        }
+        catch ( IOException e )
+        {
+            fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+
+            throw new TransferFailedException( e.getMessage(), e );
+        }
+
+        fireTransferDebug( resourceUrl + " - Status code: " + statusCode );
+
+        switch ( statusCode )
+        {
+            // Success Codes
+            case HttpURLConnection.HTTP_OK: // 200
+            case HttpURLConnection.HTTP_CREATED: // 201
+            case HttpURLConnection.HTTP_ACCEPTED: // 202
+            case HttpURLConnection.HTTP_NO_CONTENT: // 204
+                break;
+
+            case HttpURLConnection.HTTP_FORBIDDEN:
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Access denied to: " + resourceUrl );
+
+            case HttpURLConnection.HTTP_UNAUTHORIZED:
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Not authorized" );
+
+            case HttpURLConnection.HTTP_PROXY_AUTH:
+                fireSessionConnectionRefused();
+                throw new AuthorizationException( "Not authorized by proxy" );
+
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                throw new ResourceDoesNotExistException( "File: " + resourceUrl + " does not exist" );
+
+            default:
+            {
+                TransferFailedException e = new TransferFailedException(
+                    "Failed to transfer file: " + resourceUrl + ". Return code is: " + statusCode );
+                fireTransferError( resource, e, TransferEvent.REQUEST_PUT );
+                throw e;
+            }
+        }
+
+        firePutCompleted( resource, source );
+    }
+
+    public void fillOutputData( OutputData outputData )
+        throws TransferFailedException
+    {
+        // no needed in this implementation but throw an Exception if used
+        throw new IllegalStateException( "this wagon http client must not use fillOutputData" );
+    }
+
+    // ----------------------------------------------------------------------
+    // Requests
+    // ----------------------------------------------------------------------
+
+    private String resolve( String resourceName )
+    {
+        return url.resolve( resourceName );
+    }
+
+    private HttpRequest.Builder newRequest( String resourceUrl, String method )
+    {
+        HttpRequest.Builder request = HttpRequest.newBuilder( URI.create( resourceUrl.replace( " ", "%20" ) ) );
+
+        HttpMethodConfiguration config = getMethodConfiguration( method );
+
+        int readTimeout = config != null ? config.getReadTimeout() : getReadTimeout();
+        if ( readTimeout > 0 )
+        {
+            request.timeout( Duration.ofMillis( readTimeout ) );
+        }
+
+        if ( config == null || config.isUseDefaultHeaders() )
+        {
+            request.setHeader( "Cache-control", "no-cache" );
+            request.setHeader( "Cache-store", "no-store" );
+            request.setHeader( "Pragma", "no-cache" );
+            request.setHeader( "Expires", "0" );
+            request.setHeader( "Accept-Encoding", "gzip" );
+        }
+
+        setHeaders( request, httpHeaders );
+        if ( config != null )
+        {
+            setHeaders( request, config.getHeaders() );
+        }
+
+        return request;
+    }
+
+    private void setHeaders( HttpRequest.Builder request, Properties headers )
+    {
+        if ( headers == null )
+        {
+            return;
+        }
+
+        for ( Map.Entry<Object, Object> entry : headers.entrySet() )
+        {
+            try
+            {
+                request.setHeader( (String) entry.getKey(), (String) entry.getValue() );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // like Connection or Host, which the client sets itself
+                fireTransferDebug( "ignoring the header " + entry.getKey() + ": " + e.getMessage() );
+            }
+        }
+    }
+
+    private HttpMethodConfiguration getMethodConfiguration( String method )
+    {
+        if ( httpConfiguration == null )
+        {
+            return null;
+        }
+        if ( "GET".equals( method ) )
+        {
+            return HttpMethodConfiguration.merge( httpConfiguration.getAll(), httpConfiguration.getGet() );
+        }
+        if ( "PUT".equals( method ) )
+        {
+            return HttpMethodConfiguration.merge( httpConfiguration.getAll(), httpConfiguration.getPut() );
+        }
+        if ( "HEAD".equals( method ) )
+        {
+            return HttpMethodConfiguration.merge( httpConfiguration.getAll(), httpConfiguration.getHead() );
+        }
+        return httpConfiguration.getAll();
+    }
+
+    private <T> HttpResponse<T> send( HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler )
+        throws IOException
+    {
+        try
+        {
+            return client.send( request, bodyHandler );
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw e.getCause();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for " + request.uri() );
+        }
+    }
+
+    public Properties getHttpHeaders()
+    {
+        return httpHeaders;
+    }
+
+    public void setHttpHeaders( Properties httpHeaders )
+    {
+        this.httpHeaders = httpHeaders;
+    }
+
+    public HttpConfiguration getHttpConfiguration()
+    {
+        return httpConfiguration;
+    }
+
+    public void setHttpConfiguration( HttpConfiguration httpConfiguration )
+    {
+        this.httpConfiguration = httpConfiguration;
+    }
+
+    /**
+     * Opens the content of an upload each time the client sends the request, which it sends again to answer an
+     * authentication challenge or to follow a redirect. Each byte is reported once, the first time it is read, so that
+     * the progress and the checksums of the upload do not count the content again.
+     */
+    private final class UploadContent
+        implements Supplier<InputStream>
+    {
+        private final File source;
+
+        private final StreamContent content;
+
+        private final TransferEvent transferEvent;
+
+        private long reported;
+
+        private UploadContent( File source, StreamContent content, TransferEvent transferEvent )
+        {
+            this.source = source;
+            this.content = content;
+            this.transferEvent = transferEvent;
+        }
+
+        public InputStream get()
+        {
+            try
+            {
+                return new ProgressInputStream( source != null ? new FileInputStream( source ) : content.openStream() );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+
+        private synchronized void progress( byte[] b, int off, int n, long position )
+        {
+            long unreported = position + n - reported;
+            if ( unreported <= 0 )
+            {
+                return;
+            }
+
+            int from = off + n - (int) Math.min( unreported, n );
+            int length = off + n - from;
+            fireTransferProgress( transferEvent, from == 0 ? b : Arrays.copyOfRange( b, from, from + length ), length );
+            reported += length;
+        }
+
+        /**
+         * Reports the progress of an upload as the client reads its content, from one of its own threads.
+         */
+        private final class ProgressInputStream
+            extends FilterInputStream
+        {
+            private long position;
+
+            private boolean ended;
+
+            private ProgressInputStream( InputStream in )
+            {
+                super( in );
+            }
+
+            public int read()
+                throws IOException
+            {
+                byte[] b = new byte[1];
+                return read( b, 0, 1 ) == -1 ? -1 : b[0] & 0xff;
+            }
+
+            public int read( byte[] b, int off, int len )
+                throws IOException
+            {
+                int n = super.read( b, off, len );
+                if ( n > 0 )
+                {
+                    progress( b, off, n, position );
+                    position += n;
+                }
+                else if ( n == -1 && !ended )
+                {
+                    ended = true;
+                    flushTransferProgress( transferEvent );
+                }
+                return n;
+            }
+
+            public long skip( long n )
+                throws IOException
+            {
+                // the bytes skipped are not reported: read them
+                byte[] b = new byte[(int) Math.min( n, 8192 )];
+                int read = read( b, 0, b.length );
+                return read > 0 ? read : 0;
+            }
+        }
+    }
+
+    /**
+     * A client shared by the wagons connected to a host, with the number of them.
+     */
+    private static final class SharedClient
+    {
+        private final HttpClient client;
+
+        private int references;
+
+        private SharedClient( HttpClient client )
+        {
+            this.client = client;
+        }
+    }
+
+    /**
+     * Gives the credentials of the repository to its host only, and those of the proxy to the proxy.
+     */
+    private static final class WagonAuthenticator
+        extends Authenticator
+    {
+        private final String host;
+
+        private final String username;
+
+        private final String password;
+
+        private final String proxyUsername;
+
+        private final String proxyPassword;
+
+        private WagonAuthenticator( String host, String username, String password, ProxyInfo proxyInfo )
+        {
+            this.host = host;
+            this.username = username;
+            this.password = password;
+            this.proxyUsername = proxyInfo != null ? proxyInfo.getUserName() : null;
+            this.proxyPassword = proxyInfo != null ? proxyInfo.getPassword() : null;
+        }
+
+        protected PasswordAuthentication getPasswordAuthentication()
+        {
+            if ( getRequestorType() == RequestorType.PROXY )
+            {
+                return proxyUsername != null ? newPasswordAuthentication( proxyUsername, proxyPassword ) : null;
+            }
+            if ( username != null && host.equalsIgnoreCase( getRequestingHost() ) )
+            {
+                return newPasswordAuthentication( username, password );
+            }
+            return null;
+        }
+
+        private static PasswordAuthentication newPasswordAuthentication( String username, String password )
+        {
+            return new PasswordAuthentication( username, password != null ? password.toCharArray() : new char[0] );
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.wagon.StreamContent;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.observers.ChecksumObserver;
+import org.apache.maven.wagon.repository.Repository;
+import org.codehaus.plexus.util.IOUtil;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that the wagon speaks HTTP/2 to the servers which speak it, and multiplexes its transfers.
+ */
+public class Http2ConnectionTest
+    extends TestCase
+{
+    private Http2Server server;
+
+    private RepositoryHandler handler;
+
+    protected void tearDown()
+        throws Exception
+    {
+        if ( server != null )
+        {
+            server.stop();
+        }
+
+        super.tearDown();
+    }
+
+    private String startServer( boolean secure )
+        throws Exception
+    {
+        File keystore = new File( "src/test/resources/ssl/keystore" );
+        System.setProperty( "javax.net.ssl.trustStore", keystore.getAbsolutePath() );
+
+        server = secure ? new Http2Server( keystore, "wagonhttp" ) : new Http2Server( null, null );
+        handler = new RepositoryHandler();
+        server.setHandler( handler );
+        server.start();
+
+        return ( secure ? "h2" : "h2c" ) + "://localhost:" + server.getPort() + "/";
+    }
+
+    private Http2Wagon connect( String url, AuthenticationInfo authenticationInfo, TransferListener listener )
+        throws Exception
+    {
+        Http2Wagon wagon = new Http2Wagon();
+        // a request left unanswered fails the test instead of hanging it
+        wagon.setReadTimeout( 10000 );
+        if ( listener != null )
+        {
+            wagon.addTransferListener( listener );
+        }
+        wagon.connect( new Repository( "id", url ), authenticationInfo );
+        return wagon;
+    }
+
+    private static String get( Http2Wagon wagon, String resourceName )
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wagon.getToStream( resourceName, out );
+        return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+
+    public void testH2cUpgrade()
+        throws Exception
+    {
+        String url = startServer( false );
+        handler.resources.put( "/file.txt", "content".getBytes( StandardCharsets.UTF_8 ) );
+
+        DebugListener debugListener = new DebugListener();
+        Http2Wagon wagon = connect( url, null, debugListener );
+        try
+        {
+            assertEquals( "content", get( wagon, "file.txt" ) );
+            assertEquals( "content", get( wagon, "file.txt" ) );
+        }
+        finally
+        {
+            wagon.disconnect();
+        }
+
+        // the response to the request asking for the upgrade comes in HTTP/2 already
+        assertEquals( Arrays.asList( "HTTP_2", "HTTP_2" ), debugListener.getVersions() );
+
+        // the next request is sent over the upgraded connection
+        List<String> protocols = server.getProtocols();
+        assertEquals( Http2Server.HTTP_2, protocols.get( protocols.size() - 1 ) );
+        assertEquals( 1, server.getClientPorts().size() );
+    }
+
+    public void testH2OverTls()
+        throws Exception
+    {
+        String url = startServer( true );
+        handler.resources.put( "/file.txt", "content".getBytes( StandardCharsets.UTF_8 ) );
+
+        DebugListener debugListener = new DebugListener();
+        Http2Wagon wagon = connect( url, null, debugListener );
+        try
+        {
+            assertTrue( wagon.resourceExists( "file.txt" ) );
+            assertEquals( "content", get( wagon, "file.txt" ) );
+        }
+        finally
+        {
+            wagon.disconnect();
+        }
+
+        assertEquals( Collections.singletonList( "HTTP_2" ), debugListener.getVersions() );
+        assertEquals( Arrays.asList( Http2Server.HTTP_2, Http2Server.HTTP_2 ), server.getProtocols() );
+    }
+
+    public void testConcurrentTransfersShareOneConnection()
+        throws Exception
+    {
+        String url = startServer( true );
+        handler.resources.put( "/file.txt", "content".getBytes( StandardCharsets.UTF_8 ) );
+
+        int transfers = 4;
+        List<Http2Wagon> wagons = new ArrayList<Http2Wagon>();
+        for ( int i = 0; i < transfers; i++ )
+        {
+            wagons.add( connect( url, null, null ) );
+        }
+        try
+        {
+            // the first request opens the connection
+            assertEquals( "content", get( wagons.get( 0 ), "file.txt" ) );
+            server.clear();
+
+            // each response waits for all the requests: they are in flight together
+            handler.concurrentGets = new CountDownLatch( transfers );
+
+            final List<Object> results = Collections.synchronizedList( new ArrayList<Object>() );
+            List<Thread> threads = new ArrayList<Thread>();
+            for ( final Http2Wagon wagon : wagons )
+            {
+                Thread thread = new Thread()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            results.add( get( wagon, "file.txt" ) );
+                        }
+                        catch ( Exception e )
+                        {
+                            results.add( e );
+                        }
+                    }
+                };
+                thread.start();
+                threads.add( thread );
+            }
+            for ( Thread thread : threads )
+            {
+                thread.join();
+            }
+
+            assertEquals( Collections.nCopies( transfers, "content" ), results );
+            assertEquals( Collections.nCopies( transfers, Http2Server.HTTP_2 ), server.getProtocols() );
+            assertEquals( 1, server.getClientPorts().size() );
+        }
+        finally
+        {
+            for ( Http2Wagon wagon : wagons )
+            {
+                wagon.disconnect();
+            }
+        }
+    }
+
+    public void testUploadsSentAgainAfterChallenge()
+        throws Exception
+    {
+        String url = startServer( false );
+        String credentials = "user:secret";
+        handler.authorization =
+            "Basic " + Base64.getEncoder().encodeToString( credentials.getBytes( StandardCharsets.UTF_8 ) );
+
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName( "user" );
+        authenticationInfo.setPassword( "secret" );
+
+        byte[] content = new byte[StreamContent.DEFAULT_MAXIMUM_BUFFERED_LENGTH * 2];
+        new Random( 0 ).nextBytes( content );
+        File source = File.createTempFile( "wagon-http2", ".bin" );
+        source.deleteOnExit();
+        Files.write( source.toPath(), content );
+
+        // each wagon disconnects before the next connects: the client is a new one, which is challenged again
+        ChecksumObserver checksumObserver = new ChecksumObserver( "SHA-1" );
+        Http2Wagon wagon = connect( url, authenticationInfo, checksumObserver );
+        try
+        {
+            // too long to be kept in memory: the server is asked first
+            wagon.putFromStream( new ByteArrayInputStream( content ), "stream.bin", content.length, 0 );
+        }
+        finally
+        {
+            wagon.disconnect();
+        }
+        assertTrue( Arrays.equals( content, handler.resources.get( "/stream.bin" ) ) );
+        assertEquals( sha1( content ), checksumObserver.getActualChecksum() );
+
+        checksumObserver = new ChecksumObserver( "SHA-1" );
+        wagon = connect( url, authenticationInfo, checksumObserver );
+        try
+        {
+            // the file is read again, and counted once
+            wagon.put( source, "file.bin" );
+        }
+        finally
+        {
+            wagon.disconnect();
+        }
+        assertTrue( Arrays.equals( content, handler.resources.get( "/file.bin" ) ) );
+        assertEquals( sha1( content ), checksumObserver.getActualChecksum() );
+
+        assertEquals( Arrays.asList( "/stream.bin", "/file.bin" ), handler.getChallenged() );
+    }
+
+    private static String sha1( byte[] content )
+        throws Exception
+    {
+        byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( content );
+        return String.format( "%040x", new BigInteger( 1, digest ) );
+    }
+
+    /**
+     * Collects the HTTP versions of the responses, which the wagon reports in its debug messages.
+     */
+    private static final class DebugListener
+        extends AbstractTransferListener
+    {
+        private final List<String> versions = Collections.synchronizedList( new ArrayList<String>() );
+
+        public void debug( String message )
+        {
+            int index = message.indexOf( " over " );
+            if ( index >= 0 )
+            {
+                versions.add( message.substring( index + " over ".length() ) );
+            }
+        }
+
+        List<String> getVersions()
+        {
+            synchronized ( versions )
+            {
+                return new ArrayList<String>( versions );
+            }
+        }
+    }
+
+    /**
+     * Keeps the resources put in memory, and challenges the requests without the expected authorization.
+     */
+    private static final class RepositoryHandler
+        extends AbstractHandler
+    {
+        private final Map<String, byte[]> resources = new ConcurrentHashMap<String, byte[]>();
+
+        private final List<String> challenged = Collections.synchronizedList( new ArrayList<String>() );
+
+        private volatile String authorization;
+
+        private volatile CountDownLatch concurrentGets;
+
+        List<String> getChallenged()
+        {
+            synchronized ( challenged )
+            {
+                return new ArrayList<String>( challenged );
+            }
+        }
+
+        public void handle( String target, Request baseRequest, HttpServletRequest request,
+                            HttpServletResponse response )
+            throws IOException
+        {
+            baseRequest.setHandled( true );
+
+            if ( authorization != null && !authorization.equals( request.getHeader( "Authorization" ) ) )
+            {
+                challenged.add( target );
+                response.setHeader( "WWW-Authenticate", "Basic realm=\"wagon\"" );
+                response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+                return;
+            }
+
+            if ( "PUT".equals( request.getMethod() ) )
+            {
+                resources.put( target, IOUtil.toByteArray( request.getInputStream() ) );
+                response.setStatus( HttpServletResponse.SC_CREATED );
+                return;
+            }
+
+            CountDownLatch latch = concurrentGets;
+            if ( latch != null && "GET".equals( request.getMethod() ) )
+            {
+                latch.countDown();
+                try
+                {
+                    if ( !latch.await( 10, TimeUnit.SECONDS ) )
+                    {
+                        response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+                        return;
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+                    return;
+                }
+            }
+
+            byte[] content = resources.get( target );
+            if ( content == null )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_FOUND );
+                return;
+            }
+            response.setContentLength( content.length );
+            if ( !"HEAD".equals( request.getMethod() ) )
+            {
+                response.getOutputStream().write( content );
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.tck.http.GetWagonTests;
+import org.apache.maven.wagon.tck.http.fixture.ServerFixture;
+import org.junit.After;
+
+/**
+ * Runs the TCK through an h2c server forwarding the requests to its HTTP/1.1 server.
+ */
+public class Http2GetWagonTests
+    extends GetWagonTests
+{
+    private Http2Server proxy;
+
+    protected Http2Server newHttp2Server()
+    {
+        return new Http2Server( null, null );
+    }
+
+    @Override
+    protected String getBaseUrl()
+    {
+        if ( proxy == null )
+        {
+            proxy = newHttp2Server();
+            proxy.setProxyTo( super.getBaseUrl() );
+            try
+            {
+                proxy.start();
+            }
+            catch ( Exception e )
+            {
+                throw new IllegalStateException( "Failed to start the HTTP/2 server: " + e.getMessage(), e );
+            }
+        }
+
+        return ( isSsl() ? "https" : "http" ) + "://" + ServerFixture.SERVER_HOST + ":" + proxy.getPort();
+    }
+
+    @After
+    public void stopHttp2Server()
+        throws Exception
+    {
+        if ( proxy != null )
+        {
+            proxy.stop();
+            proxy = null;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.proxy.ProxyServlet;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A Jetty 9 server speaking HTTP/2: in clear text to the clients upgrading their HTTP/1.1 connection or speaking
+ * HTTP/2 from the start, and over TLS to the clients negotiating it with ALPN. It records the protocol and the client
+ * port of each request it handles.
+ */
+public class Http2Server
+{
+    public static final String HTTP_2 = "HTTP/2.0";
+
+    private final Server server = new Server();
+
+    private final ServerConnector connector;
+
+    private final List<String> protocols = Collections.synchronizedList( new ArrayList<String>() );
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet( new HashSet<Integer>() );
+
+    /**
+     * @param keystore the keystore of the TLS connector, or <code>null</code> to speak in clear text
+     * @param password the password of the keystore and of its key
+     */
+    public Http2Server( File keystore, String password )
+    {
+        HttpConfiguration configuration = new HttpConfiguration();
+        if ( keystore == null )
+        {
+            connector = new ServerConnector( server, new HttpConnectionFactory( configuration ),
+                                             new HTTP2CServerConnectionFactory( configuration ) );
+        }
+        else
+        {
+            // the clients connect to localhost, whatever the name the test certificate is issued to
+            configuration.addCustomizer( new SecureRequestCustomizer( false ) );
+
+            SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+            sslContextFactory.setKeyStorePath( keystore.getAbsolutePath() );
+            sslContextFactory.setKeyStorePassword( password );
+            sslContextFactory.setKeyManagerPassword( password );
+            sslContextFactory.setCipherComparator( HTTP2Cipher.COMPARATOR );
+
+            ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+            alpn.setDefaultProtocol( HttpVersion.HTTP_1_1.asString() );
+
+            connector = new ServerConnector( server, new SslConnectionFactory( sslContextFactory, alpn.getProtocol() ),
+                                             alpn, new HTTP2ServerConnectionFactory( configuration ),
+                                             new HttpConnectionFactory( configuration ) );
+        }
+        server.addConnector( connector );
+    }
+
+    public void setHandler( Handler handler )
+    {
+        HandlerWrapper recorder = new HandlerWrapper()
+        {
+            public void handle( String target, Request baseRequest, HttpServletRequest request,
+                                HttpServletResponse response )
+                throws IOException, ServletException
+            {
+                protocols.add( request.getProtocol() );
+                clientPorts.add( request.getRemotePort() );
+
+                super.handle( target, baseRequest, request, response );
+            }
+        };
+        recorder.setHandler( handler );
+        server.setHandler( recorder );
+    }
+
+    /**
+     * Forwards the requests to another server, in HTTP/1.1.
+     *
+     * @param url the URL of the server
+     */
+    public void setProxyTo( String url )
+    {
+        ServletHolder proxy = new ServletHolder( ProxyServlet.Transparent.class );
+        proxy.setInitParameter( "proxyTo", url );
+        proxy.setAsyncSupported( true );
+
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet( proxy, "/*" );
+        setHandler( context );
+    }
+
+    public void start()
+        throws Exception
+    {
+        server.start();
+    }
+
+    public void stop()
+        throws Exception
+    {
+        server.stop();
+    }
+
+    public int getPort()
+    {
+        return connector.getLocalPort();
+    }
+
+    public List<String> getProtocols()
+    {
+        synchronized ( protocols )
+        {
+            return new ArrayList<String>( protocols );
+        }
+    }
+
+    public Set<Integer> getClientPorts()
+    {
+        synchronized ( clientPorts )
+        {
+            return new HashSet<Integer>( clientPorts );
+        }
+    }
+
+    public void clear()
+    {
+        protocols.clear();
+        clientPorts.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.StreamingWagon;
+import org.apache.maven.wagon.http.HttpWagonTestCase;
+import org.apache.maven.wagon.repository.Repository;
+import org.mortbay.jetty.Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The Jetty 6 servers of the test case speak HTTP/1.1 only: the repositories are reached through HTTP/2 servers
+ * forwarding their requests to them, here h2c ones. The servers the tests reach directly, and the redirects to them,
+ * are spoken to in HTTP/1.1, which the wagon falls back to.
+ */
+public class Http2WagonTest
+    extends HttpWagonTestCase
+{
+    private final List<Http2Server> proxies = new ArrayList<Http2Server>();
+
+    protected String getProtocol()
+    {
+        return "http";
+    }
+
+    protected Http2Server newHttp2Server()
+    {
+        return new Http2Server( null, null );
+    }
+
+    protected String getTestRepositoryUrl()
+    {
+        return getHttp2Url( getProtocol() + "://localhost:" + getTestRepositoryPort() ) + "/";
+    }
+
+    protected String getRepositoryUrl( Server server )
+    {
+        return getHttp2Url( super.getRepositoryUrl( server ) );
+    }
+
+    private String getHttp2Url( String url )
+    {
+        Http2Server proxy = newHttp2Server();
+        proxy.setProxyTo( url );
+        try
+        {
+            proxy.start();
+        }
+        catch ( Exception e )
+        {
+            throw new IllegalStateException( "Failed to start the HTTP/2 server: " + e.getMessage(), e );
+        }
+        proxies.add( proxy );
+
+        return getProtocol() + "://localhost:" + proxy.getPort();
+    }
+
+    protected void tearDownWagonTestingFixtures()
+        throws Exception
+    {
+        stopProxies();
+
+        super.tearDownWagonTestingFixtures();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        stopProxies();
+
+        super.tearDown();
+    }
+
+    private void stopProxies()
+        throws Exception
+    {
+        for ( Http2Server proxy : proxies )
+        {
+            proxy.stop();
+        }
+        proxies.clear();
+    }
+
+    protected void setHttpHeaders( StreamingWagon wagon, Properties properties )
+    {
+        ( (Http2Wagon) wagon ).setHttpHeaders( properties );
+    }
+
+    @Override
+    protected boolean supportPreemptiveAuthenticationGet()
+    {
+        return false;
+    }
+
+    @Override
+    protected boolean supportPreemptiveAuthenticationPut()
+    {
+        return false;
+    }
+
+    @Override
+    protected boolean supportProxyPreemptiveAuthentication()
+    {
+        return false;
+    }
+
+    public void testGetURL()
+    {
+        Http2Wagon wagon = new Http2Wagon();
+
+        assertEquals( "https://localhost/repo", wagon.getURL( new Repository( "id", "h2://localhost/repo" ) ) );
+        assertEquals( "https://localhost/repo", wagon.getURL( new Repository( "id", "h2:https://localhost/repo" ) ) );
+        assertEquals( "http://localhost/repo", wagon.getURL( new Repository( "id", "h2:http://localhost/repo" ) ) );
+        assertEquals( "http://localhost/repo", wagon.getURL( new Repository( "id", "h2c://localhost/repo" ) ) );
+        assertEquals( "https://localhost/repo", wagon.getURL( new Repository( "id", "https://localhost/repo" ) ) );
+        assertEquals( "http://localhost/repo", wagon.getURL( new Repository( "id", "http://localhost/repo" ) ) );
+    }
+}
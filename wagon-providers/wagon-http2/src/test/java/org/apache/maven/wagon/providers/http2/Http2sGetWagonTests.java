@@ -0,0 +1,51 @@
+package org.apache.maven.wagon.providers.http2;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.tck.http.fixture.ServerFixture;
+
+import static org.apache.maven.wagon.tck.http.util.TestUtil.getResource;
+
+/**
+ * Runs the TCK through an h2 server forwarding the requests to its HTTPS server.
+ */
+public class Http2sGetWagonTests
+    extends Http2GetWagonTests
+{
+    @Override
+    protected boolean isSsl()
+    {
+        return true;
+    }
+
+    @Override
+    protected Http2Server newHttp2Server()
+    {
+        try
+        {
+            return new Http2Server( getResource( ServerFixture.SERVER_SSL_KEYSTORE_RESOURCE_PATH ),
+                                    ServerFixture.SERVER_SSL_KEYSTORE_PASSWORD );
+        }
+        catch ( Exception e )
+        {
+            throw new IllegalStateException( "Failed to find the keystore: " + e.getMessage(), e );
+        }
+    }
+}
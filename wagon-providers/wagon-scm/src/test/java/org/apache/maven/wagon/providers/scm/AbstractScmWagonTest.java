@@ -117,6 +117,14 @@ public abstract class AbstractScmWagonTest
         return 0;
     }
 
+    /**
+     * The SCM wagon commits what it puts, and the SCM tools are not meant for resources of several GB.
+     */
+    protected boolean supportsLargeFiles()
+    {
+        return false;
+    }
+
     /**
      * The SCM id, eg. <code>svn</code>, <code>cvs</code>
      *
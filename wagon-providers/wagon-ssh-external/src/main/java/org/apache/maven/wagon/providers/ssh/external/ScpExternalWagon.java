@@ -314,6 +314,8 @@ public class ScpExternalWagon
                 if ( !put && err.getOutput().trim().toLowerCase( Locale.ENGLISH ).indexOf( "no such file or directory" )
                     != -1 )
                 {
+                    recordMissing( resource.getName() );
+
                     throw new ResourceDoesNotExistException( err.getOutput() );
                 }
                 else
@@ -438,6 +440,14 @@ public class ScpExternalWagon
 
         fireGetInitiated( resource, destination );
 
+        if ( isKnownMissing( path ) )
+        {
+            ResourceDoesNotExistException e = new ResourceDoesNotExistException(
+                "Resource " + path + " was recently found missing from " + getRepository().getUrl() );
+            fireTransferError( resource, e, TransferEvent.REQUEST_GET );
+            throw e;
+        }
+
         createParentDirectories( destination );
 
         fireGetStarted( resource, destination );
@@ -471,7 +481,17 @@ public class ScpExternalWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
-        return sshTool.resourceExists( resourceName, repository );
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
+        boolean exists = sshTool.resourceExists( resourceName, repository );
+        if ( !exists )
+        {
+            recordMissing( resourceName );
+        }
+        return exists;
     }
 
     public boolean supportsDirectoryCopy()
@@ -363,7 +363,17 @@ public abstract class AbstractJschWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
-        return sshTool.resourceExists( resourceName, repository );
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
+        boolean exists = sshTool.resourceExists( resourceName, repository );
+        if ( !exists )
+        {
+            recordMissing( resourceName );
+        }
+        return exists;
     }
 
     public boolean supportsDirectoryCopy()
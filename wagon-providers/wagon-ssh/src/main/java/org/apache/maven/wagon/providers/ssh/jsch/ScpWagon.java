@@ -169,10 +169,10 @@ public class ScpWagon
     }
 
     protected void getTransfer( Resource resource, OutputStream output, InputStream input, boolean closeInput,
-                                int maxSize )
+                                long maxSize )
         throws TransferFailedException
     {
-        super.getTransfer( resource, output, input, closeInput, (int) resource.getContentLength() );
+        super.getTransfer( resource, output, input, closeInput, resource.getContentLength() );
     }
 
     protected String readLine( InputStream in )
@@ -288,7 +288,7 @@ public class ScpWagon
                 throw new IOException( "Invalid transfer header: " + line );
             }
 
-            int filesize = Integer.valueOf( line.substring( 5, index ) ).intValue();
+            long filesize = Long.parseLong( line.substring( 5, index ) );
             fireTransferDebug( "Remote file size: " + filesize );
 
             resource.setContentLength( filesize );
@@ -41,6 +41,7 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
 
 /**
  * SFTP protocol wagon.
@@ -407,6 +408,11 @@ public class SftpWagon
     public boolean resourceExists( String resourceName )
         throws TransferFailedException, AuthorizationException
     {
+        if ( isKnownMissing( resourceName ) )
+        {
+            return false;
+        }
+
         String filename = ScpHelper.getResourceFilename( resourceName );
 
         String dir = ScpHelper.getResourceDirectory( resourceName );
@@ -425,6 +431,7 @@ public class SftpWagon
         }
         catch ( ResourceDoesNotExistException e )
         {
+            recordMissing( resourceName );
             return false;
         }
         catch ( SftpException e )
@@ -487,8 +494,21 @@ public class SftpWagon
             resource.setContentLength( attrs.getSize() );
 
             resource.setLastModified( lastModified );
-            
-            inputData.setInputStream( channel.get( filename ) );
+
+            // the size and modification time tell whether a partial download still matches the remote file
+            String validator = attrs.getSize() + "@" + lastModified;
+            inputData.setValidator( validator );
+
+            long offset = inputData.getResumeOffset();
+            if ( offset > 0 && offset < attrs.getSize() && validator.equals( inputData.getResumeValidator() ) )
+            {
+                inputData.setOffset( offset );
+                inputData.setInputStream( channel.get( filename, (SftpProgressMonitor) null, offset ) );
+            }
+            else
+            {
+                inputData.setInputStream( channel.get( filename ) );
+            }
         }
         catch ( SftpException e )
         {
@@ -19,6 +19,7 @@ package org.apache.maven.wagon.providers.webdav;
  * under the License.
  */
 
+import org.apache.commons.httpclient.HttpConnectionManager;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.jackrabbit.webdav.DavConstants;
@@ -31,6 +32,9 @@ import org.apache.jackrabbit.webdav.property.DavProperty;
 import org.apache.jackrabbit.webdav.property.DavPropertyName;
 import org.apache.jackrabbit.webdav.property.DavPropertyNameSet;
 import org.apache.jackrabbit.webdav.property.DavPropertySet;
+import org.apache.maven.wagon.AbstractWagon;
+import org.apache.maven.wagon.DirectoryUpload;
+import org.apache.maven.wagon.ParsedUrl;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
@@ -68,6 +72,16 @@ public class WebDavWagon
 
     private final boolean continueOnFailure = Boolean.getBoolean( CONTINUE_ON_FAILURE_PROPERTY );
 
+    /**
+     * The connection manager given to this wagon, also used by the wagons uploading a directory with it.
+     */
+    private HttpConnectionManager configuredConnectionManager;
+
+    /**
+     * Whether the connection manager is the one of another wagon, which shuts it down.
+     */
+    private boolean sharedConnectionManager;
+
     /**
      * Defines the protocol mapping to use.
      * <p/>
@@ -166,7 +180,8 @@ public class WebDavWagon
     }
 
     /**
-     * Copy a directory from local system to remote webdav server
+     * Copy a directory from local system to remote webdav server, with up to
+     * {@link #getPutDirectoryParallelism()} connections.
      *
      * @param sourceDirectory      the local directory
      * @param destinationDirectory the remote destination
@@ -177,22 +192,35 @@ public class WebDavWagon
     public void putDirectory( File sourceDirectory, String destinationDirectory )
         throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
     {
-        File[] listFiles = sourceDirectory.listFiles();
+        uploadDirectory( new DirectoryUpload( sourceDirectory, destinationDirectory ) );
+    }
 
-        for ( int i = 0; i < listFiles.length; i++ )
+    protected AbstractWagon createSiblingWagon()
+    {
+        WebDavWagon wagon = new WebDavWagon();
+        wagon.setHttpHeaders( getHttpHeaders() );
+        wagon.setHttpConfiguration( getHttpConfiguration() );
+        if ( configuredConnectionManager != null )
         {
-            if ( listFiles[i].isDirectory() )
-            {
-                putDirectory( listFiles[i], destinationDirectory + "/" + listFiles[i].getName() );
-            }
-            else
-            {
-                String target = destinationDirectory + "/" + listFiles[i].getName();
-
-                put( listFiles[i], target );
-            }
+            // the connections are bounded as configured for the repository
+            wagon.setConnectionManager( configuredConnectionManager );
+            wagon.sharedConnectionManager = true;
         }
+        return wagon;
+    }
+
+    public void setConnectionManager( HttpConnectionManager connectionManager )
+    {
+        super.setConnectionManager( connectionManager );
+        configuredConnectionManager = connectionManager;
+    }
 
+    public void closeConnection()
+    {
+        if ( !sharedConnectionManager )
+        {
+            super.closeConnection();
+        }
     }
 
     private boolean isDirectory( String url )
@@ -232,8 +260,7 @@ public class WebDavWagon
     public List<String> getFileList( String destinationDirectory )
         throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException
     {
-        String repositoryUrl = repository.getUrl();
-        String url = repositoryUrl + ( repositoryUrl.endsWith( "/" ) ? "" : "/" ) + destinationDirectory;
+        String url = ParsedUrl.parse( repository.getUrl() ).resolve( destinationDirectory );
 
         PropFindMethod method = null;
         try